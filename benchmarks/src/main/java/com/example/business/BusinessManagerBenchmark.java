@@ -0,0 +1,87 @@
+package com.example.business;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.data.BenchmarkFixtures;
+import com.example.data.ConnectionFactory;
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.model.Session;
+import com.example.model.Technique;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Benchmarks BusinessManager.saveSession and getSession end to end against an embedded H2 store.
+ * Saved sessions carry rolls without technique counts; see TechniqueLinkBenchmark for the link paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusinessManagerBenchmark {
+
+    @Param({ "6" })
+    public int rollsPerSession;
+
+    @Param({ "200" })
+    public int storedSessions;
+
+    private BusinessManager manager;
+    private List<Technique> techniques;
+    private List<Long> sessionIds;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ConnectionFactory db = EmbeddedDatabase.create("business-" + rollsPerSession + "-" + storedSessions);
+        manager = BusinessManager.builder(new DataProvider(db, new SimpleMeterRegistry())).registry(new SimpleMeterRegistry()).build();
+        random = new Random(42);
+
+        techniques = new ArrayList<>();
+        for (Technique t : BenchmarkFixtures.techniques(60)) {
+            t.setId(0);
+            techniques.add(manager.saveTechnique(t));
+        }
+
+        sessionIds = new ArrayList<>(storedSessions);
+        for (int i = 0; i < storedSessions; i++) {
+            sessionIds.add(manager.saveSession(BenchmarkFixtures.session(random, techniques, rollsPerSession, 0)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    public Session saveSession() throws SQLException {
+        return manager.saveSession(BenchmarkFixtures.session(random, techniques, rollsPerSession, 0));
+    }
+
+    @Benchmark
+    public Session getSession() throws SQLException {
+        return manager.getSession(sessionIds.get(random.nextInt(sessionIds.size())));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+
+/**
+ * Helper that builds deterministic model graphs for the benchmarks.
+ * Every benchmark builds its data from a fixed seed so results are comparable from commit to commit.
+ */
+public final class BenchmarkFixtures {
+
+    private static final String[] BELTS = { "White", "Blue", "Purple", "Brown", "Black" };
+    private static final String[] POSITIONS = { "Guard", "Mount", "Back", "Side Control", "Half Guard", "Leg Entanglement" };
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Build a list of techniques with ids 1..count (matching the ids an empty embedded database assigns on insert)
+     * @param count the number of techniques to build
+     * @return the list of techniques
+     */
+    public static List<Technique> techniques(int count) {
+        List<Technique> out = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            out.add(new Technique(i, "Technique " + i, POSITIONS[i % POSITIONS.length], i % 7, i % 5));
+        }
+        return out;
+    }
+
+    /**
+     * Build a session graph with the given number of rolls, each with the given number of subs and taps drawn from the techniques
+     * @param random the seeded random source
+     * @param techniques the techniques the counts reference
+     * @param rolls the number of rolls in the session
+     * @param countsPerRoll the number of subs (and of taps) per roll
+     * @return the session graph (all ids 0, ready to be saved)
+     */
+    public static Session session(Random random, List<Technique> techniques, int rolls, int countsPerRoll) {
+        Session s = new Session(0, LocalDate.of(2026, 1, 1).plusDays(random.nextInt(365)), LocalTime.of(18 + random.nextInt(3), 0),
+                random.nextBoolean(), "Coach " + random.nextInt(10), BELTS[random.nextInt(BELTS.length)], new ArrayList<>());
+        for (int i = 0; i < rolls; i++) {
+            Roll r = new Roll(0, 5 + random.nextInt(6), "Partner " + random.nextInt(50), 1 + random.nextInt(3), new ArrayList<>(), new ArrayList<>());
+            for (int j = 0; j < countsPerRoll && !techniques.isEmpty(); j++) {
+                r.getSubs().add(new TechniqueCount(0, techniques.get(random.nextInt(techniques.size())), 1 + random.nextInt(3)));
+                r.getTaps().add(new TechniqueCount(0, techniques.get(random.nextInt(techniques.size())), 1 + random.nextInt(3)));
+            }
+            s.addRoll(r);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Benchmarks DataProvider's row mappers (mapSession, mapRoll, mapTechnique).
+ * Each benchmark walks a pre-executed scrollable ResultSet, so the score is dominated by mapping and metrics bookkeeping, not query execution.
+ * Scores are rows mapped per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private DataProvider provider;
+    private Connection connection;
+    private ResultSet sessions;
+    private ResultSet rolls;
+    private ResultSet techniques;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ConnectionFactory db = EmbeddedDatabase.create("row-mapping");
+        provider = new DataProvider(db, new SimpleMeterRegistry());
+        connection = db.getConnection();
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO sessions (session_date, session_time, is_gi, instructor, currentBelt) VALUES (DATE '2026-01-01', TIME '19:00:00', TRUE, 'Coach', 'Blue')")) {
+            for (int i = 0; i < ROWS; i++) ps.addBatch();
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO rolls (session_id, length_minutes, partner, num_rounds) VALUES (1, 6, 'Partner', 2)")) {
+            for (int i = 0; i < ROWS; i++) ps.addBatch();
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO techniques (name, position, num_finishes, num_taps) VALUES ('Armbar', 'Guard', 3, 1)")) {
+            for (int i = 0; i < ROWS; i++) ps.addBatch();
+            ps.executeBatch();
+        }
+
+        sessions = scrollable("SELECT * FROM sessions");
+        rolls = scrollable("SELECT * FROM rolls");
+        techniques = scrollable("SELECT * FROM techniques");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapSession(Blackhole bh) throws SQLException {
+        sessions.beforeFirst();
+        while (sessions.next()) bh.consume(provider.mapSession(sessions));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapRoll(Blackhole bh) throws SQLException {
+        rolls.beforeFirst();
+        while (rolls.next()) bh.consume(provider.mapRoll(rolls));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapTechnique(Blackhole bh) throws SQLException {
+        techniques.beforeFirst();
+        while (techniques.next()) bh.consume(provider.mapTechnique(techniques));
+    }
+
+    private ResultSet scrollable(String sql) throws SQLException {
+        Statement st = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        return st.executeQuery(sql);
+    }
+}
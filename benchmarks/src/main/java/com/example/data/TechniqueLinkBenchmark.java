@@ -0,0 +1,108 @@
+package com.example.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.model.Roll;
+import com.example.model.Technique;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Benchmarks technique-link aggregation: accumulating technique counts on a Roll (incrementSub/incrementTap)
+ * and hydrating a roll's technique links from the roll_technique_links table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TechniqueLinkBenchmark {
+
+    @Param({ "20" })
+    public int linksPerRoll;
+
+    @Param({ "200" })
+    public int increments;
+
+    private DataProvider provider;
+    private List<Technique> techniques;
+    private int[] picks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        ConnectionFactory db = EmbeddedDatabase.create("technique-links-" + linksPerRoll);
+        provider = new DataProvider(db, new SimpleMeterRegistry());
+        techniques = BenchmarkFixtures.techniques(Math.max(linksPerRoll, 60));
+
+        try (Connection c = db.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO techniques (name, position, num_finishes, num_taps) VALUES (?, ?, ?, ?)")) {
+                for (Technique t : techniques) {
+                    ps.setString(1, t.getName());
+                    ps.setString(2, t.getPosition());
+                    ps.setInt(3, t.getNumFinishes());
+                    ps.setInt(4, t.getNumTaps());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = c.prepareStatement(
+                    "INSERT INTO sessions (session_date, session_time, is_gi, instructor, currentBelt) VALUES (DATE '2026-01-01', TIME '19:00:00', TRUE, 'Coach', 'Blue')")) {
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO rolls (session_id, length_minutes, partner, num_rounds) VALUES (1, 6, 'Partner', 2)")) {
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count) VALUES (1, ?, ?, ?)")) {
+                for (int i = 1; i <= linksPerRoll; i++) {
+                    ps.setLong(1, i);
+                    ps.setInt(2, 1 + i % 3);
+                    ps.setInt(3, i % 2);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        // skewed technique choices: a handful of techniques account for most taps, as on the mat
+        Random random = new Random(42);
+        picks = new int[increments];
+        for (int i = 0; i < increments; i++) {
+            picks[i] = (int) Math.floor(techniques.size() * Math.pow(random.nextDouble(), 3));
+        }
+    }
+
+    @Benchmark
+    public Roll aggregateIncrements() {
+        Roll r = new Roll();
+        for (int i = 0; i < picks.length; i++) {
+            Technique t = techniques.get(picks[i]);
+            if ((i & 1) == 0) r.incrementSub(t, 1);
+            else r.incrementTap(t, 1);
+        }
+        return r;
+    }
+
+    @Benchmark
+    public Roll hydrateRollLinks() throws SQLException {
+        return provider.getRoll(1);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.data.BenchmarkFixtures;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Benchmarks Jackson serialization of large Session graphs, the shape returned by GET /api/sessions.
+ * The ObjectMapper is configured the way Spring Boot configures it (java.time support, ISO dates).
+ * The compact variants serialize the same graph held as CompactSessions over a shared TechniqueDictionary, which produce identical JSON.
+ * Scores are microseconds per serialized list; run with -prof gc to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionSerializationBenchmark {
+
+    @Param({ "10", "500" })
+    public int sessions;
+
+    @Param({ "6" })
+    public int rollsPerSession;
+
+    @Param({ "3" })
+    public int countsPerRoll;
+
+    private ObjectMapper mapper;
+    private List<Session> graph;
+    private List<CompactSession> compactGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        Random random = new Random(42);
+        List<Technique> techniques = BenchmarkFixtures.techniques(60);
+        graph = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            Session s = BenchmarkFixtures.session(random, techniques, rollsPerSession, countsPerRoll);
+            s.setId(i + 1);
+            graph.add(s);
+        }
+        compactGraph = toCompact();
+    }
+
+    @Benchmark
+    public byte[] serializeSessions() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(graph);
+    }
+
+    @Benchmark
+    public byte[] serializeCompactSessions() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(compactGraph);
+    }
+
+    @Benchmark
+    public List<CompactSession> toCompact() {
+        TechniqueDictionary dictionary = new TechniqueDictionary();
+        List<CompactSession> out = new ArrayList<>(graph.size());
+        for (Session s : graph) out.add(CompactSession.of(s, dictionary));
+        return out;
+    }
+}
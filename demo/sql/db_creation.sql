@@ -12,7 +12,12 @@ CREATE TABLE IF NOT EXISTS techniques (
   position VARCHAR(255),
   num_finishes INT DEFAULT 0,
   num_taps INT DEFAULT 0,
-  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  version BIGINT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at TIMESTAMP NULL,
+  INDEX ix_deleted_at (deleted_at),
+  INDEX ix_tenant (tenant_id)
 );
 
 -- Sessions table
@@ -23,7 +28,12 @@ CREATE TABLE IF NOT EXISTS sessions (
   is_gi BOOLEAN DEFAULT TRUE,
   instructor VARCHAR(255),
   currentBelt VARCHAR(50),
-  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  version BIGINT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at TIMESTAMP NULL,
+  INDEX ix_deleted_at (deleted_at),
+  INDEX ix_tenant_date (tenant_id, session_date)
 );
 
 -- Rolls table
@@ -33,19 +43,57 @@ CREATE TABLE IF NOT EXISTS rolls (
   length_minutes INT,
   partner VARCHAR(255),
   num_rounds INT,
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  version BIGINT NOT NULL DEFAULT 0,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at TIMESTAMP NULL,
+  INDEX ix_deleted_at (deleted_at),
+  INDEX ix_tenant_created (tenant_id, created_at),
   FOREIGN KEY (session_id) REFERENCES sessions(id) ON DELETE CASCADE
 );
 
--- THIS OBJECT/FEATURE IS CURRENTLY DISABLED.
--- Link table between rolls and techniques with counters for subs and taps
--- CREATE TABLE IF NOT EXISTS roll_technique_links (
---   id BIGINT AUTO_INCREMENT PRIMARY KEY,
---   roll_id BIGINT NOT NULL,
---   technique_id BIGINT NOT NULL,
---   count INT DEFAULT 0,
---   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
---   UNIQUE KEY ux_roll_technique (roll_id, technique_id),
---   FOREIGN KEY (roll_id) REFERENCES rolls(id) ON DELETE CASCADE,
---   FOREIGN KEY (technique_id) REFERENCES techniques(id) ON DELETE CASCADE
--- );
+-- Link table between rolls and techniques: one row per (roll, technique) holding both the sub and the tap count.
+-- The primary key clusters a roll's links together, so reading them is one range scan that never leaves the index.
+CREATE TABLE IF NOT EXISTS roll_technique_links (
+  roll_id BIGINT NOT NULL,
+  technique_id BIGINT NOT NULL,
+  sub_count INT NOT NULL DEFAULT 0,
+  tap_count INT NOT NULL DEFAULT 0,
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (roll_id, technique_id),
+  INDEX ix_technique (technique_id),
+  INDEX ix_tenant (tenant_id),
+  FOREIGN KEY (roll_id) REFERENCES rolls(id) ON DELETE CASCADE,
+  FOREIGN KEY (technique_id) REFERENCES techniques(id) ON DELETE CASCADE
+);
+
+-- Tenant placements that override the consistent-hash ring (moved or pinned tenants); only read on the first shard
+CREATE TABLE IF NOT EXISTS tenant_placements (
+  tenant_id VARCHAR(64) PRIMARY KEY,
+  shard VARCHAR(64) NOT NULL,
+  moving BOOLEAN NOT NULL DEFAULT FALSE,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Dashboard summary of each tenant as named running totals (sessions, mat minutes, rolls per month, subs and taps per technique).
+-- Saves and deletes add deltas to it; a periodic reconciliation rebuilds it from the tables above.
+CREATE TABLE IF NOT EXISTS summary_counters (
+  tenant_id VARCHAR(64) NOT NULL,
+  counter VARCHAR(64) NOT NULL,
+  amount BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (tenant_id, counter)
+);
+
+-- Invalidations published by each API node after its commits, polled by the other nodes to re-read what they cache.
+-- Rows are short-lived: every node deletes those older than bjj.invalidation.change-log-retention-ms.
+CREATE TABLE IF NOT EXISTS change_log (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  tenant_id VARCHAR(64) NOT NULL,
+  entity VARCHAR(16) NOT NULL,
+  entity_id BIGINT NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  node VARCHAR(128) NOT NULL,
+  committed_at TIMESTAMP(3) NOT NULL,
+  INDEX ix_committed (committed_at)
+);
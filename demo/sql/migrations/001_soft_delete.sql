@@ -0,0 +1,7 @@
+-- Adds the soft-delete tombstone columns to an existing bjj_progress_tracker database.
+-- Deletes set deleted_at; the background purger removes tombstoned rows and their links later.
+USE bjj_progress_tracker;
+
+ALTER TABLE techniques ADD COLUMN deleted_at TIMESTAMP NULL, ADD INDEX ix_deleted_at (deleted_at);
+ALTER TABLE sessions ADD COLUMN deleted_at TIMESTAMP NULL, ADD INDEX ix_deleted_at (deleted_at);
+ALTER TABLE rolls ADD COLUMN deleted_at TIMESTAMP NULL, ADD INDEX ix_deleted_at (deleted_at);
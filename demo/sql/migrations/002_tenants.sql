@@ -0,0 +1,17 @@
+-- Adds the tenant key to an existing bjj_progress_tracker database. Existing rows belong to the 'default' tenant.
+-- Run on every shard. Give each shard its own id range so tenants can be moved between shards with their ids:
+-- shard N (0-based) starts every AUTO_INCREMENT at N * 1000000000000 + 1, e.g. for the second shard
+--   ALTER TABLE techniques AUTO_INCREMENT = 1000000000001; (and the same for sessions and rolls)
+USE bjj_progress_tracker;
+
+ALTER TABLE techniques ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default', ADD INDEX ix_tenant (tenant_id);
+ALTER TABLE sessions ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default', ADD INDEX ix_tenant_date (tenant_id, session_date);
+ALTER TABLE rolls ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default', ADD INDEX ix_tenant_created (tenant_id, created_at);
+ALTER TABLE roll_technique_links ADD COLUMN tenant_id VARCHAR(64) NOT NULL DEFAULT 'default', ADD INDEX ix_tenant (tenant_id);
+
+CREATE TABLE IF NOT EXISTS tenant_placements (
+  tenant_id VARCHAR(64) PRIMARY KEY,
+  shard VARCHAR(64) NOT NULL,
+  moving BOOLEAN NOT NULL DEFAULT FALSE,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
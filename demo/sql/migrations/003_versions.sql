@@ -0,0 +1,7 @@
+-- Adds the optimistic concurrency version to an existing bjj_progress_tracker database (run on every shard).
+-- Updates compare and increment it (UPDATE ... WHERE id = ? AND version = ?); a stale version is answered with 409 Conflict.
+USE bjj_progress_tracker;
+
+ALTER TABLE techniques ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE sessions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE rolls ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
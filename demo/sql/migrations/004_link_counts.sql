@@ -0,0 +1,24 @@
+-- Rebuilds roll_technique_links of an existing bjj_progress_tracker database (run on every shard) as one row per (roll, technique)
+-- with separate sub and tap counts, keyed and clustered by (roll_id, technique_id). The old single count was read back as subs,
+-- so it becomes sub_count. A database that never had the link table only needs the CREATE TABLE (named roll_technique_links).
+USE bjj_progress_tracker;
+
+CREATE TABLE roll_technique_links_v2 (
+  roll_id BIGINT NOT NULL,
+  technique_id BIGINT NOT NULL,
+  sub_count INT NOT NULL DEFAULT 0,
+  tap_count INT NOT NULL DEFAULT 0,
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (roll_id, technique_id),
+  INDEX ix_technique (technique_id),
+  INDEX ix_tenant (tenant_id),
+  FOREIGN KEY (roll_id) REFERENCES rolls(id) ON DELETE CASCADE,
+  FOREIGN KEY (technique_id) REFERENCES techniques(id) ON DELETE CASCADE
+);
+
+INSERT INTO roll_technique_links_v2 (roll_id, technique_id, sub_count, tap_count, tenant_id, created_at)
+SELECT roll_id, technique_id, GREATEST(count, 0), 0, tenant_id, created_at FROM roll_technique_links;
+
+RENAME TABLE roll_technique_links TO roll_technique_links_old, roll_technique_links_v2 TO roll_technique_links;
+DROP TABLE roll_technique_links_old;
@@ -0,0 +1,10 @@
+-- Adds the incrementally maintained dashboard summary to an existing bjj_progress_tracker database (run on every shard).
+-- The table starts empty; each tenant's counters are computed from its sessions, rolls and links on first read of /api/summary.
+USE bjj_progress_tracker;
+
+CREATE TABLE IF NOT EXISTS summary_counters (
+  tenant_id VARCHAR(64) NOT NULL,
+  counter VARCHAR(64) NOT NULL,
+  amount BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (tenant_id, counter)
+);
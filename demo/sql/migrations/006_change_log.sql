@@ -0,0 +1,14 @@
+-- Adds the change log that carries cache invalidations between API nodes to an existing bjj_progress_tracker database
+-- (run on every shard). Only needed with bjj.invalidation.enabled=true and the default change-log transport.
+USE bjj_progress_tracker;
+
+CREATE TABLE IF NOT EXISTS change_log (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  tenant_id VARCHAR(64) NOT NULL,
+  entity VARCHAR(16) NOT NULL,
+  entity_id BIGINT NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  node VARCHAR(128) NOT NULL,
+  committed_at TIMESTAMP(3) NOT NULL,
+  INDEX ix_committed (committed_at)
+);
@@ -197,85 +197,84 @@ INSERT INTO rolls (session_id, length_minutes, partner, num_rounds) VALUES
 (33,300,'Partner 3',3);
 
 -- ----------------------------------------------------
--- THIS FEATURE/OBJECT IS CURRENTLY DISABLED.
 -- 75 roll_technique_links (one per roll)
--- technique_id cycles 1..50; subs_count = i % 4; taps_count = i % 3
+-- technique_id cycles 1..49; sub_count and tap_count per roll
 -- ----------------------------------------------------
--- INSERT INTO roll_technique_links (roll_id, technique_id, count) VALUES
--- (1,1,1),
--- (2,2,2),
--- (3,3,3),
--- (4,4,0),
--- (5,5,1),
--- (6,6,2),
--- (7,7,3),
--- (8,8,0),
--- (9,9,1),
--- (10,10,1),
--- (11,11,2),
--- (12,12,0),
--- (13,13,1),
--- (14,14,2),
--- (15,15,0),
--- (16,16,1),
--- (17,17,2),
--- (18,18,0),
--- (19,19,1),
--- (20,20,2),
--- (21,21,0),
--- (22,22,1),
--- (23,23,2),
--- (24,24,0),
--- (25,25,1),
--- (26,26,2),
--- (27,27,0),
--- (28,28,1),
--- (29,29,2),
--- (30,30,0),
--- (31,31,1),
--- (32,32,2),
--- (33,33,0),
--- (34,34,1),
--- (35,35,2),
--- (36,36,0),
--- (37,37,1),
--- (38,38,2),
--- (39,39,0),
--- (40,40,1),
--- (41,41,2),
--- (42,42,0),
--- (43,43,1),
--- (44,44,2),
--- (45,45,0),
--- (46,46,1),
--- (47,47,2),
--- (48,48,0),
--- (49,49,1),
--- (50,50,2),
--- (51,1,0),
--- (52,2,1),
--- (53,3,2),
--- (54,4,0),
--- (55,5,1),
--- (56,6,2),
--- (57,7,0),
--- (58,8,1),
--- (59,9,2),
--- (60,10,0),
--- (61,11,1),
--- (62,12,2),
--- (63,13,0),
--- (64,14,1),
--- (65,15,2),
--- (66,16,0),
--- (67,17,1),
--- (68,18,2),
--- (69,19,0),
--- (70,20,1),
--- (71,21,2),
--- (72,22,0),
--- (73,23,1),
--- (74,24,2),
--- (75,25,0);
+INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count) VALUES
+(1,1,1,1),
+(2,2,2,2),
+(3,3,3,0),
+(4,4,0,1),
+(5,5,1,2),
+(6,6,2,0),
+(7,7,3,1),
+(8,8,0,2),
+(9,9,1,0),
+(10,10,1,1),
+(11,11,2,2),
+(12,12,0,0),
+(13,13,1,1),
+(14,14,2,2),
+(15,15,0,0),
+(16,16,1,1),
+(17,17,2,2),
+(18,18,0,0),
+(19,19,1,1),
+(20,20,2,2),
+(21,21,0,0),
+(22,22,1,1),
+(23,23,2,2),
+(24,24,0,0),
+(25,25,1,1),
+(26,26,2,2),
+(27,27,0,0),
+(28,28,1,1),
+(29,29,2,2),
+(30,30,0,0),
+(31,31,1,1),
+(32,32,2,2),
+(33,33,0,0),
+(34,34,1,1),
+(35,35,2,2),
+(36,36,0,0),
+(37,37,1,1),
+(38,38,2,2),
+(39,39,0,0),
+(40,40,1,1),
+(41,41,2,2),
+(42,42,0,0),
+(43,43,1,1),
+(44,44,2,2),
+(45,45,0,0),
+(46,46,1,1),
+(47,47,2,2),
+(48,48,0,0),
+(49,49,1,1),
+(50,1,2,2),
+(51,2,0,0),
+(52,3,1,1),
+(53,4,2,2),
+(54,5,0,0),
+(55,6,1,1),
+(56,7,2,2),
+(57,8,0,0),
+(58,9,1,1),
+(59,10,2,2),
+(60,11,0,0),
+(61,12,1,1),
+(62,13,2,2),
+(63,14,0,0),
+(64,15,1,1),
+(65,16,2,2),
+(66,17,0,0),
+(67,18,1,1),
+(68,19,2,2),
+(69,20,0,0),
+(70,21,1,1),
+(71,22,2,2),
+(72,23,0,0),
+(73,24,1,1),
+(74,25,2,2),
+(75,26,0,0);
 
 -- End of script
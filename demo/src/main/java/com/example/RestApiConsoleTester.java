@@ -1,5 +1,8 @@
 package com.example;
 
+import com.example.load.LoadConfig;
+import com.example.load.LoadGenerator;
+import com.example.load.LoadReport;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -9,6 +12,11 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
+/**
+ * Console driver for the REST API.
+ * With no arguments (or --name=value options, see LoadConfig) it runs a concurrent load test and writes a JSON latency report.
+ * With --smoke it runs the sequential create/update/delete checks against each endpoint.
+ */
 public class RestApiConsoleTester {
 
     private static final String BASE_URL = "http://localhost:8080/api";
@@ -16,6 +24,24 @@ public class RestApiConsoleTester {
     private static final ObjectMapper mapper = new ObjectMapper();
 
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--smoke")) {
+            runSmokeChecks();
+            return;
+        }
+
+        LoadConfig config = LoadConfig.parse(args);
+        System.out.println("========== LOAD TEST ==========");
+        System.out.println(config);
+        LoadReport report = new LoadGenerator(config).run();
+        report.printSummary();
+        report.write(config.getReportPath());
+        System.out.println("\nReport written to " + config.getReportPath());
+    }
+
+    // =============================
+    // Smoke checks
+    // =============================
+    private static void runSmokeChecks() throws Exception {
         System.out.println("========== TESTING TECHNIQUE ==========");
         testTechnique();
 
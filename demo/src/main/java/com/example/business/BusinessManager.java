@@ -1,36 +1,194 @@
 package com.example.business;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.example.data.DataProvider;
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
+import com.example.data.RollDiff;
+import com.example.data.SummaryCounters;
+import com.example.data.TenantSummary;
+import com.example.data.UnitOfWork;
+import com.example.data.VersionConflictException;
+import com.example.metrics.SqlOperation;
 import com.example.model.Roll;
 import com.example.model.Session;
 import com.example.model.Technique;
 import com.example.model.TechniqueCount;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * The BusinessManager class serves as the main service layer for the BJJ Progress Tracker application, 
  * providing methods to perform CRUD operations on the core entities: Technique, TechniqueCount, Roll, and Session.
  * It interacts with a DataProvider to persist and retrieve data from the underlying database, ensuring that business logic and data access are properly separated.
  * The BusinessManager handles the complexities of saving and deleting entities, including managing relationships between them
  * (e.g., ensuring that when a Roll is deleted, its associated TechniqueCounts are also handled appropriately).
+ * When the {@link ReadModel} is enabled, reads are served from memory and every save and delete is reported to it after it commits.
+ * Reads that go to the database pass through a {@link SingleFlight}, which lets identical concurrent reads share one query.
  */
 @Service
 public class BusinessManager {
 
     private final DataProvider provider;
+    private final MeterRegistry registry;
+    private final LiveTechniqueCounters live;
+    private final DashboardSummaries summaries;
+    private final ReadModel readModel;
+    private final SingleFlight flights;
+    private final Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>()); // collaborators a Builder created
+
+    // the session row alone, and the session with its rolls but not their counts, for computing summary deltas
+    private static final Projection SESSION_ROW = Projection.of("", null, Projection.SESSION_LEVELS);
+    private static final Projection SESSION_ROLLS = Projection.of("rolls", null, Projection.SESSION_LEVELS);
 
     /**
      * Constructor for BusinessManager
      * @param provider the DataProvider instance that the BusinessManager will use to interact with the database.
+     * @param registry the MeterRegistry that save and delete timers will be published to
+     * @param live the in-memory counters live technique count increments are accumulated in; reads merge their pending increments
+     * @param summaries the dashboard summaries every save and delete passes its change to
+     * @param readModel the read model reads are served from when it is enabled, and every save and delete is reported to
+     * @param flights the single-flight layer reads that go to the database pass through
      */
-    public BusinessManager(DataProvider provider) {
+    @Autowired
+    public BusinessManager(DataProvider provider, MeterRegistry registry, LiveTechniqueCounters live, DashboardSummaries summaries,
+                           ReadModel readModel, SingleFlight flights) {
         this.provider = Objects.requireNonNull(provider);
+        this.registry = Objects.requireNonNull(registry);
+        this.live = Objects.requireNonNull(live);
+        this.summaries = Objects.requireNonNull(summaries);
+        this.readModel = Objects.requireNonNull(readModel);
+        this.flights = Objects.requireNonNull(flights);
+    }
+
+    /**
+     * Create a builder for a BusinessManager outside of the Spring context, as tests, benchmarks and tools need. Collaborators that
+     * are not given are created with their default settings (no read model, no single-flight, the global registry) and belong to the
+     * built manager, which must be shut down to flush and stop them.
+     * @param provider the DataProvider instance that the BusinessManager will use to interact with the database.
+     * @return the builder
+     */
+    public static Builder builder(DataProvider provider) {
+        return new Builder(provider);
+    }
+
+    /**
+     * Shut down the collaborators the builder created for this manager, flushing their pending changes. Collaborators that were
+     * given to the builder, or injected by Spring, are shut down by their owner.
+     * @throws InterruptedException if interrupted while waiting for the live counters' flush
+     */
+    public void shutdown() throws InterruptedException {
+        if (owned.contains(live)) live.shutdown();
+        if (owned.contains(summaries)) summaries.shutdown();
+        if (owned.contains(readModel)) readModel.shutdown();
+    }
+
+    /**
+     * The Builder class assembles a BusinessManager from the collaborators it is given, creating the others
+     */
+    public static final class Builder {
+
+        private final DataProvider provider;
+        private MeterRegistry registry = Metrics.globalRegistry;
+        private LiveTechniqueCounters live;
+        private DashboardSummaries summaries;
+        private ReadModel readModel;
+        private SingleFlight flights;
+
+        private Builder(DataProvider provider) {
+            this.provider = Objects.requireNonNull(provider);
+        }
+
+        /**
+         * Set the registry save and delete timers, and the metrics of created collaborators, are published to
+         * @param registry the MeterRegistry
+         * @return this builder
+         */
+        public Builder registry(MeterRegistry registry) {
+            this.registry = Objects.requireNonNull(registry);
+            return this;
+        }
+
+        /**
+         * Set the live technique counters
+         * @param live the in-memory counters live technique count increments are accumulated in
+         * @return this builder
+         */
+        public Builder live(LiveTechniqueCounters live) {
+            this.live = live;
+            return this;
+        }
+
+        /**
+         * Set the dashboard summaries; they must have been created with the same live counters
+         * @param summaries the dashboard summaries every save and delete passes its change to
+         * @return this builder
+         */
+        public Builder summaries(DashboardSummaries summaries) {
+            this.summaries = summaries;
+            return this;
+        }
+
+        /**
+         * Set the read model; it must have been created with the same live counters
+         * @param readModel the read model reads are served from when it is enabled
+         * @return this builder
+         */
+        public Builder readModel(ReadModel readModel) {
+            this.readModel = readModel;
+            return this;
+        }
+
+        /**
+         * Set the single-flight layer
+         * @param flights the single-flight layer reads that go to the database pass through
+         * @return this builder
+         */
+        public Builder flights(SingleFlight flights) {
+            this.flights = flights;
+            return this;
+        }
+
+        /**
+         * Build the BusinessManager, creating the collaborators that were not given
+         * @return the BusinessManager
+         */
+        public BusinessManager build() {
+            List<Object> created = new ArrayList<>();
+            LiveTechniqueCounters live = this.live != null ? this.live : add(created, new LiveTechniqueCounters(provider, registry, 500));
+            DashboardSummaries summaries = this.summaries != null ? this.summaries : add(created, new DashboardSummaries(provider, registry, live));
+            ReadModel readModel = this.readModel != null ? this.readModel
+                    : add(created, new ReadModel(provider, registry, live, InvalidationBus.disabled(registry), false, ""));
+            SingleFlight flights = this.flights != null ? this.flights : SingleFlight.disabled(registry);
+            BusinessManager manager = new BusinessManager(provider, registry, live, summaries, readModel, flights);
+            manager.owned.addAll(created);
+            return manager;
+        }
+
+        private static <T> T add(List<Object> created, T collaborator) {
+            created.add(collaborator);
+            return collaborator;
+        }
     }
 
     // ======================================================================================================================================
@@ -40,32 +198,87 @@ public class BusinessManager {
     /**
      * Save a Session object to the database. If the Session has an id of 0, it will be treated as a new record and inserted; otherwise, it will be treated as an existing record and updated. 
      * The method also handles saving any nested Rolls (and their associated TechniqueCounts) associated with the Session, ensuring that they are saved and linked properly. The method returns the saved Session object with its id field populated (for new records) or unchanged (for updates).
+     * The session, its rolls, their links and new techniques are written in one transaction; the dashboard summary and the read model are updated after it commits.
      * @param s the Session object to be saved
      * @return the saved Session object with its id field populated (for new records) or unchanged (for updates)
+     * @throws VersionConflictException if an update is based on a version of the session that is no longer the stored one
      * @throws SQLException if there is an error during database access
      */
     public Session saveSession(Session s) throws SQLException {
-        if (s == null) throw new IllegalArgumentException("Session is null");
-
-        // Save nested rolls first so they can be referenced by session (if session stores roll ids)
-        if (s.getRolls() != null) {
-            List<Roll> newRolls = new ArrayList<>();
-            for (Roll r : s.getRolls()) {
-                Roll saved = saveRoll(s.getId(), r);
-                newRolls.add(saved);
+        return timed("save", "session", () -> {
+            if (s == null) throw new IllegalArgumentException("Session is null");
+            SummaryCounters delta = new SummaryCounters();
+            writeSession(s, delta);
+            summaries.apply(delta);
+            readModel.changed(ReadModel.Change.ofSession(s));
+            return s;
+        });
+    }
+
+    /**
+     * Helper method to insert or update a Session and its nested Rolls, with their links and new techniques, in one transaction,
+     * adding what they changed in the dashboard summary to a delta once the write has committed. The session row and the existing
+     * rolls the write replaces are read first, to diff the rolls against and to compute the delta from, so only an update that moves
+     * the session to another month reads more than that.
+     */
+    private void writeSession(Session s, SummaryCounters delta) throws SQLException {
+        if (s.getRolls() == null) s.setRolls(new ArrayList<>());
+        List<Roll> rolls = s.getRolls();
+
+        Session stored = null;
+        if (s.getId() != 0) {
+            stored = provider.onPrimary(() -> provider.getSession(s.getId(), SESSION_ROW));
+            if (stored == null) throw new RuntimeException("Failed to update Session with id " + s.getId());
+        }
+
+        // Diff the existing rolls against their stored state, read in one batch; new rolls are inserted as they are
+        List<Roll> newRolls = new ArrayList<>();
+        List<Long> existing = new ArrayList<>();
+        for (Roll r : rolls) {
+            if (r.getId() == 0) newRolls.add(r);
+            else existing.add(r.getId());
+        }
+        Map<Long, Roll> storedRolls = existing.isEmpty() ? Map.of() : provider.onPrimary(() -> provider.getRollsByIds(existing));
+        List<RollDiff> diffs = new ArrayList<>();
+        for (Roll r : rolls) {
+            if (r.getId() == 0) continue;
+            Roll storedRoll = storedRolls.get(r.getId());
+            if (storedRoll == null) throw new RuntimeException("Failed to update Roll with id " + r.getId());
+            if (storedRoll.getVersion() != r.getVersion()) {
+                throw new VersionConflictException("roll", r.getId(), r.getVersion(), storedRoll.getVersion());
             }
-            s.setRolls(newRolls);
+            diffs.add(RollDiff.between(storedRoll, r));
         }
 
-        if (s.getId() == 0) {
-            long newId = provider.saveSession(s);
-            s.setId(newId);
-        } else {
-            boolean ok = provider.updateSession(s);
-            if (!ok) throw new RuntimeException("Failed to update Session with id " + s.getId());
+        // the rolls already stored move to the new month with their session
+        int moved = 0;
+        if (stored != null && !YearMonth.from(stored.getDate()).equals(YearMonth.from(s.getDate()))) {
+            Session withRolls = provider.onPrimary(() -> provider.getSession(s.getId(), SESSION_ROLLS));
+            moved = withRolls == null ? 0 : withRolls.getRolls().size();
         }
 
-        return s;
+        if (!provider.writeSession(s, newTechniques(rolls), diffs)) {
+            throw new RuntimeException("Failed to update Session with id " + s.getId());
+        }
+
+        // committed; the update matched the stored versions, so stored and storedRolls are the rows it replaced
+        if (stored == null) {
+            delta.add(SummaryCounters.SESSIONS, 1);
+            if (s.isGi()) delta.add(SummaryCounters.GI_SESSIONS, 1);
+        } else {
+            if (stored.isGi() != s.isGi()) delta.add(SummaryCounters.GI_SESSIONS, s.isGi() ? 1 : -1);
+            delta.add(SummaryCounters.rollsIn(YearMonth.from(stored.getDate())), -moved);
+            delta.add(SummaryCounters.rollsIn(YearMonth.from(s.getDate())), moved);
+        }
+        for (Roll r : newRolls) delta.add(r, s.getDate(), 1);
+        for (RollDiff d : diffs) {
+            delta.add(storedRolls.get(d.getRoll().getId()), null, -1);
+            delta.add(d.getRoll(), null, 1);
+        }
+        for (Roll r : rolls) {
+            setRollId(r.getSubs(), r.getId());
+            setRollId(r.getTaps(), r.getId());
+        }
     }
 
     /**
@@ -75,7 +288,7 @@ public class BusinessManager {
      * @throws SQLException if there is an error during database access
      */ 
     public Session getSession(long id) throws SQLException {
-        return provider.getSession(id);
+        return live.readMerged(() -> readModel.read(m -> m.session(id), () -> flights.load("getSession", List.of(id), () -> provider.getSession(id), Copies::session)), this::mergePending);
     }
 
     /**
@@ -84,31 +297,62 @@ public class BusinessManager {
      * @throws SQLException if there is an error during database access
      */
     public List<Session> getSessions() throws SQLException {
-        return provider.getSessions();
+        return live.readMerged(() -> readModel.read(m -> m.sessions(), () -> flights.load("getSessions", List.of(), provider::getSessions, Copies::sessions)), sessions -> mergePending(sessions, true));
+    }
+
+    /**
+     * Retrieve a Session with only the parts of its graph a projection asks for; the levels it does not load are never read from
+     * the database. Reads served by the read model return the whole graph, which costs no query.
+     * @param id the id of the Session to be retrieved
+     * @param p the projection over {@link Projection#SESSION_LEVELS}
+     * @return the Session object if found, or null if no record with the given id exists
+     * @throws SQLException if there is an error during database access
+     */
+    public Session getSession(long id, Projection p) throws SQLException {
+        if (p.isAll()) return getSession(id);
+        return live.readMerged(() -> readModel.read(m -> m.session(id),
+                                   () -> flights.load("getSession", List.of(id, p), () -> provider.getSession(id, p), Copies::session)),
+                               s -> mergePending(List.of(s), p));
     }
 
     /**
-     * Delete a Session from the database by its id. The method returns true if the deletion was successful, or false if no record with the given id was found.
-     * Note: if the Session is referenced by other tables, database cascade rules or checks will apply, which may prevent deletion or cause related records to be deleted as well.
+     * Retrieve all Sessions with only the parts of their graphs a projection asks for, e.g. the session headers of a list view
+     * @param p the projection over {@link Projection#SESSION_LEVELS}
+     * @return a list of Session objects
+     * @throws SQLException if there is an error during database access
+     */
+    public List<Session> getSessions(Projection p) throws SQLException {
+        if (p.isAll()) return getSessions();
+        return live.readMerged(() -> readModel.read(m -> m.sessions(),
+                                   () -> flights.load("getSessions", List.of(p), () -> provider.getSessions(p), Copies::sessions)), sessions -> mergePending(sessions, p));
+    }
+
+    /**
+     * Retrieve several Sessions by id, with a few batched queries instead of one read per Session.
+     * @param ids the ids of the Sessions to be retrieved
+     * @return the Sessions found in the order of ids, and the ids that were not found
+     * @throws SQLException if there is an error during database access
+     */
+    public MultiGetResult<Session> getSessions(List<Long> ids) throws SQLException {
+        Map<Long, Session> found = live.readMerged(() -> readModel.read(m -> m.sessions(ids), () -> flights.load("getSessionsByIds", ids, () -> provider.getSessionsByIds(ids), Copies::sessions)), sessions -> mergePending(sessions.values(), true));
+        return MultiGetResult.of(ids, found);
+    }
+
+    /**
+     * Delete a Session by its id. The Session is soft-deleted with a single-row update and disappears from reads, together with its Rolls,
+     * immediately; the rows and their TechniqueCounts are purged in the background by the TombstonePurger.
      * @param id the id of the Session to be deleted
-     * @return true if the deletion was successful, or false if no record with the given id was found
+     * @return one session deleted; DeleteResult.deleted() is false if no record with the given id was found
      * @throws SQLException if there is an error during database access
      */
-    public boolean deleteSession(long id) throws SQLException {
-        // Best-effort: delete rolls associated with this session first (if they are not reused elsewhere)
-        try {
-            Session existing = provider.getSession(id);
-            if (existing != null && existing.getRolls() != null) {
-                for (Roll r : existing.getRolls()) {
-                    if (r != null && r.getId() != 0) {
-                        deleteRoll(r.getId());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // ignore and attempt delete; DB cascade may handle this
-        }
-        return provider.deleteSession(id);
+    public DeleteResult deleteSession(long id) throws SQLException {
+        return timed("delete", "session", () -> {
+            SummaryCounters delta = new SummaryCounters();
+            DeleteResult result = provider.deleteSession(id, delta);
+            summaries.apply(delta);
+            readModel.changed(ReadModel.Change.ofSessionId(id));
+            return result;
+        });
     }
 
     // ======================================================================================================================================
@@ -118,40 +362,60 @@ public class BusinessManager {
     /**
      * Save a Roll object to the database. If the Roll has an id of 0, it will be treated as a new record and inserted; otherwise, it will be treated as an existing record and updated.
      * The method also handles saving any nested TechniqueCounts (subs and taps) associated with the Roll, ensuring that they are saved and linked properly. The method returns the saved Roll object with its id field populated (for new records) or unchanged (for updates).
+     * Updates are diffed against the stored roll, so only changed columns, links and techniques are written, in a single transaction.
+     * An update must carry the version the roll was read at; the saved Roll carries the new version.
      * @param r the Roll object to be saved
      * @return the saved Roll object
+     * @throws VersionConflictException if the roll (or a technique edited with it) was updated by someone else since it was read
      * @throws SQLException if there is an error during database access
      */
     public Roll saveRoll(long sessionId, Roll r) throws SQLException {
-        if (r == null) throw new IllegalArgumentException("Roll is null");
-
-        // Save nested TechniqueCounts (subs and taps). 
-        // Each TechniqueCount will ensure its Technique is saved.
-        if (r.getSubs() != null) {
-            List<TechniqueCount> newSubs = new ArrayList<>();
-            for (TechniqueCount tc : r.getSubs()) {
-                TechniqueCount saved = saveTechniqueCount(tc);
-                newSubs.add(saved);
+        return timed("save", "roll", () -> {
+            if (r == null) throw new IllegalArgumentException("Roll is null");
+            // a new roll is counted in the month of its session; an update leaves the roll in its month
+            LocalDate sessionDate = null;
+            if (r.getId() == 0) {
+                Session session = provider.onPrimary(() -> provider.getSession(sessionId, SESSION_ROW));
+                if (session != null) sessionDate = session.getDate();
             }
-            r.setSubs(newSubs);
-        }
+            SummaryCounters delta = new SummaryCounters();
+            writeRoll(sessionId, sessionDate, r, delta);
+            summaries.apply(delta);
+            readModel.changed(ReadModel.Change.ofRoll(sessionId, r));
+            return r;
+        });
+    }
 
-        if (r.getTaps() != null) {
-            List<TechniqueCount> newTaps = new ArrayList<>();
-            for (TechniqueCount tc : r.getTaps()) {
-                TechniqueCount saved = saveTechniqueCount(tc);
-                newTaps.add(saved);
-            }
-            r.setTaps(newTaps);
-        }
+    /**
+     * Helper method to insert or update a Roll and its TechniqueCounts, adding what it changed in the dashboard summary to a delta:
+     * a new roll adds what it holds, and an update the difference between the roll and the stored one its diff was taken from
+     */
+    private Roll writeRoll(long sessionId, LocalDate sessionDate, Roll r, SummaryCounters delta) throws SQLException {
+        if (r == null) throw new IllegalArgumentException("Roll is null");
+
+        // Insert techniques that do not exist yet so the links can reference them; existing techniques are only
+        // written if the diff below finds them edited
+        saveNewTechniques(r.getSubs());
+        saveNewTechniques(r.getTaps());
 
         if (r.getId() == 0) {
             long newId = provider.saveRoll(sessionId, r);
             r.setId(newId);
+            delta.add(r, sessionDate, 1);
         } else {
-            boolean ok = provider.updateRoll(r);
-            if (!ok) throw new RuntimeException("Failed to update Roll with id " + r.getId());
+            // Load the stored state once and write only what changed
+            Roll stored = provider.onPrimary(() -> provider.getRoll(r.getId()));
+            if (stored != null && stored.getVersion() != r.getVersion()) {
+                throw new VersionConflictException("roll", r.getId(), r.getVersion(), stored.getVersion());
+            }
+            if (stored == null || !provider.applyRollDiff(RollDiff.between(stored, r))) {
+                throw new RuntimeException("Failed to update Roll with id " + r.getId());
+            }
+            delta.add(stored, null, -1);
+            delta.add(r, null, 1);
         }
+        setRollId(r.getSubs(), r.getId());
+        setRollId(r.getTaps(), r.getId());
         return r;
     }
 
@@ -162,7 +426,8 @@ public class BusinessManager {
      * @throws SQLException if there is an error during database access
      */
     public Roll getRoll(long id) throws SQLException {
-        return provider.getRoll(id);
+        return live.readMerged(() -> readModel.read(m -> m.roll(id), () -> flights.load("getRoll", List.of(id), () -> provider.getRoll(id), Copies::roll)),
+                               r -> mergePendingRolls(List.of(r), true));
     }
 
     /**
@@ -171,36 +436,60 @@ public class BusinessManager {
      * @throws SQLException if there is an error during database access
      */
     public List<Roll> getRolls() throws SQLException {
-        return provider.getRolls();
+        return live.readMerged(() -> readModel.read(m -> m.rolls(), () -> flights.load("getRolls", List.of(), provider::getRolls, Copies::rolls)), rolls -> mergePendingRolls(rolls, true));
+    }
+
+    /**
+     * Retrieve a Roll with only its subs, its taps, both or neither, as a projection asks for them
+     * @param id the id of the Roll to be retrieved
+     * @param p the projection over {@link Projection#ROLL_LEVELS}
+     * @return the Roll object if found, or null if no record with the given id exists
+     * @throws SQLException if there is an error during database access
+     */
+    public Roll getRoll(long id, Projection p) throws SQLException {
+        if (p.isAll()) return getRoll(id);
+        return live.readMerged(() -> readModel.read(m -> m.roll(id),
+                                   () -> flights.load("getRoll", List.of(id, p), () -> provider.getRoll(id, p), Copies::roll)),
+                               r -> mergePendingRolls(List.of(r), p.loads("subs")));
+    }
+
+    /**
+     * Retrieve all Rolls with only their subs, their taps, both or neither, as a projection asks for them
+     * @param p the projection over {@link Projection#ROLL_LEVELS}
+     * @return a list of Roll objects
+     * @throws SQLException if there is an error during database access
+     */
+    public List<Roll> getRolls(Projection p) throws SQLException {
+        if (p.isAll()) return getRolls();
+        return live.readMerged(() -> readModel.read(m -> m.rolls(),
+                                   () -> flights.load("getRolls", List.of(p), () -> provider.getRolls(p), Copies::rolls)), rolls -> mergePendingRolls(rolls, p.loads("subs")));
     }
 
     /**
-     * Delete a Roll from the database by its id. The method returns true if the deletion was successful, or false if no record with the given id was found.
-     * Note: if the Roll is referenced by Session or other tables, database cascade rules or checks will apply, which may prevent deletion or cause related records to be deleted as well.
+     * Retrieve several Rolls by id, with a few batched queries instead of one read per Roll.
+     * @param ids the ids of the Rolls to be retrieved
+     * @return the Rolls found in the order of ids, and the ids that were not found
+     * @throws SQLException if there is an error during database access
+     */
+    public MultiGetResult<Roll> getRolls(List<Long> ids) throws SQLException {
+        Map<Long, Roll> found = live.readMerged(() -> readModel.read(m -> m.rolls(ids), () -> flights.load("getRollsByIds", ids, () -> provider.getRollsByIds(ids), Copies::rolls)), rolls -> mergePendingRolls(rolls.values(), true));
+        return MultiGetResult.of(ids, found);
+    }
+
+    /**
+     * Delete a Roll by its id. The Roll is soft-deleted; it and its TechniqueCounts are purged in the background by the TombstonePurger.
      * @param id the id of the Roll to be deleted
-     * @return true if the deletion was successful, or false if no record with the given id was found
+     * @return one roll deleted; DeleteResult.deleted() is false if no record with the given id was found
      * @throws SQLException if there is an error during database access
      */
-    public boolean deleteRoll(long id) throws SQLException {
-        // Best-effort: fetch roll, delete its technique counts first (if you want)
-        try {
-            Roll existing = provider.getRoll(id);
-            if (existing != null) {
-                if (existing.getSubs() != null) {
-                    for (TechniqueCount tc : existing.getSubs()) {
-                        if (tc != null && tc.getTechnique().getId() != 0) provider.deleteTechniqueLink(id, tc.getTechnique().getId());
-                    }
-                }
-                if (existing.getTaps() != null) {
-                    for (TechniqueCount tc : existing.getTaps()) {
-                        if (tc != null && tc.getTechnique().getId() != 0) provider.deleteTechniqueLink(id, tc.getTechnique().getId());
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // ignore and attempt delete; provider or DB may handle cascade
-        }
-        return provider.deleteRoll(id);
+    public DeleteResult deleteRoll(long id) throws SQLException {
+        return timed("delete", "roll", () -> {
+            SummaryCounters delta = new SummaryCounters();
+            DeleteResult result = provider.deleteRoll(id, delta);
+            summaries.apply(delta);
+            readModel.changed(ReadModel.Change.ofRollId(id));
+            return result;
+        });
     }
 
     // ======================================================================================================================================
@@ -213,18 +502,23 @@ public class BusinessManager {
      * The method returns the saved Technique object with its id field populated (for new records) or unchanged (for updates).
      * @param t the Technique object to be saved
      * @return the saved Technique object with its id field populated (for new records) or unchanged (for updates)
+     * @throws VersionConflictException if an update is based on a version of the technique that is no longer the stored one
      * @throws SQLException if there is an error during database access
      */
     public Technique saveTechnique(Technique t) throws SQLException {
-        if (t == null) throw new IllegalArgumentException("Technique is null");
-        if (t.getId() == 0) {
-            long newId = provider.saveTechnique(t);
-            t.setId(newId);
-        } else {
-            boolean ok = provider.updateTechnique(t);
-            if (!ok) throw new RuntimeException("Failed to update Technique with id " + t.getId());
-        }
-        return t;
+        return timed("save", "technique", () -> {
+            if (t == null) throw new IllegalArgumentException("Technique is null");
+            if (t.getId() == 0) {
+                long newId = provider.saveTechnique(t);
+                t.setId(newId);
+            } else {
+                boolean ok = provider.updateTechnique(t);
+                if (!ok) throw new RuntimeException("Failed to update Technique with id " + t.getId());
+                summaries.rename(t);
+            }
+            readModel.changed(ReadModel.Change.ofTechnique(t));
+            return t;
+        });
     }
 
     /**
@@ -234,7 +528,7 @@ public class BusinessManager {
      * @throws SQLException if there is an error during database access
      */
     public Technique getTechnique(long id) throws SQLException {
-        return provider.getTechnique(id);
+        return live.readMerged(() -> readModel.read(m -> m.technique(id), () -> flights.load("getTechnique", List.of(id), () -> provider.getTechnique(id), Copies::technique)), this::mergePending);
     }
 
     /**
@@ -243,20 +537,39 @@ public class BusinessManager {
      * @throws SQLException if there is an error during database access
      */
     public List<Technique> getTechniques() throws SQLException {
-        return provider.getTechniques();
+        return live.readMerged(() -> readModel.read(m -> m.techniques(), () -> flights.load("getTechniques", List.of(), provider::getTechniques, Copies::techniques)), techniques -> {
+            for (Technique t : techniques) mergePending(t);
+        });
+    }
+
+    /**
+     * Retrieve several Techniques by id, with one batched query instead of one read per Technique.
+     * @param ids the ids of the Techniques to be retrieved
+     * @return the Techniques found in the order of ids, and the ids that were not found
+     * @throws SQLException if there is an error during database access
+     */
+    public MultiGetResult<Technique> getTechniques(List<Long> ids) throws SQLException {
+        Map<Long, Technique> found = live.readMerged(() -> readModel.read(m -> m.techniques(ids), () -> flights.load("getTechniquesByIds", ids, () -> provider.getTechniquesByIds(ids), Copies::techniques)), techniques -> {
+            for (Technique t : techniques.values()) mergePending(t);
+        });
+        return MultiGetResult.of(ids, found);
     }
 
     /**
-     * Delete a Technique from the database by its id. The method returns true if the deletion was successful, or false if no record with the given id was found.
-     * Note: if the Technique is referenced by TechniqueCount or other tables, database cascade rules or checks will apply, 
-     * which may prevent deletion or cause related records to be deleted as well.
+     * Delete a Technique by its id. The Technique is soft-deleted and TechniqueCounts that reference it are hidden from reads;
+     * both are purged in the background by the TombstonePurger.
      * @param id the id of the Technique to be deleted
-     * @return true if the deletion was successful, or false if no record with the given id was found
+     * @return one technique deleted; DeleteResult.deleted() is false if no record with the given id was found
      * @throws SQLException if there is an error during database access
      */
-    public boolean deleteTechnique(long id) throws SQLException {
-        // Note: if Technique is referenced by TechniqueCount/other tables, DB cascade or checks apply.
-        return provider.deleteTechnique(id);
+    public DeleteResult deleteTechnique(long id) throws SQLException {
+        return timed("delete", "technique", () -> {
+            SummaryCounters delta = new SummaryCounters();
+            DeleteResult result = provider.deleteTechnique(id, delta);
+            summaries.apply(delta);
+            readModel.changed(ReadModel.Change.ofTechniqueId(id));
+            return result;
+        });
     }
 
     // ======================================================================================================================================
@@ -270,22 +583,269 @@ public class BusinessManager {
 
     /**
      * Save a TechniqueCount object to the database. If the TechniqueCount has an id of 0, it will be treated as a new record and inserted;
-     * otherwise, it will be treated as an existing record and updated.
+     * otherwise, it will be treated as an existing record and updated. A technique with an id of 0 is inserted first; an existing
+     * technique is referenced as it is, and only its finish total is increased by the count, as a live increment's flush does.
      * @param tc the TechniqueCount object to be saved
      * @return the saved TechniqueCount object with its id field populated (for new records) or unchanged (for updates)
      * @throws SQLException if there is an error during database access
      */
     public TechniqueCount saveTechniqueCount(TechniqueCount tc) throws SQLException {
-        if (tc == null) throw new IllegalArgumentException("TechniqueCount is null");
+        return timed("save", "techniqueCount", () -> {
+            if (tc == null) throw new IllegalArgumentException("TechniqueCount is null");
+
+            // Ensure a new Technique is saved first (so TechniqueCount can reference it); an existing one is only referenced,
+            // as updating it would bump its version and make a repeated request conflict
+            saveNewTechniques(List.of(tc));
+            provider.saveTechniqueCount(tc.getRollID(), tc.getTechnique().getId(), tc.getCount());
+            summaries.apply(subsDelta(tc));
+            readModel.changed(ReadModel.Change.ofRollId(tc.getRollID()).and(ReadModel.Change.ofTechniqueId(tc.getTechnique().getId())));
+
+            return tc;
+        });
+    }
+
+    // ======================================================================================================================================
+    //                        Live Roll Tracking
+    // ======================================================================================================================================
+
+    /**
+     * Add to a technique's count on a roll in live roll mode. The increment is accumulated in memory and written with other pending
+     * increments on the next flush, instead of running its own transaction; reads through this BusinessManager include it immediately.
+     * The roll and technique are checked to exist on the first increment for the pair only.
+     * @param tc the roll id, technique (only its id is used) and amount to add; a negative count undoes earlier increments
+     * @return true if the increment was accepted, or false if the roll or technique does not exist
+     * @throws SQLException if there is an error during database access
+     */
+    public boolean incrementTechniqueCountLive(TechniqueCount tc) throws SQLException {
+        if (tc == null || tc.getTechnique() == null) throw new IllegalArgumentException("TechniqueCount and its technique are required");
+        long rollId = tc.getRollID();
+        long techniqueId = tc.getTechnique().getId();
+        if (!live.isTracking(rollId, techniqueId) && (provider.onPrimary(() -> provider.getTechnique(techniqueId)) == null || !rollExists(rollId))) {
+            return false;
+        }
+        live.increment(rollId, techniqueId, tc.getCount());
+        // the dashboard summary counts the increment once a flush has written it
+        return true;
+    }
+
+    /**
+     * Helper method to add pending live increments to the rolls of a Session
+     */
+    private void mergePending(Session s) throws SQLException {
+        mergePending(List.of(s), true);
+    }
+
+    /**
+     * Helper method to add pending live increments to the rolls of Sessions, to the rolls' subs only if they were loaded
+     * @param sessions the Sessions read from the database
+     * @param subs whether the subs of the Sessions' rolls were loaded
+     */
+    private void mergePending(Collection<Session> sessions, boolean subs) throws SQLException {
+        List<Roll> rolls = new ArrayList<>();
+        for (Session s : sessions) {
+            if (s.getRolls() != null) rolls.addAll(s.getRolls());
+        }
+        mergePendingRolls(rolls, subs);
+    }
+
+    /**
+     * Helper method to add pending live increments to the parts of Session graphs a projection loaded
+     */
+    private void mergePending(Collection<Session> sessions, Projection p) throws SQLException {
+        if (p.loads("rolls")) mergePending(sessions, p.loads("rolls.subs"));
+    }
+
+    /**
+     * Helper method to add pending live increments to Rolls' subs (creating TechniqueCounts for links not written yet) and to the
+     * finish totals of the Techniques they reference. Techniques the Rolls do not reference yet are read with one batched query for
+     * all of the Rolls, and each Technique instance is adjusted once.
+     * @param rolls the Rolls read from the database
+     * @param subs whether the Rolls' subs were loaded; if not, only the finish totals are adjusted
+     */
+    private void mergePendingRolls(Collection<Roll> rolls, boolean subs) throws SQLException {
+        Map<Roll, Map<Long, Integer>> unlinked = new IdentityHashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Roll r : subs ? rolls : List.<Roll>of()) {
+            for (Map.Entry<Long, Integer> e : live.pendingForRoll(r.getId()).entrySet()) {
+                TechniqueCount tc = r.findSubsForTechnique(e.getKey());
+                if (tc != null) {
+                    tc.increment(e.getValue());
+                } else {
+                    unlinked.computeIfAbsent(r, k -> new HashMap<>()).put(e.getKey(), e.getValue());
+                    missing.add(e.getKey());
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Technique> techniques = provider.getTechniquesByIds(new ArrayList<>(missing));
+            for (Map.Entry<Roll, Map<Long, Integer>> e : unlinked.entrySet()) {
+                Roll r = e.getKey();
+                for (Map.Entry<Long, Integer> p : e.getValue().entrySet()) {
+                    Technique t = techniques.get(p.getKey());
+                    if (t != null) r.getSubs().add(new TechniqueCount(r.getId(), t, p.getValue()));
+                }
+            }
+        }
+        Set<Technique> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Roll r : rolls) {
+            for (List<TechniqueCount> counts : List.of(r.getSubs(), r.getTaps())) {
+                for (TechniqueCount tc : counts) {
+                    if (tc.getTechnique() != null && seen.add(tc.getTechnique())) mergePending(tc.getTechnique());
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method to add pending live increments to a Technique's finish total
+     */
+    private void mergePending(Technique t) {
+        int pending = live.pendingForTechnique(t.getId());
+        if (pending != 0) t.setNumFinishes(t.getNumFinishes() + pending);
+    }
+
+    // ======================================================================================================================================
+    //                        Lazy Loading
+    // ======================================================================================================================================
+
+    /**
+     * Open a unit of work for internal callers (jobs, existence checks) that read sessions and rolls but usually touch only part of the graph.
+     * Rolls and technique counts are loaded on first access, in batches of up to prefetch sessions or rolls per query.
+     * Graphs read this way are the stored state, without pending live increments.
+     * @param prefetch the maximum number of sessions or rolls loaded per query
+     * @return the opened unit of work, which must be closed
+     */
+    public UnitOfWork openUnitOfWork(int prefetch) {
+        return provider.openUnitOfWork(prefetch);
+    }
+
+    /**
+     * Helper method to check that a roll exists without loading its technique counts
+     */
+    private boolean rollExists(long rollId) throws SQLException {
+        return provider.onPrimary(() -> {
+            try (UnitOfWork uow = provider.openUnitOfWork(1)) {
+                return uow.getRoll(rollId) != null;
+            }
+        });
+    }
+
+    // ======================================================================================================================================
+    //                        Dashboard Summary
+    // ======================================================================================================================================
 
-        // Ensure Technique is saved first (so TechniqueCount can reference it)
-        Technique tech = tc.getTechnique();
-        if (tech != null) {
-            tech = saveTechnique(tech); // will insert/update as needed
+    /**
+     * Retrieve the current tenant's dashboard summary: total sessions and mat hours, the gi and no-gi split, rolls this month and the
+     * top five subs and taps. The summary is kept current in memory by every save and delete, so this does not query the tables.
+     * @return the dashboard summary
+     * @throws SQLException if there is an error during database access (only on the tenant's first read)
+     */
+    public DashboardSummary getDashboardSummary() throws SQLException {
+        return summaries.get();
+    }
+
+    /**
+     * Helper method to turn a TechniqueCount added to a roll's subs into a summary delta
+     */
+    private static SummaryCounters subsDelta(TechniqueCount tc) {
+        SummaryCounters delta = new SummaryCounters();
+        delta.add(SummaryCounters.subs(tc.getTechnique().getId()), tc.getCount());
+        delta.name(tc.getTechnique().getId(), tc.getTechnique().getName());
+        return delta;
+    }
+
+    // ======================================================================================================================================
+    //                        Tenants
+    // ======================================================================================================================================
+
+    /**
+     * Retrieve how many live sessions, rolls and techniques every tenant has, and which shard it lives on.
+     * This is a cross-tenant admin read: it is not scoped to the current tenant and fans out to every shard.
+     * @return one summary per tenant, ordered by tenant id
+     * @throws SQLException if there is an error during database access
+     */
+    public List<TenantSummary> getTenantSummaries() throws SQLException {
+        return provider.getTenantSummaries();
+    }
+
+    // ======================================================================================================================================
+    //                        Roll Helpers
+    // ======================================================================================================================================
+
+    /**
+     * Helper method to insert the techniques of the given counts that have not been saved yet (id of 0)
+     * @param counts the technique counts whose techniques should exist, may be null
+     * @throws SQLException if there is an error during database access
+     */
+    private void saveNewTechniques(List<TechniqueCount> counts) throws SQLException {
+        if (counts == null) return;
+        for (TechniqueCount tc : counts) {
+            if (tc != null && tc.getTechnique() != null && tc.getTechnique().getId() == 0) saveTechnique(tc.getTechnique());
+        }
+    }
+
+    /**
+     * Helper method to collect the techniques of the given rolls' counts that have not been saved yet (id of 0), each instance once
+     * @param rolls the rolls whose subs and taps are searched
+     * @return the techniques to insert
+     */
+    private static List<Technique> newTechniques(List<Roll> rolls) {
+        Set<Technique> fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Technique> out = new ArrayList<>();
+        for (Roll r : rolls) {
+            for (List<TechniqueCount> counts : Arrays.asList(r.getSubs(), r.getTaps())) {
+                if (counts == null) continue;
+                for (TechniqueCount tc : counts) {
+                    if (tc != null && tc.getTechnique() != null && tc.getTechnique().getId() == 0 && fresh.add(tc.getTechnique())) {
+                        out.add(tc.getTechnique());
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Helper method to point the given technique counts at the roll they were saved with
+     * @param counts the technique counts, may be null
+     * @param rollId the id of the roll
+     */
+    private void setRollId(List<TechniqueCount> counts, long rollId) {
+        if (counts == null) return;
+        for (TechniqueCount tc : counts) {
+            if (tc != null) tc.setRollID(rollId);
         }
-        provider.saveTechniqueCount(tc.getRollID(), tc.getTechnique().getId(), tc.getCount());
+    }
 
-        return tc;
+    // ======================================================================================================================================
+    //                        Metrics Helpers
+    // ======================================================================================================================================
+
+    /**
+     * Helper method to time a save or delete, including all of the nested saves and deletes it cascades into.
+     * Timers are published as bjj.business.save and bjj.business.delete, tagged by entity and outcome.
+     * @param action the action being timed (save or delete)
+     * @param entity the entity the action is applied to (session, roll, technique, techniqueCount)
+     * @param work the work to be timed
+     * @return the value produced by the work
+     * @throws SQLException if there is an error during database access
+     */
+    private <T> T timed(String action, String entity, SqlOperation<T> work) throws SQLException {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            return work.execute();
+        } catch (SQLException | RuntimeException ex) {
+            outcome = "error";
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder("bjj.business." + action)
+                    .description("Aggregate cost of BusinessManager " + action + " operations")
+                    .tag("entity", entity)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
     }
 
 }
\ No newline at end of file
@@ -7,7 +7,7 @@ public class BusinessManagerHarness {
  
     public static void main(String[] args) throws Exception {
         DataProvider provider = new DataProvider();
-        BusinessManager manager = new BusinessManager(provider);
+        BusinessManager manager = BusinessManager.builder(provider).build();
 
         System.out.println("=== BJJ Technique CRUD demo ===");
 
@@ -36,6 +36,7 @@ public class BusinessManagerHarness {
         Technique deletedTechnique = manager.getTechnique(readTechnique.getId());
         System.out.println("Deleted technique read result (should be null): " + deletedTechnique);
 
+        manager.shutdown();
         System.out.println("\n=== Demo complete ===");
     }   
 
@@ -0,0 +1,173 @@
+package com.example.business;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+
+/**
+ * Deep copies of model objects, for results that are handed to more than one caller, each of which may modify what it gets.
+ * Within one copy, a Technique shared by several TechniqueCounts of the original is shared by their copies as well.
+ */
+final class Copies {
+
+    private Copies() {}
+
+    /**
+     * Copy a technique
+     * @param t the technique, may be null
+     * @return the copy, or null
+     */
+    static Technique technique(Technique t) {
+        if (t == null) return null;
+        Technique c = new Technique(t.getId(), t.getName(), t.getPosition(), t.getNumFinishes(), t.getNumTaps());
+        c.setVersion(t.getVersion());
+        return c;
+    }
+
+    /**
+     * Copy a session with its rolls and their technique counts
+     * @param s the session, may be null
+     * @return the copy, or null
+     */
+    static Session session(Session s) {
+        return session(s, new IdentityHashMap<>());
+    }
+
+    /**
+     * Copy a roll with its technique counts
+     * @param r the roll, may be null
+     * @return the copy, or null
+     */
+    static Roll roll(Roll r) {
+        return roll(r, new IdentityHashMap<>());
+    }
+
+    /**
+     * Copy a list of sessions; a technique shared between them stays shared in the copies
+     * @param sessions the sessions
+     * @return the copies, in the same order
+     */
+    static List<Session> sessions(List<Session> sessions) {
+        Map<Technique, Technique> techniques = new IdentityHashMap<>();
+        List<Session> out = new ArrayList<>(sessions.size());
+        for (Session s : sessions) out.add(session(s, techniques));
+        return out;
+    }
+
+    /**
+     * Copy sessions keyed by id, as read by a multi-get
+     * @param sessions the sessions by id
+     * @return the copies by id, in the same order
+     */
+    static Map<Long, Session> sessions(Map<Long, Session> sessions) {
+        Map<Technique, Technique> techniques = new IdentityHashMap<>();
+        Map<Long, Session> out = new LinkedHashMap<>();
+        sessions.forEach((id, s) -> out.put(id, session(s, techniques)));
+        return out;
+    }
+
+    /**
+     * Copy a list of rolls; a technique shared between them stays shared in the copies
+     * @param rolls the rolls
+     * @return the copies, in the same order
+     */
+    static List<Roll> rolls(List<Roll> rolls) {
+        Map<Technique, Technique> techniques = new IdentityHashMap<>();
+        List<Roll> out = new ArrayList<>(rolls.size());
+        for (Roll r : rolls) out.add(roll(r, techniques));
+        return out;
+    }
+
+    /**
+     * Copy rolls keyed by id, as read by a multi-get
+     * @param rolls the rolls by id
+     * @return the copies by id, in the same order
+     */
+    static Map<Long, Roll> rolls(Map<Long, Roll> rolls) {
+        Map<Technique, Technique> techniques = new IdentityHashMap<>();
+        Map<Long, Roll> out = new LinkedHashMap<>();
+        rolls.forEach((id, r) -> out.put(id, roll(r, techniques)));
+        return out;
+    }
+
+    /**
+     * Copy a list of techniques
+     * @param techniques the techniques
+     * @return the copies, in the same order
+     */
+    static List<Technique> techniques(List<Technique> techniques) {
+        List<Technique> out = new ArrayList<>(techniques.size());
+        for (Technique t : techniques) out.add(technique(t));
+        return out;
+    }
+
+    /**
+     * Copy techniques keyed by id, as read by a multi-get
+     * @param techniques the techniques by id
+     * @return the copies by id, in the same order
+     */
+    static Map<Long, Technique> techniques(Map<Long, Technique> techniques) {
+        Map<Long, Technique> out = new LinkedHashMap<>();
+        techniques.forEach((id, t) -> out.put(id, technique(t)));
+        return out;
+    }
+
+    /**
+     * Helper method to copy a session, reusing the copies of techniques that were already copied
+     * @param s the session, may be null
+     * @param techniques the copies made so far, by original technique
+     * @return the copy, or null
+     */
+    private static Session session(Session s, Map<Technique, Technique> techniques) {
+        if (s == null) return null;
+        List<Roll> rolls = null;
+        if (s.getRolls() != null) {
+            rolls = new ArrayList<>(s.getRolls().size());
+            for (Roll r : s.getRolls()) rolls.add(roll(r, techniques));
+        }
+        Session c = new Session(s.getId(), s.getDate(), s.getTime(), s.isGi(), s.getInstructor(), s.getcurrentBelt(), rolls);
+        c.setVersion(s.getVersion());
+        return c;
+    }
+
+    /**
+     * Helper method to copy a roll, reusing the copies of techniques that were already copied
+     * @param r the roll, may be null
+     * @param techniques the copies made so far, by original technique
+     * @return the copy, or null
+     */
+    private static Roll roll(Roll r, Map<Technique, Technique> techniques) {
+        if (r == null) return null;
+        Roll c = new Roll(r.getId(), r.getLengthMinutes(), r.getPartner(), r.getNumRounds(), counts(r.getSubs(), techniques), counts(r.getTaps(), techniques));
+        c.setVersion(r.getVersion());
+        c.setCreatedAt(r.getCreatedAt());
+        return c;
+    }
+
+    /**
+     * Helper method to copy technique counts, copying each technique the first time it is seen
+     * @param counts the counts, may be null
+     * @param techniques the copies made so far, by original technique
+     * @return the copies, or null
+     */
+    private static List<TechniqueCount> counts(List<TechniqueCount> counts, Map<Technique, Technique> techniques) {
+        if (counts == null) return null;
+        List<TechniqueCount> out = new ArrayList<>(counts.size());
+        for (TechniqueCount tc : counts) {
+            if (tc == null) {
+                out.add(null);
+                continue;
+            }
+            Technique t = tc.getTechnique() == null ? null : techniques.computeIfAbsent(tc.getTechnique(), Copies::technique);
+            out.add(new TechniqueCount(tc.getRollID(), t, tc.getCount()));
+        }
+        return out;
+    }
+}
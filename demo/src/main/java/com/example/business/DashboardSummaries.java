@@ -0,0 +1,343 @@
+package com.example.business;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.data.DataProvider;
+import com.example.data.Invalidation;
+import com.example.data.LinkDelta;
+import com.example.data.SummaryCounters;
+import com.example.data.Tenant;
+import com.example.model.Technique;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The DashboardSummaries class keeps every tenant's {@link DashboardSummary} in memory so GET /api/summary is answered without
+ * touching the sessions, rolls or links tables. The summary is held as {@link SummaryCounters}, persisted one row per counter
+ * in summary_counters:
+ * <ul>
+ *   <li>Saves and deletes in the {@link BusinessManager} (and the {@link SessionIngestQueue}) pass the change they made as a
+ *       delta to {@link #apply(SummaryCounters)}, which adds it in memory only. Pending deltas are written to summary_counters as
+ *       one batched upsert per tenant every bjj.summary.flush-interval-ms, and on shutdown.</li>
+ *   <li>A tenant's counters are read from summary_counters on first use. If there are none they are computed from scratch.</li>
+ *   <li>Every bjj.summary.reconcile-interval-ms the counters of every tenant in memory are recomputed from the tables and
+ *       replace both the stored and the in-memory ones; how far the deltas had drifted is recorded as bjj.summary.drift.</li>
+ * </ul>
+ * Deltas are applied after the write they describe has committed, so a write racing with a reconciliation can be counted twice or
+ * not at all until the next one. Live increments are counted once a live flush has written them: the flush passes what it wrote to
+ * a flush listener, so an increment that is dropped (its roll was deleted) or put back to be retried is never counted early.
+ * The summary itself, including the top five techniques, is rebuilt only after a delta changed it.
+ *
+ * With several nodes, each flush and reconciliation is published to the {@link InvalidationBus}; the other nodes then reload the
+ * tenant's stored counters (adding their own pending deltas) on its next read, and forget the names of renamed techniques.
+ */
+@Component
+public class DashboardSummaries implements InvalidationBus.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardSummaries.class);
+    private static final int TOP = 5;
+
+    private final DataProvider provider;
+    private final LiveTechniqueCounters live;
+    private final InvalidationBus bus;
+    private final ConcurrentHashMap<String, TenantState> tenants = new ConcurrentHashMap<>();
+
+    private final Counter reconciled;
+    private final DistributionSummary drift;
+
+    /**
+     * The summary state of one tenant; every field is guarded by the state's monitor
+     */
+    private static final class TenantState {
+        final SummaryCounters counters = new SummaryCounters();
+        final SummaryCounters pending = new SummaryCounters();
+        final Map<Long, String> names = new HashMap<>();
+        boolean loaded;
+        Instant reconciledAt;
+        DashboardSummary cached;
+        YearMonth cachedMonth;
+    }
+
+    /**
+     * Constructor for DashboardSummaries
+     * @param provider the DataProvider the counters are loaded, flushed and recomputed through
+     * @param registry the MeterRegistry reconciliation metrics are published to
+     * @param live the live technique counters, whose flushed increments are added to the summary
+     */
+    public DashboardSummaries(DataProvider provider, MeterRegistry registry, LiveTechniqueCounters live) {
+        this(provider, registry, live, InvalidationBus.disabled(registry));
+    }
+
+    /**
+     * Constructor for DashboardSummaries on one of several nodes
+     * @param provider the DataProvider the counters are loaded, flushed and recomputed through
+     * @param registry the MeterRegistry reconciliation metrics are published to
+     * @param live the live technique counters, whose flushed increments are added to the summary
+     * @param bus the bus stored counter changes are published to, and other nodes' changes are received from
+     */
+    @Autowired
+    public DashboardSummaries(DataProvider provider, MeterRegistry registry, LiveTechniqueCounters live, InvalidationBus bus) {
+        this.provider = provider;
+        this.live = live;
+        this.bus = bus;
+        this.reconciled = Counter.builder("bjj.summary.reconciled")
+                .description("Dashboard summaries recomputed from scratch")
+                .register(registry);
+        this.drift = DistributionSummary.builder("bjj.summary.drift")
+                .description("Sum of the differences between the incrementally maintained and the recomputed summary counters")
+                .register(registry);
+        bus.subscribe(this);
+        live.addFlushListener(this::flushed);
+    }
+
+    /**
+     * Get the dashboard summary of the current tenant. After the tenant's counters are loaded this is a lookup of the cached
+     * summary, rebuilt from the counters only if a delta changed them.
+     * @return the summary
+     * @throws SQLException if the counters (or the names of the top techniques) had to be read and could not be
+     */
+    public DashboardSummary get() throws SQLException {
+        TenantState state = state();
+        synchronized (state) {
+            load(state);
+            YearMonth month = YearMonth.now();
+            if (state.cached == null || !month.equals(state.cachedMonth)) {
+                state.cached = build(state, month);
+                state.cachedMonth = month;
+            }
+            return state.cached;
+        }
+    }
+
+    /**
+     * Add the change a committed write made to the current tenant's summary. This does no IO; the delta is written with the next flush.
+     * @param delta the change to the counters
+     */
+    public void apply(SummaryCounters delta) {
+        if (delta.isEmpty() && delta.names().isEmpty()) return;
+        TenantState state = state();
+        synchronized (state) {
+            state.pending.addAll(delta, 1);
+            if (state.loaded) state.counters.addAll(delta, 1);
+            state.names.putAll(delta.names());
+            state.cached = null;
+        }
+    }
+
+    /**
+     * Take a technique's new name into the current tenant's summary
+     * @param t the technique
+     */
+    public void rename(Technique t) {
+        TenantState state = tenants.get(Tenant.current());
+        if (state == null || t.getName() == null) return;
+        synchronized (state) {
+            if (state.names.containsKey(t.getId()) && !t.getName().equals(state.names.put(t.getId(), t.getName()))) state.cached = null;
+        }
+    }
+
+    /**
+     * Scheduled write of the pending deltas of every tenant, one batched upsert per tenant
+     */
+    @Scheduled(fixedDelayString = "${bjj.summary.flush-interval-ms:1000}", initialDelayString = "${bjj.summary.flush-interval-ms:1000}")
+    public void flush() {
+        for (Map.Entry<String, TenantState> e : tenants.entrySet()) {
+            try (Tenant.Scope scope = Tenant.bind(e.getKey())) {
+                TenantState state = e.getValue();
+                synchronized (state) {
+                    if (state.pending.isEmpty()) continue;
+                    // stored counters must exist before deltas are added to them, or they would be taken for the whole summary
+                    load(state);
+                    if (state.pending.isEmpty()) continue;
+                    provider.addSummaryCounters(state.pending);
+                    state.pending.clear();
+                    bus.publish(Invalidation.Entity.SUMMARY, 0, 0);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Could not write the summary deltas of tenant {}; retrying on the next flush", e.getKey(), ex);
+            }
+        }
+    }
+
+    /**
+     * Scheduled recomputation of the summary of every tenant held in memory
+     */
+    @Scheduled(fixedDelayString = "${bjj.summary.reconcile-interval-ms:3600000}", initialDelayString = "${bjj.summary.reconcile-interval-ms:3600000}")
+    public void reconcileAll() {
+        for (String tenant : tenants.keySet()) {
+            try (Tenant.Scope scope = Tenant.bind(tenant)) {
+                reconcile();
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Could not reconcile the summary of tenant {}", tenant, ex);
+            }
+        }
+    }
+
+    /**
+     * Recompute the current tenant's summary from the sessions, rolls and links tables, and replace
+     * the stored and in-memory counters with it
+     * @throws SQLException if a database access error occurs; the counters are left as they were
+     */
+    public void reconcile() throws SQLException {
+        TenantState state = state();
+        SummaryCounters computed = compute();
+        synchronized (state) {
+            if (state.loaded) {
+                SummaryCounters diff = SummaryCounters.difference(state.counters, computed);
+                drift.record(diff.amounts().values().stream().mapToLong(Math::abs).sum());
+            }
+            replace(state, computed);
+        }
+    }
+
+    /**
+     * Reload the current tenant's counters on its next read if another node stored changes to them, and forget the names of
+     * techniques another node changed
+     * @param invalidations the other nodes' invalidations of the current tenant
+     */
+    @Override
+    public void invalidated(List<Invalidation> invalidations) {
+        TenantState state = tenants.get(Tenant.current());
+        if (state == null) return;
+        synchronized (state) {
+            for (Invalidation i : invalidations) {
+                if (i.entity() == Invalidation.Entity.SUMMARY) state.loaded = false;
+                else if (i.entity() == Invalidation.Entity.TECHNIQUE) state.names.remove(i.id());
+            }
+            state.cached = null;
+        }
+    }
+
+    /**
+     * Reload every tenant's counters on its next read
+     */
+    @Override
+    public void resync() {
+        for (TenantState state : tenants.values()) {
+            synchronized (state) {
+                state.loaded = false;
+                state.cached = null;
+            }
+        }
+    }
+
+    /**
+     * Write all pending deltas before the application shuts down
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private TenantState state() {
+        return tenants.computeIfAbsent(Tenant.current(), k -> new TenantState());
+    }
+
+    /**
+     * Helper method to load a tenant's stored counters, adding the deltas that are not stored yet, or compute them if none are stored.
+     * Must be called holding the state's monitor, as the tenant.
+     */
+    private void load(TenantState state) throws SQLException {
+        if (state.loaded) return;
+        SummaryCounters stored = provider.onPrimary(provider::getSummaryCounters);
+        if (stored.isEmpty()) {
+            // computed from the tables, which already hold every write a pending delta describes
+            replace(state, compute());
+            return;
+        }
+        state.counters.clear();
+        state.counters.addAll(stored, 1);
+        state.counters.addAll(state.pending, 1);
+        state.loaded = true;
+        state.cached = null;
+    }
+
+    /**
+     * Helper method to add the increments a live flush wrote for the current tenant, as subs of their techniques
+     */
+    private void flushed(List<LinkDelta> links) {
+        SummaryCounters delta = new SummaryCounters();
+        for (LinkDelta d : links) delta.add(SummaryCounters.subs(d.techniqueId()), d.delta());
+        apply(delta);
+    }
+
+    private SummaryCounters compute() throws SQLException {
+        // retried if a live flush overlaps, so its increments are not both read from the links and applied by the listener
+        return live.readMerged(() -> provider.onPrimary(provider::computeSummaryCounters), counters -> {});
+    }
+
+    private void replace(TenantState state, SummaryCounters computed) throws SQLException {
+        provider.replaceSummaryCounters(computed);
+        state.counters.clear();
+        state.counters.addAll(computed, 1);
+        state.pending.clear();
+        state.names.putAll(computed.names());
+        state.loaded = true;
+        state.reconciledAt = Instant.now();
+        state.cached = null;
+        reconciled.increment();
+        bus.publish(Invalidation.Entity.SUMMARY, 0, 0);
+    }
+
+    /**
+     * Helper method to build the summary from a tenant's counters, reading the names of top techniques it has not seen yet
+     */
+    private DashboardSummary build(TenantState state, YearMonth month) throws SQLException {
+        SummaryCounters c = state.counters;
+        List<Map.Entry<String, Long>> subs = top(c, SummaryCounters::isSubs);
+        List<Map.Entry<String, Long>> taps = top(c, SummaryCounters::isTaps);
+        List<Long> unnamed = new ArrayList<>();
+        for (List<Map.Entry<String, Long>> top : List.of(subs, taps)) {
+            for (Map.Entry<String, Long> e : top) {
+                long id = SummaryCounters.techniqueOf(e.getKey());
+                if (!state.names.containsKey(id)) unnamed.add(id);
+            }
+        }
+        if (!unnamed.isEmpty()) {
+            for (Technique t : provider.getTechniquesByIds(unnamed).values()) state.names.put(t.getId(), t.getName());
+        }
+        long sessions = c.get(SummaryCounters.SESSIONS);
+        long gi = c.get(SummaryCounters.GI_SESSIONS);
+        return new DashboardSummary(sessions, c.get(SummaryCounters.MAT_MINUTES) / 60.0, gi, sessions - gi,
+                c.get(SummaryCounters.rollsIn(month)), totals(subs, state.names), totals(taps, state.names), state.reconciledAt);
+    }
+
+    /**
+     * Helper method to pick the technique counters of one kind with the highest positive totals, highest first
+     */
+    private static List<Map.Entry<String, Long>> top(SummaryCounters c, Predicate<String> kind) {
+        return c.amounts().entrySet().stream()
+                .filter(e -> kind.test(e.getKey()) && e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(e -> SummaryCounters.techniqueOf(e.getKey()), Comparator.naturalOrder()))
+                .limit(TOP)
+                .toList();
+    }
+
+    private static List<DashboardSummary.TechniqueTotal> totals(List<Map.Entry<String, Long>> top, Map<Long, String> names) {
+        List<DashboardSummary.TechniqueTotal> out = new ArrayList<>(top.size());
+        for (Map.Entry<String, Long> e : top) {
+            long id = SummaryCounters.techniqueOf(e.getKey());
+            out.add(new DashboardSummary.TechniqueTotal(id, names.get(id), e.getValue()));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.business;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The DashboardSummary record is the global training summary of a tenant, as answered by GET /api/summary.
+ * @param totalSessions the number of sessions
+ * @param totalMatHours the summed length of all rolls, in hours
+ * @param giSessions the number of sessions in the gi
+ * @param noGiSessions the number of sessions without the gi
+ * @param rollsThisMonth the number of rolls in sessions dated in the current month
+ * @param topSubs the (up to five) techniques with the most subs, most first
+ * @param topTaps the (up to five) techniques tapped to most often, most first
+ * @param reconciledAt when the summary was last recomputed from the database; it has been kept current by deltas since
+ */
+public record DashboardSummary(long totalSessions, double totalMatHours, long giSessions, long noGiSessions, long rollsThisMonth,
+                               List<TechniqueTotal> topSubs, List<TechniqueTotal> topTaps, Instant reconciledAt) {
+
+    /**
+     * A technique and its total subs or taps
+     * @param techniqueId the ID of the technique
+     * @param name the name of the technique
+     * @param count the total
+     */
+    public record TechniqueTotal(long techniqueId, String name, long count) {}
+}
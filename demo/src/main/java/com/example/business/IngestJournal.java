@@ -0,0 +1,126 @@
+package com.example.business;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.model.Session;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The IngestJournal class is the local write-ahead log behind {@link SessionIngestQueue} in journal durability mode.
+ * Every accepted session is appended (and forced to disk) before its ticket is returned; a done record is appended once the
+ * writer stage has committed or failed it. On startup, sessions without a done record are replayed into the queue.
+ * The file is truncated whenever nothing is pending, so it only ever holds the current backlog.
+ *
+ * Records are JSON lines. A crash between a commit and its done record replays that session once more (at-least-once).
+ */
+class IngestJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestJournal.class);
+
+    /**
+     * One line of the journal
+     * @param op enqueue or done
+     * @param ticket the ticket id
+     * @param tenant the tenant the session is saved for (enqueue only)
+     * @param session the accepted session (enqueue only)
+     */
+    record Record(String op, String ticket, String tenant, Session session) {}
+
+    private final Path path;
+    private final ObjectMapper mapper;
+    private final FileChannel channel;
+
+    /**
+     * Open (or create) a journal
+     * @param path the journal file
+     * @param mapper the ObjectMapper sessions are written with
+     * @throws IOException if the file cannot be opened
+     */
+    IngestJournal(Path path, ObjectMapper mapper) throws IOException {
+        this.path = path;
+        this.mapper = mapper;
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Read the sessions that were accepted but never completed, in the order they were accepted
+     * @return the pending enqueue records
+     * @throws IOException if the file cannot be read
+     */
+    synchronized List<Record> pending() throws IOException {
+        Map<String, Record> enqueued = new LinkedHashMap<>();
+        Set<String> done = new HashSet<>();
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            for (String line; (line = in.readLine()) != null; ) {
+                if (line.isBlank()) continue;
+                try {
+                    Record r = mapper.readValue(line, Record.class);
+                    if ("done".equals(r.op())) done.add(r.ticket());
+                    else enqueued.put(r.ticket(), r);
+                } catch (IOException ex) {
+                    log.warn("Skipping a torn or corrupt ingest journal line", ex); // the tail of a crashed append
+                }
+            }
+        }
+        enqueued.keySet().removeAll(done);
+        return new ArrayList<>(enqueued.values());
+    }
+
+    /**
+     * Append an accepted session and force it to disk
+     * @param ticket the ticket id
+     * @param tenant the tenant the session is saved for
+     * @param session the session
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void append(String ticket, String tenant, Session session) throws IOException {
+        write(new Record("enqueue", ticket, tenant, session));
+        channel.force(false);
+    }
+
+    /**
+     * Record that sessions were committed or failed, forcing once for all of them
+     * @param tickets the ticket ids
+     * @throws IOException if the records cannot be written
+     */
+    synchronized void complete(Collection<String> tickets) throws IOException {
+        for (String ticket : tickets) write(new Record("done", ticket, null, null));
+        channel.force(false);
+    }
+
+    /**
+     * Empty the journal; only valid while nothing is pending
+     * @throws IOException if the file cannot be truncated
+     */
+    synchronized void truncate() throws IOException {
+        channel.truncate(0);
+    }
+
+    private void write(Record r) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((mapper.writeValueAsString(r) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) channel.write(line);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
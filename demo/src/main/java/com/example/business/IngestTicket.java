@@ -0,0 +1,28 @@
+package com.example.business;
+
+import java.time.Instant;
+
+/**
+ * The IngestTicket record reports the outcome of a session accepted for asynchronous ingestion (POST /api/sessions?async=true).
+ * @param ticket the ticket id returned when the session was accepted
+ * @param status PENDING until the writer stage has committed the session (COMMITTED) or given up on it (FAILED)
+ * @param sessionId the id of the saved session once COMMITTED, otherwise null
+ * @param error why the session could not be saved if FAILED, otherwise null
+ * @param acceptedAt when the session was accepted
+ * @param completedAt when the session was committed or failed, otherwise null
+ */
+public record IngestTicket(String ticket, Status status, Long sessionId, String error, Instant acceptedAt, Instant completedAt) {
+
+    /**
+     * The state of an ingested session
+     */
+    public enum Status { PENDING, COMMITTED, FAILED }
+
+    IngestTicket committed(long id) {
+        return new IngestTicket(ticket, Status.COMMITTED, id, null, acceptedAt, Instant.now());
+    }
+
+    IngestTicket failed(String reason) {
+        return new IngestTicket(ticket, Status.FAILED, null, reason, acceptedAt, Instant.now());
+    }
+}
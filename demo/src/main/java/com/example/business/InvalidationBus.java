@@ -0,0 +1,268 @@
+package com.example.business;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.data.Invalidation;
+import com.example.data.InvalidationTransport;
+import com.example.data.Tenant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The InvalidationBus class keeps the in-process caches of several API nodes behind a load balancer (the {@link ReadModel} and the
+ * {@link DashboardSummaries}) current with each other's writes (bjj.invalidation.enabled, off by default).
+ *
+ * After a write commits, the caches publish the entities it changed here. Invalidations are collected in memory, one per entity
+ * with the newest version, and every bjj.invalidation.poll-interval-ms they are sent through the {@link InvalidationTransport} in one
+ * batch per tenant; in the same run the invalidations of the other nodes are received and passed to every {@link Listener}, as
+ * their tenant. A write on one node is therefore seen by the others within about two poll intervals.
+ *
+ * Staleness is bounded by bjj.invalidation.max-staleness-ms: if that long passes without a successful exchange, the listeners are
+ * told to resynchronize from the database (or drop what they cannot), and again every max-staleness while exchanges keep failing.
+ * Invalidations that were never published, because their node died first, are caught up by the resynchronization that also runs
+ * every bjj.invalidation.resync-interval-ms.
+ *
+ * Metrics: bjj.invalidation.published, bjj.invalidation.received, bjj.invalidation.lag (commit on the writing node to applied
+ * here), bjj.invalidation.age (time since the last successful exchange) and bjj.invalidation.resyncs (by reason).
+ */
+@Component
+public class InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    /**
+     * A cache kept current by the bus
+     */
+    public interface Listener {
+
+        /**
+         * Re-read or drop the entities other nodes changed; called as their tenant
+         * @param invalidations the invalidations of the current tenant, oldest first
+         */
+        void invalidated(List<Invalidation> invalidations);
+
+        /**
+         * Invalidations may have been missed: bring every tenant up to date with the database, or drop what cannot be
+         */
+        void resync();
+    }
+
+    private record Key(String tenant, Invalidation.Entity entity, long id) {}
+
+    private final InvalidationTransport transport;
+    private final boolean enabled;
+    private final String node;
+    private final long maxStalenessMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<Key, Invalidation> pending = new ConcurrentHashMap<>();
+    private volatile long freshAtMillis = System.currentTimeMillis();
+
+    private final Counter published;
+    private final Counter received;
+    private final Timer lag;
+    private final MeterRegistry registry;
+
+    /**
+     * Constructor for InvalidationBus
+     * @param transport the transport invalidations are exchanged through
+     * @param registry the MeterRegistry invalidation metrics are published to
+     * @param enabled whether invalidations are exchanged; if not, this class does nothing
+     * @param node the name of this node; empty for the process id and host name
+     * @param maxStalenessMillis how long the caches may go without a successful exchange before they are resynchronized
+     */
+    @Autowired
+    public InvalidationBus(InvalidationTransport transport, MeterRegistry registry,
+                           @Value("${bjj.invalidation.enabled:false}") boolean enabled,
+                           @Value("${bjj.invalidation.node-id:}") String node,
+                           @Value("${bjj.invalidation.max-staleness-ms:5000}") long maxStalenessMillis) {
+        this.transport = transport;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.node = node == null || node.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : node;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.published = Counter.builder("bjj.invalidation.published")
+                .description("Invalidations sent to the other nodes")
+                .register(registry);
+        this.received = Counter.builder("bjj.invalidation.received")
+                .description("Invalidations received from the other nodes")
+                .register(registry);
+        this.lag = Timer.builder("bjj.invalidation.lag")
+                .description("Time from a commit on another node to its invalidation being applied here")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("bjj.invalidation.age", this, b -> (System.currentTimeMillis() - b.freshAtMillis) / 1000.0)
+                .description("Time since invalidations were last exchanged successfully, or the caches resynchronized")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * A bus that does nothing, for caches created outside of Spring
+     * @param registry the MeterRegistry the (idle) metrics are registered with
+     * @return the bus
+     */
+    public static InvalidationBus disabled(MeterRegistry registry) {
+        return new InvalidationBus(null, registry, false, "", Long.MAX_VALUE);
+    }
+
+    /**
+     * Check whether invalidations are exchanged with other nodes
+     * @return the value of bjj.invalidation.enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the name this node publishes under
+     * @return the node name
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Register a cache to receive the other nodes' invalidations
+     * @param listener the cache
+     */
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Tell the other nodes that a committed write of the current tenant changed an entity. This does no IO; the invalidation
+     * is sent with the next exchange.
+     * @param entity the kind of entity
+     * @param id the ID of the entity (0 for the summary)
+     * @param version its version after the write, or 0 if not known
+     */
+    public void publish(Invalidation.Entity entity, long id, long version) {
+        if (!enabled) return;
+        Invalidation i = new Invalidation(Tenant.current(), entity, id, version, node, Instant.now());
+        // one pending invalidation per entity: the newest version, measured from the oldest commit
+        pending.merge(new Key(i.tenant(), entity, id), i, (a, b) -> new Invalidation(a.tenant(), entity, id,
+                Math.max(a.version(), b.version()), node, a.committedAt().isBefore(b.committedAt()) ? a.committedAt() : b.committedAt()));
+    }
+
+    /**
+     * Scheduled exchange: send this node's pending invalidations, then receive and apply the other nodes'
+     */
+    @Scheduled(fixedDelayString = "${bjj.invalidation.poll-interval-ms:500}", initialDelayString = "${bjj.invalidation.poll-interval-ms:500}")
+    public void exchange() {
+        if (!enabled) return;
+        try {
+            send();
+            receive();
+            freshAtMillis = System.currentTimeMillis();
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Could not exchange invalidations; retrying on the next poll", ex);
+        }
+        if (System.currentTimeMillis() - freshAtMillis > maxStalenessMillis) resyncAll("stale");
+    }
+
+    /**
+     * Scheduled resynchronization of the listeners, which catches up on invalidations that were lost with the node that made them
+     */
+    @Scheduled(fixedDelayString = "${bjj.invalidation.resync-interval-ms:300000}", initialDelayString = "${bjj.invalidation.resync-interval-ms:300000}")
+    public void resync() {
+        if (enabled) resyncAll("scheduled");
+    }
+
+    /**
+     * Send the pending invalidations before the application shuts down
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) return;
+        try {
+            send();
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Could not send the pending invalidations on shutdown", ex);
+        }
+    }
+
+    private void send() throws SQLException {
+        Map<String, List<Invalidation>> byTenant = new LinkedHashMap<>();
+        for (Map.Entry<Key, Invalidation> e : pending.entrySet()) {
+            if (pending.remove(e.getKey(), e.getValue())) byTenant.computeIfAbsent(e.getKey().tenant(), k -> new ArrayList<>()).add(e.getValue());
+        }
+        List<Invalidation> unsent = new ArrayList<>();
+        SQLException failure = null;
+        for (Map.Entry<String, List<Invalidation>> e : byTenant.entrySet()) {
+            if (failure != null) {
+                unsent.addAll(e.getValue());
+                continue;
+            }
+            try (Tenant.Scope scope = Tenant.bind(e.getKey())) {
+                transport.publish(e.getValue());
+                published.increment(e.getValue().size());
+            } catch (SQLException ex) {
+                failure = ex;
+                unsent.addAll(e.getValue());
+            }
+        }
+        // put back what was not sent, unless a newer write of the same entity is pending already
+        for (Invalidation i : unsent) pending.putIfAbsent(new Key(i.tenant(), i.entity(), i.id()), i);
+        if (failure != null) throw failure;
+    }
+
+    private void receive() throws SQLException {
+        Map<String, List<Invalidation>> byTenant = new LinkedHashMap<>();
+        for (Invalidation i : transport.poll()) {
+            if (!node.equals(i.node())) byTenant.computeIfAbsent(i.tenant(), k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<String, List<Invalidation>> e : byTenant.entrySet()) {
+            try (Tenant.Scope scope = Tenant.bind(e.getKey())) {
+                for (Listener listener : listeners) {
+                    try {
+                        listener.invalidated(e.getValue());
+                    } catch (RuntimeException ex) {
+                        log.warn("Invalidation listener {} failed for tenant {}", listener, e.getKey(), ex);
+                    }
+                }
+            }
+            Instant now = Instant.now();
+            for (Invalidation i : e.getValue()) {
+                Duration d = Duration.between(i.committedAt(), now);
+                lag.record(d.isNegative() ? Duration.ZERO : d); // the writer's clock may run ahead of ours
+            }
+            received.increment(e.getValue().size());
+        }
+    }
+
+    private void resyncAll(String reason) {
+        for (Listener listener : listeners) {
+            try {
+                listener.resync();
+            } catch (RuntimeException ex) {
+                log.warn("Invalidation listener {} failed to resynchronize", listener, ex);
+            }
+        }
+        freshAtMillis = System.currentTimeMillis();
+        Counter.builder("bjj.invalidation.resyncs")
+                .description("Resynchronizations of the caches with the database")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+}
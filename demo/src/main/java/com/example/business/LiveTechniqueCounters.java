@@ -0,0 +1,363 @@
+package com.example.business;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.data.DataProvider;
+import com.example.data.LinkDelta;
+import com.example.data.Tenant;
+import com.example.metrics.SqlOperation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The LiveTechniqueCounters class backs live roll tracking: rapid "+1 armbar" taps during open mat are accumulated in striped
+ * in-memory counters (one LongAdder per roll and technique) instead of each tap running its own database transaction.
+ * Pending increments are flushed as coalesced deltas, one batched transaction per flush, on a timer (bjj.live.flush-interval-ms), when bjj.live.flush-threshold increments are pending, and on shutdown.
+ *
+ * Reads merge pending increments through {@link #readMerged(SqlOperation, MergeFunction)}, so users see their taps immediately.
+ * Flushes bump a generation counter before and after writing (odd while a flush is in progress, like a seqlock); a merged read
+ * that overlaps a flush is retried, and falls back to running under the flush lock, so an increment is never counted twice or missed.
+ *
+ * Counters for rolls that received no taps for a whole flush interval are evicted. An evicted counter is kept for one more flush
+ * so that a tap racing with the eviction is still written.
+ *
+ * Each roll's counters remember the {@link Tenant} that incremented them, and a flush writes every tenant's deltas as that tenant,
+ * so they land on the tenant's rows (and shard) even though the flush runs on a background thread.
+ */
+@Component
+public class LiveTechniqueCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveTechniqueCounters.class);
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 3;
+
+    /**
+     * Applies pending increments to the result of a read
+     */
+    @FunctionalInterface
+    public interface MergeFunction<T> {
+        void merge(T value) throws SQLException;
+    }
+
+    /**
+     * Told about the increments a flush has written, as the tenant they were written for, before merged reads stop retrying.
+     * Increments that were dropped, or put back to be retried, are not passed.
+     */
+    @FunctionalInterface
+    public interface FlushListener {
+        void flushed(List<LinkDelta> links) throws SQLException;
+    }
+
+    private final DataProvider provider;
+    private final MeterRegistry registry;
+    private final long flushThreshold;
+
+    private final ConcurrentHashMap<Long, RollCounters> byRoll = new ConcurrentHashMap<>();
+    private final Queue<Map.Entry<Long, RollCounters>> retiredRolls = new ConcurrentLinkedQueue<>();
+    private final LongAdder pending = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "live-counter-flush");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object flushLock = new Object();
+    private final List<FlushListener> listeners = new CopyOnWriteArrayList<>();
+    private final Counter increments;
+
+    /**
+     * Constructor for LiveTechniqueCounters
+     * @param provider the DataProvider pending increments are flushed through
+     * @param registry the MeterRegistry live tracking metrics are published to
+     * @param flushThreshold the number of pending increments that triggers an early flush
+     */
+    @Autowired
+    public LiveTechniqueCounters(DataProvider provider, MeterRegistry registry,
+                                 @Value("${bjj.live.flush-threshold:500}") long flushThreshold) {
+        this.provider = provider;
+        this.registry = registry;
+        this.flushThreshold = flushThreshold;
+        this.increments = Counter.builder("bjj.live.increments")
+                .description("Technique count increments received in live roll mode")
+                .register(registry);
+        Gauge.builder("bjj.live.pending", pending, LongAdder::sum)
+                .description("Live increments waiting to be flushed")
+                .register(registry);
+    }
+
+    /**
+     * Add to a technique's count on a roll; the increment is written on the next flush
+     * @param rollId the ID of the roll
+     * @param techniqueId the ID of the technique
+     * @param by the amount to add
+     */
+    public void increment(long rollId, long techniqueId, int by) {
+        add(Tenant.current(), rollId, techniqueId, by);
+        increments.increment(by);
+        pending.add(by);
+        if (pending.sum() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> flush("size"));
+        }
+    }
+
+    /**
+     * Check whether increments for a roll and technique are already being tracked for the current tenant, i.e. both were validated
+     * by an earlier increment
+     * @param rollId the ID of the roll
+     * @param techniqueId the ID of the technique
+     * @return true if a counter of the current tenant exists for the pair
+     */
+    public boolean isTracking(long rollId, long techniqueId) {
+        RollCounters roll = byRoll.get(rollId);
+        return roll != null && roll.tenant().equals(Tenant.current()) && roll.counters().containsKey(techniqueId);
+    }
+
+    /**
+     * Run a read and merge pending increments into its result, consistently with any flush running at the same time.
+     * While any roll is being tracked the read goes to the primary database, since a flushed increment may not have reached a replica yet.
+     * @param read the database read
+     * @param merge applies pending increments (via pendingForRoll and pendingForTechnique) to the value read
+     * @return the merged value
+     * @throws SQLException if the read or merge fails
+     */
+    public <T> T readMerged(SqlOperation<T> read, MergeFunction<T> merge) throws SQLException {
+        if (byRoll.isEmpty() && retiredRolls.isEmpty()) return readMergedOnce(read, merge);
+        return provider.onPrimary(() -> readMergedOnce(read, merge));
+    }
+
+    private <T> T readMergedOnce(SqlOperation<T> read, MergeFunction<T> merge) throws SQLException {
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            long before = generation.get();
+            if ((before & 1) == 1) {
+                Thread.onSpinWait();
+                continue;
+            }
+            T value = read.execute();
+            if (value != null) merge.merge(value);
+            if (generation.get() == before) return value;
+        }
+        synchronized (flushLock) {
+            T value = read.execute();
+            if (value != null) merge.merge(value);
+            return value;
+        }
+    }
+
+    /**
+     * Get the pending increments for a roll
+     * @param rollId the ID of the roll
+     * @return the unflushed increments keyed by technique ID; empty if there are none
+     */
+    public Map<Long, Integer> pendingForRoll(long rollId) {
+        Map<Long, Integer> out = new HashMap<>();
+        RollCounters roll = byRoll.get(rollId);
+        if (roll != null) sumInto(out, roll.counters());
+        for (Map.Entry<Long, RollCounters> retired : retiredRolls) {
+            if (retired.getKey() == rollId) sumInto(out, retired.getValue().counters());
+        }
+        return out;
+    }
+
+    /**
+     * Get the pending increments to a technique's finish total
+     * @param techniqueId the ID of the technique
+     * @return the unflushed increment, 0 if there is none
+     */
+    public int pendingForTechnique(long techniqueId) {
+        long sum = 0;
+        for (RollCounters roll : byRoll.values()) sum += sumOf(roll.counters(), techniqueId);
+        for (Map.Entry<Long, RollCounters> retired : retiredRolls) sum += sumOf(retired.getValue().counters(), techniqueId);
+        return (int) sum;
+    }
+
+    /**
+     * Register a listener that is called after each tenant's increments are written by a flush, still inside the flush,
+     * so merged reads overlapping it keep retrying until the listener has returned
+     * @param listener the listener
+     */
+    public void addFlushListener(FlushListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Scheduled flush of all pending increments
+     */
+    @Scheduled(fixedDelayString = "${bjj.live.flush-interval-ms:2000}", initialDelayString = "${bjj.live.flush-interval-ms:2000}")
+    public void flushOnTimer() {
+        flush("timer");
+    }
+
+    /**
+     * Flush pending increments before the application shuts down
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush("shutdown");
+    }
+
+    /**
+     * Write all pending increments as one batched transaction per tenant. If a batch fails because a roll or technique no longer exists,
+     * each increment is retried alone and the ones that still fail are dropped; any other failure puts the increments back to be
+     * retried on the next flush.
+     * @param trigger what caused the flush (timer, size or shutdown), used as a metric tag
+     */
+    public void flush(String trigger) {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            long start = System.nanoTime();
+            generation.incrementAndGet(); // odd: merged reads overlapping this flush retry
+            Map<String, List<LinkDelta>> byTenant = new HashMap<>();
+            try {
+                drainRolls(byTenant);
+                if (byTenant.isEmpty()) return;
+                int rows = 0;
+                for (Map.Entry<String, List<LinkDelta>> e : byTenant.entrySet()) {
+                    try (Tenant.Scope tenant = Tenant.bind(e.getKey())) {
+                        List<LinkDelta> written = write(e.getKey(), e.getValue());
+                        if (!written.isEmpty()) notifyListeners(written);
+                    }
+                    rows += e.getValue().size();
+                }
+                DistributionSummary.builder("bjj.live.flush.rows")
+                        .description("Coalesced link rows written per live flush")
+                        .register(registry)
+                        .record(rows);
+            } finally {
+                generation.incrementAndGet();
+                Timer.builder("bjj.live.flush")
+                        .description("Duration of live counter flushes")
+                        .tag("trigger", trigger)
+                        .register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Helper method to take the pending increments of every roll counter, evicting rolls that had none since the previous flush
+     */
+    private void drainRolls(Map<String, List<LinkDelta>> byTenant) {
+        for (Map.Entry<Long, RollCounters> retired; (retired = retiredRolls.poll()) != null; ) {
+            collect(retired.getKey(), retired.getValue(), byTenant);
+        }
+        for (Map.Entry<Long, RollCounters> e : byRoll.entrySet()) {
+            if (!collect(e.getKey(), e.getValue(), byTenant) && byRoll.remove(e.getKey(), e.getValue())) {
+                retiredRolls.add(Map.entry(e.getKey(), e.getValue()));
+            }
+        }
+    }
+
+    private boolean collect(long rollId, RollCounters roll, Map<String, List<LinkDelta>> byTenant) {
+        boolean any = false;
+        for (Map.Entry<Long, LongAdder> c : roll.counters().entrySet()) {
+            long delta = c.getValue().sumThenReset();
+            if (delta == 0) continue;
+            byTenant.computeIfAbsent(roll.tenant(), k -> new ArrayList<>()).add(new LinkDelta(rollId, c.getKey(), (int) delta));
+            pending.add(-delta);
+            any = true;
+        }
+        return any;
+    }
+
+    /**
+     * Helper method to write one tenant's increments, returning the ones that were written; the others were dropped or restored
+     */
+    private List<LinkDelta> write(String tenant, List<LinkDelta> links) {
+        // each submission on a roll is also a finish for the technique
+        Map<Long, Integer> finishes = new HashMap<>();
+        for (LinkDelta d : links) finishes.merge(d.techniqueId(), d.delta(), Integer::sum);
+        try {
+            provider.addTechniqueCounts(links, finishes);
+            return links;
+        } catch (SQLIntegrityConstraintViolationException ex) {
+            List<LinkDelta> written = new ArrayList<>();
+            for (LinkDelta d : links) {
+                try {
+                    provider.addTechniqueCounts(List.of(d), Map.of(d.techniqueId(), d.delta()));
+                    written.add(d);
+                } catch (SQLIntegrityConstraintViolationException dropped) {
+                    log.warn("Dropping live increment for a roll or technique that no longer exists: {}", d);
+                    Counter.builder("bjj.live.dropped").register(registry).increment(d.delta());
+                } catch (SQLException retry) {
+                    restore(tenant, d);
+                }
+            }
+            return written;
+        } catch (SQLException ex) {
+            log.warn("Live counter flush failed; increments will be retried on the next flush", ex);
+            for (LinkDelta d : links) restore(tenant, d);
+            return List.of();
+        }
+    }
+
+    private void notifyListeners(List<LinkDelta> links) {
+        for (FlushListener listener : listeners) {
+            try {
+                listener.flushed(links);
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Live flush listener {} failed", listener, ex);
+            }
+        }
+    }
+
+    /**
+     * Helper method to put an increment that could not be written back into the counters
+     */
+    private void restore(String tenant, LinkDelta d) {
+        add(tenant, d.rollId(), d.techniqueId(), d.delta());
+        pending.add(d.delta());
+    }
+
+    private void add(String tenant, long rollId, long techniqueId, int by) {
+        byRoll.computeIfAbsent(rollId, k -> new RollCounters(tenant, new ConcurrentHashMap<>()))
+              .counters()
+              .computeIfAbsent(techniqueId, k -> new LongAdder())
+              .add(by);
+    }
+
+    private static long sumOf(Map<Long, LongAdder> counters, long techniqueId) {
+        LongAdder counter = counters.get(techniqueId);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Helper record to hold the counters of one roll and the tenant they are written for
+     */
+    private record RollCounters(String tenant, ConcurrentHashMap<Long, LongAdder> counters) {}
+
+    private static void sumInto(Map<Long, Integer> out, Map<Long, LongAdder> counters) {
+        for (Map.Entry<Long, LongAdder> c : counters.entrySet()) {
+            long sum = c.getValue().sum();
+            if (sum != 0) out.merge(c.getKey(), (int) sum, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,810 @@
+package com.example.business;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.data.DataProvider;
+import com.example.data.Invalidation;
+import com.example.data.LinkDelta;
+import com.example.data.RowVersion;
+import com.example.data.Tenant;
+import com.example.data.TenantSummary;
+import com.example.data.TombstoneTable;
+import com.example.metrics.SqlOperation;
+import com.example.model.CompactRoll;
+import com.example.model.CompactSession;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+import com.example.model.TechniqueDictionary;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The ReadModel class is an optional in-memory copy of every tenant's live sessions, rolls, techniques and links that the
+ * {@link BusinessManager} serves GET requests from instead of the database (bjj.read-model.enabled, off by default).
+ *
+ * Each tenant's data is held as an immutable {@link Snapshot}: sessions as {@link CompactSession}s indexed by id, an index from roll id
+ * to session id, and the live techniques. Writers never modify a published snapshot; after a write has committed, the entities it
+ * touched are re-read from the primary and a new snapshot, sharing everything that did not change, replaces the old one with a
+ * single volatile write. Readers therefore never block and never see half of a write, and a client sees its own write on its next read.
+ * Every read gets freshly materialized objects, so callers may modify what they get.
+ *
+ * Tenants are loaded in the background: all tenants when the application is ready, and a tenant first seen later on its first read.
+ * Until a tenant's snapshot is ready its reads fall through to the database, and changes to it are queued and applied once it is.
+ * Besides the BusinessManager, the {@link SessionIngestQueue} and live counter flushes report their writes here. Writes are also
+ * published to the {@link InvalidationBus}, and other nodes' writes received from it are re-read the same way; without the bus,
+ * writes made by other processes are not seen.
+ *
+ * With bjj.read-model.snapshot-file set, the snapshots of all loaded tenants are written to that file every
+ * bjj.read-model.snapshot-interval-ms and on shutdown (see {@link ReadModelFile}). A tenant found in the file on startup is loaded from
+ * it and then caught up: the version of every live session, roll and technique is read, and whatever was added, changed or deleted
+ * since the file was written is re-read like a change. A file that is missing, unreadable or fails its checksum is ignored.
+ *
+ * Metrics: bjj.readmodel.reads (by source), bjj.readmodel.entities (by type), bjj.readmodel.memory (estimated bytes),
+ * bjj.readmodel.refresh.lag (commit to publish), bjj.readmodel.staleness (age of the oldest change not yet applied),
+ * bjj.readmodel.warm (by source) and bjj.readmodel.file.write.
+ */
+@Component
+public class ReadModel implements InvalidationBus.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadModel.class);
+
+    // estimated heap cost per entity with compressed oops, including the index entries that point at it; tracks growth, not exact usage
+    private static final long SESSION_BYTES = 160;
+    private static final long ROLL_BYTES = 150;
+    private static final long LINK_BYTES = 12;
+    private static final long TECHNIQUE_BYTES = 220;
+
+    private final DataProvider provider;
+    private final InvalidationBus bus;
+    private final boolean enabled;
+    private final Path snapshotFile;
+    private Map<String, Snapshot> fileSnapshots; // read on the first warm, guarded by this
+    private final ConcurrentHashMap<String, TenantModel> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private final ExecutorService warmer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "read-model-warmer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Counter modelReads;
+    private final Counter databaseReads;
+    private final Timer refreshLag;
+    private final Timer warmFromFile;
+    private final Timer warmFromDatabase;
+    private final Timer fileWrites;
+
+    /**
+     * The entities a committed write touched, each with its version after the write where the writer knows it (0 where it does not);
+     * applying it re-reads them from the primary
+     */
+    static final class Change {
+        private final Map<Long, Long> sessions = new HashMap<>();
+        private final Map<Long, Long> rolls = new HashMap<>();
+        private final Map<Long, Long> techniques = new HashMap<>();
+        private final long createdNanos = System.nanoTime();
+
+        /**
+         * A session was written, together with the techniques its rolls reference
+         */
+        static Change ofSession(Session s) {
+            Change c = new Change().session(s.getId(), s.getVersion());
+            if (s.getRolls() != null) {
+                for (Roll r : s.getRolls()) c.techniquesOf(r);
+            }
+            return c;
+        }
+
+        /**
+         * A roll of the given session was written, together with the techniques it references
+         */
+        static Change ofRoll(long sessionId, Roll r) {
+            Change c = new Change().session(sessionId, 0);
+            c.techniquesOf(r);
+            return c;
+        }
+
+        static Change ofSessionId(long sessionId) {
+            return new Change().session(sessionId, 0);
+        }
+
+        /**
+         * An existing roll was written; its session is looked up in the snapshot
+         */
+        static Change ofRollId(long rollId) {
+            return new Change().roll(rollId, 0);
+        }
+
+        static Change ofTechnique(Technique t) {
+            return new Change().technique(t.getId(), t.getVersion());
+        }
+
+        static Change ofTechniqueId(long techniqueId) {
+            return new Change().technique(techniqueId, 0);
+        }
+
+        /**
+         * Links were added to existing rolls, which also changes the finish totals of their techniques
+         */
+        static Change ofLinks(List<LinkDelta> links) {
+            Change c = new Change();
+            for (LinkDelta d : links) c.roll(d.rollId(), 0).technique(d.techniqueId(), 0);
+            return c;
+        }
+
+        Change and(Change other) {
+            other.sessions.forEach(this::session);
+            other.rolls.forEach(this::roll);
+            other.techniques.forEach(this::technique);
+            return this;
+        }
+
+        private Change session(long id, long version) {
+            sessions.merge(id, version, Math::max);
+            return this;
+        }
+
+        private Change roll(long id, long version) {
+            rolls.merge(id, version, Math::max);
+            return this;
+        }
+
+        private Change technique(long id, long version) {
+            techniques.merge(id, version, Math::max);
+            return this;
+        }
+
+        private void techniquesOf(Roll r) {
+            for (List<TechniqueCount> counts : Arrays.asList(r.getSubs(), r.getTaps())) {
+                if (counts == null) continue;
+                for (TechniqueCount tc : counts) {
+                    if (tc != null && tc.getTechnique() != null) technique(tc.getTechnique().getId(), 0);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return sessions.isEmpty() && rolls.isEmpty() && techniques.isEmpty();
+        }
+    }
+
+    /**
+     * The model of one tenant; the snapshot is read without locking, everything else is guarded by the model's monitor
+     */
+    private static final class TenantModel {
+        final TechniqueDictionary dictionary = new TechniqueDictionary();
+        volatile Snapshot snapshot;
+        boolean warming;
+        volatile Change queued; // written under the monitor, read without it by the staleness gauge
+    }
+
+    /**
+     * Constructor for ReadModel
+     * @param provider the DataProvider the model is loaded and refreshed through
+     * @param registry the MeterRegistry read model metrics are published to
+     * @param live the live technique counters, whose flushes change links and finish totals
+     * @param bus the bus committed changes are published to and other nodes' changes are received from
+     * @param enabled whether GET requests are served from memory; if not, this class only publishes changes
+     * @param snapshotFile the file snapshots are written to and warmed from; empty for none
+     */
+    @Autowired
+    public ReadModel(DataProvider provider, MeterRegistry registry, LiveTechniqueCounters live, InvalidationBus bus,
+                     @Value("${bjj.read-model.enabled:false}") boolean enabled,
+                     @Value("${bjj.read-model.snapshot-file:}") String snapshotFile) {
+        this.provider = provider;
+        this.bus = bus;
+        this.enabled = enabled;
+        this.snapshotFile = snapshotFile == null || snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.modelReads = Counter.builder("bjj.readmodel.reads")
+                .description("Reads served by the in-memory read model or, while a tenant is warming, by the database")
+                .tag("source", "model")
+                .register(registry);
+        this.databaseReads = Counter.builder("bjj.readmodel.reads")
+                .description("Reads served by the in-memory read model or, while a tenant is warming, by the database")
+                .tag("source", "database")
+                .register(registry);
+        this.refreshLag = Timer.builder("bjj.readmodel.refresh.lag")
+                .description("Time from a committed write to the read model snapshot that includes it")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.warmFromFile = Timer.builder("bjj.readmodel.warm")
+                .description("Time to load a tenant into the read model")
+                .tag("source", "file")
+                .register(registry);
+        this.warmFromDatabase = Timer.builder("bjj.readmodel.warm")
+                .description("Time to load a tenant into the read model")
+                .tag("source", "database")
+                .register(registry);
+        this.fileWrites = Timer.builder("bjj.readmodel.file.write")
+                .description("Time to write the read model snapshot file")
+                .register(registry);
+        gauge(registry, "sessions", s -> s.sessions.size());
+        gauge(registry, "rolls", s -> s.sessionOfRoll.size());
+        gauge(registry, "techniques", s -> s.techniques.size());
+        gauge(registry, "links", s -> s.links);
+        Gauge.builder("bjj.readmodel.memory", this, m -> m.sum(Snapshot::estimatedBytes))
+                .description("Estimated heap used by the read model")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("bjj.readmodel.staleness", this, ReadModel::stalenessSeconds)
+                .description("Age of the oldest committed change not applied to the read model yet")
+                .baseUnit("seconds")
+                .register(registry);
+        live.addFlushListener(links -> changed(Change.ofLinks(links)));
+        bus.subscribe(this);
+    }
+
+    /**
+     * Check whether the read model is switched on
+     * @return the value of bjj.read-model.enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Check whether the current tenant's reads are served from memory
+     * @return true once the tenant's snapshot is loaded
+     */
+    public boolean isReady() {
+        TenantModel model = tenants.get(Tenant.current());
+        return model != null && model.snapshot != null;
+    }
+
+    /**
+     * Serve a read from the current tenant's snapshot, or from the database while the tenant is not loaded (starting to load it)
+     * @param fromModel the read against the snapshot
+     * @param fromDatabase the same read against the database
+     * @return the value read
+     * @throws SQLException if the read falls through to the database and fails
+     */
+    <T> T read(Function<Snapshot, T> fromModel, SqlOperation<T> fromDatabase) throws SQLException {
+        if (!enabled) return fromDatabase.execute();
+        Snapshot snapshot = model().snapshot;
+        if (snapshot == null) {
+            warmLater(Tenant.current());
+            databaseReads.increment();
+            return fromDatabase.execute();
+        }
+        modelReads.increment();
+        return fromModel.apply(snapshot);
+    }
+
+    /**
+     * Bring the current tenant's snapshot up to date with a committed write, and publish the write to the other nodes.
+     * Failures are logged; the entities stay as they were until they are written again or the tenant is reloaded.
+     * @param change the entities the write touched
+     */
+    void changed(Change change) {
+        if (change.isEmpty()) return;
+        changes.incrementAndGet();
+        change.sessions.forEach((id, version) -> bus.publish(Invalidation.Entity.SESSION, id, version));
+        change.rolls.forEach((id, version) -> bus.publish(Invalidation.Entity.ROLL, id, version));
+        change.techniques.forEach((id, version) -> bus.publish(Invalidation.Entity.TECHNIQUE, id, version));
+        if (enabled) apply(change, true);
+    }
+
+    /**
+     * Count the writes this node has committed and the other nodes' writes it has applied, of any tenant. A read that starts after
+     * this method returned sees every one of them.
+     * @return the number of changes so far
+     */
+    long changes() {
+        return changes.get();
+    }
+
+    /**
+     * Re-read the entities another node changed, skipping those the current tenant's snapshot already holds at that version
+     * @param invalidations the other nodes' invalidations of the current tenant
+     */
+    @Override
+    public void invalidated(List<Invalidation> invalidations) {
+        if (!enabled) return;
+        TenantModel model = tenants.get(Tenant.current());
+        if (model == null) return;
+        Snapshot snapshot = model.snapshot;
+        Change change = new Change();
+        for (Invalidation i : invalidations) {
+            if (snapshot != null && snapshot.holds(i)) continue;
+            switch (i.entity()) {
+                case SESSION -> change.session(i.id(), i.version());
+                case ROLL -> change.roll(i.id(), i.version());
+                case TECHNIQUE -> change.technique(i.id(), i.version());
+                case SUMMARY -> { }
+            }
+        }
+        if (change.isEmpty()) return;
+        changes.incrementAndGet();
+        apply(change, false);
+    }
+
+    /**
+     * Catch every loaded tenant up with the database by comparing row versions; a tenant that cannot be caught up is dropped and
+     * reloaded on its next read
+     */
+    @Override
+    public void resync() {
+        if (!enabled) return;
+        for (Map.Entry<String, TenantModel> e : tenants.entrySet()) {
+            TenantModel model = e.getValue();
+            try (Tenant.Scope scope = Tenant.bind(e.getKey())) {
+                synchronized (model) {
+                    if (model.snapshot == null) continue;
+                    try {
+                        model.snapshot = catchUp(model, model.snapshot);
+                    } catch (SQLException | RuntimeException ex) {
+                        model.snapshot = null;
+                        log.warn("Could not resynchronize the read model of tenant {}; its reads go to the database until it is reloaded",
+                                 e.getKey(), ex);
+                    }
+                }
+            }
+        }
+    }
+
+    private void apply(Change change, boolean local) {
+        TenantModel model = model();
+        synchronized (model) {
+            if (model.snapshot == null) {
+                if (model.warming) model.queued = model.queued == null ? change : model.queued.and(change);
+                return;
+            }
+            try {
+                model.snapshot = refresh(model, model.snapshot, change);
+                if (local) refreshLag.record(System.nanoTime() - change.createdNanos, TimeUnit.NANOSECONDS);
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Could not refresh the read model of tenant {}", Tenant.current(), ex);
+            }
+        }
+    }
+
+    /**
+     * Load every tenant in the background once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmOnStartup() {
+        if (!enabled) return;
+        warmer.execute(() -> {
+            try {
+                for (TenantSummary t : provider.getTenantSummaries()) warmLater(t.tenant());
+            } catch (SQLException ex) {
+                log.warn("Could not list tenants to warm the read model; tenants are loaded on first read instead", ex);
+            }
+        });
+    }
+
+    /**
+     * Load the current tenant into the read model now, unless it is loaded or loading already
+     * @throws SQLException if the tenant could not be read; it stays unloaded
+     */
+    public void warm() throws SQLException {
+        if (!enabled) return;
+        TenantModel model = model();
+        synchronized (model) {
+            if (model.snapshot != null || model.warming) return;
+            model.warming = true;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            Snapshot loaded = fileSnapshot(Tenant.current());
+            boolean fromFile = loaded != null;
+            loaded = fromFile ? catchUp(model, loaded) : provider.onPrimary(() -> load(model));
+            synchronized (model) {
+                if (model.queued != null) loaded = refresh(model, loaded, model.queued);
+                model.queued = null;
+                model.snapshot = loaded;
+            }
+            sample.stop(fromFile ? warmFromFile : warmFromDatabase);
+            log.info("Read model of tenant {} loaded from the {}: {} sessions, {} rolls, {} techniques", Tenant.current(),
+                     fromFile ? "file" : "database",
+                     loaded.sessions.size(), loaded.sessionOfRoll.size(), loaded.techniques.size());
+        } finally {
+            synchronized (model) {
+                model.warming = false;
+                if (model.snapshot == null) model.queued = null; // the next load reads them anyway
+            }
+        }
+    }
+
+    /**
+     * Scheduled write of the snapshots of every loaded tenant to bjj.read-model.snapshot-file
+     */
+    @Scheduled(fixedDelayString = "${bjj.read-model.snapshot-interval-ms:300000}", initialDelayString = "${bjj.read-model.snapshot-interval-ms:300000}")
+    public void writeSnapshotFile() {
+        if (!enabled || snapshotFile == null) return;
+        Map<String, Snapshot> snapshots = new HashMap<>();
+        tenants.forEach((tenant, model) -> {
+            Snapshot s = model.snapshot;
+            if (s != null) snapshots.put(tenant, s);
+        });
+        if (snapshots.isEmpty()) return;
+        Timer.Sample sample = Timer.start();
+        try {
+            long bytes = ReadModelFile.write(snapshotFile, snapshots);
+            sample.stop(fileWrites);
+            log.debug("Read model of {} tenants written to {} ({} bytes)", snapshots.size(), snapshotFile, bytes);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not write the read model to {}", snapshotFile, ex);
+        }
+    }
+
+    /**
+     * Stop loading tenants and write the snapshot file when the application shuts down
+     */
+    @PreDestroy
+    public void shutdown() {
+        warmer.shutdownNow();
+        writeSnapshotFile();
+    }
+
+    private TenantModel model() {
+        return tenants.computeIfAbsent(Tenant.current(), k -> new TenantModel());
+    }
+
+    private void warmLater(String tenant) {
+        TenantModel model = tenants.computeIfAbsent(tenant, k -> new TenantModel());
+        synchronized (model) {
+            if (model.snapshot != null || model.warming) return;
+        }
+        warmer.execute(() -> {
+            try (Tenant.Scope scope = Tenant.bind(tenant)) {
+                warm();
+            } catch (SQLException | RuntimeException ex) {
+                log.warn("Could not load the read model of tenant {}; its reads keep going to the database", tenant, ex);
+            }
+        });
+    }
+
+    /**
+     * Helper method to take a tenant's snapshot out of the snapshot file, reading the file on first use
+     * @return the snapshot as written, or null if there is no file or the tenant is not in it
+     */
+    private synchronized Snapshot fileSnapshot(String tenant) {
+        if (snapshotFile == null) return null;
+        if (fileSnapshots == null) {
+            fileSnapshots = new HashMap<>();
+            if (Files.exists(snapshotFile)) {
+                try {
+                    fileSnapshots = ReadModelFile.read(snapshotFile, t -> tenants.computeIfAbsent(t, k -> new TenantModel()).dictionary);
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Could not read the read model file {}; tenants are loaded from the database", snapshotFile, ex);
+                }
+            }
+        }
+        return fileSnapshots.remove(tenant);
+    }
+
+    /**
+     * Helper method to bring a stale snapshot (read from the file, or one that may have missed invalidations) up to date: compare the
+     * version of every live session, roll and technique with the snapshot's, and re-read what was added, changed or deleted since
+     */
+    private Snapshot catchUp(TenantModel model, Snapshot stale) throws SQLException {
+        Change change = new Change();
+        Map<Long, RowVersion> sessions = byId(provider.onPrimary(() -> provider.getRowVersions(TombstoneTable.SESSIONS)));
+        for (RowVersion v : sessions.values()) {
+            CompactSession cs = stale.sessions.get(v.id());
+            if (cs == null || cs.getVersion() != v.version()) change.session(v.id(), v.version());
+        }
+        for (Long id : stale.sessions.keySet()) {
+            if (!sessions.containsKey(id)) change.session(id, 0);
+        }
+        Map<Long, RowVersion> rolls = byId(provider.onPrimary(() -> provider.getRowVersions(TombstoneTable.ROLLS)));
+        for (RowVersion v : rolls.values()) {
+            Long sessionId = stale.sessionOfRoll.get(v.id());
+            if (sessionId == null) {
+                change.session(v.sessionId(), 0);
+            } else if (sessionId != v.sessionId() || stale.compactRoll(v.id()).getVersion() != v.version()) {
+                change.session(sessionId, 0).session(v.sessionId(), 0);
+            }
+        }
+        for (Map.Entry<Long, Long> e : stale.sessionOfRoll.entrySet()) {
+            if (!rolls.containsKey(e.getKey())) change.session(e.getValue(), 0);
+        }
+        Map<Long, RowVersion> techniques = byId(provider.onPrimary(() -> provider.getRowVersions(TombstoneTable.TECHNIQUES)));
+        for (RowVersion v : techniques.values()) {
+            Technique t = stale.techniques.get(v.id());
+            if (t == null || t.getVersion() != v.version()) change.technique(v.id(), v.version());
+        }
+        for (Long id : stale.techniques.keySet()) {
+            if (!techniques.containsKey(id)) change.technique(id, 0);
+        }
+        log.debug("Read model of tenant {} catching up {} sessions and {} techniques", Tenant.current(),
+                  change.sessions.size(), change.techniques.size());
+        return change.isEmpty() ? stale : refresh(model, stale, change);
+    }
+
+    private static Map<Long, RowVersion> byId(List<RowVersion> versions) {
+        Map<Long, RowVersion> out = new HashMap<>(versions.size() * 2);
+        for (RowVersion v : versions) out.put(v.id(), v);
+        return out;
+    }
+
+    /**
+     * Helper method to read a tenant's live sessions (with their rolls and links) and techniques into a new snapshot
+     */
+    private Snapshot load(TenantModel model) throws SQLException {
+        Map<Long, CompactSession> sessions = new HashMap<>();
+        Map<Long, Long> sessionOfRoll = new HashMap<>();
+        long links = 0;
+        for (Session s : provider.getSessions()) {
+            CompactSession cs = CompactSession.of(s, model.dictionary);
+            sessions.put(cs.getId(), cs);
+            links += index(cs, sessionOfRoll, 1);
+        }
+        Map<Long, Technique> techniques = new HashMap<>();
+        for (Technique t : provider.getTechniques()) techniques.put(t.getId(), Copies.technique(t));
+        return new Snapshot(sessions, sessionOfRoll, techniques, links);
+    }
+
+    /**
+     * Helper method to build the snapshot that follows a change, re-reading what it touched from the primary.
+     * Maps that the change does not touch are shared with the previous snapshot.
+     */
+    private Snapshot refresh(TenantModel model, Snapshot old, Change change) throws SQLException {
+        Set<Long> sessionIds = new HashSet<>(change.sessions.keySet());
+        for (Long rollId : change.rolls.keySet()) {
+            Long sessionId = old.sessionOfRoll.get(rollId);
+            if (sessionId != null) sessionIds.add(sessionId);
+        }
+        Map<Long, CompactSession> sessions = old.sessions;
+        Map<Long, Long> sessionOfRoll = old.sessionOfRoll;
+        long links = old.links;
+        if (!sessionIds.isEmpty()) {
+            Map<Long, Session> fresh = provider.onPrimary(() -> provider.getSessionsByIds(new ArrayList<>(sessionIds)));
+            sessions = new HashMap<>(old.sessions);
+            sessionOfRoll = new HashMap<>(old.sessionOfRoll);
+            for (Long id : sessionIds) {
+                CompactSession stale = sessions.remove(id);
+                if (stale != null) links += index(stale, sessionOfRoll, -1);
+                Session s = fresh.get(id);
+                if (s == null) continue; // deleted
+                CompactSession cs = CompactSession.of(s, model.dictionary);
+                sessions.put(id, cs);
+                links += index(cs, sessionOfRoll, 1);
+            }
+        }
+        Map<Long, Technique> techniques = old.techniques;
+        if (!change.techniques.isEmpty()) {
+            Map<Long, Technique> fresh = provider.onPrimary(() -> provider.getTechniquesByIds(new ArrayList<>(change.techniques.keySet())));
+            techniques = new HashMap<>(old.techniques);
+            for (Long id : change.techniques.keySet()) {
+                Technique t = fresh.get(id);
+                if (t == null) techniques.remove(id);
+                else techniques.put(id, Copies.technique(t));
+            }
+        }
+        return new Snapshot(sessions, sessionOfRoll, techniques, links);
+    }
+
+    /**
+     * Helper method to add (sign 1) or remove (sign -1) a session's rolls in the roll index
+     * @return the change in the number of links
+     */
+    private static long index(CompactSession cs, Map<Long, Long> sessionOfRoll, int sign) {
+        long links = 0;
+        for (CompactRoll r : cs.getRolls()) {
+            if (sign > 0) sessionOfRoll.put(r.getId(), cs.getId());
+            else sessionOfRoll.remove(r.getId());
+            links += sign * r.getTechniqueEntries();
+        }
+        return links;
+    }
+
+    private void gauge(MeterRegistry registry, String type, ToDoubleFunction<Snapshot> size) {
+        Gauge.builder("bjj.readmodel.entities", this, m -> m.sum(size))
+                .description("Entities held by the read model")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private double sum(ToDoubleFunction<Snapshot> f) {
+        double sum = 0;
+        for (TenantModel model : tenants.values()) {
+            Snapshot s = model.snapshot;
+            if (s != null) sum += f.applyAsDouble(s);
+        }
+        return sum;
+    }
+
+    private double stalenessSeconds() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (TenantModel model : tenants.values()) {
+            Change queued = model.queued;
+            if (queued != null) oldest = Math.min(oldest, queued.createdNanos);
+        }
+        return (now - oldest) / 1e9;
+    }
+
+    /**
+     * An immutable view of one tenant's data. Reads materialize new Session, Roll and Technique objects; Techniques are copied once
+     * per read, and links to techniques that are not live are left out, as they are by the database reads.
+     */
+    static final class Snapshot {
+        final Map<Long, CompactSession> sessions;
+        final Map<Long, Long> sessionOfRoll;
+        final Map<Long, Technique> techniques;
+        final long links;
+        // list orders, computed on first use; a race computes the same value twice
+        private volatile List<CompactSession> sessionOrder;
+        private volatile List<CompactRoll> rollOrder;
+
+        Snapshot(Map<Long, CompactSession> sessions, Map<Long, Long> sessionOfRoll, Map<Long, Technique> techniques, long links) {
+            this.sessions = sessions;
+            this.sessionOfRoll = sessionOfRoll;
+            this.techniques = techniques;
+            this.links = links;
+        }
+
+        Session session(long id) {
+            CompactSession cs = sessions.get(id);
+            return cs == null ? null : materialize(cs, new HashMap<>());
+        }
+
+        /**
+         * All sessions, newest first (by date, then by id), like {@link DataProvider#getSessions()}
+         */
+        List<Session> sessions() {
+            List<CompactSession> order = sessionOrder;
+            if (order == null) {
+                order = new ArrayList<>(sessions.values());
+                order.sort(Comparator.comparing(CompactSession::getDate, Comparator.reverseOrder())
+                                     .thenComparing(CompactSession::getId, Comparator.reverseOrder()));
+                sessionOrder = order;
+            }
+            Map<Long, Technique> copies = new HashMap<>();
+            List<Session> out = new ArrayList<>(order.size());
+            for (CompactSession cs : order) out.add(materialize(cs, copies));
+            return out;
+        }
+
+        Map<Long, Session> sessions(List<Long> ids) {
+            Map<Long, Technique> copies = new HashMap<>();
+            Map<Long, Session> out = new LinkedHashMap<>();
+            for (Long id : ids) {
+                CompactSession cs = sessions.get(id);
+                if (cs != null) out.put(id, materialize(cs, copies));
+            }
+            return out;
+        }
+
+        Roll roll(long id) {
+            CompactRoll r = compactRoll(id);
+            return r == null ? null : materialize(r, new HashMap<>());
+        }
+
+        /**
+         * All rolls, most recently created first (by creation time, then by id), like {@link DataProvider#getRolls()}
+         */
+        List<Roll> rolls() {
+            List<CompactRoll> order = rollOrder;
+            if (order == null) {
+                order = new ArrayList<>(sessionOfRoll.size());
+                for (CompactSession cs : sessions.values()) order.addAll(cs.getRolls());
+                order.sort(Comparator.comparing(CompactRoll::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                                     .thenComparing(CompactRoll::getId, Comparator.reverseOrder()));
+                rollOrder = order;
+            }
+            Map<Long, Technique> copies = new HashMap<>();
+            List<Roll> out = new ArrayList<>(order.size());
+            for (CompactRoll cr : order) out.add(materialize(cr, copies));
+            return out;
+        }
+
+        Map<Long, Roll> rolls(List<Long> ids) {
+            Map<Long, Technique> copies = new HashMap<>();
+            Map<Long, Roll> out = new LinkedHashMap<>();
+            for (Long id : ids) {
+                CompactRoll r = compactRoll(id);
+                if (r != null) out.put(id, materialize(r, copies));
+            }
+            return out;
+        }
+
+        Technique technique(long id) {
+            Technique t = techniques.get(id);
+            return t == null ? null : Copies.technique(t);
+        }
+
+        /**
+         * All live techniques, by id
+         */
+        List<Technique> techniques() {
+            List<Technique> out = new ArrayList<>(techniques.size());
+            for (Technique t : techniques.values()) out.add(Copies.technique(t));
+            out.sort(Comparator.comparingLong(Technique::getId));
+            return out;
+        }
+
+        Map<Long, Technique> techniques(List<Long> ids) {
+            Map<Long, Technique> out = new LinkedHashMap<>();
+            for (Long id : ids) {
+                Technique t = techniques.get(id);
+                if (t != null) out.put(id, Copies.technique(t));
+            }
+            return out;
+        }
+
+        /**
+         * Check whether an invalidation is already applied: its entity is held at the version it names, or a newer one
+         */
+        boolean holds(Invalidation i) {
+            if (i.version() <= 0) return false;
+            return switch (i.entity()) {
+                case SESSION -> sessions.containsKey(i.id()) && sessions.get(i.id()).getVersion() >= i.version();
+                case ROLL -> compactRoll(i.id()) != null && compactRoll(i.id()).getVersion() >= i.version();
+                case TECHNIQUE -> techniques.containsKey(i.id()) && techniques.get(i.id()).getVersion() >= i.version();
+                case SUMMARY -> true;
+            };
+        }
+
+        private double estimatedBytes() {
+            return sessions.size() * SESSION_BYTES + sessionOfRoll.size() * ROLL_BYTES + links * LINK_BYTES + techniques.size() * TECHNIQUE_BYTES;
+        }
+
+        CompactRoll compactRoll(long rollId) {
+            Long sessionId = sessionOfRoll.get(rollId);
+            if (sessionId == null) return null;
+            for (CompactRoll r : sessions.get(sessionId).getRolls()) {
+                if (r.getId() == rollId) return r;
+            }
+            return null;
+        }
+
+        private Session materialize(CompactSession cs, Map<Long, Technique> copies) {
+            Session s = cs.toSession();
+            for (Roll r : s.getRolls()) attach(r, copies);
+            return s;
+        }
+
+        private Roll materialize(CompactRoll cr, Map<Long, Technique> copies) {
+            Roll r = cr.toRoll();
+            attach(r, copies);
+            return r;
+        }
+
+        /**
+         * Helper method to point a materialized roll's counts at this read's copies of the live techniques, dropping the others
+         */
+        private void attach(Roll r, Map<Long, Technique> copies) {
+            for (List<TechniqueCount> counts : List.of(r.getSubs(), r.getTaps())) {
+                counts.removeIf(tc -> !techniques.containsKey(tc.getTechnique().getId()));
+                for (TechniqueCount tc : counts) tc.setTechnique(copies.computeIfAbsent(tc.getTechnique().getId(), id -> Copies.technique(techniques.get(id))));
+            }
+        }
+    }
+}
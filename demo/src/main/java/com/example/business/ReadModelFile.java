@@ -0,0 +1,255 @@
+package com.example.business;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.example.model.CompactRoll;
+import com.example.model.CompactSession;
+import com.example.model.Roll;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+import com.example.model.TechniqueDictionary;
+
+/**
+ * The ReadModelFile class writes the {@link ReadModel}'s snapshots to a local binary file and reads them back, so a restarted
+ * node can load its read model from one file instead of from the database. All numbers are big-endian:
+ * <pre>
+ * header   int magic "BJJS", int format (2), long written-at epoch millis
+ * payload  int string count, then per string: int UTF-8 length, bytes   (partners, instructors, belts, names; each stored once)
+ *          int tenant count, then per tenant:
+ *            int tenant (string index)
+ *            int technique count; per technique: long id, int name, int position, int finishes, int taps, long version
+ *            int session count; per session: long id, long epoch day, long nano of day (-1 if none), byte gi, int instructor,
+ *                int belt, long version, int roll count; per roll: long id, int minutes, int partner, int rounds, long version,
+ *                long created-at epoch second (as UTC; Long.MIN_VALUE if none), int created-at nano,
+ *                int sub count, (long technique id, int count)..., int tap count, (long technique id, int count)...
+ * trailer  long CRC32 of the payload
+ * </pre>
+ * String references are indexes into the string table, -1 for null. Files are written to a temporary file, forced to disk and
+ * renamed over the previous one, so a crash leaves either the old or the new file. Files are read through a memory mapping.
+ */
+final class ReadModelFile {
+
+    private static final int MAGIC = 0x424A4A53;
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int TRAILER_BYTES = 8;
+
+    private ReadModelFile() {}
+
+    /**
+     * Write the snapshots of several tenants to a file, replacing it atomically
+     * @param path the file
+     * @param snapshots the snapshot of each tenant
+     * @return the size of the file written, in bytes
+     * @throws IOException if the file could not be written; the previous file is left in place
+     */
+    static long write(Path path, Map<String, ReadModel.Snapshot> snapshots) throws IOException {
+        // first pass: the string table, so that the second pass can write references
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (Map.Entry<String, ReadModel.Snapshot> e : snapshots.entrySet()) {
+            ref(strings, e.getKey());
+            for (Technique t : e.getValue().techniques.values()) {
+                ref(strings, t.getName());
+                ref(strings, t.getPosition());
+            }
+            for (CompactSession s : e.getValue().sessions.values()) {
+                ref(strings, s.getInstructor());
+                ref(strings, s.getcurrentBelt());
+                for (CompactRoll r : s.getRolls()) ref(strings, r.getPartner());
+            }
+        }
+
+        if (path.toAbsolutePath().getParent() != null) Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+            BufferedOutputStream buffered = new BufferedOutputStream(file, 1 << 16);
+            DataOutputStream header = new DataOutputStream(buffered);
+            header.writeInt(MAGIC);
+            header.writeInt(FORMAT);
+            header.writeLong(System.currentTimeMillis());
+
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+            out.writeInt(strings.size());
+            for (String s : strings.keySet()) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(snapshots.size());
+            for (Map.Entry<String, ReadModel.Snapshot> e : snapshots.entrySet()) {
+                out.writeInt(strings.get(e.getKey()));
+                writeTenant(out, e.getValue(), strings);
+            }
+            out.flush();
+            header.writeLong(crc.getValue());
+            header.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    /**
+     * Read the snapshots of all tenants in a file
+     * @param path the file
+     * @param dictionaryOf the technique dictionary the compact rolls of a tenant resolve through
+     * @return the snapshot of each tenant in the file
+     * @throws IOException if the file cannot be read, is not a snapshot file of this format, or fails its checksum
+     */
+    static Map<String, ReadModel.Snapshot> read(Path path, Function<String, TechniqueDictionary> dictionaryOf) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES || size > Integer.MAX_VALUE) throw new IOException("Not a read model snapshot: " + path);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt() != MAGIC) throw new IOException("Not a read model snapshot: " + path);
+            int format = buf.getInt();
+            if (format != FORMAT) throw new IOException("Unsupported read model snapshot format " + format + ": " + path);
+            buf.getLong(); // written at
+
+            int payload = (int) size - HEADER_BYTES - TRAILER_BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buf.slice(HEADER_BYTES, payload));
+            if (crc.getValue() != buf.getLong(HEADER_BYTES + payload)) throw new IOException("Read model snapshot fails its checksum: " + path);
+
+            String[] strings = new String[buf.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buf.getInt()];
+                buf.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int tenants = buf.getInt();
+            Map<String, ReadModel.Snapshot> out = new HashMap<>();
+            for (int i = 0; i < tenants; i++) {
+                String tenant = strings[buf.getInt()];
+                out.put(tenant, readTenant(buf, strings, dictionaryOf.apply(tenant)));
+            }
+            return out;
+        }
+    }
+
+    private static void writeTenant(DataOutputStream out, ReadModel.Snapshot snapshot, Map<String, Integer> strings) throws IOException {
+        out.writeInt(snapshot.techniques.size());
+        for (Technique t : snapshot.techniques.values()) {
+            out.writeLong(t.getId());
+            out.writeInt(ref(strings, t.getName()));
+            out.writeInt(ref(strings, t.getPosition()));
+            out.writeInt(t.getNumFinishes());
+            out.writeInt(t.getNumTaps());
+            out.writeLong(t.getVersion());
+        }
+        out.writeInt(snapshot.sessions.size());
+        for (CompactSession s : snapshot.sessions.values()) {
+            out.writeLong(s.getId());
+            out.writeLong(s.getDate() == null ? Long.MIN_VALUE : s.getDate().toEpochDay());
+            out.writeLong(s.getTime() == null ? -1 : s.getTime().toNanoOfDay());
+            out.writeBoolean(s.isGi());
+            out.writeInt(ref(strings, s.getInstructor()));
+            out.writeInt(ref(strings, s.getcurrentBelt()));
+            out.writeLong(s.getVersion());
+            List<CompactRoll> rolls = s.getRolls();
+            out.writeInt(rolls.size());
+            for (CompactRoll cr : rolls) {
+                Roll r = cr.toRoll(); // the counts in stored order
+                out.writeLong(r.getId());
+                out.writeInt(r.getLengthMinutes());
+                out.writeInt(ref(strings, r.getPartner()));
+                out.writeInt(r.getNumRounds());
+                out.writeLong(r.getVersion());
+                out.writeLong(r.getCreatedAt() == null ? Long.MIN_VALUE : r.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(r.getCreatedAt() == null ? 0 : r.getCreatedAt().getNano());
+                writeCounts(out, r.getSubs());
+                writeCounts(out, r.getTaps());
+            }
+        }
+    }
+
+    private static void writeCounts(DataOutputStream out, List<TechniqueCount> counts) throws IOException {
+        out.writeInt(counts.size());
+        for (TechniqueCount tc : counts) {
+            out.writeLong(tc.getTechnique().getId());
+            out.writeInt(tc.getCount());
+        }
+    }
+
+    private static ReadModel.Snapshot readTenant(ByteBuffer buf, String[] strings, TechniqueDictionary dictionary) {
+        Map<Long, Technique> techniques = new HashMap<>();
+        for (int i = buf.getInt(); i > 0; i--) {
+            Technique t = new Technique(buf.getLong(), string(strings, buf.getInt()), string(strings, buf.getInt()), buf.getInt(), buf.getInt());
+            t.setVersion(buf.getLong());
+            techniques.put(t.getId(), t);
+            dictionary.intern(t);
+        }
+        Map<Long, CompactSession> sessions = new HashMap<>();
+        Map<Long, Long> sessionOfRoll = new HashMap<>();
+        long links = 0;
+        for (int i = buf.getInt(); i > 0; i--) {
+            long id = buf.getLong();
+            long epochDay = buf.getLong();
+            long nanoOfDay = buf.getLong();
+            boolean gi = buf.get() != 0;
+            String instructor = string(strings, buf.getInt());
+            String belt = string(strings, buf.getInt());
+            long version = buf.getLong();
+            CompactRoll[] rolls = new CompactRoll[buf.getInt()];
+            for (int j = 0; j < rolls.length; j++) {
+                long rollId = buf.getLong();
+                int minutes = buf.getInt();
+                String partner = string(strings, buf.getInt());
+                int rounds = buf.getInt();
+                long rollVersion = buf.getLong();
+                long createdSecond = buf.getLong();
+                int createdNano = buf.getInt();
+                long[] subIds = new long[buf.getInt()];
+                int[] subCounts = new int[subIds.length];
+                for (int k = 0; k < subIds.length; k++) {
+                    subIds[k] = buf.getLong();
+                    subCounts[k] = buf.getInt();
+                }
+                long[] tapIds = new long[buf.getInt()];
+                int[] tapCounts = new int[tapIds.length];
+                for (int k = 0; k < tapIds.length; k++) {
+                    tapIds[k] = buf.getLong();
+                    tapCounts[k] = buf.getInt();
+                }
+                rolls[j] = new CompactRoll(rollId, minutes, partner, rounds, subIds, subCounts, tapIds, tapCounts, dictionary, rollVersion,
+                                           createdSecond == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(createdSecond, createdNano, ZoneOffset.UTC));
+                sessionOfRoll.put(rollId, id);
+                links += subIds.length + tapIds.length;
+            }
+            sessions.put(id, new CompactSession(id, epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay),
+                                                nanoOfDay < 0 ? null : LocalTime.ofNanoOfDay(nanoOfDay), gi, instructor, belt, rolls, version));
+        }
+        return new ReadModel.Snapshot(sessions, sessionOfRoll, techniques, links);
+    }
+
+    private static int ref(Map<String, Integer> strings, String s) {
+        return s == null ? -1 : strings.computeIfAbsent(s, k -> strings.size());
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref < 0 ? null : strings[ref];
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.business;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.data.DataProvider;
+import com.example.data.SummaryCounters;
+import com.example.data.Tenant;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The SessionIngestQueue class backs asynchronous session creation (POST /api/sessions?async=true) for bursts such as every tablet
+ * in a class logging its session at the same moment. A request is validated, put on a bounded queue (bjj.ingest.capacity) and
+ * answered at once with an {@link IngestTicket}; a full queue rejects the request instead of letting it wait.
+ *
+ * A single writer thread drains the queue and commits up to bjj.ingest.max-batch sessions per transaction (group commit), waiting up
+ * to bjj.ingest.linger-ms for a batch to fill. Sessions are written as the {@link Tenant} that submitted them. If a batch fails, its
+ * sessions are retried one by one so that one bad session does not fail the others. The outcome of each ticket is kept for
+ * bjj.ingest.retention-ms after it completes. The writer's statements are not counted in the QueryScope of the request that
+ * submitted the session, which has returned by the time they run.
+ *
+ * Durability is set by bjj.ingest.durability:
+ * - memory: accepted sessions that have not been committed are lost if the process stops abruptly.
+ * - journal: every accepted session is forced to a local {@link IngestJournal} (bjj.ingest.journal-path) before its ticket is
+ *   returned, and sessions that were never completed are replayed on startup. Delivery is at-least-once: a crash between a commit
+ *   and its journal record saves that session again.
+ *
+ * Metrics: bjj.ingest.queue.depth, bjj.ingest.accepted, bjj.ingest.rejected, bjj.ingest.batch.size, bjj.ingest.commit and
+ * bjj.ingest.completed (by status).
+ */
+@Component
+public class SessionIngestQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionIngestQueue.class);
+    private static final long SHUTDOWN_DRAIN_MILLIS = 10_000;
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    /**
+     * An accepted session waiting for the writer
+     * @param ticket the ticket id
+     * @param tenant the tenant that submitted the session
+     * @param session the session
+     */
+    private record Entry(String ticket, String tenant, Session session) {}
+
+    private final DataProvider provider;
+    private final MeterRegistry registry;
+    private final DashboardSummaries summaries;
+    private final ReadModel readModel;
+    private final int maxBatch;
+    private final long lingerMillis;
+    private final long retentionMillis;
+    private final IngestJournal journal;
+
+    private final BlockingQueue<Entry> queue;
+    private final ConcurrentHashMap<String, IngestTicket> tickets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> ticketTenants = new ConcurrentHashMap<>();
+    private final AtomicInteger uncompleted = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean accepting = true;
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final DistributionSummary batchSize;
+    private final Timer commitTimer;
+
+    /**
+     * Constructor for SessionIngestQueue; in journal mode, sessions left over from a previous run are queued before anything else
+     * @param provider the DataProvider sessions are written through
+     * @param registry the MeterRegistry ingestion metrics are published to
+     * @param summaries the dashboard summaries committed sessions are added to
+     * @param readModel the read model committed sessions are reported to
+     * @param mapper the ObjectMapper journal records are written with
+     * @param capacity the most sessions that may wait to be written
+     * @param maxBatch the most sessions committed in one transaction
+     * @param lingerMillis how long the writer waits for a batch to fill once it has a session
+     * @param retentionMillis how long the outcome of a completed ticket is kept
+     * @param durability memory or journal
+     * @param journalPath the journal file, in journal mode
+     * @throws IOException if the journal cannot be opened or replayed
+     */
+    @Autowired
+    public SessionIngestQueue(DataProvider provider, MeterRegistry registry, DashboardSummaries summaries, ReadModel readModel,
+                              ObjectMapper mapper,
+                              @Value("${bjj.ingest.capacity:10000}") int capacity,
+                              @Value("${bjj.ingest.max-batch:200}") int maxBatch,
+                              @Value("${bjj.ingest.linger-ms:20}") long lingerMillis,
+                              @Value("${bjj.ingest.retention-ms:600000}") long retentionMillis,
+                              @Value("${bjj.ingest.durability:memory}") String durability,
+                              @Value("${bjj.ingest.journal-path:data/ingest.journal}") String journalPath) throws IOException {
+        if (capacity < 1 || maxBatch < 1) throw new IllegalArgumentException("bjj.ingest.capacity and bjj.ingest.max-batch must be positive");
+        this.provider = provider;
+        this.registry = registry;
+        this.summaries = summaries;
+        this.readModel = readModel;
+        this.maxBatch = maxBatch;
+        this.lingerMillis = lingerMillis;
+        this.retentionMillis = retentionMillis;
+
+        List<IngestJournal.Record> replay = List.of();
+        switch (durability) {
+            case "memory" -> this.journal = null;
+            case "journal" -> {
+                this.journal = new IngestJournal(Path.of(journalPath), mapper);
+                replay = journal.pending();
+            }
+            default -> throw new IllegalArgumentException("bjj.ingest.durability must be memory or journal, not " + durability);
+        }
+        this.queue = new ArrayBlockingQueue<>(Math.max(capacity, replay.size()));
+        for (IngestJournal.Record r : replay) {
+            uncompleted.incrementAndGet();
+            track(new Entry(r.ticket(), r.tenant(), r.session()));
+        }
+        if (!replay.isEmpty()) log.info("Replaying {} sessions from the ingest journal {}", replay.size(), journalPath);
+
+        this.accepted = Counter.builder("bjj.ingest.accepted")
+                .description("Sessions accepted for asynchronous ingestion")
+                .register(registry);
+        this.rejected = Counter.builder("bjj.ingest.rejected")
+                .description("Sessions rejected because the ingest queue was full")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("bjj.ingest.batch.size")
+                .description("Sessions committed per group-commit transaction")
+                .register(registry);
+        this.commitTimer = Timer.builder("bjj.ingest.commit")
+                .description("Time to commit one batch of ingested sessions")
+                .register(registry);
+        Gauge.builder("bjj.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Sessions waiting to be written")
+                .register(registry);
+
+        this.writer = new Thread(this::drain, "session-ingest-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Accept a new session for asynchronous saving as the current tenant
+     * @param s the session; it must be new (id 0), with a date and a time, and every technique count must name a technique
+     * @return the PENDING ticket to poll with {@link #getTicket(String)}
+     * @throws IllegalArgumentException if the session is not valid
+     * @throws RejectedExecutionException if the queue is full or the application is shutting down
+     * @throws IOException if the session cannot be written to the journal
+     */
+    public IngestTicket enqueue(Session s) throws IOException {
+        validate(s);
+        if (!accepting || queue.remainingCapacity() == 0) {
+            rejected.increment();
+            throw new RejectedExecutionException(accepting ? "The session ingest queue is full" : "Session ingestion is shutting down");
+        }
+        Entry entry = new Entry(UUID.randomUUID().toString(), Tenant.current(), s);
+        uncompleted.incrementAndGet(); // before the append, so the journal is not truncated under it
+        if (journal != null) {
+            try {
+                journal.append(entry.ticket(), entry.tenant(), entry.session());
+            } catch (IOException ex) {
+                uncompleted.decrementAndGet();
+                throw ex;
+            }
+        }
+        IngestTicket ticket = track(entry);
+        if (ticket == null) {
+            complete(List.of(entry.ticket()));
+            rejected.increment();
+            throw new RejectedExecutionException("The session ingest queue is full");
+        }
+        accepted.increment();
+        return ticket;
+    }
+
+    /**
+     * Get the outcome of a ticket of the current tenant
+     * @param ticket the ticket id
+     * @return the ticket, or null if it is unknown, belongs to another tenant or completed longer ago than the retention period
+     */
+    public IngestTicket getTicket(String ticket) {
+        IngestTicket t = tickets.get(ticket);
+        return t != null && Tenant.current().equals(ticketTenants.get(ticket)) ? t : null;
+    }
+
+    /**
+     * Stop accepting sessions and give the writer a bounded time to commit the ones already queued
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        try {
+            writer.join(SHUTDOWN_DRAIN_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) log.warn("{} queued sessions were not written before shutdown", queue.size());
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                log.warn("Could not close the ingest journal", ex);
+            }
+        }
+    }
+
+    // Register a PENDING ticket and queue its session; returns null if the queue is full
+    private IngestTicket track(Entry entry) {
+        IngestTicket ticket = new IngestTicket(entry.ticket(), IngestTicket.Status.PENDING, null, null, Instant.now(), null);
+        ticketTenants.put(entry.ticket(), entry.tenant());
+        tickets.put(entry.ticket(), ticket);
+        if (queue.offer(entry)) return ticket;
+        tickets.remove(entry.ticket());
+        ticketTenants.remove(entry.ticket());
+        return null;
+    }
+
+    private static void validate(Session s) {
+        if (s == null) throw new IllegalArgumentException("Session is null");
+        if (s.getId() != 0) throw new IllegalArgumentException("Only new sessions can be ingested asynchronously");
+        if (s.getDate() == null || s.getTime() == null) throw new IllegalArgumentException("Session date and time are required");
+        if (s.getRolls() == null) return;
+        for (Roll r : s.getRolls()) {
+            if (r == null) throw new IllegalArgumentException("Session contains a null roll");
+            if (r.getId() != 0) throw new IllegalArgumentException("A new session cannot contain an existing roll");
+            validateCounts(r.getSubs());
+            validateCounts(r.getTaps());
+        }
+    }
+
+    private static void validateCounts(List<TechniqueCount> counts) {
+        if (counts == null) return;
+        for (TechniqueCount tc : counts) {
+            Technique t = tc != null ? tc.getTechnique() : null;
+            if (t == null || (t.getId() == 0 && (t.getName() == null || t.getName().isBlank()))) {
+                throw new IllegalArgumentException("Every technique count needs an existing technique id or a technique name");
+            }
+        }
+    }
+
+    // ======================================================================================================================================
+    //                                 Writer
+    // ======================================================================================================================================
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    evictCompleted();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || wait <= 0) break;
+                    Entry next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next != null) batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty()) write(batch);
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        Map<String, List<Entry>> byTenant = new LinkedHashMap<>();
+        for (Entry e : batch) byTenant.computeIfAbsent(e.tenant(), k -> new ArrayList<>()).add(e);
+        for (Map.Entry<String, List<Entry>> tenant : byTenant.entrySet()) {
+            try (Tenant.Scope scope = Tenant.bind(tenant.getKey())) {
+                writeTenant(tenant.getValue());
+            } catch (RuntimeException ex) {
+                log.error("Unexpected failure writing ingested sessions", ex);
+                for (Entry e : tenant.getValue()) fail(e, ex);
+            }
+        }
+        complete(batch.stream().map(Entry::ticket).toList());
+        evictCompleted();
+    }
+
+    private void writeTenant(List<Entry> entries) {
+        long start = System.nanoTime();
+        try {
+            insert(entries);
+            for (Entry e : entries) succeed(e);
+            changed(entries);
+            batchSize.record(entries.size());
+            commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        } catch (SQLException ex) {
+            if (entries.size() == 1) {
+                fail(entries.get(0), ex);
+                return;
+            }
+            log.warn("Group commit of {} sessions failed; retrying them one by one", entries.size(), ex);
+        }
+        List<Entry> saved = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            try {
+                insert(List.of(e));
+                succeed(e);
+                saved.add(e);
+                batchSize.record(1);
+            } catch (SQLException ex) {
+                fail(e, ex);
+            }
+        }
+        changed(saved);
+    }
+
+    // One read model refresh for all sessions of a batch
+    private void changed(List<Entry> saved) {
+        if (saved.isEmpty()) return;
+        ReadModel.Change change = ReadModel.Change.ofSession(saved.get(0).session());
+        for (Entry e : saved.subList(1, saved.size())) change.and(ReadModel.Change.ofSession(e.session()));
+        readModel.changed(change);
+    }
+
+    // Save the new techniques the sessions refer to, and all sessions, rolls and links, in one transaction
+    private void insert(List<Entry> entries) throws SQLException {
+        Map<Technique, Boolean> fresh = new IdentityHashMap<>();
+        List<Session> sessions = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            sessions.add(e.session());
+            if (e.session().getRolls() == null) {
+                e.session().setRolls(new ArrayList<>());
+                continue;
+            }
+            for (Roll r : e.session().getRolls()) {
+                collectNew(r.getSubs(), fresh);
+                collectNew(r.getTaps(), fresh);
+            }
+        }
+        provider.bulkInsertSessions(new ArrayList<>(fresh.keySet()), sessions);
+    }
+
+    private static void collectNew(List<TechniqueCount> counts, Map<Technique, Boolean> fresh) {
+        if (counts == null) return;
+        for (TechniqueCount tc : counts) {
+            if (tc.getTechnique().getId() == 0) fresh.put(tc.getTechnique(), Boolean.TRUE);
+        }
+    }
+
+    private void succeed(Entry e) {
+        SummaryCounters delta = new SummaryCounters();
+        delta.add(e.session(), 1);
+        summaries.apply(delta);
+        tickets.computeIfPresent(e.ticket(), (k, t) -> t.committed(e.session().getId()));
+        outcome(IngestTicket.Status.COMMITTED);
+    }
+
+    private void fail(Entry e, Exception cause) {
+        log.warn("Ingested session {} could not be saved", e.ticket(), cause);
+        tickets.computeIfPresent(e.ticket(), (k, t) -> t.failed(cause.getMessage()));
+        outcome(IngestTicket.Status.FAILED);
+    }
+
+    private void outcome(IngestTicket.Status status) {
+        Counter.builder("bjj.ingest.completed")
+                .description("Ingested sessions by outcome")
+                .tag("status", status.name())
+                .register(registry)
+                .increment();
+    }
+
+    // Record completed tickets in the journal, and empty the journal once nothing is outstanding
+    private void complete(List<String> done) {
+        uncompleted.addAndGet(-done.size());
+        if (journal == null) return;
+        try {
+            journal.complete(done);
+            synchronized (journal) {
+                if (uncompleted.get() == 0) journal.truncate();
+            }
+        } catch (IOException ex) {
+            log.warn("Could not record completed sessions in the ingest journal; they may be saved again on restart", ex);
+        }
+    }
+
+    private void evictCompleted() {
+        Instant cutoff = Instant.now().minusMillis(retentionMillis);
+        tickets.values().removeIf(t -> {
+            boolean expired = t.completedAt() != null && t.completedAt().isBefore(cutoff);
+            if (expired) ticketTenants.remove(t.ticket());
+            return expired;
+        });
+    }
+}
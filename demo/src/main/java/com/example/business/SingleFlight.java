@@ -0,0 +1,237 @@
+package com.example.business;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.data.DataProvider;
+import com.example.data.Tenant;
+import com.example.metrics.SqlOperation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The SingleFlight class coalesces identical database reads that run at the same time (bjj.single-flight.enabled, on by default).
+ * When a class ends and every tablet asks for the sessions in the same second, the first request (the leader) runs the query and
+ * the others (followers) wait for its result instead of running the query again, so the database load of a burst grows with the
+ * number of distinct reads rather than with the number of clients.
+ *
+ * Reads are identical when they are the same operation with the same parameters, for the same tenant, and would go to the same
+ * kind of connection ({@link DataProvider#readsRequirePrimary()}). A read never joins a load that started before a write this node
+ * committed or applied ({@link ReadModel#changes()}), so coalescing does not weaken read-your-writes. Every caller gets its own
+ * deep copy of a shared result, as callers merge live counts into and otherwise modify what they read.
+ *
+ * Followers wait at most bjj.single-flight.timeout-ms, or the operation's entry in bjj.single-flight.timeouts; a follower that
+ * times out fails with an {@link SQLTimeoutException} and the next identical read starts a new load. A load that fails fails
+ * its followers with the same error. Metrics: bjj.singleflight.loads (by operation and role), bjj.singleflight.timeouts and
+ * bjj.singleflight.inflight.
+ */
+@Component
+public class SingleFlight {
+
+    private record Key(String tenant, String operation, List<Object> params, boolean primary, long changes) {}
+
+    /**
+     * One load in progress, and the callers waiting for it
+     */
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private int followers;
+        private boolean closed;
+
+        /**
+         * Wait for this load
+         * @return false if the load has finished and takes no more followers
+         */
+        synchronized boolean join() {
+            if (closed) return false;
+            followers++;
+            return true;
+        }
+
+        /**
+         * Take no more followers
+         * @return the number of followers that joined
+         */
+        synchronized int close() {
+            closed = true;
+            return followers;
+        }
+    }
+
+    private final DataProvider provider;
+    private final ReadModel readModel;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final long timeoutMillis;
+    private final Map<String, Long> timeouts;
+    private final ConcurrentHashMap<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for SingleFlight
+     * @param provider the DataProvider that tells whether reads would go to the primary
+     * @param readModel the read model that counts the committed writes
+     * @param registry the MeterRegistry coalescing metrics are published to
+     * @param enabled whether identical reads are coalesced; if not, every read runs its own query
+     * @param timeoutMillis how long a follower waits for the leader's result
+     * @param timeouts the wait of individual operations, as operation=millis,...; empty for none
+     */
+    @Autowired
+    public SingleFlight(DataProvider provider, ReadModel readModel, MeterRegistry registry,
+                        @Value("${bjj.single-flight.enabled:true}") boolean enabled,
+                        @Value("${bjj.single-flight.timeout-ms:2000}") long timeoutMillis,
+                        @Value("${bjj.single-flight.timeouts:}") String timeouts) {
+        this.provider = provider;
+        this.readModel = readModel;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+        this.timeouts = parseTimeouts(timeouts);
+        Gauge.builder("bjj.singleflight.inflight", flights, Map::size)
+                .description("Coalesced database reads in progress")
+                .register(registry);
+    }
+
+    /**
+     * A SingleFlight that runs every read on its own, for managers created outside of Spring
+     * @param registry the MeterRegistry the (idle) metrics are registered with
+     * @return the SingleFlight
+     */
+    public static SingleFlight disabled(MeterRegistry registry) {
+        return new SingleFlight(null, null, registry, false, 0, "");
+    }
+
+    /**
+     * Run a read, or wait for an identical read that is already running and share its result
+     * @param operation the name of the read, e.g. getSessions
+     * @param params the parameters of the read; reads are only shared between equal parameters
+     * @param loader the read
+     * @param copy makes a deep copy of a result, for each caller that shares it
+     * @return the result of the read, which the caller may modify
+     * @throws SQLTimeoutException if this caller waited for another's read longer than the operation's timeout
+     * @throws SQLException if the read fails, whether this caller ran it or waited for it
+     */
+    <T> T load(String operation, List<?> params, SqlOperation<T> loader, UnaryOperator<T> copy) throws SQLException {
+        if (!enabled) return loader.execute();
+        Key key = new Key(Tenant.current(), operation, new ArrayList<>(params), provider.readsRequirePrimary(), readModel.changes());
+        while (true) {
+            Flight mine = new Flight();
+            Flight flight = flights.putIfAbsent(key, mine);
+            if (flight == null) return lead(key, mine, loader, copy);
+            if (flight.join()) return follow(key, flight, copy);
+            flights.remove(key, flight); // finished, but not yet removed by its leader
+        }
+    }
+
+    /**
+     * Helper method to run a load as its leader and hand the result (or the failure) to the followers that joined it. Whatever
+     * the load throws, the flight is removed and its future completed, so no follower waits for a load that will never finish.
+     * @param key the key the flight is registered under
+     * @param flight the flight this caller registered
+     * @param loader the read
+     * @param copy makes a deep copy of the result, if followers share it
+     * @return the result of the read
+     * @throws SQLException if the read fails
+     */
+    private <T> T lead(Key key, Flight flight, SqlOperation<T> loader, UnaryOperator<T> copy) throws SQLException {
+        T value = null;
+        Throwable failure = null;
+        int followers = 0;
+        try {
+            value = loader.execute();
+        } catch (Throwable ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            flights.remove(key, flight);
+            followers = flight.close();
+            if (failure == null) flight.result.complete(value);
+            else flight.result.completeExceptionally(failure);
+            count(key.operation(), "leader");
+        }
+        // the followers copy the value as it was loaded, so the caller gets a copy of its own as well
+        return followers == 0 ? value : copy.apply(value);
+    }
+
+    /**
+     * Helper method to wait for a load another caller leads, at most the operation's timeout, and copy its result
+     * @param key the key of the flight
+     * @param flight the flight this caller joined
+     * @param copy makes a deep copy of the shared result
+     * @return this caller's copy of the result
+     * @throws SQLTimeoutException if the load did not finish in time
+     * @throws SQLException if the load failed, or the wait was interrupted
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T follow(Key key, Flight flight, UnaryOperator<T> copy) throws SQLException {
+        count(key.operation(), "follower");
+        long timeout = timeouts.getOrDefault(key.operation(), timeoutMillis);
+        try {
+            return copy.apply((T) flight.result.get(timeout, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException ex) {
+            flights.remove(key, flight); // the next identical read starts over rather than joining a stuck load
+            Counter.builder("bjj.singleflight.timeouts")
+                    .description("Coalesced reads that gave up waiting for the shared load")
+                    .tag("operation", key.operation())
+                    .register(registry)
+                    .increment();
+            throw new SQLTimeoutException("Timed out after " + timeout + " ms waiting for a shared " + key.operation() + " load");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException sql) throw new SQLException(sql.getMessage(), sql.getSQLState(), sql.getErrorCode(), sql);
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new SQLException("Shared " + key.operation() + " load failed", cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a shared " + key.operation() + " load", ex);
+        }
+    }
+
+    /**
+     * Helper method to count a read by its role in a flight
+     * @param operation the name of the read
+     * @param role leader if it ran the load, follower if it shared another's
+     */
+    private void count(String operation, String role) {
+        Counter.builder("bjj.singleflight.loads")
+                .description("Reads by whether they ran the database load (leader) or shared another's (follower)")
+                .tag("operation", operation)
+                .tag("role", role)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Parse per-operation timeouts of the form operation=millis,...
+     * @param spec the timeouts; null or blank for none
+     * @return the timeout of each operation listed
+     */
+    static Map<String, Long> parseTimeouts(String spec) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) return out;
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad single-flight timeout: " + part);
+            long millis = Long.parseLong(kv[1].trim());
+            if (millis <= 0) throw new IllegalArgumentException("Single-flight timeouts must be positive: " + part);
+            out.put(kv[0].trim(), millis);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.config;
+
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.controller.ProjectionFilter;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Writes the model classes through the ProjectionFilter (?include=...&amp;fields=...); responses without a projection get every property.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer projectionFilterCustomizer() {
+        return builder -> builder
+                .mixIn(Session.class, ProjectionFilter.MixIn.class)
+                .mixIn(Roll.class, ProjectionFilter.MixIn.class)
+                .mixIn(TechniqueCount.class, ProjectionFilter.MixIn.class)
+                .mixIn(Technique.class, ProjectionFilter.MixIn.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
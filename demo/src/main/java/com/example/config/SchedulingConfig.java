@@ -0,0 +1,12 @@
+package com.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs such as the TombstonePurger.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,41 @@
+package com.example.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Helpers for the version-based ETags of sessions, rolls and techniques. The ETag of an entity is its version in quotes
+ * (e.g. "3"); a PUT with an If-Match header is applied only if the entity is still at that version, otherwise it gets 409 Conflict.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    /**
+     * Build the ETag of an entity version
+     * @param version the version of the entity
+     * @return the quoted ETag value
+     */
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Get the version an update is based on: the If-Match header if present, otherwise the version in the request body
+     * @param ifMatch the If-Match request header, or null
+     * @param bodyVersion the version in the request body
+     * @return the version the update must be applied to
+     * @throws ResponseStatusException with 400 Bad Request if If-Match is not a single version ETag
+     */
+    static long versionFrom(String ifMatch, long bodyVersion) {
+        if (ifMatch == null || ifMatch.isBlank()) return bodyVersion;
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) tag = tag.substring(1, tag.length() - 1);
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be the ETag of one version, e.g. \"3\"");
+        }
+    }
+}
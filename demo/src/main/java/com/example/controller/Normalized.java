@@ -0,0 +1,177 @@
+package com.example.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.data.Projection;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The Normalized class is the side-loaded response shape of session and roll reads (?format=normalized). Instead of writing the
+ * full Technique inside every TechniqueCount, each technique is written once in the top-level techniques dictionary, keyed by id,
+ * and the counts refer to it by id (without their rollID, which is that of the enclosing roll):
+ * <pre>
+ * {"data": [{"id": 7, "rolls": [{"partner": "Alex", "subs": [{"technique": 29, "count": 2}], ...}], ...}],
+ *  "techniques": {"29": {"id": 29, "name": "Armbar", ...}}}
+ * </pre>
+ * With &amp;sideload=techniques,partners the partners are side-loaded as well: each name is written once in the partners dictionary
+ * and rolls refer to it by a key that is only meaningful within the response. The ProjectionFilter writes the references while it
+ * streams the data, and applies ?fields= to the data only; dictionary entries are always written whole.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class Normalized {
+
+    private static final List<String> SIDELOADS = List.of("techniques", "partners");
+
+    private final Object data;
+    private final Map<Long, Technique> techniques;
+    private final Map<Integer, String> partners;
+    private final Map<String, Integer> partnerKeys;
+
+    private Normalized(Object data, Map<Long, Technique> techniques, Map<Integer, String> partners, Map<String, Integer> partnerKeys) {
+        this.data = data;
+        this.techniques = techniques;
+        this.partners = partners;
+        this.partnerKeys = partnerKeys;
+    }
+
+    /**
+     * Check the format and sideload parameters of a read, before it runs
+     * @param format the format parameter, or null
+     * @param sideload the sideload parameter, or null
+     * @return true for the normalized format, false for the default nested one
+     * @throws ResponseStatusException with 400 Bad Request for an unknown format or sideload
+     */
+    static boolean requested(String format, String sideload) {
+        if (format == null || format.isBlank() || format.equals("nested")) return false;
+        if (!format.equals("normalized")) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format " + format + "; expected nested or normalized");
+        kinds(sideload);
+        return true;
+    }
+
+    /**
+     * Side-load the techniques (and partners) of sessions read with a projection
+     * @param data the response data: one session or the list of them
+     * @param sessions the sessions in the data
+     * @param projection the projection the sessions were read with, over {@link Projection#SESSION_LEVELS}
+     * @param sideload the sideload parameter (techniques, partners), or null for techniques
+     * @return the response
+     */
+    static Normalized sessions(Object data, List<Session> sessions, Projection projection, String sideload) {
+        List<Roll> rolls = new ArrayList<>();
+        if (projection.loads("rolls")) {
+            for (Session s : sessions) {
+                if (s != null && s.getRolls() != null) rolls.addAll(s.getRolls());
+            }
+        }
+        return of(data, rolls, "rolls.", projection, sideload);
+    }
+
+    /**
+     * Side-load the techniques (and partners) of rolls read with a projection
+     * @param data the response data: one roll or the list of them
+     * @param rolls the rolls in the data
+     * @param projection the projection the rolls were read with, over {@link Projection#ROLL_LEVELS}
+     * @param sideload the sideload parameter (techniques, partners), or null for techniques
+     * @return the response
+     */
+    static Normalized rolls(Object data, List<Roll> rolls, Projection projection, String sideload) {
+        return of(data, rolls, "", projection, sideload);
+    }
+
+    private static Normalized of(Object data, List<Roll> rolls, String prefix, Projection projection, String sideload) {
+        List<String> kinds = kinds(sideload);
+        Map<Long, Technique> techniques = null;
+        if (kinds.contains("techniques")) {
+            techniques = new LinkedHashMap<>();
+            // only the counts that are written refer to the dictionary
+            boolean subs = projection.emits(prefix + "subs.technique");
+            boolean taps = projection.emits(prefix + "taps.technique");
+            for (Roll r : rolls) {
+                if (r == null) continue;
+                if (subs) collect(r.getSubs(), techniques);
+                if (taps) collect(r.getTaps(), techniques);
+            }
+        }
+        Map<Integer, String> partners = null;
+        Map<String, Integer> partnerKeys = null;
+        if (kinds.contains("partners") && projection.emits(prefix + "partner")) {
+            partners = new LinkedHashMap<>();
+            partnerKeys = new LinkedHashMap<>();
+            for (Roll r : rolls) {
+                if (r == null || r.getPartner() == null || partnerKeys.containsKey(r.getPartner())) continue;
+                int key = partnerKeys.size() + 1;
+                partnerKeys.put(r.getPartner(), key);
+                partners.put(key, r.getPartner());
+            }
+        }
+        return new Normalized(data, techniques, partners, partnerKeys);
+    }
+
+    private static List<String> kinds(String sideload) {
+        if (sideload == null) return List.of("techniques");
+        List<String> kinds = Arrays.stream(sideload.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        for (String kind : kinds) {
+            if (!SIDELOADS.contains(kind)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sideload " + kind + "; expected one of " + SIDELOADS);
+        }
+        return kinds;
+    }
+
+    private static void collect(List<TechniqueCount> counts, Map<Long, Technique> techniques) {
+        if (counts == null) return;
+        for (TechniqueCount tc : counts) {
+            if (tc != null && tc.getTechnique() != null) techniques.putIfAbsent(tc.getTechnique().getId(), tc.getTechnique());
+        }
+    }
+
+    /**
+     * Get the sessions or rolls of the response
+     * @return one entity or the list of them
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * Get the side-loaded techniques
+     * @return the techniques referenced by the data, keyed by id, or null if they are not side-loaded
+     */
+    public Map<Long, Technique> getTechniques() {
+        return techniques;
+    }
+
+    /**
+     * Get the side-loaded partners
+     * @return the partner names referenced by the data, keyed by their key in this response, or null if they are not side-loaded
+     */
+    public Map<Integer, String> getPartners() {
+        return partners;
+    }
+
+    /**
+     * Check whether the counts in the data refer to the techniques dictionary
+     * @return true if techniques are side-loaded
+     */
+    boolean sideloadsTechniques() {
+        return techniques != null;
+    }
+
+    /**
+     * Get the key a partner is referred to by
+     * @param partner the partner name
+     * @return the key in the partners dictionary, or null if partners are not side-loaded (or the name is null)
+     */
+    Integer partnerKey(String partner) {
+        return partnerKeys == null || partner == null ? null : partnerKeys.get(partner);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.data.Projection;
+import com.example.model.Roll;
+import com.example.model.TechniqueCount;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * The ProjectionFilter class writes only the properties a {@link Projection} selects (?include=...&amp;fields=...). The model classes
+ * carry the filter through {@link MixIn} (see JacksonConfig); responses that are not projected are written with every property.
+ * A property is identified by its dotted path from the root of the response, e.g. rolls.subs.technique.name, which is taken from
+ * the generator's output context as the property is written, so the graph is filtered while it is streamed.
+ *
+ * For a {@link Normalized} response the paths are taken from its data, and the filter also writes the references to the side-loaded
+ * dictionaries: the id of a count's technique, and the key of a roll's partner. The roll id of a count is left out, as it is the id
+ * of the roll the count is written in.
+ */
+public final class ProjectionFilter extends SimpleBeanPropertyFilter {
+
+    /**
+     * The id of the filter, as referenced by {@link MixIn}
+     */
+    public static final String ID = "projection";
+
+    /**
+     * Mixed into the model classes so that their properties pass through the filter
+     */
+    @JsonFilter(ID)
+    public interface MixIn {}
+
+    private final Projection projection;
+    private final boolean all;
+    private final Normalized normalized;
+
+    private ProjectionFilter(Projection projection, Normalized normalized) {
+        this.projection = projection;
+        this.all = projection.isAll();
+        this.normalized = normalized;
+    }
+
+    /**
+     * Build the projection of a request's include and fields parameters
+     * @param include the include parameter, or null
+     * @param fields the fields parameter, or null
+     * @param levels the nested levels of the entity read
+     * @return the projection
+     * @throws ResponseStatusException with 400 Bad Request if include names an unknown level or fields is malformed
+     */
+    static Projection parse(String include, String fields, List<String> levels) {
+        try {
+            return Projection.of(include, fields, levels);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    /**
+     * Wrap a response body so that only the properties of a projection are written
+     * @param body the body
+     * @param projection the projection
+     * @return the body to return from the handler
+     */
+    static MappingJacksonValue select(Object body, Projection projection) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!projection.isAll()) value.setFilters(new SimpleFilterProvider().addFilter(ID, new ProjectionFilter(projection, null)));
+        return value;
+    }
+
+    /**
+     * Wrap a normalized response body so that only the properties of a projection are written, with references to its dictionaries
+     * @param body the body
+     * @param projection the projection, which applies to the body's data
+     * @return the body to return from the handler
+     */
+    static MappingJacksonValue select(Normalized body, Projection projection) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(ID, new ProjectionFilter(projection, body)));
+        return value;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider, PropertyWriter writer) throws Exception {
+        if (!all && !emits(gen.getOutputContext(), writer.getName()) || normalized != null && pojo instanceof TechniqueCount && writer.getName().equals("rollID")) {
+            if (!gen.canOmitFields()) writer.serializeAsOmittedField(pojo, gen, provider);
+            return;
+        }
+        if (normalized != null && normalized.sideloadsTechniques() && pojo instanceof TechniqueCount tc && writer.getName().equals("technique")) {
+            if (tc.getTechnique() == null) gen.writeNullField("technique");
+            else gen.writeNumberField("technique", tc.getTechnique().getId());
+        } else if (normalized != null && pojo instanceof Roll r && writer.getName().equals("partner") && normalized.partnerKey(r.getPartner()) != null) {
+            gen.writeNumberField("partner", normalized.partnerKey(r.getPartner()));
+        } else {
+            writer.serializeAsField(pojo, gen, provider);
+        }
+    }
+
+    /**
+     * Helper method to check whether the projection selects a property. In a normalized response only the data is projected, and
+     * the dictionaries are written whole.
+     */
+    private boolean emits(JsonStreamContext context, String name) {
+        String path = path(context, name);
+        if (normalized == null) return projection.emits(path);
+        return !path.startsWith("data.") || projection.emits(path.substring("data.".length()));
+    }
+
+    /**
+     * Helper method to build the path of a property of the object being written: the names of the properties that lead to it
+     * @param context the output context of the object being written
+     * @param name the name of the property
+     */
+    private static String path(JsonStreamContext context, String name) {
+        StringBuilder path = new StringBuilder(name);
+        for (JsonStreamContext c = context.getParent(); c != null; c = c.getParent()) {
+            if (c.inObject()) path.insert(0, '.').insert(0, c.getCurrentName());
+        }
+        return path.toString();
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.controller;
 
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Roll;
 import com.example.service.RollService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.SQLException;
@@ -26,21 +30,55 @@ public class RollController {
         return ResponseEntity.ok(rollService.saveRoll(sessionId, roll));
     }
 
+    // Projection: ?include=subs,taps loads only those lists, ?fields=id,partner,subs.technique.name writes only those properties
+    // Normalized: ?format=normalized writes each technique once in a top-level dictionary (&sideload=techniques,partners for partners too)
     @GetMapping("/{id}")
-    public ResponseEntity<Roll> getRoll(@PathVariable long id) throws SQLException {
-        Roll r = rollService.getRoll(id);
+    public ResponseEntity<MappingJacksonValue> getRoll(@PathVariable long id,
+                                                       @RequestParam(required = false) String include,
+                                                       @RequestParam(required = false) String fields,
+                                                       @RequestParam(required = false) String format,
+                                                       @RequestParam(required = false) String sideload) throws SQLException {
+        Projection projection = ProjectionFilter.parse(include, fields, Projection.ROLL_LEVELS);
+        boolean normalized = Normalized.requested(format, sideload);
+        Roll r = rollService.getRoll(id, projection);
         if (r == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(r);
+        MappingJacksonValue body = normalized ? ProjectionFilter.select(Normalized.rolls(r, List.of(r), projection, sideload), projection)
+                                              : ProjectionFilter.select(r, projection);
+        return ResponseEntity.ok().eTag(ETags.of(r.getVersion())).body(body);
     }
 
     @GetMapping
-    public ResponseEntity<List<Roll>> getRolls() throws SQLException {
-        return ResponseEntity.ok(rollService.getRolls());
+    public ResponseEntity<MappingJacksonValue> getRolls(@RequestParam(required = false) String include,
+                                                        @RequestParam(required = false) String fields,
+                                                        @RequestParam(required = false) String format,
+                                                        @RequestParam(required = false) String sideload) throws SQLException {
+        Projection projection = ProjectionFilter.parse(include, fields, Projection.ROLL_LEVELS);
+        boolean normalized = Normalized.requested(format, sideload);
+        List<Roll> rolls = rollService.getRolls(projection);
+        if (normalized) return ResponseEntity.ok(ProjectionFilter.select(Normalized.rolls(rolls, rolls, projection, sideload), projection));
+        return ResponseEntity.ok(ProjectionFilter.select(rolls, projection));
+    }
+
+    // Multi-get: ?ids=1,2,3 returns the rolls in request order and lists ids that were not found
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Roll>> getRolls(@RequestParam List<Long> ids) throws SQLException {
+        return ResponseEntity.ok(rollService.getRolls(ids));
+    }
+
+    // Optimistic concurrency: the update applies to the version in If-Match (or the body); a stale version gets 409 Conflict
+    @PutMapping("/{id}")
+    public ResponseEntity<Roll> updateRoll(@PathVariable long id, @RequestBody Roll roll,
+                                           @RequestHeader(value = "If-Match", required = false) String ifMatch) throws SQLException {
+        roll.setId(id);
+        roll.setVersion(ETags.versionFrom(ifMatch, roll.getVersion()));
+        Roll saved = rollService.saveRoll(0, roll); // the session id is only used when inserting
+        return ResponseEntity.ok().eTag(ETags.of(saved.getVersion())).body(saved);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteRoll(@PathVariable long id) throws SQLException {
-        rollService.deleteRoll(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<DeleteResult> deleteRoll(@PathVariable long id) throws SQLException {
+        DeleteResult result = rollService.deleteRoll(id);
+        if (!result.deleted()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
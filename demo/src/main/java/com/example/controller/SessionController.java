@@ -1,13 +1,23 @@
 package com.example.controller;
 
+import com.example.business.IngestTicket;
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Session;
 import com.example.service.SessionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.net.URI;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/sessions")
@@ -26,27 +36,75 @@ public class SessionController {
         return ResponseEntity.ok(sessionService.saveSession(session));
     }
 
+    // Async write mode: the session is queued for a group commit and the ticket is polled at the Location; a full queue gets 503
+    @PostMapping(params = "async=true")
+    public ResponseEntity<IngestTicket> enqueueSession(@RequestBody Session session) throws IOException {
+        try {
+            IngestTicket ticket = sessionService.enqueueSession(session);
+            return ResponseEntity.accepted().location(URI.create("/api/sessions/ingest/" + ticket.ticket())).body(ticket);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (RejectedExecutionException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").build();
+        }
+    }
+
+    @GetMapping("/ingest/{ticket}")
+    public ResponseEntity<IngestTicket> getIngestTicket(@PathVariable String ticket) {
+        IngestTicket t = sessionService.getIngestTicket(ticket);
+        if (t == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(t);
+    }
+
+    // Projection: ?include=rolls,rolls.subs,rolls.taps loads only those levels, ?fields=id,date,rolls.partner writes only those properties
+    // Normalized: ?format=normalized writes each technique once in a top-level dictionary (&sideload=techniques,partners for partners too)
     @GetMapping("/{id}")
-    public ResponseEntity<Session> getSession(@PathVariable long id) throws SQLException {
-        Session s = sessionService.getSession(id);
+    public ResponseEntity<MappingJacksonValue> getSession(@PathVariable long id,
+                                                          @RequestParam(required = false) String include,
+                                                          @RequestParam(required = false) String fields,
+                                                          @RequestParam(required = false) String format,
+                                                          @RequestParam(required = false) String sideload) throws SQLException {
+        Projection projection = ProjectionFilter.parse(include, fields, Projection.SESSION_LEVELS);
+        boolean normalized = Normalized.requested(format, sideload);
+        Session s = sessionService.getSession(id, projection);
         if (s == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(s);
+        MappingJacksonValue body = normalized ? ProjectionFilter.select(Normalized.sessions(s, List.of(s), projection, sideload), projection)
+                                              : ProjectionFilter.select(s, projection);
+        return ResponseEntity.ok().eTag(ETags.of(s.getVersion())).body(body);
     }
 
     @GetMapping
-    public ResponseEntity<List<Session>> getSessions() throws SQLException {
-        return ResponseEntity.ok(sessionService.getSessions());
+    public ResponseEntity<MappingJacksonValue> getSessions(@RequestParam(required = false) String include,
+                                                           @RequestParam(required = false) String fields,
+                                                           @RequestParam(required = false) String format,
+                                                           @RequestParam(required = false) String sideload) throws SQLException {
+        Projection projection = ProjectionFilter.parse(include, fields, Projection.SESSION_LEVELS);
+        boolean normalized = Normalized.requested(format, sideload);
+        List<Session> sessions = sessionService.getSessions(projection);
+        if (normalized) return ResponseEntity.ok(ProjectionFilter.select(Normalized.sessions(sessions, sessions, projection, sideload), projection));
+        return ResponseEntity.ok(ProjectionFilter.select(sessions, projection));
     }
 
+    // Multi-get: ?ids=1,2,3 returns the sessions in request order and lists ids that were not found
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Session>> getSessions(@RequestParam List<Long> ids) throws SQLException {
+        return ResponseEntity.ok(sessionService.getSessions(ids));
+    }
+
+    // Optimistic concurrency: the update applies to the version in If-Match (or the body); a stale version gets 409 Conflict
     @PutMapping("/{id}")
-    public ResponseEntity<Session> updateSession(@PathVariable long id, @RequestBody Session session) throws SQLException {
+    public ResponseEntity<Session> updateSession(@PathVariable long id, @RequestBody Session session,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) throws SQLException {
         session.setId(id);
-        return ResponseEntity.ok(sessionService.saveSession(session));
+        session.setVersion(ETags.versionFrom(ifMatch, session.getVersion()));
+        Session saved = sessionService.saveSession(session);
+        return ResponseEntity.ok().eTag(ETags.of(saved.getVersion())).body(saved);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteSession(@PathVariable long id) throws SQLException {
-        sessionService.deleteSession(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<DeleteResult> deleteSession(@PathVariable long id) throws SQLException {
+        DeleteResult result = sessionService.deleteSession(id);
+        if (!result.deleted()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
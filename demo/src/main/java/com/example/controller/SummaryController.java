@@ -0,0 +1,28 @@
+package com.example.controller;
+
+import com.example.business.DashboardSummary;
+import com.example.service.SummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.sql.SQLException;
+
+@RestController
+@RequestMapping("/api/summary")
+@CrossOrigin(origins = "http://localhost:5173")
+public class SummaryController {
+
+    private final SummaryService summaryService;
+
+    @Autowired
+    public SummaryController(SummaryService summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    // Dashboard totals of the current tenant, kept in memory and updated by every save and delete
+    @GetMapping
+    public ResponseEntity<DashboardSummary> getDashboardSummary() throws SQLException {
+        return ResponseEntity.ok(summaryService.getDashboardSummary());
+    }
+}
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.example.controller;
 
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Technique;
 import com.example.service.TechniqueService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.SQLException;
@@ -26,27 +30,42 @@ public class TechniqueController {
         return ResponseEntity.ok(techniqueService.saveTechnique(technique));
     }
 
+    // Projection: ?fields=id,name writes only those properties
     @GetMapping("/{id}")
-    public ResponseEntity<Technique> getTechnique(@PathVariable long id) throws SQLException {
+    public ResponseEntity<MappingJacksonValue> getTechnique(@PathVariable long id,
+                                                            @RequestParam(required = false) String fields) throws SQLException {
+        Projection projection = ProjectionFilter.parse(null, fields, Projection.TECHNIQUE_LEVELS);
         Technique t = techniqueService.getTechnique(id);
         if (t == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(t);
+        return ResponseEntity.ok().eTag(ETags.of(t.getVersion())).body(ProjectionFilter.select(t, projection));
     }
 
     @GetMapping
-    public ResponseEntity<List<Technique>> getTechniques() throws SQLException {
-        return ResponseEntity.ok(techniqueService.getTechniques());
+    public ResponseEntity<MappingJacksonValue> getTechniques(@RequestParam(required = false) String fields) throws SQLException {
+        Projection projection = ProjectionFilter.parse(null, fields, Projection.TECHNIQUE_LEVELS);
+        return ResponseEntity.ok(ProjectionFilter.select(techniqueService.getTechniques(), projection));
     }
 
+    // Multi-get: ?ids=1,2,3 returns the techniques in request order and lists ids that were not found
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetResult<Technique>> getTechniques(@RequestParam List<Long> ids) throws SQLException {
+        return ResponseEntity.ok(techniqueService.getTechniques(ids));
+    }
+
+    // Optimistic concurrency: the update applies to the version in If-Match (or the body); a stale version gets 409 Conflict
     @PutMapping("/{id}")
-    public ResponseEntity<Technique> updateTechnique(@PathVariable long id, @RequestBody Technique technique) throws SQLException {
+    public ResponseEntity<Technique> updateTechnique(@PathVariable long id, @RequestBody Technique technique,
+                                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) throws SQLException {
         technique.setId(id);
-        return ResponseEntity.ok(techniqueService.saveTechnique(technique));
+        technique.setVersion(ETags.versionFrom(ifMatch, technique.getVersion()));
+        Technique saved = techniqueService.saveTechnique(technique);
+        return ResponseEntity.ok().eTag(ETags.of(saved.getVersion())).body(saved);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTechnique(@PathVariable long id) throws SQLException {    
-        techniqueService.deleteTechnique(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<DeleteResult> deleteTechnique(@PathVariable long id) throws SQLException {
+        DeleteResult result = techniqueService.deleteTechnique(id);
+        if (!result.deleted()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(result);
     }
 }
\ No newline at end of file
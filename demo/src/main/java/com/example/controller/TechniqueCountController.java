@@ -24,4 +24,11 @@ public class TechniqueCountController {
     public ResponseEntity<TechniqueCount> saveTechniqueCount(@RequestBody TechniqueCount tc) throws SQLException {
         return ResponseEntity.ok(service.saveTechniqueCount(tc));
     }
+
+    // Live roll mode: the increment is buffered and written on the next flush; reads include it immediately
+    @PostMapping("/live")
+    public ResponseEntity<TechniqueCount> incrementTechniqueCountLive(@RequestBody TechniqueCount tc) throws SQLException {
+        if (!service.incrementTechniqueCountLive(tc)) return ResponseEntity.notFound().build();
+        return ResponseEntity.accepted().body(tc);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.controller;
+
+import com.example.data.TenantSummary;
+import com.example.service.TenantService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.sql.SQLException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/tenants")
+@CrossOrigin(origins = "http://localhost:5173")
+public class TenantController {
+
+    private final TenantService tenantService;
+
+    @Autowired
+    public TenantController(TenantService tenantService) {
+        this.tenantService = tenantService;
+    }
+
+    // Cross-tenant admin view: live row counts per tenant, fanned out to every shard
+    @GetMapping
+    public ResponseEntity<List<TenantSummary>> getTenantSummaries() throws SQLException {
+        return ResponseEntity.ok(tenantService.getTenantSummaries());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.controller;
+
+import com.example.data.VersionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers updates based on a stale version with 409 Conflict. The body and the ETag header carry the current version,
+ * so the client can re-read the entity, re-apply its edit and retry.
+ */
+@RestControllerAdvice
+public class VersionConflictHandler {
+
+    /**
+     * The body of a 409 Conflict response
+     * @param entity the kind of entity (session, roll or technique)
+     * @param id the id of the entity
+     * @param currentVersion the version currently stored
+     * @param message a description of the conflict
+     */
+    public record VersionConflict(String entity, long id, long currentVersion, String message) {}
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<VersionConflict> versionConflict(VersionConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .eTag(ETags.of(ex.getCurrentVersion()))
+                .body(new VersionConflict(ex.getEntity(), ex.getId(), ex.getCurrentVersion(), ex.getMessage()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.data;
+
+/**
+ * The ChangeLogEntry record is one row of the change_log table, as read by a polling node.
+ * @param shard the shard the row was read from; empty without shards
+ * @param id the position of the row in its shard's change log
+ * @param invalidation the invalidation the row holds
+ */
+public record ChangeLogEntry(String shard, long id, Invalidation invalidation) {}
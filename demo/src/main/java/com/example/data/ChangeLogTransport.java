@@ -0,0 +1,123 @@
+package com.example.data;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The ChangeLogTransport class carries invalidations through the change_log table of the database the nodes already share, so
+ * it needs no other infrastructure. Publishing inserts one row per invalidation; every node polls the rows after the last one it
+ * has seen, keeping a position per shard. A node starts at the end of the log, as the caches it starts with are loaded fresh.
+ *
+ * Row ids are assigned when a row is inserted but become visible when its transaction commits, so a row can appear behind one that
+ * was already read. Each poll therefore reads again from bjj.invalidation.poll-window ids behind the position, and drops the rows of
+ * that window it has already seen (their ids are kept until they fall out of the window). A row that commits more than the window
+ * behind the position is missed and only caught up by the periodic resynchronization (bjj.invalidation.resync-interval-ms), so the
+ * window should cover the rows all nodes publish while one transaction is open.
+ *
+ * Rows older than bjj.invalidation.change-log-retention-ms are deleted by every node in turn; a node that was unable to poll for
+ * longer than that misses invalidations, which its resynchronization catches up on.
+ *
+ * Selected with bjj.invalidation.transport=change-log (the default).
+ */
+@Component
+@ConditionalOnProperty(name = "bjj.invalidation.transport", havingValue = "change-log", matchIfMissing = true)
+public class ChangeLogTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogTransport.class);
+
+    private final DataProvider provider;
+    private final int batchSize;
+    private final int window;
+    private final long retentionMillis;
+    private Map<String, Cursor> cursors; // by shard; null until the first poll, guarded by this
+
+    /**
+     * The read state of one shard's change log
+     */
+    private static final class Cursor {
+        final long floor; // the head when polling started; rows at or below it are never read
+        long position; // the highest id seen
+        final TreeSet<Long> seen = new TreeSet<>(); // the ids seen above from(window)
+
+        Cursor(long head) {
+            this.floor = head;
+            this.position = head;
+        }
+
+        long from(int window) {
+            return Math.max(floor, position - window);
+        }
+    }
+
+    /**
+     * Constructor for ChangeLogTransport
+     * @param provider the DataProvider the change log is written and read through
+     * @param batchSize the maximum number of new rows read per shard and poll
+     * @param window how many ids behind its position each poll reads again, for rows that committed late
+     * @param retentionMillis how long rows are kept
+     */
+    public ChangeLogTransport(DataProvider provider,
+                              @Value("${bjj.invalidation.poll-batch-size:1000}") int batchSize,
+                              @Value("${bjj.invalidation.poll-window:1000}") int window,
+                              @Value("${bjj.invalidation.change-log-retention-ms:3600000}") long retentionMillis) {
+        this.provider = provider;
+        this.batchSize = batchSize;
+        this.window = window;
+        this.retentionMillis = retentionMillis;
+    }
+
+    @Override
+    public void publish(List<Invalidation> invalidations) throws SQLException {
+        if (!invalidations.isEmpty()) provider.appendChangeLog(invalidations);
+    }
+
+    @Override
+    public synchronized List<Invalidation> poll() throws SQLException {
+        if (cursors == null) {
+            cursors = new HashMap<>();
+            for (Map.Entry<String, Long> head : provider.getChangeLogHeads().entrySet()) cursors.put(head.getKey(), new Cursor(head.getValue()));
+            return List.of();
+        }
+        Map<String, Long> from = new HashMap<>();
+        for (Map.Entry<String, Cursor> e : cursors.entrySet()) from.put(e.getKey(), e.getValue().from(window));
+        // the window's rows are read again, so at most window of the rows read were seen before
+        List<ChangeLogEntry> entries = provider.getChangeLog(from, batchSize + window);
+        List<Invalidation> out = new ArrayList<>(entries.size());
+        for (ChangeLogEntry e : entries) {
+            Cursor cursor = cursors.computeIfAbsent(e.shard(), k -> new Cursor(0));
+            if (!cursor.seen.add(e.id())) continue;
+            cursor.position = Math.max(cursor.position, e.id());
+            out.add(e.invalidation());
+        }
+        for (Cursor cursor : cursors.values()) cursor.seen.headSet(cursor.from(window), true).clear();
+        return out;
+    }
+
+    /**
+     * Scheduled removal of change log rows older than the retention
+     */
+    @Scheduled(fixedDelayString = "${bjj.invalidation.change-log-retention-ms:3600000}", initialDelayString = "${bjj.invalidation.change-log-retention-ms:3600000}")
+    public void prune() {
+        synchronized (this) {
+            if (cursors == null) return; // invalidations are not in use
+        }
+        try {
+            int removed = provider.purgeChangeLog(new Timestamp(System.currentTimeMillis() - retentionMillis));
+            if (removed > 0) log.debug("Removed {} change log rows", removed);
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Could not prune the change log", ex);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Source of JDBC connections for the DataProvider.
+ * The default implementation opens MySQL connections from the .env credentials; benchmarks and local testing
+ * supply connections to an embedded database instead (see {@link EmbeddedDatabase}).
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+
+    /**
+     * Open a new connection to the database
+     * @return a new Connection, which the caller must close
+     * @throws SQLException if a database access error occurs
+     */
+    Connection getConnection() throws SQLException;
+
+    /**
+     * Open a connection for a read-only operation. Factories that route reads elsewhere (see {@link ReplicaRouter}) override this;
+     * by default reads use the same database as writes.
+     * @return a new Connection, which the caller must close
+     * @throws SQLException if a database access error occurs
+     */
+    default Connection getReadConnection() throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Check whether a read-only operation on the current thread has to see the primary (it is pinned there, or its client wrote
+     * recently), as opposed to being allowed on a replica. Factories without replicas always read the primary.
+     * @return true if reads of the current thread go to the primary regardless of replicas
+     */
+    default boolean readsRequirePrimary() {
+        return true;
+    }
+
+    /**
+     * Periodic maintenance run by DataProvider on a schedule: health checks, refreshing routing state. Does nothing by default.
+     */
+    default void checkHealth() {
+    }
+}
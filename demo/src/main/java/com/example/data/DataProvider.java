@@ -4,16 +4,25 @@ package com.example.data;
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.function.BinaryOperator;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
 
+import com.example.metrics.DbMetrics;
+import com.example.metrics.SqlOperation;
 import com.example.model.Roll;
 import com.example.model.Session;
 import com.example.model.Technique;
 import com.example.model.TechniqueCount;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 
 /**
  * The DataProvider class is responsible for managing the connection to the MySQL database 
@@ -25,26 +34,174 @@ import io.github.cdimascio.dotenv.Dotenv;
  */
 @Repository
 public class DataProvider {
-    private static final Dotenv dotenv = Dotenv.load();
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
     private static final String DB_URL = dotenv.get("URL");
     private static final String DB_USER = dotenv.get("USER");
     private static final String DB_PASSWORD = dotenv.get("PASS"); 
 
+    private static final int DEFAULT_PREFETCH = 50;
+    private static final long DEFAULT_READ_YOUR_WRITES_MS = 5000;
+    // IDs per IN query of a multi-get; keeps statements well below driver and planner limits for very long id lists
+    private static final int MULTI_GET_CHUNK = 500;
+    // the columns of a link read: both counts of the link row and the joined technique
+    private static final String LINK_COLUMNS = "rtl.roll_id, rtl.technique_id, rtl.sub_count, rtl.tap_count, "
+                                             + "t.name, t.position, t.num_finishes, t.num_taps, t.version";
+    // every level of a session graph, for the reads that return whole sessions
+    private static final Projection WHOLE_SESSION = Projection.of(null, null, Projection.SESSION_LEVELS);
+
+    private final ConnectionFactory connections;
+    private final DbMetrics metrics;
+
     /**
-     * Constructor for DataProvider class that loads the MySQL JDBC driver
+     * Constructor for DataProvider class that loads the MySQL JDBC driver.
+     * Metrics are reported to the global Micrometer registry, which discards them unless a registry has been added to it.
      * @throws ClassNotFoundException if the MySQL JDBC driver class is not found
      */
     public DataProvider() throws ClassNotFoundException {
+        this(Metrics.globalRegistry);
+    }
+
+    /**
+     * Constructor for DataProvider class that loads the MySQL JDBC driver and reports timers and counters to the given registry
+     * @param registry the MeterRegistry that DataProvider metrics will be published to
+     * @throws ClassNotFoundException if the MySQL JDBC driver class is not found
+     */
+    public DataProvider(MeterRegistry registry) throws ClassNotFoundException {
+        this(registry, DEFAULT_READ_YOUR_WRITES_MS);
+    }
+
+    /**
+     * Constructor for DataProvider class that loads the MySQL JDBC driver and reports timers and counters to the given registry.
+     * If REPLICA_URLS is set in .env (comma-separated JDBC URLs, same credentials as the primary, optional comma-separated REPLICA_WEIGHTS),
+     * read-only operations are spread over those replicas through a {@link ReplicaRouter}.
+     * If SHARD_URLS is set instead (comma-separated JDBC URLs, same credentials), tenants are spread over those databases
+     * through a {@link ShardRouter}, the first URL holding the tenant placements catalog. The two cannot be combined, as
+     * REPLICA_URLS names the replicas of a single primary.
+     * @param registry the MeterRegistry that DataProvider metrics will be published to
+     * @param readYourWritesMillis how long after a write a client's reads stay on the primary
+     * @throws ClassNotFoundException if the MySQL JDBC driver class is not found
+     * @throws IllegalStateException if both REPLICA_URLS and SHARD_URLS are set
+     */
+    @Autowired
+    public DataProvider(MeterRegistry registry,
+                        @Value("${bjj.replicas.read-your-writes-ms:" + DEFAULT_READ_YOUR_WRITES_MS + "}") long readYourWritesMillis) throws ClassNotFoundException {
         Class.forName("com.mysql.cj.jdbc.Driver"); // load driver (optional with modern drivers)
+        ConnectionFactory primary = () -> DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        List<ReplicaRouter.Replica> replicas = replicasFromEnv();
+        List<ShardRouter.Shard> shards = shardsFromEnv();
+        if (!replicas.isEmpty() && !shards.isEmpty()) {
+            throw new IllegalStateException("REPLICA_URLS and SHARD_URLS are both set in .env; replicas of a sharded deployment are not supported, unset one of them");
+        }
+        if (!shards.isEmpty()) this.connections = new ShardRouter(shards);
+        else this.connections = replicas.isEmpty() ? primary : new ReplicaRouter(primary, replicas, readYourWritesMillis, registry);
+        this.metrics = new DbMetrics(registry);
+    }
+
+    /**
+     * Constructor for DataProvider class that uses the given ConnectionFactory instead of the MySQL credentials from .env
+     * (e.g. an {@link EmbeddedDatabase} for benchmarks or local testing)
+     * @param connections the ConnectionFactory used to open connections
+     * @param registry the MeterRegistry that DataProvider metrics will be published to
+     */
+    public DataProvider(ConnectionFactory connections, MeterRegistry registry) {
+        this.connections = Objects.requireNonNull(connections);
+        this.metrics = new DbMetrics(registry);
+    }
+
+    /**
+     * Helper method to read the replica URLs and weights from .env
+     * @return the configured replicas, or an empty list if REPLICA_URLS is not set
+     */
+    private static List<ReplicaRouter.Replica> replicasFromEnv() {
+        String urls = dotenv.get("REPLICA_URLS");
+        if (urls == null || urls.isBlank()) return List.of();
+        String weights = dotenv.get("REPLICA_WEIGHTS");
+        String[] u = urls.split(",");
+        String[] w = weights == null || weights.isBlank() ? new String[0] : weights.split(",");
+        List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < u.length; i++) {
+            String url = u[i].trim();
+            int weight = i < w.length ? Integer.parseInt(w[i].trim()) : 1;
+            replicas.add(new ReplicaRouter.Replica("replica-" + (i + 1), () -> DriverManager.getConnection(url, DB_USER, DB_PASSWORD), weight));
+        }
+        return replicas;
+    }
+
+    /**
+     * Helper method to read the shard URLs from .env
+     * @return the configured shards named shard-1, shard-2, ..., or an empty list if SHARD_URLS is not set
+     */
+    static List<ShardRouter.Shard> shardsFromEnv() {
+        String urls = dotenv.get("SHARD_URLS");
+        if (urls == null || urls.isBlank()) return List.of();
+        String[] u = urls.split(",");
+        List<ShardRouter.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < u.length; i++) {
+            String url = u[i].trim();
+            shards.add(new ShardRouter.Shard("shard-" + (i + 1), () -> DriverManager.getConnection(url, DB_USER, DB_PASSWORD)));
+        }
+        return shards;
     }
 
     /**
-     * Helper method to establish a connection to the MySQL database
-     * @return a Connection object to the MySQL database
+     * Helper method to establish a connection to the database.
+     * The time taken to acquire the connection is recorded, and the returned connection counts the statements and transactions it runs.
+     * @return a Connection object to the database
      * @throws SQLException if a database access error occurs or the url is null
      */
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
+        return metrics.connect(connections::getConnection);
+    }
+
+    /**
+     * Helper method to establish a connection for a read-only operation. With read replicas configured the connection may be to a replica
+     * (see {@link ReplicaRouter}); use {@link #onPrimary(SqlOperation)} when a read must see the latest committed writes.
+     * @return a Connection object to the primary database or a replica
+     * @throws SQLException if a database access error occurs
+     */
+    private Connection getReadConnection() throws SQLException {
+        return metrics.connect(connections::getReadConnection);
+    }
+
+    /**
+     * Check whether reads of the current thread go to the primary, because they are pinned there or their client wrote recently;
+     * reads that may use a replica must not be answered with a result read for one that may not
+     * @return true if the current thread's reads see the latest committed writes
+     */
+    public boolean readsRequirePrimary() {
+        return connections.readsRequirePrimary();
+    }
+
+    /**
+     * Runs work with all of its reads sent to the primary database, for read-then-write paths that must not see a lagging replica
+     * @param work the work to be executed
+     * @return the value produced by the work
+     * @throws SQLException if the work throws an SQLException
+     */
+    public <T> T onPrimary(SqlOperation<T> work) throws SQLException {
+        try (ReplicaRouter.Binding pin = ReplicaRouter.pinPrimary()) {
+            return work.execute();
+        }
+    }
+
+    /**
+     * Scheduled validation of the read replicas and refresh of the tenant placements, if any are configured (bjj.replicas.health-interval-ms)
+     */
+    @Scheduled(fixedDelayString = "${bjj.replicas.health-interval-ms:5000}")
+    public void checkReplicaHealth() {
+        connections.checkHealth();
+    }
+
+    /**
+     * Runs shard-wide work once per shard, in parallel, and combines the results; without shards the work runs once
+     * @param work the work to run, whose connections go to one shard regardless of tenant
+     * @param combine how to combine the results of two shards
+     * @return the combined result
+     * @throws SQLException if the work failed on any shard
+     */
+    private <T> T onEveryShard(SqlOperation<T> work, BinaryOperator<T> combine) throws SQLException {
+        if (!(connections instanceof ShardRouter router)) return work.execute();
+        return router.fanOut(work).values().stream().reduce(combine).orElseThrow();
     }
 
     // ======================================================================================================================================
@@ -52,134 +209,253 @@ public class DataProvider {
     // ======================================================================================================================================
 
     /**
-     * Creates a new session in the database along with its associated rolls and returns the generated session ID.
+     * Creates a new session in the database along with its associated rolls and their technique links, in one transaction, and returns
+     * the generated session ID.
      * @param s the Session object to be created, which may include a list of Roll objects to be associated with the session
-     * @return the generated ID of the created session, or -1 if the creation failed
-     * @throws SQLException if a database access error occurs
+     * @return the generated ID of the created session
+     * @throws SQLException if a database access error occurs; nothing is written
      */
     public long saveSession(Session s) throws SQLException {
-        String sql = "INSERT INTO sessions (session_date, session_time, is_gi, instructor, currentBelt) VALUES (?, ?, ?, ?, ?)";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        return metrics.record("saveSession", () -> {
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try {
+                    s.setId(insertSession(c, s));
+                    insertRolls(c, s.getId(), s.getRolls());
+                    c.commit();
+                    return s.getId();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    s.setId(0);
+                    for (Roll r : s.getRolls()) r.setId(0);
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Helper method to insert a session row on the given connection
+     * @param c the connection to insert on, which may be in a transaction
+     * @param s the session to be inserted (its rolls are not)
+     * @return the generated ID of the session
+     * @throws SQLException if a database access error occurs
+     */
+    private long insertSession(Connection c, Session s) throws SQLException {
+        String sql = "INSERT INTO sessions (session_date, session_time, is_gi, instructor, currentBelt, tenant_id) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setDate(1, Date.valueOf(s.getDate()));
             ps.setTime(2, Time.valueOf(s.getTime()));
             ps.setBoolean(3, s.isGi());
             ps.setString(4, s.getInstructor());
             ps.setString(5, s.getcurrentBelt());
+            ps.setString(6, Tenant.current());
             ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    long id = rs.getLong(1);
-                    s.setId(id);
-                    // create rolls if any
-                    for (Roll r : s.getRolls()) {
-                        r.setId(saveRollWithSession(id, r)); // sets id
-                    }
-                    return id;
-                }
-            }
+            return readGeneratedKeys(ps, 1).get(0);
         }
-        return -1;
     }
 
     /**
-     * Helper method to create a roll associated with a specific session. 
-     * This method inserts the roll into the database and also handles the insertion of technique links for the roll if they are present.
-     * @param sessionId the ID of the session to which the roll is associated
-     * @param r the Roll object to be created, which may include lists of TechniqueCount objects for subs and taps
-     * @return the generated ID of the created roll, or -1 if the creation failed
+     * Helper method to insert rolls of a session and their technique links on the given connection, with one batched statement for
+     * the rolls and one for all of their links. The generated IDs are set on the Roll objects.
+     * @param c the connection to insert on, which should be in a transaction
+     * @param sessionId the ID of the session the rolls belong to
+     * @param rolls the rolls to be inserted, with their subs and taps (IDs are ignored and overwritten), may be empty
      * @throws SQLException if a database access error occurs
      */
-    private long saveRollWithSession(long sessionId, Roll r) throws SQLException {
-        String sql = "INSERT INTO rolls (session_id, length_minutes, partner, num_rounds) VALUES (?, ?, ?, ?)";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setLong(1, sessionId);
-            ps.setInt(2, r.getLengthMinutes());
-            ps.setString(3, r.getPartner());
-            ps.setInt(4, r.getNumRounds());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    long rollId = rs.getLong(1);
-                    r.setId(rollId);
-                    // insert technique links if present
-                    saveTechniqueCountsForRoll(rollId, r);
-                    return rollId;
+    private void insertRolls(Connection c, long sessionId, List<Roll> rolls) throws SQLException {
+        if (rolls.isEmpty()) return;
+        String rollSql = "INSERT INTO rolls (session_id, length_minutes, partner, num_rounds, tenant_id) VALUES (?, ?, ?, ?, ?)";
+        String linkSql = "INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count, tenant_id) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement psRoll = c.prepareStatement(rollSql, Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement psLink = c.prepareStatement(linkSql)) {
+            for (Roll r : rolls) {
+                psRoll.setLong(1, sessionId);
+                psRoll.setInt(2, r.getLengthMinutes());
+                psRoll.setString(3, r.getPartner());
+                psRoll.setInt(4, r.getNumRounds());
+                psRoll.setString(5, Tenant.current());
+                psRoll.addBatch();
+            }
+            psRoll.executeBatch();
+            List<Long> ids = readGeneratedKeys(psRoll, rolls.size());
+
+            int links = 0;
+            for (int i = 0; i < rolls.size(); i++) {
+                Roll r = rolls.get(i);
+                r.setId(ids.get(i));
+                for (RollDiff.Link link : RollDiff.linksOf(r).values()) {
+                    psLink.setLong(1, r.getId());
+                    psLink.setLong(2, link.techniqueId());
+                    psLink.setInt(3, link.subCount());
+                    psLink.setInt(4, link.tapCount());
+                    psLink.setString(5, Tenant.current());
+                    psLink.addBatch();
+                    links++;
                 }
             }
+            if (links > 0) psLink.executeBatch();
         }
-        return -1;
     }
 
     /**
      * Reads a session from the database by its ID, including its associated rolls and their technique counts, and returns a Session object.
+     * The rolls and their counts are read with one query each, so this runs three statements however many rolls the session has.
      * @param id the ID of the session to be read
      * @return the Session object if found, or null if not found
      * @throws SQLException if a database access error occurs
      */
     public Session getSession(long id) throws SQLException {
-        String sql = "SELECT * FROM sessions WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    Session s = mapSession(rs);
-                    s.setRolls(getRollsForSession(id));
-                    return s;
-                }
-            }
-        }
-        return null;
+        return metrics.record("getSession", () -> hydrate(() -> {
+            Session s = getSessionHeader(id);
+            if (s != null) fillSessionLevels(List.of(s), WHOLE_SESSION);
+            return s;
+        }));
     }
 
     /**
      * Reads all sessions from the database, including their associated rolls and technique counts, and returns a list of Session objects.
+     * Rolls and counts are read with one IN query per {@value #MULTI_GET_CHUNK} sessions (or rolls), not one per session and roll.
      * @return a list of Session objects
      * @throws SQLException if a database access error occurs
      */
     public List<Session> getSessions() throws SQLException {
-        List<Session> out = new ArrayList<>();
-        String sql = "SELECT * FROM sessions ORDER BY session_date DESC";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                Session s = mapSession(rs);
-                s.setRolls(getRollsForSession(s.getId()));
-                out.add(s);
-            }
-        }
-        return out;
+        return metrics.record("getSessions", () -> hydrate(() -> {
+            List<Session> out = getSessionHeaders();
+            fillSessionLevels(out, WHOLE_SESSION);
+            return out;
+        }));
     }
 
     /**
-     * Updates an existing session in the database with the values from the provided Session object.
-     * @param s the Session object to be updated
-     * @return true if the update was successful, false otherwise
+     * Updates an existing session in the database with the values from the provided Session object, if the stored session is still at
+     * the session's version; the version is then incremented (on the Session object too).
+     * @param s the Session object to be updated, carrying the version it was read at
+     * @return true if the update was successful, false if the session does not exist
+     * @throws VersionConflictException if the session was updated by someone else since it was read
      * @throws SQLException if a database access error occurs
      */
     public boolean updateSession(Session s) throws SQLException {
-        String sql = "UPDATE sessions SET session_date = ?, session_time = ?, is_gi = ?, instructor = ?, currentBelt = ? WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+        return metrics.record("updateSession", () -> {
+            try (Connection c = getConnection()) {
+                if (!updateSessionRow(c, s)) return false;
+                s.setVersion(s.getVersion() + 1);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Helper method to update a session row on the given connection if it is still at the session's version. The version of the
+     * Session object is left as it is, for the caller to increment once the write is committed.
+     * @param c the connection to update on, which may be in a transaction
+     * @param s the Session object to be written, carrying the version it was read at
+     * @return true if the row was updated, false if the session does not exist
+     * @throws VersionConflictException if the session was updated by someone else since it was read
+     * @throws SQLException if a database access error occurs
+     */
+    private boolean updateSessionRow(Connection c, Session s) throws SQLException {
+        String sql = "UPDATE sessions SET session_date = ?, session_time = ?, is_gi = ?, instructor = ?, currentBelt = ?, version = version + 1 "
+                   + "WHERE id = ? AND tenant_id = ? AND version = ? AND deleted_at IS NULL";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setDate(1, Date.valueOf(s.getDate()));
             ps.setTime(2, Time.valueOf(s.getTime()));
             ps.setBoolean(3, s.isGi());
             ps.setString(4, s.getInstructor());
             ps.setString(5, s.getcurrentBelt());
             ps.setLong(6, s.getId());
-            return ps.executeUpdate() > 0;
+            ps.setString(7, Tenant.current());
+            ps.setLong(8, s.getVersion());
+            if (ps.executeUpdate() == 0) return versionConflict(c, "sessions", "session", s.getId(), s.getVersion());
+            return true;
         }
     }
 
     /**
-     * Deletes a session from the database by its ID. This method also deletes all rolls associated with the session due to the ON DELETE CASCADE constraint in the database schema.
+     * Writes a session, its rolls and their technique links in one transaction: new techniques the rolls reference are inserted,
+     * the session row is inserted (ID of 0) or updated if it is still at its version, rolls with an ID of 0 are inserted with their
+     * links, and the diffs of the session's existing rolls are applied as {@link #applyRollDiff(RollDiff)} does. Versions and IDs
+     * are set on the objects once the transaction has committed; if it is rolled back, the new session, rolls and techniques get an
+     * ID of 0 again.
+     * @param s the Session object to be written, with its rolls
+     * @param techniques the new techniques the rolls' technique counts refer to (IDs are ignored and overwritten), may be empty
+     * @param diffs the diffs between the stored and the incoming state of the session's existing rolls, may be empty
+     * @return true if everything was written, false if the session or one of the rolls no longer exists; nothing is written then
+     * @throws VersionConflictException if the session, a roll or an edited technique was updated by someone else; nothing is written
+     * @throws SQLException if a database access error occurs; nothing is written
+     */
+    public boolean writeSession(Session s, List<Technique> techniques, List<RollDiff> diffs) throws SQLException {
+        return metrics.record("writeSession", () -> {
+            boolean inserting = s.getId() == 0;
+            List<Roll> newRolls = new ArrayList<>();
+            for (Roll r : s.getRolls()) {
+                if (r.getId() == 0) newRolls.add(r);
+            }
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try {
+                    if (!techniques.isEmpty()) insertTechniques(c, techniques);
+                    if (inserting) {
+                        s.setId(insertSession(c, s));
+                    } else if (!updateSessionRow(c, s)) {
+                        rollBack(c, inserting, s, newRolls, techniques);
+                        return false;
+                    }
+                    insertRolls(c, s.getId(), newRolls);
+                    for (RollDiff d : diffs) {
+                        if (!applyRollDiff(c, d)) {
+                            rollBack(c, inserting, s, newRolls, techniques);
+                            return false;
+                        }
+                    }
+                    c.commit();
+                } catch (SQLException | RuntimeException ex) {
+                    rollBack(c, inserting, s, newRolls, techniques);
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+            if (!inserting) s.setVersion(s.getVersion() + 1);
+            for (RollDiff d : diffs) committed(d);
+            return true;
+        });
+    }
+
+    /**
+     * Helper method to roll back a session write and give the session, rolls and techniques it would have inserted an ID of 0 again
+     */
+    private static void rollBack(Connection c, boolean inserting, Session s, List<Roll> newRolls, List<Technique> techniques) throws SQLException {
+        c.rollback();
+        if (inserting) s.setId(0);
+        for (Roll r : newRolls) r.setId(0);
+        for (Technique t : techniques) t.setId(0);
+    }
+
+    /**
+     * Soft-deletes a session by setting its deleted_at tombstone, a single-row update regardless of how many rolls the session has.
+     * The session and its rolls disappear from all reads immediately; the TombstonePurger removes the rows and their links later.
      * @param id the ID of the session to be deleted
-     * @return true if the deletion was successful, false otherwise
+     * @return one session deleted, or all zero if the session did not exist or was already deleted
+     * @throws SQLException if a database access error occurs
      */
-    public boolean deleteSession(long id) throws SQLException {
-        String sql = "DELETE FROM sessions WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            return ps.executeUpdate() > 0;
-        }
+    public DeleteResult deleteSession(long id) throws SQLException {
+        return metrics.record("deleteSession", () -> new DeleteResult(tombstone(TombstoneTable.SESSIONS, id), 0, 0, 0));
+    }
+
+    /**
+     * Soft-deletes a session as {@link #deleteSession(long)} does, and reads what the session and its rolls contributed to the
+     * current tenant's dashboard summary counters in the same transaction, so the contribution is subtracted only by the delete
+     * that tombstoned the row.
+     * @param id the ID of the session to be deleted
+     * @param delta the summary delta the session's contribution is subtracted from, if it was deleted
+     * @return one session deleted, or all zero if the session did not exist or was already deleted
+     * @throws SQLException if a database access error occurs
+     */
+    public DeleteResult deleteSession(long id, SummaryCounters delta) throws SQLException {
+        return metrics.record("deleteSession", () -> new DeleteResult(tombstone(TombstoneTable.SESSIONS, id, " AND s.id = ?", true, delta), 0, 0, 0));
     }
 
     /**
@@ -188,15 +464,17 @@ public class DataProvider {
      * @return a Session object representing the data in the ResultSet row
      * @throws SQLException if a database access error occurs while reading from the ResultSet
      */
-    private Session mapSession(ResultSet rs) throws SQLException {
+    Session mapSession(ResultSet rs) throws SQLException {
         Session s = new Session();
         s.setId(rs.getLong("id"));
         s.setDate(rs.getDate("session_date").toLocalDate());
         Time t = rs.getTime("session_time");
         s.setTime(t != null ? t.toLocalTime() : LocalTime.MIDNIGHT);
         s.setGi(rs.getBoolean("is_gi"));
-        s.setInstructor(rs.getString("instructor"));
-        s.setcurrentBelt(rs.getString("currentBelt"));
+        s.setInstructor(IdentityMap.canonical(rs.getString("instructor")));
+        s.setcurrentBelt(IdentityMap.canonical(rs.getString("currentBelt")));
+        s.setVersion(rs.getLong("version"));
+        metrics.rowsMapped("session", 1);
         return s;
     }
 
@@ -205,15 +483,29 @@ public class DataProvider {
     // ======================================================================================================================================
 
     /**
-     * Creates a new roll in the database associated with a specific session. 
-     * This method is a helper that calls createRollWithSession to handle the insertion of the roll and its technique links.
+     * Creates a new roll in the database associated with a specific session, together with its technique links, in one transaction.
      * @param sessionId the ID of the session to which the roll is associated
      * @param r the Roll object to be saved, which may include lists of TechniqueCount objects for subs and taps
-     * @return the generated ID of the saved roll, or -1 if the save failed
-     * @throws SQLException if a database access error occurs
+     * @return the generated ID of the saved roll
+     * @throws SQLException if a database access error occurs; nothing is written
      */
     public long saveRoll(long sessionId, Roll r) throws SQLException {
-        return saveRollWithSession(sessionId, r);
+        return metrics.record("saveRoll", () -> {
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try {
+                    insertRolls(c, sessionId, List.of(r));
+                    c.commit();
+                    return r.getId();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    r.setId(0);
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+        });
     }
 
     /**
@@ -223,97 +515,173 @@ public class DataProvider {
      * @throws SQLException if a database access error occurs
      */
     public Roll getRoll(long id) throws SQLException {
-        String sql = "SELECT * FROM rolls WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    Roll r = mapRoll(rs);
-                    getTechniqueCounts(r);
-                    return r;
+        return metrics.record("getRoll", () -> hydrate(() -> {
+            String sql = "SELECT r.* FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                       + "WHERE r.id = ? AND s.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, id);
+                ps.setString(2, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        Roll r = mapRoll(rs);
+                        fillTechniqueCounts(List.of(r));
+                        return r;
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        }));
     }
 
     /**
      * Reads all rolls from the database, including their associated technique counts, and returns a list of Roll objects.
+     * The counts are read with one IN query per {@value #MULTI_GET_CHUNK} rolls.
      * @return a list of Roll objects
      * @throws SQLException if a database access error occurs
      */
     public List<Roll> getRolls() throws SQLException {
-        List<Roll> out = new ArrayList<>();
-        String sql = "SELECT * FROM rolls ORDER BY created_at DESC";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                Roll r = mapRoll(rs);
-                getTechniqueCounts(r);
-                out.add(r);
+        return metrics.record("getRolls", () -> hydrate(() -> {
+            List<Roll> out = new ArrayList<>();
+            String sql = "SELECT r.* FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                       + "WHERE s.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL ORDER BY r.created_at DESC, r.id DESC";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) out.add(mapRoll(rs));
+                }
             }
-        }
-        return out;
+            fillTechniqueCounts(out);
+            return out;
+        }));
     }
 
     /**
-    * Helper method to read all rolls associated with a specific session ID from the database, 
-    * including their associated technique counts, and returns a list of Roll objects.
-    * @param sessionId the ID of the session for which to read the rolls
-    * @return a list of Roll objects associated with the specified session ID
-    * @throws SQLException if a database access error occurs
-    */
-    private List<Roll> getRollsForSession(long sessionId) throws SQLException {
-        List<Roll> out = new ArrayList<>();
-        String sql = "SELECT * FROM rolls WHERE session_id = ? ORDER BY created_at";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, sessionId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Roll r = mapRoll(rs);
-                    getTechniqueCounts(r);
-                    out.add(r);
+     * Applies a RollDiff to the stored roll, writing only what changed: the rolls row if its columns changed, and batched
+     * deletes, upserts and technique updates for the links and techniques in the diff, all in one transaction.
+     * The roll, and every edited technique, must still be at the version it was read at; their versions are incremented.
+     * An empty diff does not touch the database.
+     * @param d the diff between the stored roll and its edited version, as computed by RollDiff.between
+     * @return true if the changes were applied, false if the roll no longer exists
+     * @throws VersionConflictException if the roll or an edited technique was updated by someone else; no part of the diff is applied
+     * @throws SQLException if a database access error occurs; no part of the diff is applied
+     */
+    public boolean applyRollDiff(RollDiff d) throws SQLException {
+        return metrics.record("applyRollDiff", () -> {
+            if (d.isEmpty()) return true;
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try {
+                    if (!applyRollDiff(c, d)) {
+                        c.rollback();
+                        return false;
+                    }
+                    c.commit();
+                } catch (SQLException | RuntimeException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
                 }
             }
-        }
-        return out;
+            committed(d);
+            return true;
+        });
     }
 
     /**
-     * Updates an existing roll in the database with the values from the provided Roll object. 
-     * This method also updates the associated technique counts for the roll.
-     * @param r the Roll object with updated values, including its ID which identifies the roll to be updated in the database
-     * @return true if the update was successful, false otherwise
+     * Helper method to write a RollDiff on the given connection, as {@link #applyRollDiff(RollDiff)} describes. The versions of the
+     * roll and the edited techniques are left as they are, for {@link #committed(RollDiff)} once the write is committed.
+     * @param c the connection to write on, which must be in a transaction the caller rolls back if this fails or returns false
+     * @param d the diff between the stored roll and its edited version
+     * @return true if the changes were written, false if the roll no longer exists
+     * @throws VersionConflictException if the roll or an edited technique was updated by someone else
      * @throws SQLException if a database access error occurs
      */
-    public boolean updateRoll(Roll r) throws SQLException {
-        String sql = "UPDATE rolls SET length_minutes = ?, partner = ?, num_rounds = ? WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, r.getLengthMinutes());
-            ps.setString(2, r.getPartner());
-            ps.setInt(3, r.getNumRounds());
-            ps.setLong(4, r.getId());
-            boolean ok = ps.executeUpdate() > 0;
-            if (ok) {
-                saveTechniqueCountsForRoll(r.getId(), r); // persist counters
-            }
-            return ok;
+    private boolean applyRollDiff(Connection c, RollDiff d) throws SQLException {
+        if (d.isEmpty()) return true;
+        long rollId = d.getRoll().getId();
+        // the rolls row is written even if only links changed, so the version covers the whole roll
+        String rollSql = "UPDATE rolls SET length_minutes = ?, partner = ?, num_rounds = ?, version = version + 1 "
+                       + "WHERE id = ? AND tenant_id = ? AND version = ? AND deleted_at IS NULL";
+        long rollVersion = d.getRoll().getVersion();
+        try (PreparedStatement ps = c.prepareStatement(rollSql)) {
+            ps.setInt(1, d.getRoll().getLengthMinutes());
+            ps.setString(2, d.getRoll().getPartner());
+            ps.setInt(3, d.getRoll().getNumRounds());
+            ps.setLong(4, rollId);
+            ps.setString(5, Tenant.current());
+            ps.setLong(6, rollVersion);
+            if (ps.executeUpdate() == 0) return versionConflict(c, "rolls", "roll", rollId, rollVersion);
+        }
+        if (!d.getRemoved().isEmpty()) {
+            String sql = "DELETE FROM roll_technique_links WHERE roll_id = ? AND technique_id = ? AND tenant_id = ?";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (Long techniqueId : d.getRemoved()) {
+                    ps.setLong(1, rollId);
+                    ps.setLong(2, techniqueId);
+                    ps.setString(3, Tenant.current());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        upsertLinks(c, rollId, d.getUpserts());
+        if (!d.getDirtyTechniques().isEmpty()) {
+            String sql = "UPDATE techniques SET name = ?, position = ?, num_finishes = ?, num_taps = ?, version = version + 1 "
+                       + "WHERE id = ? AND tenant_id = ? AND version = ? AND deleted_at IS NULL";
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (Technique t : d.getDirtyTechniques()) {
+                    ps.setString(1, t.getName());
+                    ps.setString(2, t.getPosition());
+                    ps.setInt(3, t.getNumFinishes());
+                    ps.setInt(4, t.getNumTaps());
+                    ps.setLong(5, t.getId());
+                    ps.setString(6, Tenant.current());
+                    ps.setLong(7, t.getVersion());
+                    ps.addBatch();
+                }
+                int[] updated = ps.executeBatch();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] != 0) continue;
+                    Technique t = d.getDirtyTechniques().get(i);
+                    versionConflict(c, "techniques", "technique", t.getId(), t.getVersion());
+                    throw new SQLException("Technique " + t.getId() + " was deleted while the roll was being edited");
+                }
+            }
         }
+        return true;
+    }
+
+    /**
+     * Helper method to increment the versions of a written RollDiff's roll and edited techniques, once its write has committed
+     * @param d the committed diff
+     */
+    private static void committed(RollDiff d) {
+        if (d.isEmpty()) return;
+        d.getRoll().setVersion(d.getRoll().getVersion() + 1);
+        for (Technique t : d.getDirtyTechniques()) t.setVersion(t.getVersion() + 1);
     }
 
     /**
-     * Deletes a roll from the database by its ID. 
-     * This method also deletes all technique links associated with the roll due to the ON DELETE CASCADE constraint in the database schema.
+     * Soft-deletes a roll by setting its deleted_at tombstone; the TombstonePurger removes the row and its links later.
      * @param id the ID of the roll to be deleted
-     * @return true if the deletion was successful, false otherwise
+     * @return one roll deleted, or all zero if the roll did not exist or was already deleted
      * @throws SQLException if a database access error occurs
      */
-    public boolean deleteRoll(long id) throws SQLException {
-        String sql = "DELETE FROM rolls WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            return ps.executeUpdate() > 0;
-        }
+    public DeleteResult deleteRoll(long id) throws SQLException {
+        return metrics.record("deleteRoll", () -> new DeleteResult(0, tombstone(TombstoneTable.ROLLS, id), 0, 0));
+    }
+
+    /**
+     * Soft-deletes a roll as {@link #deleteRoll(long)} does, and reads what the roll contributed to the current tenant's
+     * dashboard summary counters in the same transaction
+     * @param id the ID of the roll to be deleted
+     * @param delta the summary delta the roll's contribution is subtracted from, if it was deleted
+     * @return one roll deleted, or all zero if the roll did not exist or was already deleted
+     * @throws SQLException if a database access error occurs
+     */
+    public DeleteResult deleteRoll(long id, SummaryCounters delta) throws SQLException {
+        return metrics.record("deleteRoll", () -> new DeleteResult(0, tombstone(TombstoneTable.ROLLS, id, " AND r.id = ?", false, delta), 0, 0));
     }
 
     /**
@@ -323,12 +691,16 @@ public class DataProvider {
      * @return a Roll object representing the data in the ResultSet row
      * @throws SQLException if a database access error occurs while reading from the ResultSet
      */
-    private Roll mapRoll(ResultSet rs) throws SQLException {
+    Roll mapRoll(ResultSet rs) throws SQLException {
         Roll r = new Roll();
         r.setId(rs.getLong("id"));
         r.setLengthMinutes(rs.getInt("length_minutes"));
-        r.setPartner(rs.getString("partner"));
+        r.setPartner(IdentityMap.canonical(rs.getString("partner")));
         r.setNumRounds(rs.getInt("num_rounds"));
+        r.setVersion(rs.getLong("version"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        r.setCreatedAt(createdAt == null ? null : createdAt.toLocalDateTime());
+        metrics.rowsMapped("roll", 1);
         return r;
     }
 
@@ -343,22 +715,25 @@ public class DataProvider {
      * @throws SQLException if a database access error occurs
      */
     public long saveTechnique(Technique t) throws SQLException {
-        String sql = "INSERT INTO techniques (name, position, num_finishes, num_taps) VALUES (?, ?, ?, ?)";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, t.getName());
-            ps.setString(2, t.getPosition());
-            ps.setInt(3, t.getNumFinishes());
-            ps.setInt(4, t.getNumTaps());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    long id = rs.getLong(1);
-                    t.setId(id);
-                    return id;
+        return metrics.record("saveTechnique", () -> {
+            String sql = "INSERT INTO techniques (name, position, num_finishes, num_taps, tenant_id) VALUES (?, ?, ?, ?, ?)";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setString(1, t.getName());
+                ps.setString(2, t.getPosition());
+                ps.setInt(3, t.getNumFinishes());
+                ps.setInt(4, t.getNumTaps());
+                ps.setString(5, Tenant.current());
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        long id = rs.getLong(1);
+                        t.setId(id);
+                        return id;
+                    }
                 }
             }
-        }
-        return -1;
+            return -1L;
+        });
     }
 
     /**
@@ -368,14 +743,17 @@ public class DataProvider {
      * @throws SQLException if a database access error occurs
      */
     public Technique getTechnique(long id) throws SQLException {
-        String sql = "SELECT * FROM techniques WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return mapTechnique(rs);
+        return metrics.record("getTechnique", () -> {
+            String sql = "SELECT * FROM techniques WHERE id = ? AND tenant_id = ? AND deleted_at IS NULL";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, id);
+                ps.setString(2, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return mapTechnique(rs);
+                }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     /**
@@ -384,45 +762,67 @@ public class DataProvider {
      * @throws SQLException if a database access error occurs
      */
     public List<Technique> getTechniques() throws SQLException {
-        List<Technique> list = new ArrayList<>();
-        String sql = "SELECT * FROM techniques";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) list.add(mapTechnique(rs));
-        }
-        return list;
+        return metrics.record("getTechniques", () -> {
+            List<Technique> list = new ArrayList<>();
+            String sql = "SELECT * FROM techniques WHERE tenant_id = ? AND deleted_at IS NULL";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) list.add(mapTechnique(rs));
+                }
+            }
+            return list;
+        });
     }
 
     /**
-     * Updates an existing technique in the database with the values from the provided Technique object.
-     * @param t the Technique object with updated values
-     * @return true if the update was successful, false otherwise
+     * Updates an existing technique in the database with the values from the provided Technique object, if the stored technique is
+     * still at the technique's version; the version is then incremented (on the Technique object too).
+     * @param t the Technique object with updated values and the version it was read at
+     * @return true if the update was successful, false if the technique does not exist
+     * @throws VersionConflictException if the technique was updated by someone else since it was read
      * @throws SQLException if a database access error occurs
      */
     public boolean updateTechnique(Technique t) throws SQLException {
-        String sql = "UPDATE techniques SET name = ?, position = ?, num_finishes = ?, num_taps = ? WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setString(1, t.getName());
-            ps.setString(2, t.getPosition());
-            ps.setInt(3, t.getNumFinishes());
-            ps.setInt(4, t.getNumTaps());
-            ps.setLong(5, t.getId());
-            return ps.executeUpdate() > 0;
-        }
+        return metrics.record("updateTechnique", () -> {
+            String sql = "UPDATE techniques SET name = ?, position = ?, num_finishes = ?, num_taps = ?, version = version + 1 "
+                       + "WHERE id = ? AND tenant_id = ? AND version = ? AND deleted_at IS NULL";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, t.getName());
+                ps.setString(2, t.getPosition());
+                ps.setInt(3, t.getNumFinishes());
+                ps.setInt(4, t.getNumTaps());
+                ps.setLong(5, t.getId());
+                ps.setString(6, Tenant.current());
+                ps.setLong(7, t.getVersion());
+                if (ps.executeUpdate() == 0) return versionConflict(c, "techniques", "technique", t.getId(), t.getVersion());
+                t.setVersion(t.getVersion() + 1);
+                return true;
+            }
+        });
     }
 
     /**
-     * Deletes a technique from the database by its ID.
+     * Soft-deletes a technique by setting its deleted_at tombstone; links to it are hidden from reads immediately
+     * and removed by the TombstonePurger later.
      * @param id the ID of the technique to be deleted
-     * @return true if the deletion was successful, false otherwise
+     * @return one technique deleted, or all zero if the technique did not exist or was already deleted
      * @throws SQLException if a database access error occurs
      */
-    public boolean deleteTechnique(long id) throws SQLException {
-        String sql = "DELETE FROM techniques WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, id);
-            return ps.executeUpdate() > 0;
-        }
+    public DeleteResult deleteTechnique(long id) throws SQLException {
+        return metrics.record("deleteTechnique", () -> new DeleteResult(0, 0, tombstone(TombstoneTable.TECHNIQUES, id), 0));
+    }
+
+    /**
+     * Soft-deletes a technique as {@link #deleteTechnique(long)} does, and reads its subs and taps in the current tenant's
+     * dashboard summary counters in the same transaction
+     * @param id the ID of the technique to be deleted
+     * @param delta the summary delta the technique's subs and taps are subtracted from, if it was deleted
+     * @return one technique deleted, or all zero if the technique did not exist or was already deleted
+     * @throws SQLException if a database access error occurs
+     */
+    public DeleteResult deleteTechnique(long id, SummaryCounters delta) throws SQLException {
+        return metrics.record("deleteTechnique", () -> new DeleteResult(0, 0, tombstone(TombstoneTable.TECHNIQUES, id, " AND t.id = ?", false, delta), 0));
     }
 
     /**
@@ -431,13 +831,15 @@ public class DataProvider {
      * @return a Technique object representing the row in the ResultSet
      * @throws SQLException if a database access error occurs
      */
-    private Technique mapTechnique(ResultSet rs) throws SQLException {
+    Technique mapTechnique(ResultSet rs) throws SQLException {
         Technique t = new Technique();
         t.setId(rs.getLong("id"));
         t.setName(rs.getString("name"));
         t.setPosition(rs.getString("position"));
         t.setNumFinishes(rs.getInt("num_finishes"));
         t.setNumTaps(rs.getInt("num_taps"));
+        t.setVersion(rs.getLong("version"));
+        metrics.rowsMapped("technique", 1);
         return t;
     }
 
@@ -446,132 +848,120 @@ public class DataProvider {
     // ======================================================================================================================================
 
     /**
-     * Helper method to upsert (insert or update) the technique counts for a single technique associated with a given roll. 
+     * Helper method to add to the sub count of a single technique on a given roll, creating the link if it does not exist yet, in one upsert.
+     * As for live increments ({@link #addTechniqueCounts(Collection, Map)}), each sub is also a finish, so the technique's finish total is
+     * increased by the same count in the same transaction.
      * @param rollId the ID of the roll for which to upsert the technique count. This ID must correspond to an existing roll in the database.
      * @param techniqueId the ID of the technique for which to upsert the count. This ID must correspond to an existing technique in the database.
-     * @param subsCount the number of subs to be upserted for the given technique and roll.
-     * @param tapsCount the number of taps to be upserted for the given technique and roll.
+     * @param count the number of subs to add for the given technique and roll.
      * @throws SQLException if a database access error occurs
      */
     public void saveTechniqueCount(long rollId, long techniqueId, int count) throws SQLException {
-        String selectSql = "SELECT id FROM roll_technique_links WHERE roll_id = ? AND technique_id = ?";
-        String insertSql = "INSERT INTO roll_technique_links (roll_id, technique_id, count) VALUES (?, ?, ?)";
-        String updateSql = "UPDATE roll_technique_links SET count = count + ? WHERE roll_id = ? AND technique_id = ?";
-        try (Connection c = getConnection()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement psSelect = c.prepareStatement(selectSql);
-                 PreparedStatement psInsert = c.prepareStatement(insertSql);
-                 PreparedStatement psUpdate = c.prepareStatement(updateSql)) {
-
-                psSelect.setLong(1, rollId);
-                psSelect.setLong(2, techniqueId);
-                try (ResultSet rs = psSelect.executeQuery()) {
-                    if (rs.next()) { // update - add to existing counters
-                        psUpdate.setInt(1, count);
-                        psUpdate.setLong(2, rollId);
-                        psUpdate.setLong(3, techniqueId);
-                        psUpdate.executeUpdate();
-                    } else { // insert with provided absolute counters
-                        psInsert.setLong(1, rollId);
-                        psInsert.setLong(2, techniqueId);
-                        psInsert.setInt(3, count);
-                        psInsert.executeUpdate();
-                    }
+        metrics.record("saveTechniqueCount", () -> {
+            String linkSql = "INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count, tenant_id) VALUES (?, ?, ?, 0, ?) "
+                           + "ON DUPLICATE KEY UPDATE sub_count = sub_count + VALUES(sub_count)";
+            String techniqueSql = "UPDATE techniques SET num_finishes = num_finishes + ?, version = version + 1 WHERE id = ? AND tenant_id = ?";
+            String versionSql = "UPDATE rolls SET version = version + 1 WHERE id = ? AND tenant_id = ?";
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try (PreparedStatement psLink = c.prepareStatement(linkSql);
+                     PreparedStatement psTechnique = c.prepareStatement(techniqueSql);
+                     PreparedStatement psVersion = c.prepareStatement(versionSql)) {
+
+                    psLink.setLong(1, rollId);
+                    psLink.setLong(2, techniqueId);
+                    psLink.setInt(3, count);
+                    psLink.setString(4, Tenant.current());
+                    psLink.executeUpdate();
+                    psTechnique.setInt(1, count);
+                    psTechnique.setLong(2, techniqueId);
+                    psTechnique.setString(3, Tenant.current());
+                    psTechnique.executeUpdate();
+                    psVersion.setLong(1, rollId);
+                    psVersion.setString(2, Tenant.current());
+                    psVersion.executeUpdate();
+                    c.commit();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
                 }
-                c.commit();
-            } catch (SQLException ex) {
-                c.rollback();
-                throw ex;
-            } finally {
-                c.setAutoCommit(true);
             }
-        }
+            return null;
+        });
     }
 
     /**
-     * Helper method to upsert (insert or update) the technique counts for a given roll based on the subs and taps lists in the Roll object.
-     * @param rollId the ID of the roll for which to upsert the technique counts. This ID must correspond to an existing roll in the database.
-     * @param r the Roll object containing the subs and taps lists to be upserted
+     * Helper method to insert or overwrite technique links for a roll as one batched statement on the caller's connection (and transaction).
+     * @param c the connection to write on
+     * @param rollId the ID of the roll the links belong to
+     * @param links the links to write; an existing link for the same technique has both counts replaced
      * @throws SQLException if a database access error occurs
      */
-    private void saveTechniqueCountsForRoll(long rollId, Roll r) throws SQLException {
-        // gather per technique id the subs and taps
-        Map<Long, Integer> subsMap = new HashMap<>();
-        for (TechniqueCount tc : r.getSubs()) subsMap.put(tc.getTechnique().getId(), tc.getCount());
-        Map<Long, Integer> tapsMap = new HashMap<>();
-        for (TechniqueCount tc : r.getTaps()) tapsMap.put(tc.getTechnique().getId(), tc.getCount());
-
-        // union of technique ids
-        Set<Long> techniqueIds = new HashSet<>();
-        techniqueIds.addAll(subsMap.keySet());
-        techniqueIds.addAll(tapsMap.keySet());
-
-        String selectSql = "SELECT id FROM roll_technique_links WHERE roll_id = ? AND technique_id = ?";
-        String insertSql = "INSERT INTO roll_technique_links (roll_id, technique_id, count) VALUES (?, ?, ?, ?)";
-        String updateSql = "UPDATE roll_technique_links SET count = ? = ? WHERE roll_id = ? AND technique_id = ?";
-
-        try (Connection c = getConnection()) {
-            c.setAutoCommit(false);
-            try (PreparedStatement psSelect = c.prepareStatement(selectSql);
-                 PreparedStatement psInsert = c.prepareStatement(insertSql);
-                 PreparedStatement psUpdate = c.prepareStatement(updateSql)) {
-
-                for (Long techId : techniqueIds) {
-                    int subs = subsMap.getOrDefault(techId, 0);
-                    int taps = tapsMap.getOrDefault(techId, 0);
-
-                    psSelect.setLong(1, rollId);
-                    psSelect.setLong(2, techId);
-                    try (ResultSet rs = psSelect.executeQuery()) {
-                        if (rs.next()) { // update
-                            psUpdate.setInt(1, subs);
-                            psUpdate.setInt(2, taps);
-                            psUpdate.setLong(3, rollId);
-                            psUpdate.setLong(4, techId);
-                            psUpdate.executeUpdate();
-                        } else { // insert
-                            psInsert.setLong(1, rollId);
-                            psInsert.setLong(2, techId);
-                            psInsert.setInt(3, subs);
-                            psInsert.setInt(4, taps);
-                            psInsert.executeUpdate();
-                        }
-                    }
-                }
-                c.commit();
-            } catch (SQLException ex) {
-                c.rollback();
-                throw ex;
-            } finally {
-                c.setAutoCommit(true);
+    private void upsertLinks(Connection c, long rollId, Collection<RollDiff.Link> links) throws SQLException {
+        if (links.isEmpty()) return;
+        String sql = "INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count, tenant_id) VALUES (?, ?, ?, ?, ?) "
+                   + "ON DUPLICATE KEY UPDATE sub_count = VALUES(sub_count), tap_count = VALUES(tap_count)";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (RollDiff.Link link : links) {
+                ps.setLong(1, rollId);
+                ps.setLong(2, link.techniqueId());
+                ps.setInt(3, link.subCount());
+                ps.setInt(4, link.tapCount());
+                ps.setString(5, Tenant.current());
+                ps.addBatch();
             }
+            ps.executeBatch();
         }
     }
 
     /**
-     * Helper method to populate the subs and taps lists of a Roll object with  objects based on the data in the roll_technique_links table for the given roll.
-     * @param roll the Roll object for which to populate the technique counts. The roll's ID must be set, and this method will fill the subs and taps lists based on the database data.
-     * @throws SQLException if a database access error occurs
+     * Helper method to add the counts of a roll_technique_links row to a roll's lists: to subs if its sub count is positive, to taps if its tap count is
+     * @param rs the ResultSet positioned on the link row
+     * @param t the linked technique
+     * @param subs the subs list of the roll
+     * @param taps the taps list of the roll
+     * @throws SQLException if a database access error occurs while reading from the ResultSet
      */
-    private void getTechniqueCounts(Roll roll) throws SQLException {
-        String sql = "SELECT rtl.*, t.name, t.position, t.num_finishes, t.num_taps " +
-                     "FROM roll_technique_links rtl JOIN techniques t ON rtl.technique_id = t.id " +
-                     "WHERE rtl.roll_id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, roll.getId());
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Technique t = new Technique();
-                    t.setId(rs.getLong("technique_id"));
-                    t.setName(rs.getString("name"));
-                    t.setPosition(rs.getString("position"));
-                    t.setNumFinishes(rs.getInt("num_finishes"));
-                    t.setNumTaps(rs.getInt("num_taps"));
-                    int count = rs.getInt("count");
-                    long rollID = rs.getLong("roll_id");
-                    if (count > 0) roll.getSubs().add(new TechniqueCount(rollID, t, count));
-                }
-            }
+    private static void addLinkCounts(ResultSet rs, Technique t, List<TechniqueCount> subs, List<TechniqueCount> taps) throws SQLException {
+        long rollId = rs.getLong("roll_id");
+        int subCount = rs.getInt("sub_count");
+        int tapCount = rs.getInt("tap_count");
+        if (subCount > 0) subs.add(new TechniqueCount(rollId, t, subCount));
+        if (tapCount > 0) taps.add(new TechniqueCount(rollId, t, tapCount));
+    }
+
+    /**
+     * Helper method to map the technique columns joined onto a roll_technique_links row
+     * @param rs the ResultSet positioned on the link row
+     * @param techniqueId the ID of the linked technique
+     * @return a Technique object representing the joined columns
+     * @throws SQLException if a database access error occurs while reading from the ResultSet
+     */
+    private Technique mapLinkedTechnique(ResultSet rs, long techniqueId) throws SQLException {
+        Technique t = new Technique();
+        t.setId(techniqueId);
+        t.setName(rs.getString("name"));
+        t.setPosition(rs.getString("position"));
+        t.setNumFinishes(rs.getInt("num_finishes"));
+        t.setNumTaps(rs.getInt("num_taps"));
+        t.setVersion(rs.getLong("version"));
+        return t;
+    }
+
+    /**
+     * Helper method to run a graph read with an IdentityMap open, so the techniques and strings it maps are shared across the graph.
+     * The outermost read records how many instances were shared.
+     * @param read the read that hydrates the graph
+     * @return the value produced by the read
+     * @throws SQLException if the read throws an SQLException
+     */
+    private <T> T hydrate(SqlOperation<T> read) throws SQLException {
+        try (IdentityMap identities = IdentityMap.open()) {
+            T value = read.execute();
+            if (identities.isOutermost()) metrics.instancesShared(identities.getShared());
+            return value;
         }
     }
 
@@ -584,13 +974,16 @@ public class DataProvider {
      * @throws SQLException if a database access error occurs
      */
     public boolean updateTechniqueCounts(long techniqueId, int newNumFinishes, int newNumTaps) throws SQLException {
-        String sql = "UPDATE techniques SET num_finishes = ?, num_taps = ? WHERE id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, newNumFinishes);
-            ps.setInt(2, newNumTaps);
-            ps.setLong(3, techniqueId);
-            return ps.executeUpdate() > 0;
-        }
+        return metrics.record("updateTechniqueCounts", () -> {
+            String sql = "UPDATE techniques SET num_finishes = ?, num_taps = ?, version = version + 1 WHERE id = ? AND tenant_id = ?";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setInt(1, newNumFinishes);
+                ps.setInt(2, newNumTaps);
+                ps.setLong(3, techniqueId);
+                ps.setString(4, Tenant.current());
+                return ps.executeUpdate() > 0;
+            }
+        });
     }
 
     /**
@@ -601,12 +994,1144 @@ public class DataProvider {
      * @throws SQLException if a database access error occurs
      */
     public boolean deleteTechniqueLink(long rollId, long techniqueId) throws SQLException {
-        String sql = "DELETE FROM roll_technique_links WHERE roll_id = ? AND technique_id = ?";
-        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setLong(1, rollId);
-            ps.setLong(2, techniqueId);
-            return ps.executeUpdate() > 0;
-        }
+        return metrics.record("deleteTechniqueLink", () -> {
+            String sql = "DELETE FROM roll_technique_links WHERE roll_id = ? AND technique_id = ? AND tenant_id = ?";
+            String versionSql = "UPDATE rolls SET version = version + 1 WHERE id = ? AND tenant_id = ?";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, rollId);
+                ps.setLong(2, techniqueId);
+                ps.setString(3, Tenant.current());
+                if (ps.executeUpdate() == 0) return false;
+                try (PreparedStatement psVersion = c.prepareStatement(versionSql)) {
+                    psVersion.setLong(1, rollId);
+                    psVersion.setString(2, Tenant.current());
+                    psVersion.executeUpdate();
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Adds coalesced increments to technique links and technique finish totals in one transaction, using two batched statements.
+     * Links that do not exist yet are created with the delta as their count. The versions of the rolls and techniques are incremented.
+     * @param links the increments to add to roll_technique_links counts
+     * @param finishes the increments to add to techniques.num_finishes, keyed by technique ID
+     * @throws SQLException if a database access error occurs; no increment is applied
+     */
+    public void addTechniqueCounts(Collection<LinkDelta> links, Map<Long, Integer> finishes) throws SQLException {
+        metrics.record("addTechniqueCounts", () -> {
+            if (links.isEmpty() && finishes.isEmpty()) return null;
+            String linkSql = "INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count, tenant_id) VALUES (?, ?, ?, 0, ?) "
+                           + "ON DUPLICATE KEY UPDATE sub_count = sub_count + VALUES(sub_count)";
+            String techniqueSql = "UPDATE techniques SET num_finishes = num_finishes + ?, version = version + 1 WHERE id = ? AND tenant_id = ?";
+            String rollSql = "UPDATE rolls SET version = version + 1 WHERE id = ? AND tenant_id = ?";
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try (PreparedStatement psLink = c.prepareStatement(linkSql);
+                     PreparedStatement psTechnique = c.prepareStatement(techniqueSql);
+                     PreparedStatement psRoll = c.prepareStatement(rollSql)) {
+                    for (LinkDelta d : links) {
+                        psLink.setLong(1, d.rollId());
+                        psLink.setLong(2, d.techniqueId());
+                        psLink.setInt(3, d.delta());
+                        psLink.setString(4, Tenant.current());
+                        psLink.addBatch();
+                    }
+                    if (!links.isEmpty()) psLink.executeBatch();
+                    for (Map.Entry<Long, Integer> e : finishes.entrySet()) {
+                        psTechnique.setInt(1, e.getValue());
+                        psTechnique.setLong(2, e.getKey());
+                        psTechnique.setString(3, Tenant.current());
+                        psTechnique.addBatch();
+                    }
+                    if (!finishes.isEmpty()) psTechnique.executeBatch();
+                    Set<Long> rolls = new HashSet<>();
+                    for (LinkDelta d : links) {
+                        if (!rolls.add(d.rollId())) continue;
+                        psRoll.setLong(1, d.rollId());
+                        psRoll.setString(2, Tenant.current());
+                        psRoll.addBatch();
+                    }
+                    if (!rolls.isEmpty()) psRoll.executeBatch();
+                    c.commit();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+            return null;
+        });
+    }
+
+    // ======================================================================================================================================
+    //                        Lazy Loading
+    // ======================================================================================================================================
+
+    /**
+     * Opens a unit of work that reads sessions and rolls lazily, loading rolls and technique counts in batches of the given size
+     * the first time they are accessed. Lazy parts must be accessed before the unit of work is closed.
+     * @param prefetch the maximum number of sessions (or rolls) whose rolls (or technique counts) are loaded per query
+     * @return the opened unit of work, which must be closed
+     */
+    public UnitOfWork openUnitOfWork(int prefetch) {
+        return new UnitOfWork(this, prefetch);
+    }
+
+    /**
+     * Opens a unit of work that reads lazily with the default prefetch of {@value #DEFAULT_PREFETCH}
+     * @return the opened unit of work, which must be closed
+     */
+    public UnitOfWork openUnitOfWork() {
+        return openUnitOfWork(DEFAULT_PREFETCH);
+    }
+
+    /**
+     * Reads a session without its rolls.
+     * @param id the ID of the session to be read
+     * @return the Session object with an empty roll list, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    Session getSessionHeader(long id) throws SQLException {
+        return metrics.record("getSessionHeader", () -> {
+            String sql = "SELECT * FROM sessions WHERE id = ? AND tenant_id = ? AND deleted_at IS NULL";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, id);
+                ps.setString(2, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return mapSession(rs);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reads all sessions without their rolls, newest first.
+     * @return a list of Session objects with empty roll lists
+     * @throws SQLException if a database access error occurs
+     */
+    List<Session> getSessionHeaders() throws SQLException {
+        return metrics.record("getSessionHeaders", () -> hydrate(() -> {
+            List<Session> out = new ArrayList<>();
+            String sql = "SELECT * FROM sessions WHERE tenant_id = ? AND deleted_at IS NULL ORDER BY session_date DESC";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) out.add(mapSession(rs));
+                }
+            }
+            return out;
+        }));
+    }
+
+    /**
+     * Reads a roll without its technique counts.
+     * @param id the ID of the roll to be read
+     * @return the Roll object with empty subs and taps, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    Roll getRollHeader(long id) throws SQLException {
+        return metrics.record("getRollHeader", () -> {
+            String sql = "SELECT r.* FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                       + "WHERE r.id = ? AND s.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, id);
+                ps.setString(2, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return mapRoll(rs);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reads the rolls (without technique counts) of several sessions in one query.
+     * @param sessionIds the IDs of the sessions
+     * @return the rolls of each session in creation order, keyed by session ID; sessions without rolls are absent
+     * @throws SQLException if a database access error occurs
+     */
+    Map<Long, List<Roll>> getRollsForSessions(List<Long> sessionIds) throws SQLException {
+        return metrics.record("getRollsForSessions", () -> hydrate(() -> {
+            Map<Long, List<Roll>> out = new HashMap<>();
+            if (sessionIds.isEmpty()) return out;
+            String sql = "SELECT * FROM rolls WHERE session_id IN (" + placeholders(sessionIds.size()) + ") "
+                       + "AND deleted_at IS NULL ORDER BY created_at, id";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                for (int i = 0; i < sessionIds.size(); i++) ps.setLong(i + 1, sessionIds.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        out.computeIfAbsent(rs.getLong("session_id"), k -> new ArrayList<>()).add(mapRoll(rs));
+                    }
+                }
+            }
+            return out;
+        }));
+    }
+
+    /**
+     * Reads the technique counts (subs and taps) of several rolls in one query. Techniques are shared across the rolls (see IdentityMap).
+     * @param rollIds the IDs of the rolls
+     * @return the subs and taps of each roll, keyed by roll ID; rolls without any are absent
+     * @throws SQLException if a database access error occurs
+     */
+    Map<Long, RollCounts> getTechniqueCountsForRolls(List<Long> rollIds) throws SQLException {
+        return getTechniqueCountsForRolls(rollIds, true, true);
+    }
+
+    /**
+     * Reads the subs, the taps or both of several rolls in one query, skipping the link rows of the other kind.
+     * @param rollIds the IDs of the rolls
+     * @param subs whether to read the subs
+     * @param taps whether to read the taps
+     * @return the requested counts of each roll, keyed by roll ID; rolls without any are absent
+     * @throws SQLException if a database access error occurs
+     */
+    Map<Long, RollCounts> getTechniqueCountsForRolls(List<Long> rollIds, boolean subs, boolean taps) throws SQLException {
+        return metrics.record("getTechniqueCountsForRolls", () -> hydrate(() -> {
+            Map<Long, RollCounts> out = new HashMap<>();
+            if (rollIds.isEmpty() || !subs && !taps) return out;
+            String kind = subs && taps ? "" : subs ? " AND rtl.sub_count > 0" : " AND rtl.tap_count > 0";
+            String sql = "SELECT " + LINK_COLUMNS + " " +
+                         "FROM roll_technique_links rtl JOIN techniques t ON rtl.technique_id = t.id " +
+                         "WHERE rtl.roll_id IN (" + placeholders(rollIds.size()) + ") AND t.deleted_at IS NULL" + kind;
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                for (int i = 0; i < rollIds.size(); i++) ps.setLong(i + 1, rollIds.get(i));
+                try (ResultSet rs = ps.executeQuery()) {
+                    IdentityMap identities = IdentityMap.current();
+                    int rows = 0;
+                    while (rs.next()) {
+                        long techniqueId = rs.getLong("technique_id");
+                        Technique t = identities.technique(techniqueId, () -> mapLinkedTechnique(rs, techniqueId));
+                        RollCounts counts = out.computeIfAbsent(rs.getLong("roll_id"), k -> new RollCounts());
+                        addLinkCounts(rs, t, subs ? counts.subs() : new ArrayList<>(), taps ? counts.taps() : new ArrayList<>());
+                        rows++;
+                    }
+                    metrics.rowsMapped("techniqueCount", rows);
+                }
+            }
+            return out;
+        }));
+    }
+
+    /**
+     * Helper method to explain a versioned update that changed no row: throws if the row exists at another version
+     * @param c the connection the update ran on
+     * @param table the table of the row
+     * @param entity the kind of entity, for the exception
+     * @param id the ID of the row
+     * @param expectedVersion the version the update was based on
+     * @return false, if the row does not exist (or is deleted)
+     * @throws VersionConflictException if the row exists at another version
+     * @throws SQLException if a database access error occurs
+     */
+    private boolean versionConflict(Connection c, String table, String entity, long id, long expectedVersion) throws SQLException {
+        String sql = "SELECT version FROM " + table + " WHERE id = ? AND tenant_id = ? AND deleted_at IS NULL";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            ps.setString(2, Tenant.current());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) throw new VersionConflictException(entity, id, expectedVersion, rs.getLong(1));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to build the placeholder list of an IN clause
+     * @param n the number of values
+     * @return n comma-separated question marks
+     */
+    private static String placeholders(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+
+    // ======================================================================================================================================
+    //                        Multi-Get
+    // ======================================================================================================================================
+
+    /**
+     * Reads several sessions by id, including their rolls and technique counts. Sessions are read with one IN query per
+     * {@value #MULTI_GET_CHUNK} ids, and their rolls and technique counts are hydrated with the same chunked IN queries,
+     * so the number of statements depends on the number of chunks, not of sessions.
+     * @param ids the IDs of the sessions; duplicates are read once
+     * @return the sessions found, keyed by ID; IDs that do not exist, are deleted or belong to another tenant are absent
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<Long, Session> getSessionsByIds(List<Long> ids) throws SQLException {
+        return metrics.record("getSessionsByIds", () -> hydrate(() -> {
+            Map<Long, Session> out = new HashMap<>();
+            for (List<Long> chunk : chunks(ids)) {
+                String sql = "SELECT * FROM sessions WHERE id IN (" + placeholders(chunk.size()) + ") AND tenant_id = ? AND deleted_at IS NULL";
+                try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                    bindIds(ps, chunk);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Session s = mapSession(rs);
+                            out.put(s.getId(), s);
+                        }
+                    }
+                }
+            }
+            List<Roll> rolls = new ArrayList<>();
+            for (List<Long> chunk : chunks(out.keySet())) {
+                Map<Long, List<Roll>> bySession = getRollsForSessions(chunk);
+                for (Long id : chunk) {
+                    List<Roll> sessionRolls = new ArrayList<>(bySession.getOrDefault(id, List.of()));
+                    out.get(id).setRolls(sessionRolls);
+                    rolls.addAll(sessionRolls);
+                }
+            }
+            fillTechniqueCounts(rolls);
+            return out;
+        }));
+    }
+
+    /**
+     * Reads several rolls by id, including their technique counts, with one IN query per {@value #MULTI_GET_CHUNK} ids for the rolls
+     * and the same for their technique counts.
+     * @param ids the IDs of the rolls; duplicates are read once
+     * @return the rolls found, keyed by ID; IDs that do not exist, are deleted or belong to another tenant are absent
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<Long, Roll> getRollsByIds(List<Long> ids) throws SQLException {
+        return metrics.record("getRollsByIds", () -> hydrate(() -> {
+            Map<Long, Roll> out = new HashMap<>();
+            for (List<Long> chunk : chunks(ids)) {
+                String sql = "SELECT r.* FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                           + "WHERE r.id IN (" + placeholders(chunk.size()) + ") AND s.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL";
+                try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                    bindIds(ps, chunk);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Roll r = mapRoll(rs);
+                            out.put(r.getId(), r);
+                        }
+                    }
+                }
+            }
+            fillTechniqueCounts(out.values());
+            return out;
+        }));
+    }
+
+    /**
+     * Reads several techniques by id with one IN query per {@value #MULTI_GET_CHUNK} ids.
+     * @param ids the IDs of the techniques; duplicates are read once
+     * @return the techniques found, keyed by ID; IDs that do not exist, are deleted or belong to another tenant are absent
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<Long, Technique> getTechniquesByIds(List<Long> ids) throws SQLException {
+        return metrics.record("getTechniquesByIds", () -> {
+            Map<Long, Technique> out = new HashMap<>();
+            for (List<Long> chunk : chunks(ids)) {
+                String sql = "SELECT * FROM techniques WHERE id IN (" + placeholders(chunk.size()) + ") AND tenant_id = ? AND deleted_at IS NULL";
+                try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                    bindIds(ps, chunk);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Technique t = mapTechnique(rs);
+                            out.put(t.getId(), t);
+                        }
+                    }
+                }
+            }
+            return out;
+        });
+    }
+
+    /**
+     * Helper method to add the technique counts of many rolls to their subs and taps lists, one IN query per chunk of rolls
+     * @param rolls the rolls, with their IDs set
+     * @throws SQLException if a database access error occurs
+     */
+    private void fillTechniqueCounts(Collection<Roll> rolls) throws SQLException {
+        fillTechniqueCounts(rolls, true, true);
+    }
+
+    /**
+     * Helper method to add the subs, the taps or both of many rolls to their lists, one IN query per chunk of rolls
+     * @param rolls the rolls, with their IDs set
+     * @param subs whether to read the subs
+     * @param taps whether to read the taps
+     * @throws SQLException if a database access error occurs
+     */
+    private void fillTechniqueCounts(Collection<Roll> rolls, boolean subs, boolean taps) throws SQLException {
+        if (!subs && !taps) return;
+        Map<Long, Roll> byId = new HashMap<>();
+        for (Roll r : rolls) byId.put(r.getId(), r);
+        for (List<Long> chunk : chunks(byId.keySet())) {
+            for (Map.Entry<Long, RollCounts> e : getTechniqueCountsForRolls(chunk, subs, taps).entrySet()) {
+                Roll r = byId.get(e.getKey());
+                r.getSubs().addAll(e.getValue().subs());
+                r.getTaps().addAll(e.getValue().taps());
+            }
+        }
+    }
+
+    /**
+     * Helper method to bind the IDs of an IN clause followed by the current tenant
+     * @param ps the statement
+     * @param ids the IDs, bound to the first parameters
+     * @throws SQLException if a database access error occurs
+     */
+    private static void bindIds(PreparedStatement ps, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) ps.setLong(i + 1, ids.get(i));
+        ps.setString(ids.size() + 1, Tenant.current());
+    }
+
+    /**
+     * Helper method to split IDs into the chunks read by one IN query each, dropping duplicates
+     * @param ids the IDs
+     * @return the distinct IDs in order, in chunks of at most {@value #MULTI_GET_CHUNK}
+     */
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> distinct = distinct(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MULTI_GET_CHUNK) {
+            chunks.add(distinct.subList(from, Math.min(from + MULTI_GET_CHUNK, distinct.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Helper method to drop duplicate (and null) IDs, keeping the first occurrence of each
+     * @param ids the IDs
+     * @return the distinct IDs in their original order
+     */
+    static List<Long> distinct(Collection<Long> ids) {
+        List<Long> out = new ArrayList<>(new LinkedHashSet<>(ids));
+        out.removeIf(Objects::isNull);
+        return out;
+    }
+
+    // ======================================================================================================================================
+    //                        Projected Reads
+    // ======================================================================================================================================
+
+    /**
+     * Reads a session with only the levels of its graph a projection loads: the session row alone, its rolls, or its rolls with
+     * their subs and/or taps. Rolls and counts are read with the batched queries of the multi-get, so a projected read costs one
+     * statement per loaded level.
+     * @param id the ID of the session to be read
+     * @param p the projection, planned over {@link Projection#SESSION_LEVELS}
+     * @return the Session object, whose levels that are not loaded are left empty, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    public Session getSession(long id, Projection p) throws SQLException {
+        return metrics.record("getSessionProjected", () -> hydrate(() -> {
+            Session s = getSessionHeader(id);
+            if (s != null) fillSessionLevels(List.of(s), p);
+            return s;
+        }));
+    }
+
+    /**
+     * Reads all sessions, newest first, with only the levels of their graphs a projection loads
+     * @param p the projection, planned over {@link Projection#SESSION_LEVELS}
+     * @return a list of Session objects, whose levels that are not loaded are left empty
+     * @throws SQLException if a database access error occurs
+     */
+    public List<Session> getSessions(Projection p) throws SQLException {
+        return metrics.record("getSessionsProjected", () -> hydrate(() -> {
+            List<Session> out = getSessionHeaders();
+            fillSessionLevels(out, p);
+            return out;
+        }));
+    }
+
+    /**
+     * Reads a roll with only its subs, its taps, both or neither, as a projection loads them
+     * @param id the ID of the roll to be read
+     * @param p the projection, planned over {@link Projection#ROLL_LEVELS}
+     * @return the Roll object, whose counts that are not loaded are left empty, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    public Roll getRoll(long id, Projection p) throws SQLException {
+        return metrics.record("getRollProjected", () -> hydrate(() -> {
+            Roll r = getRollHeader(id);
+            if (r != null) fillTechniqueCounts(List.of(r), p.loads("subs"), p.loads("taps"));
+            return r;
+        }));
+    }
+
+    /**
+     * Reads all rolls, newest first, with only their subs, their taps, both or neither, as a projection loads them
+     * @param p the projection, planned over {@link Projection#ROLL_LEVELS}
+     * @return a list of Roll objects, whose counts that are not loaded are left empty
+     * @throws SQLException if a database access error occurs
+     */
+    public List<Roll> getRolls(Projection p) throws SQLException {
+        return metrics.record("getRollsProjected", () -> hydrate(() -> {
+            List<Roll> out = new ArrayList<>();
+            String sql = "SELECT r.* FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                       + "WHERE s.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL ORDER BY r.created_at DESC, r.id DESC";
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) out.add(mapRoll(rs));
+                }
+            }
+            fillTechniqueCounts(out, p.loads("subs"), p.loads("taps"));
+            return out;
+        }));
+    }
+
+    /**
+     * Helper method to read the rolls and counts of several sessions that a projection loads, one IN query per chunk and level
+     * @param sessions the sessions, read without their rolls
+     * @param p the projection, planned over {@link Projection#SESSION_LEVELS}
+     * @throws SQLException if a database access error occurs
+     */
+    private void fillSessionLevels(List<Session> sessions, Projection p) throws SQLException {
+        if (!p.loads("rolls")) return;
+        Map<Long, Session> byId = new HashMap<>();
+        for (Session s : sessions) byId.put(s.getId(), s);
+        List<Roll> rolls = new ArrayList<>();
+        for (List<Long> chunk : chunks(byId.keySet())) {
+            Map<Long, List<Roll>> bySession = getRollsForSessions(chunk);
+            for (Long id : chunk) {
+                List<Roll> sessionRolls = new ArrayList<>(bySession.getOrDefault(id, List.of()));
+                byId.get(id).setRolls(sessionRolls);
+                rolls.addAll(sessionRolls);
+            }
+        }
+        fillTechniqueCounts(rolls, p.loads("rolls.subs"), p.loads("rolls.taps"));
+    }
+
+    // ======================================================================================================================================
+    //                        Version Scan
+    // ======================================================================================================================================
+
+    /**
+     * Reads the ID and version of every live row of a table for the current tenant, without hydrating anything, so a copy of the
+     * data held elsewhere (such as a read model snapshot file) can find the rows that were added, changed or deleted since it was taken.
+     * Rolls of deleted sessions are left out, as they are by getRolls().
+     * @param table the table to scan
+     * @return the versions of the live rows, in no particular order
+     * @throws SQLException if a database access error occurs
+     */
+    public List<RowVersion> getRowVersions(TombstoneTable table) throws SQLException {
+        return metrics.record("getRowVersions", () -> {
+            String sql = switch (table) {
+                case SESSIONS -> "SELECT id, 0 AS session_id, version FROM sessions WHERE tenant_id = ? AND deleted_at IS NULL";
+                case ROLLS -> "SELECT r.id, r.session_id, r.version FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                            + "WHERE r.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL";
+                case TECHNIQUES -> "SELECT id, 0 AS session_id, version FROM techniques WHERE tenant_id = ? AND deleted_at IS NULL";
+            };
+            List<RowVersion> versions = new ArrayList<>();
+            try (Connection c = getReadConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) versions.add(new RowVersion(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+                }
+            }
+            return versions;
+        });
+    }
+
+    // ======================================================================================================================================
+    //                        Bulk Load
+    // ======================================================================================================================================
+
+    /**
+     * Inserts many techniques using a single batched statement and sets the generated IDs on the Technique objects.
+     * For MySQL, add rewriteBatchedStatements=true to the connection URL so the batch is sent as multi-row inserts.
+     * @param techniques the techniques to be inserted (IDs are ignored and overwritten)
+     * @throws SQLException if a database access error occurs
+     */
+    public void bulkInsertTechniques(List<Technique> techniques) throws SQLException {
+        metrics.record("bulkInsertTechniques", () -> {
+            try (Connection c = getConnection()) {
+                insertTechniques(c, techniques);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Helper method to insert techniques with one batched statement on the given connection and set their generated IDs
+     * @param c the connection to insert on, which may be in a transaction
+     * @param techniques the techniques to be inserted (IDs are ignored and overwritten)
+     * @throws SQLException if a database access error occurs
+     */
+    private void insertTechniques(Connection c, List<Technique> techniques) throws SQLException {
+        String sql = "INSERT INTO techniques (name, position, num_finishes, num_taps, tenant_id) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Technique t : techniques) {
+                ps.setString(1, t.getName());
+                ps.setString(2, t.getPosition());
+                ps.setInt(3, t.getNumFinishes());
+                ps.setInt(4, t.getNumTaps());
+                ps.setString(5, Tenant.current());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            List<Long> ids = readGeneratedKeys(ps, techniques.size());
+            for (int i = 0; i < techniques.size(); i++) techniques.get(i).setId(ids.get(i));
+        }
+    }
+
+    /**
+     * Inserts many sessions, their rolls and their technique links in one transaction using three batched statements
+     * (one per table), regardless of how many rows are written. Generated IDs are set on the Session, Roll and TechniqueCount objects.
+     * The techniques referenced by the technique counts must already exist.
+     * @param sessions the sessions to be inserted, with their rolls and technique counts (IDs are ignored and overwritten)
+     * @throws SQLException if a database access error occurs; the whole batch is rolled back
+     */
+    public void bulkInsertSessions(List<Session> sessions) throws SQLException {
+        bulkInsertSessions(List.of(), sessions);
+    }
+
+    /**
+     * Inserts new techniques, then many sessions, their rolls and their technique links, all in one transaction: the techniques with
+     * one batched statement and the sessions as {@link #bulkInsertSessions(List)} does. If the transaction is rolled back, the
+     * techniques get an ID of 0 again, so they are inserted again when the sessions are retried.
+     * @param techniques the new techniques the technique counts refer to (IDs are ignored and overwritten), may be empty
+     * @param sessions the sessions to be inserted, with their rolls and technique counts (IDs are ignored and overwritten)
+     * @throws SQLException if a database access error occurs; the whole batch is rolled back
+     */
+    public void bulkInsertSessions(List<Technique> techniques, List<Session> sessions) throws SQLException {
+        metrics.record("bulkInsertSessions", () -> {
+            String sessionSql = "INSERT INTO sessions (session_date, session_time, is_gi, instructor, currentBelt, tenant_id) VALUES (?, ?, ?, ?, ?, ?)";
+            String rollSql = "INSERT INTO rolls (session_id, length_minutes, partner, num_rounds, tenant_id) VALUES (?, ?, ?, ?, ?)";
+            String linkSql = "INSERT INTO roll_technique_links (roll_id, technique_id, sub_count, tap_count, tenant_id) VALUES (?, ?, ?, ?, ?)";
+            String tenant = Tenant.current();
+
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try (PreparedStatement psSession = c.prepareStatement(sessionSql, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement psRoll = c.prepareStatement(rollSql, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement psLink = c.prepareStatement(linkSql)) {
+
+                    if (!techniques.isEmpty()) insertTechniques(c, techniques);
+
+                    for (Session s : sessions) {
+                        psSession.setDate(1, Date.valueOf(s.getDate()));
+                        psSession.setTime(2, Time.valueOf(s.getTime()));
+                        psSession.setBoolean(3, s.isGi());
+                        psSession.setString(4, s.getInstructor());
+                        psSession.setString(5, s.getcurrentBelt());
+                        psSession.setString(6, tenant);
+                        psSession.addBatch();
+                    }
+                    psSession.executeBatch();
+                    List<Long> sessionIds = readGeneratedKeys(psSession, sessions.size());
+
+                    List<Roll> rolls = new ArrayList<>();
+                    for (int i = 0; i < sessions.size(); i++) {
+                        Session s = sessions.get(i);
+                        s.setId(sessionIds.get(i));
+                        for (Roll r : s.getRolls()) {
+                            psRoll.setLong(1, s.getId());
+                            psRoll.setInt(2, r.getLengthMinutes());
+                            psRoll.setString(3, r.getPartner());
+                            psRoll.setInt(4, r.getNumRounds());
+                            psRoll.setString(5, tenant);
+                            psRoll.addBatch();
+                            rolls.add(r);
+                        }
+                    }
+                    if (!rolls.isEmpty()) {
+                        psRoll.executeBatch();
+                        List<Long> rollIds = readGeneratedKeys(psRoll, rolls.size());
+
+                        int links = 0;
+                        for (int i = 0; i < rolls.size(); i++) {
+                            Roll r = rolls.get(i);
+                            r.setId(rollIds.get(i));
+                            for (RollDiff.Link link : RollDiff.linksOf(r).values()) {
+                                psLink.setLong(1, r.getId());
+                                psLink.setLong(2, link.techniqueId());
+                                psLink.setInt(3, link.subCount());
+                                psLink.setInt(4, link.tapCount());
+                                psLink.setString(5, tenant);
+                                psLink.addBatch();
+                                links++;
+                            }
+                            for (TechniqueCount tc : r.getSubs()) tc.setRollID(r.getId());
+                            for (TechniqueCount tc : r.getTaps()) tc.setRollID(r.getId());
+                        }
+                        if (links > 0) psLink.executeBatch();
+                    }
+                    c.commit();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    for (Technique t : techniques) t.setId(0);
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sets the aggregate technique counts (num_finishes and num_taps) for many techniques using a single batched statement.
+     * @param techniques the techniques whose current numFinishes and numTaps values are to be written
+     * @throws SQLException if a database access error occurs
+     */
+    public void bulkUpdateTechniqueCounts(List<Technique> techniques) throws SQLException {
+        metrics.record("bulkUpdateTechniqueCounts", () -> {
+            String sql = "UPDATE techniques SET num_finishes = ?, num_taps = ?, version = version + 1 WHERE id = ? AND tenant_id = ?";
+            String tenant = Tenant.current();
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                for (Technique t : techniques) {
+                    ps.setInt(1, t.getNumFinishes());
+                    ps.setInt(2, t.getNumTaps());
+                    ps.setLong(3, t.getId());
+                    ps.setString(4, tenant);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Helper method to read the keys generated by a batched insert, in insertion order.
+     * @param ps the statement whose batch has just been executed
+     * @param expected the number of rows that were inserted
+     * @return the generated IDs in insertion order
+     * @throws SQLException if a database access error occurs or the driver returned fewer keys than rows inserted
+     */
+    private List<Long> readGeneratedKeys(PreparedStatement ps, int expected) throws SQLException {
+        List<Long> ids = new ArrayList<>(expected);
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            while (rs.next()) ids.add(rs.getLong(1));
+        }
+        if (ids.size() != expected) throw new SQLException("Expected " + expected + " generated keys but got " + ids.size());
+        return ids;
+    }
+
+    // ======================================================================================================================================
+    //                        Tombstone Purge
+    // ======================================================================================================================================
+
+    /**
+     * Helper method to set the deleted_at tombstone on a live row
+     * @param table the table holding the row
+     * @param id the ID of the row
+     * @return 1 if the row was tombstoned, 0 if it did not exist or was already tombstoned
+     * @throws SQLException if a database access error occurs
+     */
+    private int tombstone(TombstoneTable table, long id) throws SQLException {
+        String sql = "UPDATE " + table.table() + " SET deleted_at = CURRENT_TIMESTAMP WHERE id = ? AND tenant_id = ? AND deleted_at IS NULL";
+        try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, id);
+            ps.setString(2, Tenant.current());
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Helper method to set the deleted_at tombstone on a live row and subtract what it contributed to the dashboard summary
+     * counters from a delta. The contribution is read in the tombstone's transaction, before the row is hidden, and only
+     * subtracted if this update tombstoned the row, so a row deleted twice at the same time is subtracted once.
+     */
+    private int tombstone(TombstoneTable table, long id, String filter, boolean countSessions, SummaryCounters delta) throws SQLException {
+        String sql = "UPDATE " + table.table() + " SET deleted_at = CURRENT_TIMESTAMP WHERE id = ? AND tenant_id = ? AND deleted_at IS NULL";
+        try (Connection c = getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                SummaryCounters contribution = computeSummary(c, filter, id, countSessions, table != TombstoneTable.TECHNIQUES);
+                ps.setLong(1, id);
+                ps.setString(2, Tenant.current());
+                int deleted = ps.executeUpdate();
+                c.commit();
+                if (deleted > 0) delta.addAll(contribution, -1);
+                return deleted;
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Counts the tombstoned rows in a table that are waiting to be purged, across all tenants (and shards).
+     * @param table the table to count
+     * @return the number of tombstoned rows
+     * @throws SQLException if a database access error occurs
+     */
+    public long countTombstoned(TombstoneTable table) throws SQLException {
+        return metrics.record("countTombstoned", () -> onEveryShard(() -> {
+            String sql = "SELECT COUNT(*) FROM " + table.table() + " WHERE deleted_at IS NOT NULL";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        }, Long::sum));
+    }
+
+    /**
+     * Hard-deletes up to limit rows of a table that were tombstoned before the given time, oldest first, together with the rows
+     * that hang off them (rolls and links for sessions; links for rolls and techniques), in one transaction.
+     * Purging is not scoped to a tenant; with shards configured every shard purges its own batch in parallel.
+     * @param table the table to purge
+     * @param deletedBefore only rows tombstoned before this time are purged
+     * @param limit the maximum number of tombstoned rows to purge per shard
+     * @return the number of rows removed from each table; all zero if there was nothing to purge
+     * @throws SQLException if a database access error occurs; nothing is purged
+     */
+    public DeleteResult purgeTombstoned(TombstoneTable table, Timestamp deletedBefore, int limit) throws SQLException {
+        return metrics.record("purgeTombstoned", () -> onEveryShard(() -> {
+            String selectSql = "SELECT id FROM " + table.table() + " WHERE deleted_at IS NOT NULL AND deleted_at < ? ORDER BY deleted_at LIMIT ?";
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try {
+                    List<Long> ids = new ArrayList<>();
+                    try (PreparedStatement ps = c.prepareStatement(selectSql)) {
+                        ps.setTimestamp(1, deletedBefore);
+                        ps.setInt(2, limit);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) ids.add(rs.getLong(1));
+                        }
+                    }
+                    if (ids.isEmpty()) {
+                        c.commit();
+                        return new DeleteResult(0, 0, 0, 0);
+                    }
+
+                    String placeholders = placeholders(ids.size());
+                    String[] statements = table.purgeStatements();
+                    int[] counts = new int[statements.length];
+                    for (int i = 0; i < statements.length; i++) {
+                        try (PreparedStatement ps = c.prepareStatement(String.format(statements[i], placeholders))) {
+                            for (int j = 0; j < ids.size(); j++) ps.setLong(j + 1, ids.get(j));
+                            counts[i] = ps.executeUpdate();
+                        }
+                    }
+                    c.commit();
+                    return table.result(counts);
+                } catch (SQLException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+        }, DeleteResult::plus));
+    }
+
+    // ======================================================================================================================================
+    //                        Dashboard Summary
+    // ======================================================================================================================================
+
+    /**
+     * Reads the stored dashboard summary counters of the current tenant, from the primary
+     * @return the counters; empty if the tenant's summary has never been computed (or everything in it is zero)
+     * @throws SQLException if a database access error occurs
+     */
+    public SummaryCounters getSummaryCounters() throws SQLException {
+        return metrics.record("getSummaryCounters", () -> {
+            String sql = "SELECT counter, amount FROM summary_counters WHERE tenant_id = ?";
+            SummaryCounters counters = new SummaryCounters();
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, Tenant.current());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) counters.add(rs.getString("counter"), rs.getLong("amount"));
+                }
+            }
+            return counters;
+        });
+    }
+
+    /**
+     * Adds a delta to the current tenant's stored dashboard summary counters, in one batched upsert and one transaction
+     * @param delta the amounts to add, by counter
+     * @throws SQLException if a database access error occurs; nothing is added
+     */
+    public void addSummaryCounters(SummaryCounters delta) throws SQLException {
+        metrics.record("addSummaryCounters", () -> {
+            if (delta.isEmpty()) return null;
+            String sql = "INSERT INTO summary_counters (tenant_id, counter, amount) VALUES (?, ?, ?) "
+                       + "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)";
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    bindCounters(ps, delta);
+                    ps.executeBatch();
+                    c.commit();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Replaces the current tenant's stored dashboard summary counters, in one transaction
+     * @param counters the new counters
+     * @throws SQLException if a database access error occurs; the stored counters are left as they were
+     */
+    public void replaceSummaryCounters(SummaryCounters counters) throws SQLException {
+        metrics.record("replaceSummaryCounters", () -> {
+            String deleteSql = "DELETE FROM summary_counters WHERE tenant_id = ?";
+            String insertSql = "INSERT INTO summary_counters (tenant_id, counter, amount) VALUES (?, ?, ?)";
+            try (Connection c = getConnection()) {
+                c.setAutoCommit(false);
+                try (PreparedStatement psDelete = c.prepareStatement(deleteSql);
+                     PreparedStatement psInsert = c.prepareStatement(insertSql)) {
+                    psDelete.setString(1, Tenant.current());
+                    psDelete.executeUpdate();
+                    if (!counters.isEmpty()) {
+                        bindCounters(psInsert, counters);
+                        psInsert.executeBatch();
+                    }
+                    c.commit();
+                } catch (SQLException ex) {
+                    c.rollback();
+                    throw ex;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Computes the current tenant's dashboard summary counters from scratch, with three aggregate queries over its live
+     * sessions, rolls and links. This reads every live row of the tenant; it is meant for reconciliation, not for requests.
+     * @return the counters, with the names of the techniques that have subs or taps
+     * @throws SQLException if a database access error occurs
+     */
+    public SummaryCounters computeSummaryCounters() throws SQLException {
+        return metrics.record("computeSummaryCounters", () -> computeSummary("", null, true, true));
+    }
+
+    /**
+     * Helper method to aggregate the dashboard summary counters of the live rows matching a filter, on one connection.
+     * The filter is appended to each query; it may reference sessions as s, rolls as r and (in the link query) techniques as t,
+     * and takes at most one ID parameter; the session and roll queries are skipped unless asked for.
+     */
+    private SummaryCounters computeSummary(String filter, Long id, boolean countSessions, boolean countRolls) throws SQLException {
+        try (Connection c = getConnection()) {
+            return computeSummary(c, filter, id, countSessions, countRolls);
+        }
+    }
+
+    /**
+     * Helper method to aggregate the dashboard summary counters of the live rows matching a filter on the given connection,
+     * which may be in a transaction
+     */
+    private SummaryCounters computeSummary(Connection c, String filter, Long id, boolean countSessions, boolean countRolls) throws SQLException {
+        String sessionSql = "SELECT COUNT(*) AS n, COALESCE(SUM(CASE WHEN s.is_gi THEN 1 ELSE 0 END), 0) AS gi "
+                          + "FROM sessions s WHERE s.tenant_id = ? AND s.deleted_at IS NULL" + filter;
+        String rollSql = "SELECT YEAR(s.session_date) AS y, MONTH(s.session_date) AS m, COUNT(*) AS n, "
+                       + "COALESCE(SUM(r.length_minutes), 0) AS minutes "
+                       + "FROM rolls r JOIN sessions s ON s.id = r.session_id "
+                       + "WHERE r.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL" + filter + " "
+                       + "GROUP BY YEAR(s.session_date), MONTH(s.session_date)";
+        String linkSql = "SELECT rtl.technique_id, MAX(t.name) AS name, SUM(rtl.sub_count) AS subs, SUM(rtl.tap_count) AS taps "
+                       + "FROM roll_technique_links rtl JOIN rolls r ON r.id = rtl.roll_id JOIN sessions s ON s.id = r.session_id "
+                       + "JOIN techniques t ON t.id = rtl.technique_id "
+                       + "WHERE rtl.tenant_id = ? AND r.deleted_at IS NULL AND s.deleted_at IS NULL AND t.deleted_at IS NULL" + filter + " "
+                       + "GROUP BY rtl.technique_id";
+        SummaryCounters counters = new SummaryCounters();
+        if (countSessions) {
+            try (PreparedStatement ps = c.prepareStatement(sessionSql)) {
+                bindTenantAndId(ps, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        counters.add(SummaryCounters.SESSIONS, rs.getLong("n"));
+                        counters.add(SummaryCounters.GI_SESSIONS, rs.getLong("gi"));
+                    }
+                }
+            }
+        }
+        if (countRolls) {
+            try (PreparedStatement ps = c.prepareStatement(rollSql)) {
+                bindTenantAndId(ps, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        counters.add(SummaryCounters.rollsIn(YearMonth.of(rs.getInt("y"), rs.getInt("m"))), rs.getLong("n"));
+                        counters.add(SummaryCounters.ROLLS, rs.getLong("n"));
+                        counters.add(SummaryCounters.MAT_MINUTES, rs.getLong("minutes"));
+                    }
+                }
+            }
+        }
+        try (PreparedStatement ps = c.prepareStatement(linkSql)) {
+            bindTenantAndId(ps, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long techniqueId = rs.getLong("technique_id");
+                    counters.add(SummaryCounters.subs(techniqueId), rs.getLong("subs"));
+                    counters.add(SummaryCounters.taps(techniqueId), rs.getLong("taps"));
+                    counters.name(techniqueId, rs.getString("name"));
+                }
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Helper method to bind the current tenant, and the ID of a summary query's filter if it has one
+     * @param ps the statement, with the tenant as its first parameter and the ID (if any) as its second
+     * @param id the ID, or null if the filter takes none
+     * @throws SQLException if a database access error occurs
+     */
+    private static void bindTenantAndId(PreparedStatement ps, Long id) throws SQLException {
+        ps.setString(1, Tenant.current());
+        if (id != null) ps.setLong(2, id);
+    }
+
+    /**
+     * Helper method to add one batch entry per counter, binding the current tenant, the counter name and its amount
+     * @param ps the statement, taking (tenant_id, counter, amount)
+     * @param counters the counters to bind
+     * @throws SQLException if a database access error occurs
+     */
+    private static void bindCounters(PreparedStatement ps, SummaryCounters counters) throws SQLException {
+        for (Map.Entry<String, Long> e : counters.amounts().entrySet()) {
+            ps.setString(1, Tenant.current());
+            ps.setString(2, e.getKey());
+            ps.setLong(3, e.getValue());
+            ps.addBatch();
+        }
+    }
+
+    // ======================================================================================================================================
+    //                        Change Log
+    // ======================================================================================================================================
+
+    /**
+     * Appends invalidations to the change log of the current tenant's shard, in one batched statement
+     * @param invalidations the invalidations to append
+     * @throws SQLException if a database access error occurs; none are appended
+     */
+    public void appendChangeLog(List<Invalidation> invalidations) throws SQLException {
+        metrics.record("appendChangeLog", () -> {
+            String sql = "INSERT INTO change_log (tenant_id, entity, entity_id, version, node, committed_at) VALUES (?, ?, ?, ?, ?, ?)";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                for (Invalidation i : invalidations) {
+                    ps.setString(1, i.tenant());
+                    ps.setString(2, i.entity().name());
+                    ps.setLong(3, i.id());
+                    ps.setLong(4, i.version());
+                    ps.setString(5, i.node());
+                    ps.setTimestamp(6, Timestamp.from(i.committedAt()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Reads the position of the newest change log row of every shard. This is a cross-tenant query.
+     * @return the position by shard name (empty without shards); 0 for an empty log
+     * @throws SQLException if a database access error occurs
+     */
+    public Map<String, Long> getChangeLogHeads() throws SQLException {
+        return metrics.record("getChangeLogHeads", () -> onEveryShard(() -> {
+            String shard = connections instanceof ShardRouter ? ShardRouter.currentShard() : "";
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM change_log");
+                 ResultSet rs = ps.executeQuery()) {
+                Map<String, Long> heads = new HashMap<>();
+                heads.put(shard, rs.next() ? rs.getLong(1) : 0L);
+                return heads;
+            }
+        }, (a, b) -> {
+            Map<String, Long> merged = new HashMap<>(a);
+            merged.putAll(b);
+            return merged;
+        }));
+    }
+
+    /**
+     * Reads the change log rows of all tenants after the given positions, oldest first per shard. This is a cross-tenant query:
+     * with shards configured it runs on every shard in parallel.
+     * @param after the position to read after, by shard name (empty without shards); shards not in the map are read from the start
+     * @param limit the maximum number of rows read per shard
+     * @return the rows read
+     * @throws SQLException if a database access error occurs
+     */
+    public List<ChangeLogEntry> getChangeLog(Map<String, Long> after, int limit) throws SQLException {
+        return metrics.record("getChangeLog", () -> onEveryShard(() -> {
+            String shard = connections instanceof ShardRouter ? ShardRouter.currentShard() : "";
+            String sql = "SELECT id, tenant_id, entity, entity_id, version, node, committed_at FROM change_log WHERE id > ? ORDER BY id LIMIT ?";
+            List<ChangeLogEntry> entries = new ArrayList<>();
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, after.getOrDefault(shard, 0L));
+                ps.setInt(2, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Invalidation i = new Invalidation(rs.getString("tenant_id"), Invalidation.Entity.valueOf(rs.getString("entity")),
+                                rs.getLong("entity_id"), rs.getLong("version"), rs.getString("node"), rs.getTimestamp("committed_at").toInstant());
+                        entries.add(new ChangeLogEntry(shard, rs.getLong("id"), i));
+                    }
+                }
+            }
+            return entries;
+        }, (a, b) -> {
+            List<ChangeLogEntry> merged = new ArrayList<>(a);
+            merged.addAll(b);
+            return merged;
+        }));
+    }
+
+    /**
+     * Deletes the change log rows of all tenants committed before the given time, on every shard
+     * @param before rows committed before this time are deleted
+     * @return the number of rows deleted
+     * @throws SQLException if a database access error occurs
+     */
+    public int purgeChangeLog(Timestamp before) throws SQLException {
+        return metrics.record("purgeChangeLog", () -> onEveryShard(() -> {
+            try (Connection c = getConnection(); PreparedStatement ps = c.prepareStatement("DELETE FROM change_log WHERE committed_at < ?")) {
+                ps.setTimestamp(1, before);
+                return ps.executeUpdate();
+            }
+        }, Integer::sum));
+    }
+
+    // ======================================================================================================================================
+    //                        Tenants
+    // ======================================================================================================================================
+
+    /**
+     * Reads how many live sessions, rolls and techniques every tenant has. This is a cross-tenant admin query: with shards configured
+     * it runs on every shard in parallel and the results are merged.
+     * @return one summary per tenant, ordered by tenant ID
+     * @throws SQLException if a database access error occurs
+     */
+    public List<TenantSummary> getTenantSummaries() throws SQLException {
+        return metrics.record("getTenantSummaries", () -> onEveryShard(() -> {
+            String shard = connections instanceof ShardRouter ? ShardRouter.currentShard() : null;
+            Map<String, long[]> counts = new TreeMap<>();
+            String[] tables = { "sessions", "rolls", "techniques" };
+            try (Connection c = getConnection()) {
+                for (int i = 0; i < tables.length; i++) {
+                    String sql = "SELECT tenant_id, COUNT(*) FROM " + tables[i] + " WHERE deleted_at IS NULL GROUP BY tenant_id";
+                    try (PreparedStatement ps = c.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) counts.computeIfAbsent(rs.getString(1), k -> new long[tables.length])[i] = rs.getLong(2);
+                    }
+                }
+            }
+            List<TenantSummary> out = new ArrayList<>();
+            counts.forEach((tenant, n) -> out.add(new TenantSummary(tenant, shard, n[0], n[1], n[2])));
+            return out;
+        }, (a, b) -> {
+            List<TenantSummary> merged = new ArrayList<>(a);
+            merged.addAll(b);
+            merged.sort(Comparator.comparing(TenantSummary::tenant));
+            return merged;
+        }));
     }
 
     // ======================================================================================================================================
@@ -0,0 +1,30 @@
+package com.example.data;
+
+/**
+ * The DeleteResult record reports how many rows a delete or purge removed from each table.
+ * Deletes only set a tombstone on the deleted row; the rows that hang off it are removed later by the TombstonePurger,
+ * whose batches report what they removed in the same form.
+ * @param sessions the number of sessions deleted
+ * @param rolls the number of rolls deleted
+ * @param techniques the number of techniques deleted
+ * @param links the number of roll_technique_links rows deleted
+ */
+public record DeleteResult(int sessions, int rolls, int techniques, int links) {
+
+    /**
+     * Check whether the delete found the row it was asked to remove
+     * @return true if any row was deleted
+     */
+    public boolean deleted() {
+        return sessions + rolls + techniques + links > 0;
+    }
+
+    /**
+     * Add the counts of another DeleteResult to these
+     * @param other the counts to add
+     * @return the combined counts
+     */
+    public DeleteResult plus(DeleteResult other) {
+        return new DeleteResult(sessions + other.sessions, rolls + other.rolls, techniques + other.techniques, links + other.links);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Helper for creating in-memory H2 databases (in MySQL compatibility mode) with the application schema loaded.
+ * Used by the benchmark module and for running the data layer locally without a MySQL server.
+ * Requires the H2 driver on the classpath.
+ */
+public final class EmbeddedDatabase {
+
+    private static final String SCHEMA = "classpath:/db/embedded-schema.sql";
+    private static final long SHARD_ID_RANGE = 1_000_000_000_000L;
+
+    private EmbeddedDatabase() {}
+
+    /**
+     * Create (or reuse) a named in-memory database, load the schema into it, and return a factory for connections to it.
+     * The database lives until the JVM exits.
+     * @param name the name of the in-memory database; factories created with the same name share data
+     * @return a ConnectionFactory for the embedded database
+     * @throws SQLException if the database could not be created or the schema could not be loaded
+     */
+    public static ConnectionFactory create(String name) throws SQLException {
+        String url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try (Connection c = DriverManager.getConnection(url, "sa", ""); Statement st = c.createStatement()) {
+            st.execute("RUNSCRIPT FROM '" + SCHEMA + "'");
+        }
+        return () -> DriverManager.getConnection(url, "sa", "");
+    }
+
+    /**
+     * Create (or reuse) a named in-memory database to be used as a shard. Its generated IDs start at shard * {@value #SHARD_ID_RANGE} + 1,
+     * so rows keep their IDs when a tenant is moved between shards, as with the per-shard AUTO_INCREMENT offsets used in MySQL.
+     * @param name the name of the in-memory database
+     * @param shard the index of the shard (0 for the first), which selects its ID range
+     * @return a ConnectionFactory for the embedded shard
+     * @throws SQLException if the database could not be created or the schema could not be loaded
+     */
+    public static ConnectionFactory createShard(String name, int shard) throws SQLException {
+        ConnectionFactory connections = create(name);
+        try (Connection c = connections.getConnection(); Statement st = c.createStatement()) {
+            for (String table : new String[] { "techniques", "sessions", "rolls" }) {
+                st.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (shard * SHARD_ID_RANGE + 1));
+            }
+        }
+        return connections;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.data;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.metrics.SqlOperation;
+import com.example.model.Technique;
+
+/**
+ * The IdentityMap class canonicalizes entities while one response graph is hydrated. List reads map the same handful of techniques
+ * (and partner and instructor names) from thousands of link and roll rows; with a map open, each technique id is mapped into a
+ * Technique once and every later row reuses that instance, and equal strings collapse to one instance.
+ *
+ * A map is bound to the current thread by the outermost DataProvider read and shared by the reads nested inside it, so its lifetime
+ * is one response graph. Instances are shared by design: callers that adjust a Technique in a graph must do so once per instance
+ * (BusinessManager's live merge already tracks techniques by identity).
+ */
+final class IdentityMap implements AutoCloseable {
+
+    private static final ThreadLocal<IdentityMap> CURRENT = new ThreadLocal<>();
+
+    private final Map<Long, Technique> techniques = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private int depth;
+    private int shared;
+
+    private IdentityMap() {
+    }
+
+    /**
+     * Open a map on the current thread, or join the map already open
+     * @return the map, which must be closed
+     */
+    static IdentityMap open() {
+        IdentityMap map = CURRENT.get();
+        if (map == null) {
+            map = new IdentityMap();
+            CURRENT.set(map);
+        }
+        map.depth++;
+        return map;
+    }
+
+    /**
+     * Get the map open on the current thread
+     * @return the current map, or null if none is open
+     */
+    static IdentityMap current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Get the Technique for an id, mapping it only if this map has not seen the id yet
+     * @param id the ID of the technique
+     * @param mapper maps the technique from the current row
+     * @return the canonical Technique for the id
+     * @throws SQLException if the technique has to be mapped and mapping fails
+     */
+    Technique technique(long id, SqlOperation<Technique> mapper) throws SQLException {
+        Technique t = techniques.get(id);
+        if (t != null) {
+            shared++;
+            return t;
+        }
+        t = mapper.execute();
+        techniques.put(id, t);
+        return t;
+    }
+
+    /**
+     * Get the canonical instance of a string
+     * @param s the string read from a row
+     * @return an equal string shared by every row of the graph, or null if s is null
+     */
+    String string(String s) {
+        if (s == null) return null;
+        String canonical = strings.putIfAbsent(s, s);
+        if (canonical == null) return s;
+        shared++;
+        return canonical;
+    }
+
+    /**
+     * Check whether this map is held only by the outermost read
+     * @return true if no nested read has the map open
+     */
+    boolean isOutermost() {
+        return depth == 1;
+    }
+
+    /**
+     * Get the number of lookups answered with an instance the map already held
+     * @return the number of shared instances handed out
+     */
+    int getShared() {
+        return shared;
+    }
+
+    /**
+     * Canonicalize a string through the map open on the current thread, if any
+     * @param s the string read from a row
+     * @return the canonical instance, or s itself when no map is open
+     */
+    static String canonical(String s) {
+        IdentityMap map = CURRENT.get();
+        return map != null ? map.string(s) : s;
+    }
+
+    /**
+     * Leave the map; the outermost close unbinds it from the thread
+     */
+    @Override
+    public void close() {
+        if (--depth == 0) CURRENT.remove();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.data;
+
+import java.time.Instant;
+
+/**
+ * The Invalidation record tells the other nodes of a scaled-out deployment that a committed write changed an entity, so they
+ * re-read it into their in-process caches (see {@link InvalidationTransport}).
+ * @param tenant the tenant the entity belongs to
+ * @param entity the kind of entity
+ * @param id the ID of the entity; 0 for the summary, which is one per tenant
+ * @param version the version of the entity after the write, or 0 if the writer does not know it (inserts, deletes, link changes)
+ * @param node the node that made the write
+ * @param committedAt when the write was committed, by the writing node's clock
+ */
+public record Invalidation(String tenant, Entity entity, long id, long version, String node, Instant committedAt) {
+
+    /**
+     * The kinds of entity that are invalidated. A roll written together with its session (or added to it) is sent as its session,
+     * as a node that has not seen the roll yet could not tell which session to re-read.
+     */
+    public enum Entity {
+        SESSION, ROLL, TECHNIQUE, SUMMARY
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.data;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The InvalidationTransport interface carries {@link Invalidation}s between the nodes of a scaled-out deployment. A transport only
+ * moves messages; batching, filtering out a node's own invalidations and applying them is left to the caller. The default
+ * implementation is the {@link ChangeLogTransport}; another transport replaces it by registering a bean for its own value of
+ * bjj.invalidation.transport.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Send invalidations to every node, including this one
+     * @param invalidations the invalidations, all of the current tenant
+     * @throws SQLException if they could not be sent; the caller sends them again later
+     */
+    void publish(List<Invalidation> invalidations) throws SQLException;
+
+    /**
+     * Receive the invalidations published by any node since the previous call, oldest first. The first call only establishes
+     * the position to read from and returns nothing.
+     * @return the invalidations, of all tenants
+     * @throws SQLException if they could not be received; the next call returns them instead
+     */
+    List<Invalidation> poll() throws SQLException;
+}
@@ -0,0 +1,25 @@
+package com.example.data;
+
+/**
+ * Thrown when a lazily loaded part of a graph (a session's rolls, a roll's technique counts) is accessed after the
+ * {@link UnitOfWork} that read the graph was closed, or when loading it fails.
+ */
+public class LazyLoadException extends RuntimeException {
+
+    /**
+     * Constructor for LazyLoadException
+     * @param message a description of what could not be loaded and why
+     */
+    public LazyLoadException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructor for LazyLoadException
+     * @param message a description of what could not be loaded
+     * @param cause the database error that stopped the load
+     */
+    public LazyLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.data;
+
+/**
+ * The LinkDelta record is an increment to apply to one roll_technique_links row, as accumulated by live roll tracking.
+ * @param rollId the ID of the roll
+ * @param techniqueId the ID of the technique
+ * @param delta the amount to add to the link's sub count
+ */
+public record LinkDelta(long rollId, long techniqueId, int delta) {}
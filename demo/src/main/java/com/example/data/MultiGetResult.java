@@ -0,0 +1,32 @@
+package com.example.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The MultiGetResult record is the answer to a read of several entities by id (GET /api/{sessions|rolls|techniques}?ids=...).
+ * Items are in the order their ids were requested, each id once; ids that do not exist, are deleted or belong to another
+ * tenant are listed as missing instead of failing the whole read.
+ * @param items the entities found, in request order
+ * @param missing the requested ids that were not found, in request order
+ */
+public record MultiGetResult<T>(List<T> items, List<Long> missing) {
+
+    /**
+     * Arrange the entities read for a list of ids in request order
+     * @param ids the requested ids, possibly with duplicates
+     * @param found the entities read, keyed by id
+     * @return the entities in request order and the ids that were not found
+     */
+    public static <T> MultiGetResult<T> of(List<Long> ids, Map<Long, T> found) {
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : DataProvider.distinct(ids)) {
+            T item = found.get(id);
+            if (item != null) items.add(item);
+            else missing.add(id);
+        }
+        return new MultiGetResult<>(items, missing);
+    }
+}
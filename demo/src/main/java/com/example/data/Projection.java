@@ -0,0 +1,115 @@
+package com.example.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The Projection record is the part of an entity graph a read asks for (GET /api/{sessions|rolls|techniques}?include=...&amp;fields=...).
+ * The include parameter names the nested levels to load, e.g. include=rolls,rolls.subs for sessions with their rolls and subs but
+ * not their taps; a level implies the levels above it, and without the parameter every level is loaded. The fields parameter names
+ * the properties to return as dotted paths, e.g. fields=id,date,rolls.partner; a path selects everything below it, and without
+ * the parameter every property of the loaded levels is returned.
+ *
+ * A level is loaded only if it is included and a selected field lies in it, so fields=id,date reads no rolls at all. DataProvider
+ * plans its queries from {@link #loads(String)}, and the serializer writes a property only if it {@link #emits(String)}.
+ * @param levels the nested levels that are loaded
+ * @param skipped the nested levels that are not loaded
+ * @param fields the selected property paths, or null for all
+ */
+public record Projection(Set<String> levels, Set<String> skipped, Set<String> fields) {
+
+    /** The nested levels of a session graph */
+    public static final List<String> SESSION_LEVELS = List.of("rolls", "rolls.subs", "rolls.taps");
+    /** The nested levels of a roll graph */
+    public static final List<String> ROLL_LEVELS = List.of("subs", "taps");
+    /** Techniques have no nested levels */
+    public static final List<String> TECHNIQUE_LEVELS = List.of();
+
+    /**
+     * Build the projection of include and fields parameters
+     * @param include the comma-separated levels to load, or null for all
+     * @param fields the comma-separated property paths to return, or null for all
+     * @param known the nested levels of the entity read
+     * @return the projection
+     * @throws IllegalArgumentException if a level is not one of the known levels, or a field is not a dotted path
+     */
+    public static Projection of(String include, String fields, List<String> known) {
+        Set<String> included = new LinkedHashSet<>();
+        if (include == null) {
+            included.addAll(known);
+        } else {
+            for (String level : split(include)) {
+                if (!known.contains(level)) throw new IllegalArgumentException("Unknown include " + level + "; expected one of " + known);
+                // a level implies its parents: rolls.subs needs rolls
+                for (int dot = level.indexOf('.'); dot > 0; dot = level.indexOf('.', dot + 1)) included.add(level.substring(0, dot));
+                included.add(level);
+            }
+        }
+        Set<String> selected = null;
+        if (fields != null) {
+            selected = new LinkedHashSet<>();
+            for (String f : split(fields)) {
+                if (f.startsWith(".") || f.endsWith(".") || f.contains("..")) throw new IllegalArgumentException("Bad field " + f);
+                selected.add(f);
+            }
+        }
+        Set<String> levels = new LinkedHashSet<>();
+        Set<String> skipped = new LinkedHashSet<>();
+        for (String level : known) {
+            boolean selects = selected == null || selected.stream().anyMatch(f -> overlaps(f, level));
+            (included.contains(level) && selects ? levels : skipped).add(level);
+        }
+        return new Projection(Set.copyOf(levels), Set.copyOf(skipped), selected == null ? null : Set.copyOf(selected));
+    }
+
+    /**
+     * Check whether this projection is the whole graph with every property, which is what reads without parameters return
+     * @return true if every level is loaded and every property returned
+     */
+    public boolean isAll() {
+        return fields == null && skipped.isEmpty();
+    }
+
+    /**
+     * Check whether a nested level is loaded
+     * @param level the level, e.g. rolls.subs
+     * @return true if it is loaded
+     */
+    public boolean loads(String level) {
+        return levels.contains(level);
+    }
+
+    /**
+     * Check whether a property is returned
+     * @param path the dotted path of the property from the root entity, e.g. rolls.subs.count
+     * @return true if the property is selected and is not in (and is not) a level that is not loaded
+     */
+    public boolean emits(String path) {
+        for (String level : skipped) {
+            if (within(path, level)) return false;
+        }
+        if (fields == null) return true;
+        for (String f : fields) {
+            if (overlaps(f, path)) return true;
+        }
+        return false;
+    }
+
+    private static boolean within(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + ".");
+    }
+
+    /**
+     * Helper method to check whether one path lies within the other: a selected field selects what is below it, and the
+     * properties that lead to it
+     */
+    private static boolean overlaps(String a, String b) {
+        return within(a, b) || within(b, a);
+    }
+
+    private static List<String> split(String spec) {
+        return Arrays.stream(spec.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+}
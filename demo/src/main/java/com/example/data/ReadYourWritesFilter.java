@@ -0,0 +1,36 @@
+package com.example.data;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet filter that binds the client of every API request for {@link ReplicaRouter}, so that a client's reads stay on the primary
+ * for the read-your-writes window after it writes. The client is the X-Client-Id request header when present, otherwise the remote address.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(CLIENT_HEADER);
+        if (client == null || client.isBlank()) client = request.getRemoteAddr();
+        try (ReplicaRouter.Binding binding = ReplicaRouter.bindClient(client)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The ReplicaRouter class is a ConnectionFactory that sends writes to the primary database and spreads read-only operations over
+ * one or more replicas, picking a healthy replica at random in proportion to its weight.
+ *
+ * Reads go to the primary instead when:
+ * - the current client wrote within the read-your-writes window, so it sees its own changes despite replication lag
+ *   (the client is bound per request by {@link ReadYourWritesFilter}; work without a client never pins anyone),
+ * - the current thread is pinned with {@link #pinPrimary()} (read-then-write paths such as computing an update diff),
+ * - no replica is healthy.
+ * Every connection taken from the primary through {@link #getConnection()} counts as a write for the current client.
+ *
+ * A replica whose connection fails is marked unhealthy at once; {@link #checkHealth()} (run on a schedule by DataProvider)
+ * validates every replica and brings recovered ones back. Routing decisions are published as bjj.db.reads.routed
+ * (by target and reason) and replica health as bjj.db.replica.healthy.
+ */
+public class ReplicaRouter implements ConnectionFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouter.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> PINNED = new ThreadLocal<>();
+
+    /**
+     * A replica database and its share of the read traffic
+     * @param name the name used in metrics and logs
+     * @param connections the factory that opens connections to the replica
+     * @param weight the relative share of reads (a weight of 0 takes no reads)
+     */
+    public record Replica(String name, ConnectionFactory connections, int weight) {
+        public Replica {
+            if (weight < 0) throw new IllegalArgumentException("Replica weight must not be negative: " + name);
+        }
+    }
+
+    /**
+     * Restores the previous routing state of the current thread when closed
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final ConnectionFactory primary;
+    private final List<ReplicaState> replicas = new ArrayList<>();
+    private final long readYourWritesNanos;
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for ReplicaRouter
+     * @param primary the factory for connections to the primary database
+     * @param replicas the replicas reads are spread over
+     * @param readYourWritesMillis how long after a write a client's reads stay on the primary
+     * @param registry the MeterRegistry routing metrics are published to
+     */
+    public ReplicaRouter(ConnectionFactory primary, List<Replica> replicas, long readYourWritesMillis, MeterRegistry registry) {
+        this.primary = primary;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMillis);
+        this.registry = registry;
+        for (Replica replica : replicas) {
+            ReplicaState state = new ReplicaState(replica);
+            this.replicas.add(state);
+            Gauge.builder("bjj.db.replica.healthy", state, s -> s.healthy ? 1 : 0)
+                    .description("Whether a read replica is taking reads (1) or not (0)")
+                    .tag("replica", replica.name())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Open a connection to the primary, and start the read-your-writes window for the current client
+     * @return a new Connection to the primary
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        String client = CLIENT.get();
+        if (client != null && readYourWritesNanos > 0) lastWriteNanos.put(client, System.nanoTime());
+        return primary.getConnection();
+    }
+
+    /**
+     * Open a connection for a read-only operation: a weighted healthy replica unless the read has to see the primary
+     * @return a new Connection to a replica or the primary
+     * @throws SQLException if a database access error occurs on the primary
+     */
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        if (PINNED.get() != null) return primary("pinned");
+        if (wroteRecently()) return primary("read-your-writes");
+        List<ReplicaState> candidates = healthyReplicas();
+        while (!candidates.isEmpty()) {
+            ReplicaState replica = pick(candidates);
+            try {
+                Connection c = replica.replica.connections().getConnection();
+                routed(replica.replica.name(), "replica");
+                return c;
+            } catch (SQLException ex) {
+                markUnhealthy(replica, ex);
+                candidates.remove(replica);
+            }
+        }
+        return primary(replicas.isEmpty() ? "no-replicas" : "no-healthy-replica");
+    }
+
+    @Override
+    public boolean readsRequirePrimary() {
+        return PINNED.get() != null || wroteRecently();
+    }
+
+    /**
+     * Validate every replica, marking it healthy or unhealthy, and forget read-your-writes windows that have expired
+     */
+    @Override
+    public void checkHealth() {
+        for (ReplicaState state : replicas) {
+            try (Connection c = state.replica.connections().getConnection()) {
+                boolean valid = c.isValid(VALIDATION_TIMEOUT_SECONDS);
+                if (valid && !state.healthy) log.info("Replica {} is healthy again", state.replica.name());
+                if (!valid) markUnhealthy(state, null);
+                else state.healthy = true;
+            } catch (SQLException ex) {
+                markUnhealthy(state, ex);
+            }
+        }
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(at -> now - at > readYourWritesNanos);
+    }
+
+    /**
+     * Check whether any replica is configured
+     * @return true if reads can be routed away from the primary
+     */
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * Bind the client the current thread is working for, so its writes start a read-your-writes window and its reads honour it
+     * @param client an identifier of the client (e.g. a client id header or the remote address), or null for none
+     * @return a binding that restores the previous client when closed
+     */
+    public static Binding bindClient(String client) {
+        String previous = CLIENT.get();
+        CLIENT.set(client);
+        return () -> {
+            if (previous != null) CLIENT.set(previous);
+            else CLIENT.remove();
+        };
+    }
+
+    /**
+     * Send all reads of the current thread to the primary until the binding is closed
+     * @return a binding that ends the pin when closed
+     */
+    public static Binding pinPrimary() {
+        Integer previous = PINNED.get();
+        PINNED.set(previous == null ? 1 : previous + 1);
+        return () -> {
+            if (previous != null) PINNED.set(previous);
+            else PINNED.remove();
+        };
+    }
+
+    private boolean wroteRecently() {
+        String client = CLIENT.get();
+        if (client == null || readYourWritesNanos <= 0) return false;
+        Long at = lastWriteNanos.get(client);
+        return at != null && System.nanoTime() - at <= readYourWritesNanos;
+    }
+
+    private List<ReplicaState> healthyReplicas() {
+        List<ReplicaState> healthy = new ArrayList<>(replicas.size());
+        for (ReplicaState state : replicas) {
+            if (state.healthy && state.replica.weight() > 0) healthy.add(state);
+        }
+        return healthy;
+    }
+
+    private static ReplicaState pick(List<ReplicaState> candidates) {
+        int total = 0;
+        for (ReplicaState state : candidates) total += state.replica.weight();
+        int ticket = ThreadLocalRandom.current().nextInt(total);
+        for (ReplicaState state : candidates) {
+            ticket -= state.replica.weight();
+            if (ticket < 0) return state;
+        }
+        return candidates.get(candidates.size() - 1);
+    }
+
+    private Connection primary(String reason) throws SQLException {
+        Connection c = primary.getConnection();
+        routed("primary", reason);
+        return c;
+    }
+
+    private void markUnhealthy(ReplicaState state, SQLException cause) {
+        if (state.healthy) log.warn("Replica {} is unhealthy; reads move to the other replicas or the primary", state.replica.name(), cause);
+        state.healthy = false;
+    }
+
+    private void routed(String target, String reason) {
+        Counter.builder("bjj.db.reads.routed")
+                .description("Read-only operations by the database they were routed to")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Helper class to hold the health of a replica
+     */
+    private static final class ReplicaState {
+        private final Replica replica;
+        private volatile boolean healthy = true;
+
+        private ReplicaState(Replica replica) {
+            this.replica = replica;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.model.TechniqueCount;
+
+/**
+ * The RollCounts record holds the technique counts of one roll as read from its roll_technique_links rows: each row adds
+ * the technique to the subs list if its sub count is positive and to the taps list if its tap count is positive.
+ * @param subs the techniques used to submit the partner, with their counts
+ * @param taps the techniques the partner submitted the user with, with their counts
+ */
+record RollCounts(List<TechniqueCount> subs, List<TechniqueCount> taps) {
+
+    RollCounts() {
+        this(new ArrayList<>(), new ArrayList<>());
+    }
+
+    static final RollCounts NONE = new RollCounts(List.of(), List.of());
+}
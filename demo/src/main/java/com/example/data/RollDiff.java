@@ -0,0 +1,180 @@
+package com.example.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.example.model.Roll;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+
+/**
+ * The RollDiff class describes the difference between the stored state of a roll and an incoming edit of it:
+ * whether the roll's own columns changed, which technique links were added, changed or removed, and which of the
+ * techniques loaded with the stored roll were edited. DataProvider.applyRollDiff writes exactly this set of changes,
+ * so an edit that only renames the partner costs a single UPDATE instead of re-saving every link and technique.
+ *
+ * A link is one row of roll_technique_links, which holds both counts of a technique on a roll, so a technique that is in
+ * the subs and the taps list is one link.
+ */
+public final class RollDiff {
+
+    /**
+     * The stored state of one roll_technique_links row
+     * @param techniqueId the id of the linked technique
+     * @param subCount how many times the technique was used to submit the partner on the roll
+     * @param tapCount how many times the partner submitted the user with the technique on the roll
+     */
+    public record Link(long techniqueId, int subCount, int tapCount) {}
+
+    private final Roll incoming;
+    private final boolean scalarsChanged;
+    private final List<Link> upserts;
+    private final List<Long> removed;
+    private final List<Technique> dirtyTechniques;
+
+    private RollDiff(Roll incoming, boolean scalarsChanged, List<Link> upserts, List<Long> removed, List<Technique> dirtyTechniques) {
+        this.incoming = incoming;
+        this.scalarsChanged = scalarsChanged;
+        this.upserts = Collections.unmodifiableList(upserts);
+        this.removed = Collections.unmodifiableList(removed);
+        this.dirtyTechniques = Collections.unmodifiableList(dirtyTechniques);
+    }
+
+    /**
+     * Compute the changes needed to turn the stored roll into the incoming one
+     * @param stored the roll as currently stored, including its technique counts
+     * @param incoming the edited roll; its id identifies the stored roll and every referenced technique must already have an id
+     * @return the difference between the two
+     */
+    public static RollDiff between(Roll stored, Roll incoming) {
+        boolean scalarsChanged = stored.getLengthMinutes() != incoming.getLengthMinutes()
+                || stored.getNumRounds() != incoming.getNumRounds()
+                || !Objects.equals(stored.getPartner(), incoming.getPartner());
+
+        Map<Long, Link> before = linksOf(stored);
+        Map<Long, Link> after = linksOf(incoming);
+
+        List<Link> upserts = new ArrayList<>();
+        for (Link link : after.values()) {
+            if (!link.equals(before.get(link.techniqueId()))) upserts.add(link);
+        }
+        List<Long> removed = new ArrayList<>();
+        for (Long techniqueId : before.keySet()) {
+            if (!after.containsKey(techniqueId)) removed.add(techniqueId);
+        }
+
+        // only techniques whose stored state was loaded with the roll can be compared; others are referenced, not edited
+        Map<Long, Technique> storedTechniques = new LinkedHashMap<>();
+        for (TechniqueCount tc : counts(stored)) storedTechniques.put(tc.getTechnique().getId(), tc.getTechnique());
+        Map<Long, Technique> dirty = new LinkedHashMap<>();
+        for (TechniqueCount tc : counts(incoming)) {
+            Technique t = tc.getTechnique();
+            Technique old = storedTechniques.get(t.getId());
+            if (old != null && !sameColumns(old, t)) dirty.put(t.getId(), t);
+        }
+
+        return new RollDiff(incoming, scalarsChanged, upserts, removed, new ArrayList<>(dirty.values()));
+    }
+
+    /**
+     * Get the links a roll would be stored as: one per technique with a positive count in its subs or taps list.
+     * A technique listed more than once in the same list is one link, so its counts in that list are summed.
+     * @param r the roll
+     * @return the links keyed by technique id
+     */
+    public static Map<Long, Link> linksOf(Roll r) {
+        Map<Long, Link> links = new LinkedHashMap<>();
+        if (r.getSubs() != null) {
+            for (TechniqueCount tc : r.getSubs()) {
+                if (tc == null || tc.getTechnique() == null || tc.getCount() <= 0) continue;
+                long id = tc.getTechnique().getId();
+                Link link = links.get(id);
+                links.put(id, link == null ? new Link(id, tc.getCount(), 0) : new Link(id, link.subCount() + tc.getCount(), link.tapCount()));
+            }
+        }
+        if (r.getTaps() != null) {
+            for (TechniqueCount tc : r.getTaps()) {
+                if (tc == null || tc.getTechnique() == null || tc.getCount() <= 0) continue;
+                long id = tc.getTechnique().getId();
+                Link link = links.get(id);
+                links.put(id, link == null ? new Link(id, 0, tc.getCount()) : new Link(id, link.subCount(), link.tapCount() + tc.getCount()));
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Get the edited roll the diff was computed for
+     * @return the incoming roll
+     */
+    public Roll getRoll() {
+        return incoming;
+    }
+
+    /**
+     * Check whether the roll's own columns (length, partner, rounds) changed
+     * @return true if the rolls row must be updated
+     */
+    public boolean isScalarsChanged() {
+        return scalarsChanged;
+    }
+
+    /**
+     * Get the links that were added or whose sub or tap count changed
+     * @return the links to insert or update
+     */
+    public List<Link> getUpserts() {
+        return upserts;
+    }
+
+    /**
+     * Get the ids of the techniques whose links were removed
+     * @return the technique ids whose links must be deleted
+     */
+    public List<Long> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Get the techniques whose columns differ from the stored copies loaded with the roll
+     * @return the techniques to update
+     */
+    public List<Technique> getDirtyTechniques() {
+        return dirtyTechniques;
+    }
+
+    /**
+     * Check whether there is nothing to write
+     * @return true if the stored roll already matches the incoming one
+     */
+    public boolean isEmpty() {
+        return !scalarsChanged && upserts.isEmpty() && removed.isEmpty() && dirtyTechniques.isEmpty();
+    }
+
+    /**
+     * Provide a string representation of the RollDiff
+     * @return a string representation of the RollDiff
+     */
+    @Override
+    public String toString() {
+        return "RollDiff{roll=" + incoming.getId() + ", scalarsChanged=" + scalarsChanged + ", upserts=" + upserts
+                + ", removed=" + removed + ", dirtyTechniques=" + dirtyTechniques.size() + "}";
+    }
+
+    private static List<TechniqueCount> counts(Roll r) {
+        List<TechniqueCount> out = new ArrayList<>();
+        if (r.getSubs() != null) out.addAll(r.getSubs());
+        if (r.getTaps() != null) out.addAll(r.getTaps());
+        out.removeIf(tc -> tc == null || tc.getTechnique() == null);
+        return out;
+    }
+
+    private static boolean sameColumns(Technique a, Technique b) {
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getPosition(), b.getPosition())
+                && a.getNumFinishes() == b.getNumFinishes() && a.getNumTaps() == b.getNumTaps();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.data;
+
+/**
+ * The RowVersion record is the optimistic concurrency version of one live row, as read by a version scan.
+ * Every update of a row (and, for rolls, of their links) increments its version, so comparing versions finds what changed.
+ * @param id the ID of the row
+ * @param sessionId for rolls, the ID of the session the roll belongs to; 0 for sessions and techniques
+ * @param version the version of the row
+ */
+public record RowVersion(long id, long sessionId, long version) {}
@@ -0,0 +1,297 @@
+package com.example.data;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.metrics.QueryScope;
+import com.example.metrics.SqlOperation;
+
+/**
+ * The ShardRouter class is a ConnectionFactory that spreads tenants over several databases (shards). The current {@link Tenant}
+ * is mapped to a shard with a consistent-hash ring ({@value #VIRTUAL_NODES} virtual nodes per shard), so adding a shard moves only
+ * about 1/N of the tenants; the tenant_placements table on the first shard (the catalog) overrides the ring for tenants that were
+ * moved or pinned. Each shard's ConnectionFactory may itself be a {@link ReplicaRouter}.
+ *
+ * While a tenant is being moved ({@link TenantMover}) its placement is marked moving: reads keep going to the source shard and
+ * writes fail fast with SQLTransientException until the move completes.
+ *
+ * Shard-wide work (purging, cross-tenant admin queries) runs on an explicit shard with {@link #onShard(String)} or on every shard in
+ * parallel with {@link #fanOut(SqlOperation)}. Placements are re-read from the catalog by {@link #checkHealth()}.
+ */
+public class ShardRouter implements ConnectionFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+    private static final int VIRTUAL_NODES = 128;
+
+    private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+    /**
+     * A shard database
+     * @param name the name stored in tenant_placements and used in logs
+     * @param connections the factory that opens connections to the shard
+     */
+    public record Shard(String name, ConnectionFactory connections) {}
+
+    /**
+     * Where a tenant lives when it is not where the ring puts it
+     * @param shard the name of the shard
+     * @param moving whether the tenant is being moved away from that shard
+     */
+    record Placement(String shard, boolean moving) {}
+
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private volatile Map<String, Placement> placements = Map.of();
+    private final ExecutorService fanOutPool;
+
+    /**
+     * Constructor for ShardRouter; the first shard also holds the tenant_placements catalog
+     * @param shards the shards, in a stable order
+     */
+    public ShardRouter(List<Shard> shards) {
+        if (shards.isEmpty()) throw new IllegalArgumentException("At least one shard is required");
+        for (Shard shard : shards) {
+            if (this.shards.put(shard.name(), shard) != null) throw new IllegalArgumentException("Duplicate shard name: " + shard.name());
+            for (int i = 0; i < VIRTUAL_NODES; i++) ring.put(hash(shard.name() + "#" + i), shard.name());
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.fanOutPool = Executors.newFixedThreadPool(shards.size(), r -> {
+            Thread t = new Thread(r, "shard-fan-out-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Open a connection for a write to the shard of the current tenant
+     * @return a new Connection to the shard
+     * @throws SQLTransientException if the tenant is being moved
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        String pinned = SHARD.get();
+        if (pinned != null) return shard(pinned).connections().getConnection();
+        String tenant = Tenant.current();
+        Placement placement = placements.get(tenant);
+        if (placement != null && placement.moving()) {
+            throw new SQLTransientException("Tenant " + tenant + " is being moved to another shard; retry shortly");
+        }
+        return shard(placement != null ? placement.shard() : ringShard(tenant)).connections().getConnection();
+    }
+
+    /**
+     * Open a connection for a read from the shard of the current tenant (or the shard bound with onShard)
+     * @return a new Connection to the shard or one of its replicas
+     * @throws SQLException if a database access error occurs
+     */
+    @Override
+    public Connection getReadConnection() throws SQLException {
+        String pinned = SHARD.get();
+        return shard(pinned != null ? pinned : shardFor(Tenant.current())).connections().getReadConnection();
+    }
+
+    @Override
+    public boolean readsRequirePrimary() {
+        String pinned = SHARD.get();
+        return shard(pinned != null ? pinned : shardFor(Tenant.current())).connections().readsRequirePrimary();
+    }
+
+    /**
+     * Re-read tenant placements from the catalog and check the health of every shard
+     */
+    @Override
+    public void checkHealth() {
+        try {
+            refreshPlacements();
+        } catch (SQLException ex) {
+            log.warn("Could not refresh tenant placements; keeping the previous ones", ex);
+        }
+        for (Shard shard : shards.values()) shard.connections().checkHealth();
+    }
+
+    /**
+     * Get the shard a tenant lives on
+     * @param tenant the tenant id
+     * @return the name of the shard
+     */
+    public String shardFor(String tenant) {
+        Placement placement = placements.get(tenant);
+        return placement != null ? placement.shard() : ringShard(tenant);
+    }
+
+    /**
+     * Get the shard the consistent-hash ring assigns a tenant to, ignoring placements
+     * @param tenant the tenant id
+     * @return the name of the shard
+     */
+    public String ringShard(String tenant) {
+        Map.Entry<Long, String> node = ring.ceilingEntry(hash(tenant));
+        return (node != null ? node : ring.firstEntry()).getValue();
+    }
+
+    /**
+     * Get the shards, in configuration order
+     * @return the shards
+     */
+    public List<Shard> getShards() {
+        return List.copyOf(shards.values());
+    }
+
+    /**
+     * Get a shard by name
+     * @param name the name of the shard
+     * @return the shard
+     * @throws IllegalArgumentException if there is no shard with that name
+     */
+    public Shard shard(String name) {
+        Shard shard = shards.get(name);
+        if (shard == null) throw new IllegalArgumentException("Unknown shard: " + name);
+        return shard;
+    }
+
+    /**
+     * Run work on every shard in parallel, with the work's connections bound to that shard. The statements are counted in the
+     * caller's {@link QueryScope}, if one is open.
+     * @param work the work to run on each shard
+     * @return the result of each shard, keyed by shard name in configuration order
+     * @throws SQLException if the work failed on any shard
+     */
+    public <T> Map<String, T> fanOut(SqlOperation<T> work) throws SQLException {
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        QueryScope scope = QueryScope.current();
+        for (String name : shards.keySet()) {
+            futures.put(name, fanOutPool.submit(() -> {
+                try (QueryScope.Attachment counted = QueryScope.attach(scope); Binding shard = onShard(name)) {
+                    return work.execute();
+                }
+            }));
+        }
+        Map<String, T> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<T>> e : futures.entrySet()) {
+            try {
+                results.put(e.getKey(), e.getValue().get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for shard " + e.getKey(), ex);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException re) throw re;
+                throw new SQLException("Fan-out failed on shard " + e.getKey() + ": " + cause.getMessage(), cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Send all connections of the current thread to one shard, regardless of tenant, until the binding is closed
+     * @param name the name of the shard
+     * @return a binding that restores the previous shard when closed
+     */
+    public static Binding onShard(String name) {
+        String previous = SHARD.get();
+        SHARD.set(name);
+        return () -> {
+            if (previous != null) SHARD.set(previous);
+            else SHARD.remove();
+        };
+    }
+
+    /**
+     * Get the shard the current thread is bound to with onShard (as inside fanOut)
+     * @return the name of the bound shard, or null if none is bound
+     */
+    public static String currentShard() {
+        return SHARD.get();
+    }
+
+    /**
+     * Re-read tenant placements from the catalog (the first shard)
+     * @throws SQLException if a database access error occurs
+     */
+    public void refreshPlacements() throws SQLException {
+        Map<String, Placement> loaded = new HashMap<>();
+        try (Connection c = catalog().getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT tenant_id, shard, moving FROM tenant_placements");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) loaded.put(rs.getString("tenant_id"), new Placement(rs.getString("shard"), rs.getBoolean("moving")));
+        }
+        placements = Collections.unmodifiableMap(loaded);
+    }
+
+    /**
+     * Record where a tenant lives in the catalog, and apply it to this router at once
+     * @param tenant the tenant id
+     * @param shard the name of the shard the tenant lives on
+     * @param moving whether writes for the tenant are frozen because it is being moved
+     * @throws SQLException if a database access error occurs
+     */
+    public void place(String tenant, String shard, boolean moving) throws SQLException {
+        shard(shard);
+        String sql = "INSERT INTO tenant_placements (tenant_id, shard, moving) VALUES (?, ?, ?) "
+                   + "ON DUPLICATE KEY UPDATE shard = VALUES(shard), moving = VALUES(moving), updated_at = CURRENT_TIMESTAMP";
+        try (Connection c = catalog().getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, tenant);
+            ps.setString(2, shard);
+            ps.setBoolean(3, moving);
+            ps.executeUpdate();
+        }
+        Map<String, Placement> updated = new HashMap<>(placements);
+        updated.put(tenant, new Placement(shard, moving));
+        placements = Collections.unmodifiableMap(updated);
+    }
+
+    /**
+     * Get the tenants that have a placement in the catalog
+     * @return the placed tenants and their shards
+     */
+    public Map<String, String> getPlacements() {
+        Map<String, String> out = new HashMap<>();
+        placements.forEach((tenant, placement) -> out.put(tenant, placement.shard()));
+        return out;
+    }
+
+    private ConnectionFactory catalog() {
+        return shards.values().iterator().next().connections();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) h = (h << 8) | (digest[i] & 0xff);
+            return h;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is not available", ex);
+        }
+    }
+
+    /**
+     * Restores the previous shard binding of the current thread when closed
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
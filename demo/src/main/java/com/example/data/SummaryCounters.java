@@ -0,0 +1,216 @@
+package com.example.data;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.TechniqueCount;
+
+/**
+ * The SummaryCounters class holds named running totals of a tenant's dashboard summary, or a delta to be added to them.
+ * Counters are stored one row each in summary_counters, so a save or delete touches only the counters it changes:
+ * <ul>
+ *   <li>{@code sessions} and {@code sessions.gi} - live sessions, and those of them in the gi</li>
+ *   <li>{@code rolls} and {@code mat_minutes} - live rolls and the sum of their lengths</li>
+ *   <li>{@code rolls.YYYY-MM} - live rolls by the month of their session's date</li>
+ *   <li>{@code subs.<id>} and {@code taps.<id>} - subs and taps of a live technique over all live rolls</li>
+ * </ul>
+ * Technique names seen while counting are carried along so a summary can label its top techniques without reading them.
+ * A SummaryCounters is not thread-safe.
+ */
+public final class SummaryCounters {
+
+    public static final String SESSIONS = "sessions";
+    public static final String GI_SESSIONS = "sessions.gi";
+    public static final String ROLLS = "rolls";
+    public static final String MAT_MINUTES = "mat_minutes";
+    private static final String ROLLS_IN = "rolls.";
+    private static final String SUBS = "subs.";
+    private static final String TAPS = "taps.";
+
+    private final Map<String, Long> amounts = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+
+    /**
+     * Name of the counter of rolls in a month
+     * @param month the month of the rolls' sessions
+     * @return the counter name
+     */
+    public static String rollsIn(YearMonth month) {
+        return ROLLS_IN + month;
+    }
+
+    /**
+     * Name of the counter of a technique's subs
+     * @param techniqueId the ID of the technique
+     * @return the counter name
+     */
+    public static String subs(long techniqueId) {
+        return SUBS + techniqueId;
+    }
+
+    /**
+     * Name of the counter of a technique's taps
+     * @param techniqueId the ID of the technique
+     * @return the counter name
+     */
+    public static String taps(long techniqueId) {
+        return TAPS + techniqueId;
+    }
+
+    /**
+     * Check whether a counter holds a technique's subs
+     * @param counter the counter name
+     * @return true for subs counters
+     */
+    public static boolean isSubs(String counter) {
+        return counter.startsWith(SUBS);
+    }
+
+    /**
+     * Check whether a counter holds a technique's taps
+     * @param counter the counter name
+     * @return true for taps counters
+     */
+    public static boolean isTaps(String counter) {
+        return counter.startsWith(TAPS);
+    }
+
+    /**
+     * The technique a subs or taps counter belongs to
+     * @param counter the counter name
+     * @return the ID of the technique, or -1 if the counter is not a subs or taps counter
+     */
+    public static long techniqueOf(String counter) {
+        if (counter.startsWith(SUBS)) return Long.parseLong(counter.substring(SUBS.length()));
+        if (counter.startsWith(TAPS)) return Long.parseLong(counter.substring(TAPS.length()));
+        return -1;
+    }
+
+    /**
+     * Add to a counter; counters that reach zero are dropped
+     * @param counter the counter name
+     * @param amount the amount to add, may be negative
+     */
+    public void add(String counter, long amount) {
+        if (amount != 0) amounts.merge(counter, amount, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    /**
+     * Add (sign 1) or subtract (sign -1) a session and its rolls
+     * @param s the session, with its rolls and their subs and taps
+     * @param sign 1 to add the session, -1 to subtract it
+     */
+    public void add(Session s, int sign) {
+        add(SESSIONS, sign);
+        if (s.isGi()) add(GI_SESSIONS, sign);
+        if (s.getRolls() == null) return;
+        for (Roll r : s.getRolls()) {
+            if (r != null) add(r, s.getDate(), sign);
+        }
+    }
+
+    /**
+     * Add (sign 1) or subtract (sign -1) a roll and its subs and taps. Counts are taken as they are stored, one link per technique.
+     * @param r the roll
+     * @param sessionDate the date of the roll's session, counted in the roll's month; null to leave the months alone
+     * @param sign 1 to add the roll, -1 to subtract it
+     */
+    public void add(Roll r, LocalDate sessionDate, int sign) {
+        add(ROLLS, sign);
+        add(MAT_MINUTES, (long) sign * r.getLengthMinutes());
+        if (sessionDate != null) add(rollsIn(YearMonth.from(sessionDate)), sign);
+        for (RollDiff.Link link : RollDiff.linksOf(r).values()) {
+            add(subs(link.techniqueId()), (long) sign * link.subCount());
+            add(taps(link.techniqueId()), (long) sign * link.tapCount());
+        }
+        nameAll(r.getSubs());
+        nameAll(r.getTaps());
+    }
+
+    /**
+     * Add (sign 1) or subtract (sign -1) all counters of another SummaryCounters, and take over its technique names
+     * @param other the counters to add
+     * @param sign 1 to add them, -1 to subtract them
+     */
+    public void addAll(SummaryCounters other, int sign) {
+        other.amounts.forEach((counter, amount) -> add(counter, sign * amount));
+        names.putAll(other.names);
+    }
+
+    /**
+     * Remember the name of a technique that has a subs or taps counter
+     * @param techniqueId the ID of the technique
+     * @param name its name, ignored if null
+     */
+    public void name(long techniqueId, String name) {
+        if (name != null) names.put(techniqueId, name);
+    }
+
+    private void nameAll(List<TechniqueCount> counts) {
+        if (counts == null) return;
+        for (TechniqueCount tc : counts) {
+            if (tc != null && tc.getTechnique() != null) name(tc.getTechnique().getId(), tc.getTechnique().getName());
+        }
+    }
+
+    /**
+     * The change from one set of counters to another
+     * @param before the counters before a write
+     * @param after the counters after it
+     * @return after minus before, with the technique names of both
+     */
+    public static SummaryCounters difference(SummaryCounters before, SummaryCounters after) {
+        SummaryCounters delta = new SummaryCounters();
+        delta.addAll(after, 1);
+        delta.addAll(before, -1);
+        delta.names.putAll(after.names); // names after the write win
+        return delta;
+    }
+
+    /**
+     * Get the value of a counter
+     * @param counter the counter name
+     * @return its amount, 0 if not counted
+     */
+    public long get(String counter) {
+        return amounts.getOrDefault(counter, 0L);
+    }
+
+    /**
+     * Get all non-zero counters
+     * @return a read-only view of the amounts by counter name
+     */
+    public Map<String, Long> amounts() {
+        return Collections.unmodifiableMap(amounts);
+    }
+
+    /**
+     * Get the technique names seen while counting
+     * @return a read-only view of the names by technique ID
+     */
+    public Map<Long, String> names() {
+        return Collections.unmodifiableMap(names);
+    }
+
+    /**
+     * Check whether there is anything to add
+     * @return true if every counter is zero
+     */
+    public boolean isEmpty() {
+        return amounts.isEmpty();
+    }
+
+    /**
+     * Remove all counters and names
+     */
+    public void clear() {
+        amounts.clear();
+        names.clear();
+    }
+}
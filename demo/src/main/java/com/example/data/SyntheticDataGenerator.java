@@ -0,0 +1,305 @@
+package com.example.data;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * The SyntheticDataGenerator class produces a deterministic, production-sized training history and loads it through the
+ * DataProvider bulk insert path. The same options and seed always produce the same rows, so benchmark and load test runs are comparable.
+ *
+ * The data is shaped like a real academy log rather than uniform noise:
+ * training cadence - sessions cluster on weekday evenings and Saturday mornings, with fewer sessions in August and December;
+ * belt progression - the belt on each session advances White, Blue, Purple, Brown, Black over the generated date range;
+ * partners, instructors and techniques - drawn from Zipf distributions, so a few regulars and favourite techniques dominate;
+ * rolls per session - between 1 and 8, most often 3 or 4; higher belts submit more and tap less.
+ *
+ * Usage (arguments of the form --name=value):
+ * --rolls        total number of rolls to generate (default 100000; 10k to 10M is the intended range)
+ * --seed         seed for the random source (default 42)
+ * --techniques   number of distinct techniques (default 60)
+ * --partners     number of distinct training partners (default 250)
+ * --start        first session date, yyyy-mm-dd (default 2020-01-06)
+ * --years        length of the training history in years (default 5)
+ * --batch        rolls per bulk insert transaction (default 5000)
+ * --zipf         Zipf exponent for partners and techniques (default 1.1)
+ * --embedded     load into a named in-memory H2 database instead of the MySQL database from .env (useful for timing a dry run)
+ * --tenant       the tenant the rows are created for (default: the current tenant, usually "default")
+ */
+public class SyntheticDataGenerator {
+
+    private static final String[] BELTS = { "White", "Blue", "Purple", "Brown", "Black" };
+    /** Fraction of the date range at which each belt after White is awarded */
+    private static final double[] PROMOTIONS = { 0.15, 0.40, 0.65, 0.85 };
+    /** Relative likelihood of training on each day, Monday first */
+    private static final double[] DAY_WEIGHTS = { 1.0, 0.9, 1.0, 0.8, 0.4, 0.7, 0.1 };
+    /** Relative likelihood of 1..8 rolls in a session */
+    private static final double[] ROLLS_PER_SESSION = { 4, 12, 25, 25, 17, 10, 5, 2 };
+    private static final LocalTime[] CLASS_TIMES = { LocalTime.of(6, 30), LocalTime.of(12, 0), LocalTime.of(18, 0), LocalTime.of(19, 30) };
+    private static final LocalTime SATURDAY_CLASS = LocalTime.of(10, 0);
+    private static final String[] INSTRUCTORS = { "Coach Silva", "Coach Nguyen", "Coach Okafor", "Coach Ramirez", "Coach Becker", "Coach Tanaka" };
+    private static final String[][] BASE_TECHNIQUES = {
+        { "Armbar", "Guard" }, { "Rear Naked Choke", "Back" }, { "Triangle Choke", "Guard" }, { "Kimura", "Top / Side Control" },
+        { "Cross Collar Choke", "Guard" }, { "Americana", "Mount" }, { "Guillotine", "Front Headlock" }, { "Darce Choke", "Half Guard / Turtle" },
+        { "Ankle Lock", "Feet/Legs" }, { "Bow and Arrow Choke", "Back" }, { "Loop Choke", "Mount / Back" }, { "Omoplata", "Guard" },
+        { "Arm Triangle", "Side Control" }, { "Ezekiel Choke", "Mount" }, { "Heel Hook", "Leg Entanglement" }, { "Kneebar", "Leg Entanglement" },
+        { "North-South Choke", "North-South" }, { "Toe Hold", "Feet/Legs" }, { "Baseball Bat Choke", "Knee on Belly" }, { "Wrist Lock", "Various" },
+        { "Calf Slicer", "Leg Entanglement" }, { "Gogoplata", "Guard" }, { "Anaconda Choke", "Turtle" }, { "Clock Choke", "Turtle" },
+        { "Straight Ankle Lock", "Feet/Legs" }, { "Bicep Slicer", "Various" }, { "Von Flue Choke", "Side Control" }, { "Monoplata", "Guard" },
+        { "Banana Split", "Back / Truck" }, { "Twister", "Back / Truck" }
+    };
+
+    private long rolls = 100_000;
+    private long seed = 42;
+    private int techniqueCount = 60;
+    private int partnerCount = 250;
+    private LocalDate start = LocalDate.of(2020, 1, 6);
+    private int years = 5;
+    private int batchRolls = 5000;
+    private double zipfExponent = 1.1;
+    private String embedded;
+    private String tenant;
+
+    /**
+     * Parse a SyntheticDataGenerator from command line arguments; unknown arguments are rejected
+     * @param args the command line arguments
+     * @return the configured generator
+     */
+    public static SyntheticDataGenerator parse(String[] args) {
+        SyntheticDataGenerator g = new SyntheticDataGenerator();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "rolls" -> g.rolls = Long.parseLong(value.replace("_", ""));
+                case "seed" -> g.seed = Long.parseLong(value);
+                case "techniques" -> g.techniqueCount = Integer.parseInt(value);
+                case "partners" -> g.partnerCount = Integer.parseInt(value);
+                case "start" -> g.start = LocalDate.parse(value);
+                case "years" -> g.years = Integer.parseInt(value);
+                case "batch" -> g.batchRolls = Integer.parseInt(value);
+                case "zipf" -> g.zipfExponent = Double.parseDouble(value);
+                case "embedded" -> g.embedded = value;
+                case "tenant" -> g.tenant = value;
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (g.tenant != null && !Tenant.isValid(g.tenant)) throw new IllegalArgumentException("Invalid --tenant " + g.tenant);
+        if (g.rolls <= 0 || g.techniqueCount <= 0 || g.partnerCount <= 0 || g.years <= 0 || g.batchRolls <= 0) {
+            throw new IllegalArgumentException("--rolls, --techniques, --partners, --years and --batch must be positive");
+        }
+        return g;
+    }
+
+    /**
+     * Generate the dataset and insert it using the given DataProvider.
+     * Sessions are built and inserted one batch at a time, so memory use does not grow with --rolls.
+     * @param provider the DataProvider to load the data through
+     * @return the number of sessions inserted
+     * @throws SQLException if a database access error occurs
+     */
+    public long generate(DataProvider provider) throws SQLException {
+        if (tenant != null) {
+            try (Tenant.Scope scope = Tenant.bind(tenant)) {
+                return generateForCurrentTenant(provider);
+            }
+        }
+        return generateForCurrentTenant(provider);
+    }
+
+    private long generateForCurrentTenant(DataProvider provider) throws SQLException {
+        Random random = new Random(seed);
+        Zipf techniquePicker = new Zipf(techniqueCount, zipfExponent);
+        Zipf partnerPicker = new Zipf(partnerCount, zipfExponent);
+        Zipf instructorPicker = new Zipf(INSTRUCTORS.length, 1.0);
+
+        List<Technique> techniques = techniques();
+        provider.bulkInsertTechniques(techniques);
+
+        // calibrate the daily session rate so the target roll count is reached at the end of the date range
+        LocalDate end = start.plusYears(years);
+        double weightedDays = 0;
+        for (LocalDate d = start; d.isBefore(end); d = d.plusDays(1)) weightedDays += dayWeight(d);
+        double sessionsPerWeightedDay = rolls / meanRollsPerSession() / weightedDays;
+
+        long generatedRolls = 0, sessions = 0;
+        long began = System.nanoTime();
+        List<Session> batch = new ArrayList<>();
+        int batchSize = 0;
+
+        for (LocalDate day = start; generatedRolls < rolls; day = day.plusDays(1)) {
+            double expected = sessionsPerWeightedDay * dayWeight(day);
+            int today = (int) expected + (random.nextDouble() < expected - (int) expected ? 1 : 0);
+            String belt = beltOn(day, end);
+
+            for (int i = 0; i < today && generatedRolls < rolls; i++) {
+                Session s = new Session();
+                s.setDate(day);
+                s.setTime(day.getDayOfWeek() == DayOfWeek.SATURDAY ? SATURDAY_CLASS : CLASS_TIMES[random.nextInt(CLASS_TIMES.length)]);
+                s.setGi(random.nextDouble() < 0.6);
+                s.setInstructor(INSTRUCTORS[instructorPicker.next(random)]);
+                s.setcurrentBelt(belt);
+
+                int n = (int) Math.min(1 + weightedIndex(ROLLS_PER_SESSION, random), rolls - generatedRolls);
+                for (int r = 0; r < n; r++) {
+                    s.addRoll(roll(random, belt, techniques, techniquePicker, partnerPicker));
+                }
+                generatedRolls += n;
+                batchSize += n;
+                batch.add(s);
+                sessions++;
+
+                if (batchSize >= batchRolls) {
+                    provider.bulkInsertSessions(batch);
+                    batch.clear();
+                    batchSize = 0;
+                    printProgress(generatedRolls, began);
+                }
+            }
+        }
+        if (!batch.isEmpty()) provider.bulkInsertSessions(batch);
+        provider.bulkUpdateTechniqueCounts(techniques);
+        printProgress(generatedRolls, began);
+        return sessions;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SyntheticDataGenerator generator = parse(args);
+        DataProvider provider = generator.embedded == null
+                ? new DataProvider()
+                : new DataProvider(EmbeddedDatabase.create(generator.embedded), Metrics.globalRegistry);
+        long sessions = generator.generate(provider);
+        System.out.println("Inserted " + sessions + " sessions, " + generator.rolls + " rolls, " + generator.techniqueCount + " techniques");
+    }
+
+    /**
+     * Helper method to build one roll: partner and techniques are Zipf-distributed, and the balance of subs to taps improves with belt
+     */
+    private Roll roll(Random random, String belt, List<Technique> techniques, Zipf techniquePicker, Zipf partnerPicker) {
+        Roll roll = new Roll();
+        roll.setLengthMinutes(5 + random.nextInt(6));
+        roll.setPartner(String.format("Partner %04d", partnerPicker.next(random) + 1));
+        roll.setNumRounds(1 + (random.nextDouble() < 0.3 ? random.nextInt(3) : 0));
+
+        int rank = Arrays.asList(BELTS).indexOf(belt);
+        int subs = poisson(random, 0.4 + 0.3 * rank);
+        int taps = poisson(random, 1.6 - 0.3 * rank);
+        for (int i = 0; i < subs; i++) {
+            Technique t = techniques.get(techniquePicker.next(random));
+            roll.incrementSub(t, 1);
+            t.setNumFinishes(t.getNumFinishes() + 1);
+        }
+        for (int i = 0; i < taps; i++) {
+            Technique t = techniques.get(techniquePicker.next(random));
+            roll.incrementTap(t, 1);
+            t.setNumTaps(t.getNumTaps() + 1);
+        }
+        return roll;
+    }
+
+    /**
+     * Helper method to build the technique list; names beyond the base list are numbered variations
+     */
+    private List<Technique> techniques() {
+        List<Technique> out = new ArrayList<>(techniqueCount);
+        for (int i = 0; i < techniqueCount; i++) {
+            String[] base = BASE_TECHNIQUES[i % BASE_TECHNIQUES.length];
+            int variation = i / BASE_TECHNIQUES.length;
+            String name = variation == 0 ? base[0] : base[0] + " (variation " + variation + ")";
+            out.add(new Technique(0, name, base[1], 0, 0));
+        }
+        return out;
+    }
+
+    /**
+     * Helper method to get the relative likelihood of training on a day, with a holiday dip in August and December
+     */
+    private static double dayWeight(LocalDate day) {
+        double w = DAY_WEIGHTS[day.getDayOfWeek().getValue() - 1];
+        return switch (day.getMonth()) {
+            case AUGUST, DECEMBER -> w * 0.6;
+            default -> w;
+        };
+    }
+
+    private String beltOn(LocalDate day, LocalDate end) {
+        double progress = (double) (day.toEpochDay() - start.toEpochDay()) / (end.toEpochDay() - start.toEpochDay());
+        int rank = 0;
+        while (rank < PROMOTIONS.length && progress >= PROMOTIONS[rank]) rank++;
+        return BELTS[rank];
+    }
+
+    private static double meanRollsPerSession() {
+        double total = 0, weighted = 0;
+        for (int i = 0; i < ROLLS_PER_SESSION.length; i++) {
+            total += ROLLS_PER_SESSION[i];
+            weighted += ROLLS_PER_SESSION[i] * (i + 1);
+        }
+        return weighted / total;
+    }
+
+    private static int weightedIndex(double[] weights, Random random) {
+        double total = 0;
+        for (double w : weights) total += w;
+        double pick = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) return i;
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Helper method to draw from a Poisson distribution (Knuth's method; fine for the small means used here)
+     */
+    private static int poisson(Random random, double mean) {
+        double limit = Math.exp(-Math.max(mean, 0.05));
+        double p = 1.0;
+        int k = 0;
+        do {
+            k++;
+            p *= random.nextDouble();
+        } while (p > limit);
+        return k - 1;
+    }
+
+    private static void printProgress(long rolls, long began) {
+        double seconds = (System.nanoTime() - began) / 1e9;
+        System.out.printf("%,d rolls inserted (%,.0f rolls/s)%n", rolls, seconds > 0 ? rolls / seconds : 0);
+    }
+
+    /**
+     * Zipf sampler over ranks 0..n-1: rank k is drawn with probability proportional to 1 / (k + 1)^exponent.
+     * The cumulative distribution is precomputed, so each draw is a binary search.
+     */
+    private static final class Zipf {
+        private final double[] cdf;
+
+        Zipf(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cdf[k] = sum;
+            }
+            for (int k = 0; k < n; k++) cdf[k] /= sum;
+        }
+
+        int next(Random random) {
+            int i = Arrays.binarySearch(cdf, random.nextDouble());
+            return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.data;
+
+import java.util.regex.Pattern;
+
+/**
+ * The Tenant class holds the tenant (an athlete or gym) the current thread is working for. Every row carries a tenant_id;
+ * DataProvider writes the current tenant on insert and scopes every read, update and delete to it, and {@link ShardRouter}
+ * uses it to pick the database the tenant lives on. Work that binds no tenant runs as {@value #DEFAULT}, which is also the
+ * tenant of every row that existed before tenants were introduced.
+ */
+public final class Tenant {
+
+    public static final String DEFAULT = "default";
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private Tenant() {}
+
+    /**
+     * Restores the previous tenant of the current thread when closed
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Get the tenant of the current thread
+     * @return the bound tenant, or {@value #DEFAULT} if none is bound
+     */
+    public static String current() {
+        String tenant = CURRENT.get();
+        return tenant != null ? tenant : DEFAULT;
+    }
+
+    /**
+     * Bind a tenant to the current thread
+     * @param tenant the tenant id: 1-64 letters, digits, '_' or '-'
+     * @return a scope that restores the previous tenant when closed
+     * @throws IllegalArgumentException if the tenant id is not valid
+     */
+    public static Scope bind(String tenant) {
+        if (!isValid(tenant)) throw new IllegalArgumentException("Invalid tenant id: " + tenant);
+        String previous = CURRENT.get();
+        CURRENT.set(tenant);
+        return () -> {
+            if (previous != null) CURRENT.set(previous);
+            else CURRENT.remove();
+        };
+    }
+
+    /**
+     * Check whether a string is a valid tenant id
+     * @param tenant the candidate tenant id
+     * @return true if it is 1-64 letters, digits, '_' or '-'
+     */
+    public static boolean isValid(String tenant) {
+        return tenant != null && VALID.matcher(tenant).matches();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.data;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet filter that binds the {@link Tenant} of every API request from the X-Tenant-Id request header, so DataProvider scopes the
+ * request's reads and writes to that tenant (and ShardRouter routes them to its shard). Requests without the header run as the
+ * default tenant; a malformed tenant id is rejected with 400 Bad Request.
+ */
+@Component
+public class TenantFilter extends OncePerRequestFilter {
+
+    static final String TENANT_HEADER = "X-Tenant-Id";
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenant = request.getHeader(TENANT_HEADER);
+        if (tenant == null || tenant.isBlank()) tenant = Tenant.DEFAULT;
+        if (!Tenant.isValid(tenant)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid " + TENANT_HEADER + ": 1-64 letters, digits, '_' or '-'");
+            return;
+        }
+        try (Tenant.Scope scope = Tenant.bind(tenant)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The TenantMover class moves a tenant's rows from its shard to another one while the application keeps running.
+ *
+ * A move:
+ * 1. marks the tenant as moving in the catalog, so writes for it fail fast (reads keep going to the source shard),
+ *    and waits for the freeze period so every node has re-read the placement (bjj.replicas.health-interval-ms) and in-flight writes finished,
+ * 2. copies the tenant's rows, tombstoned ones included, to the target shard in one transaction (techniques, sessions, rolls, links),
+ * 3. verifies that the target holds as many rows of the tenant as the source, table by table,
+ * 4. points the tenant's placement at the target, which ends the freeze,
+ * 5. deletes the tenant's rows from the source shard.
+ * If anything fails before step 4 the copy is removed, the tenant stays on the source shard and writes resume.
+ * Rows keep their IDs, so every shard must generate IDs from its own range (see sql/migrations/002_tenants.sql).
+ *
+ * Before adding a shard, run with --pin-all so every existing tenant is placed where the ring puts it today;
+ * otherwise tenants the new shard takes over on the ring would lose sight of their rows.
+ *
+ * Usage (arguments of the form --name=value, shards from SHARD_URLS in .env):
+ * --tenant       the tenant to move
+ * --to           the name of the target shard (shard-1, shard-2, ...)
+ * --freeze-ms    how long to wait after freezing writes before copying (default 10000)
+ * --pin-all=true place every existing tenant on its current shard instead of moving one
+ */
+public class TenantMover {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantMover.class);
+    private static final long DEFAULT_FREEZE_MS = 10_000;
+
+    /** Tenant tables in the order rows are copied (parents first); rows are deleted in the reverse order */
+    private static final String[] TABLES = { "techniques", "sessions", "rolls", "roll_technique_links", "summary_counters" };
+
+    private final ShardRouter router;
+    private final long freezeMillis;
+
+    /**
+     * Constructor for TenantMover
+     * @param router the shards and the catalog of tenant placements
+     * @param freezeMillis how long to wait after freezing a tenant's writes before copying its rows
+     */
+    public TenantMover(ShardRouter router, long freezeMillis) {
+        this.router = router;
+        this.freezeMillis = freezeMillis;
+    }
+
+    /**
+     * Move a tenant to another shard
+     * @param tenant the tenant id
+     * @param target the name of the shard to move the tenant to
+     * @return the number of rows moved from each table, keyed by table name; empty if the tenant already lives on the target
+     * @throws SQLException if the move failed; the tenant is left on its source shard
+     * @throws InterruptedException if interrupted during the freeze period; the tenant is left on its source shard
+     */
+    public Map<String, Integer> move(String tenant, String target) throws SQLException, InterruptedException {
+        if (!Tenant.isValid(tenant)) throw new IllegalArgumentException("Invalid tenant id: " + tenant);
+        router.refreshPlacements();
+        String source = router.shardFor(tenant);
+        ConnectionFactory to = router.shard(target).connections();
+        if (source.equals(target)) return Map.of();
+        ConnectionFactory from = router.shard(source).connections();
+
+        log.info("Moving tenant {} from {} to {}; writes are frozen", tenant, source, target);
+        router.place(tenant, source, true);
+        Map<String, Integer> moved;
+        try {
+            Thread.sleep(freezeMillis);
+            moved = copy(tenant, from, to);
+            Map<String, Integer> copied = count(tenant, to);
+            if (!copied.equals(count(tenant, from))) {
+                throw new SQLException("Row counts of tenant " + tenant + " differ after copying to " + target + ": " + copied);
+            }
+        } catch (SQLException | InterruptedException | RuntimeException ex) {
+            try {
+                delete(tenant, to);
+            } finally {
+                router.place(tenant, source, false);
+            }
+            throw ex;
+        }
+        router.place(tenant, target, false);
+        delete(tenant, from);
+        log.info("Moved tenant {} from {} to {}: {}", tenant, source, target, moved);
+        return moved;
+    }
+
+    /**
+     * Place every tenant that has rows on a shard on that shard in the catalog, so adding a shard to the ring does not move them
+     * @return the number of tenants placed
+     * @throws SQLException if a database access error occurs
+     */
+    public int pinAll() throws SQLException {
+        router.refreshPlacements();
+        Map<String, String> placed = router.getPlacements();
+        int pinned = 0;
+        for (ShardRouter.Shard shard : router.getShards()) {
+            for (String tenant : tenantsOn(shard.connections())) {
+                if (placed.containsKey(tenant)) continue;
+                router.place(tenant, shard.name(), false);
+                pinned++;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Helper method to copy a tenant's rows, column for column, in one transaction on the target
+     */
+    private static Map<String, Integer> copy(String tenant, ConnectionFactory from, ConnectionFactory to) throws SQLException {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        try (Connection src = from.getConnection(); Connection dst = to.getConnection()) {
+            dst.setAutoCommit(false);
+            try {
+                for (String table : TABLES) {
+                    try (PreparedStatement select = src.prepareStatement("SELECT * FROM " + table + " WHERE tenant_id = ?")) {
+                        select.setString(1, tenant);
+                        try (ResultSet rs = select.executeQuery()) {
+                            moved.put(table, insertAll(dst, table, rs));
+                        }
+                    }
+                }
+                dst.commit();
+            } catch (SQLException ex) {
+                dst.rollback();
+                throw ex;
+            } finally {
+                dst.setAutoCommit(true);
+            }
+        }
+        return moved;
+    }
+
+    private static int insertAll(Connection dst, String table, ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        List<String> columns = new ArrayList<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) columns.add(meta.getColumnLabel(i));
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                   + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        int rows = 0;
+        try (PreparedStatement insert = dst.prepareStatement(sql)) {
+            while (rs.next()) {
+                for (int i = 1; i <= columns.size(); i++) insert.setObject(i, rs.getObject(i));
+                insert.addBatch();
+                rows++;
+            }
+            if (rows > 0) insert.executeBatch();
+        }
+        return rows;
+    }
+
+    private static Map<String, Integer> count(String tenant, ConnectionFactory shard) throws SQLException {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (Connection c = shard.getConnection()) {
+            for (String table : TABLES) {
+                try (PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM " + table + " WHERE tenant_id = ?")) {
+                    ps.setString(1, tenant);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        counts.put(table, rs.next() ? rs.getInt(1) : 0);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void delete(String tenant, ConnectionFactory shard) throws SQLException {
+        try (Connection c = shard.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                for (int i = TABLES.length - 1; i >= 0; i--) {
+                    try (PreparedStatement ps = c.prepareStatement("DELETE FROM " + TABLES[i] + " WHERE tenant_id = ?")) {
+                        ps.setString(1, tenant);
+                        ps.executeUpdate();
+                    }
+                }
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static List<String> tenantsOn(ConnectionFactory shard) throws SQLException {
+        List<String> tenants = new ArrayList<>();
+        try (Connection c = shard.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT tenant_id FROM techniques UNION SELECT tenant_id FROM sessions")) {
+            while (rs.next()) tenants.add(rs.getString(1));
+        }
+        return tenants;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String tenant = null, target = null;
+        long freezeMillis = DEFAULT_FREEZE_MS;
+        boolean pinAll = false;
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "tenant" -> tenant = value;
+                case "to" -> target = value;
+                case "freeze-ms" -> freezeMillis = Long.parseLong(value);
+                case "pin-all" -> pinAll = Boolean.parseBoolean(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        List<ShardRouter.Shard> shards = DataProvider.shardsFromEnv();
+        if (shards.isEmpty()) throw new IllegalStateException("SHARD_URLS is not set in .env");
+        TenantMover mover = new TenantMover(new ShardRouter(shards), freezeMillis);
+        if (pinAll) {
+            System.out.println("Pinned " + mover.pinAll() + " tenants to their current shard");
+        } else {
+            if (tenant == null || target == null) throw new IllegalArgumentException("--tenant and --to are required");
+            System.out.println("Moved " + tenant + " to " + target + ": " + mover.move(tenant, target));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.data;
+
+/**
+ * The TenantSummary record reports how much live data a tenant has and where it lives, for cross-tenant admin queries.
+ * @param tenant the tenant id
+ * @param shard the name of the shard holding the tenant, or null if the database is not sharded
+ * @param sessions the number of live sessions
+ * @param rolls the number of live rolls
+ * @param techniques the number of live techniques
+ */
+public record TenantSummary(String tenant, String shard, long sessions, long rolls, long techniques) {}
@@ -0,0 +1,204 @@
+package com.example.data;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The TombstonePurger class removes soft-deleted rows in the background. Deletes only set a deleted_at tombstone, so they never
+ * hold locks on a large graph of rows; this job later hard-deletes tombstoned sessions, rolls and techniques (and the rows that
+ * hang off them) in small batches, pausing between batches so concurrent saves are never blocked for long.
+ *
+ * A run is skipped while the API is busy: if more than bjj.purge.quiet-max-requests-per-minute HTTP requests were served since
+ * the previous run, purging waits for the next quiet period. Tombstones younger than bjj.purge.grace-seconds are left alone.
+ *
+ * Progress is published as bjj.purge.backlog (tombstoned rows waiting, by table), bjj.purge.rows (rows removed, by table),
+ * bjj.purge.batch (batch duration, by table) and bjj.purge.runs (by outcome: completed, busy, error).
+ *
+ * Configuration (application.properties): bjj.purge.enabled, bjj.purge.interval-ms, bjj.purge.grace-seconds, bjj.purge.batch-size,
+ * bjj.purge.max-batches-per-run, bjj.purge.pause-ms and bjj.purge.quiet-max-requests-per-minute.
+ */
+@Component
+public class TombstonePurger {
+
+    private static final Logger log = LoggerFactory.getLogger(TombstonePurger.class);
+
+    private final DataProvider provider;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final Duration grace;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long pauseMillis;
+    private final double quietMaxRequestsPerMinute;
+    private final Map<TombstoneTable, AtomicLong> backlog = new EnumMap<>(TombstoneTable.class);
+
+    private double lastRequestCount = -1;
+    private long lastCheckNanos;
+
+    /**
+     * Constructor for TombstonePurger
+     * @param provider the DataProvider used to find and purge tombstoned rows
+     * @param registry the MeterRegistry progress metrics are published to, and HTTP request counts are read from
+     * @param enabled whether scheduled runs purge anything
+     * @param graceSeconds how long a tombstone must have existed before its row is purged
+     * @param batchSize the maximum number of tombstoned rows purged per transaction
+     * @param maxBatchesPerRun the maximum number of batches per run, across all tables
+     * @param pauseMillis the pause between batches
+     * @param quietMaxRequestsPerMinute the HTTP request rate above which a run is skipped (0 = never skip)
+     */
+    public TombstonePurger(DataProvider provider, MeterRegistry registry,
+                           @Value("${bjj.purge.enabled:true}") boolean enabled,
+                           @Value("${bjj.purge.grace-seconds:300}") long graceSeconds,
+                           @Value("${bjj.purge.batch-size:100}") int batchSize,
+                           @Value("${bjj.purge.max-batches-per-run:50}") int maxBatchesPerRun,
+                           @Value("${bjj.purge.pause-ms:200}") long pauseMillis,
+                           @Value("${bjj.purge.quiet-max-requests-per-minute:600}") double quietMaxRequestsPerMinute) {
+        this.provider = provider;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.grace = Duration.ofSeconds(graceSeconds);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseMillis = pauseMillis;
+        this.quietMaxRequestsPerMinute = quietMaxRequestsPerMinute;
+        for (TombstoneTable table : TombstoneTable.values()) {
+            AtomicLong waiting = new AtomicLong();
+            backlog.put(table, waiting);
+            Gauge.builder("bjj.purge.backlog", waiting, AtomicLong::get)
+                    .description("Tombstoned rows waiting to be purged")
+                    .tag("table", table.table())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Scheduled entry point: purge if enabled and the API is quiet, and record the outcome
+     */
+    @Scheduled(fixedDelayString = "${bjj.purge.interval-ms:60000}", initialDelayString = "${bjj.purge.interval-ms:60000}")
+    public void run() {
+        if (!enabled) return;
+        if (!isQuiet()) {
+            countRun("busy");
+            return;
+        }
+        try {
+            DeleteResult purged = purge();
+            if (purged.deleted()) log.info("Purged tombstoned rows: {}", purged);
+            countRun("completed");
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Tombstone purge failed; will retry on the next run", ex);
+            countRun("error");
+        }
+    }
+
+    /**
+     * Run one purge pass: sessions, then rolls, then techniques, in batches of at most bjj.purge.batch-size rows,
+     * stopping after bjj.purge.max-batches-per-run batches. The backlog gauges are refreshed afterwards.
+     * @return the number of rows removed from each table
+     * @throws SQLException if a database access error occurs; batches already committed stay purged
+     */
+    public DeleteResult purge() throws SQLException {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(grace));
+        DeleteResult total = new DeleteResult(0, 0, 0, 0);
+        int batches = 0;
+        try {
+            for (TombstoneTable table : TombstoneTable.values()) {
+                while (batches < maxBatchesPerRun) {
+                    if (batches > 0 && !pause()) return total;
+                    long start = System.nanoTime();
+                    DeleteResult batch = provider.purgeTombstoned(table, cutoff, batchSize);
+                    Timer.builder("bjj.purge.batch")
+                            .description("Duration of tombstone purge batches")
+                            .tag("table", table.table())
+                            .register(registry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    batches++;
+                    if (!batch.deleted()) break;
+                    countRows(batch);
+                    total = total.plus(batch);
+                }
+            }
+        } finally {
+            refreshBacklog();
+        }
+        return total;
+    }
+
+    /**
+     * Helper method to decide whether the API has been quiet since the previous check, from the http.server.requests timers
+     */
+    private boolean isQuiet() {
+        if (quietMaxRequestsPerMinute <= 0) return true;
+        double requests = registry.find("http.server.requests").timers().stream().mapToDouble(Timer::count).sum();
+        long now = System.nanoTime();
+        boolean quiet = true;
+        if (lastRequestCount >= 0 && now > lastCheckNanos) {
+            double minutes = (now - lastCheckNanos) / (double) TimeUnit.MINUTES.toNanos(1);
+            quiet = (requests - lastRequestCount) / minutes <= quietMaxRequestsPerMinute;
+        }
+        lastRequestCount = requests;
+        lastCheckNanos = now;
+        return quiet;
+    }
+
+    /**
+     * Helper method to pause between batches
+     * @return false if the thread was interrupted and the run should stop
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void refreshBacklog() throws SQLException {
+        for (TombstoneTable table : TombstoneTable.values()) {
+            backlog.get(table).set(provider.countTombstoned(table));
+        }
+    }
+
+    private void countRows(DeleteResult batch) {
+        countRows("sessions", batch.sessions());
+        countRows("rolls", batch.rolls());
+        countRows("techniques", batch.techniques());
+        countRows("roll_technique_links", batch.links());
+    }
+
+    private void countRows(String table, int rows) {
+        if (rows == 0) return;
+        Counter.builder("bjj.purge.rows")
+                .description("Rows removed by the tombstone purger")
+                .tag("table", table)
+                .register(registry)
+                .increment(rows);
+    }
+
+    private void countRun(String outcome) {
+        Counter.builder("bjj.purge.runs")
+                .description("Tombstone purger runs")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.data;
+
+/**
+ * The tables that support soft deletes. Deleting a row sets its deleted_at tombstone; the TombstonePurger later removes
+ * tombstoned rows, together with the rows that hang off them, using the statements listed here.
+ * Each statement's IN list is filled in with one placeholder per purged id.
+ */
+public enum TombstoneTable {
+
+    SESSIONS("sessions",
+            "DELETE FROM roll_technique_links WHERE roll_id IN (SELECT id FROM rolls WHERE session_id IN (%s))",
+            "DELETE FROM rolls WHERE session_id IN (%s)",
+            "DELETE FROM sessions WHERE id IN (%s)") {
+        @Override
+        DeleteResult result(int[] counts) {
+            return new DeleteResult(counts[2], counts[1], 0, counts[0]);
+        }
+    },
+
+    ROLLS("rolls",
+            "DELETE FROM roll_technique_links WHERE roll_id IN (%s)",
+            "DELETE FROM rolls WHERE id IN (%s)") {
+        @Override
+        DeleteResult result(int[] counts) {
+            return new DeleteResult(0, counts[1], 0, counts[0]);
+        }
+    },
+
+    TECHNIQUES("techniques",
+            "DELETE FROM roll_technique_links WHERE technique_id IN (%s)",
+            "DELETE FROM techniques WHERE id IN (%s)") {
+        @Override
+        DeleteResult result(int[] counts) {
+            return new DeleteResult(0, 0, counts[1], counts[0]);
+        }
+    };
+
+    private final String table;
+    private final String[] purgeStatements;
+
+    TombstoneTable(String table, String... purgeStatements) {
+        this.table = table;
+        this.purgeStatements = purgeStatements;
+    }
+
+    /**
+     * Get the name of the table
+     * @return the table name
+     */
+    public String table() {
+        return table;
+    }
+
+    /**
+     * Get the statements that hard-delete a set of tombstoned rows, children before parents
+     * @return the purge statement templates
+     */
+    String[] purgeStatements() {
+        return purgeStatements;
+    }
+
+    /**
+     * Map the row counts of the purge statements to a DeleteResult
+     * @param counts the number of rows each purge statement deleted, in order
+     * @return the per-table counts
+     */
+    abstract DeleteResult result(int[] counts);
+}
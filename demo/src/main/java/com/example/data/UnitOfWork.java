@@ -0,0 +1,184 @@
+package com.example.data;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.model.LazyList;
+import com.example.model.Roll;
+import com.example.model.Session;
+
+/**
+ * The UnitOfWork class reads sessions and rolls lazily for internal callers that usually need only part of the graph.
+ * Sessions are read as headers; their rolls are loaded on the first call that touches {@code getRolls()}, and a roll's technique
+ * counts on the first call that touches {@code getSubs()} or {@code getTaps()}.
+ *
+ * Loads are batched: when one session's rolls are needed, the rolls of up to prefetch - 1 other sessions read by this unit of work
+ * and not loaded yet are fetched in the same query (likewise for technique counts), so iterating many sessions costs
+ * a few IN queries instead of one query per session. A prefetch of 1 loads exactly what is touched.
+ *
+ * Lazy parts must be accessed while the unit of work is open; afterwards they throw {@link LazyLoadException}.
+ * Graphs read here are the stored state and do not include unflushed live increments. A unit of work is not thread-safe.
+ * <pre>
+ * try (UnitOfWork uow = provider.openUnitOfWork(50)) {
+ *     for (Session s : uow.getSessions()) ... s.getRolls() ...
+ * }
+ * </pre>
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private final DataProvider provider;
+    private final int prefetch;
+    // keyed by id; a list because the same session or roll may be read more than once
+    private final Map<Long, List<Session>> unloadedSessions = new LinkedHashMap<>();
+    private final Map<Long, List<Roll>> unloadedRolls = new LinkedHashMap<>();
+    private boolean open = true;
+
+    /**
+     * Constructor for UnitOfWork, use {@link DataProvider#openUnitOfWork(int)}
+     * @param provider the DataProvider lazy parts are loaded through
+     * @param prefetch the maximum number of sessions or rolls loaded per query
+     */
+    UnitOfWork(DataProvider provider, int prefetch) {
+        if (prefetch < 1) throw new IllegalArgumentException("prefetch must be at least 1");
+        this.provider = provider;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Read a session header; its rolls are loaded on first access
+     * @param id the ID of the session
+     * @return the Session, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    public Session getSession(long id) throws SQLException {
+        checkOpen("session " + id);
+        Session s = provider.getSessionHeader(id);
+        if (s != null) register(s);
+        return s;
+    }
+
+    /**
+     * Read all session headers, newest first; their rolls are loaded on first access
+     * @return a list of Session objects
+     * @throws SQLException if a database access error occurs
+     */
+    public List<Session> getSessions() throws SQLException {
+        checkOpen("sessions");
+        List<Session> sessions = provider.getSessionHeaders();
+        for (Session s : sessions) register(s);
+        return sessions;
+    }
+
+    /**
+     * Read a roll; its technique counts are loaded on first access
+     * @param id the ID of the roll
+     * @return the Roll, or null if not found
+     * @throws SQLException if a database access error occurs
+     */
+    public Roll getRoll(long id) throws SQLException {
+        checkOpen("roll " + id);
+        Roll r = provider.getRollHeader(id);
+        if (r != null) register(r);
+        return r;
+    }
+
+    /**
+     * Check whether lazy parts can still be loaded
+     * @return true until the unit of work is closed
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Close the unit of work; lazy parts that were not loaded can no longer be loaded
+     */
+    @Override
+    public void close() {
+        open = false;
+        unloadedSessions.clear();
+        unloadedRolls.clear();
+    }
+
+    private void register(Session s) {
+        s.setRolls(new LazyList<>("rolls of session " + s.getId(), () -> loadRolls(s.getId())));
+        unloadedSessions.computeIfAbsent(s.getId(), k -> new ArrayList<>()).add(s);
+    }
+
+    private void register(Roll r) {
+        LazyList.Loader load = () -> loadTechniqueCounts(r.getId());
+        r.setSubs(new LazyList<>("subs of roll " + r.getId(), load));
+        r.setTaps(new LazyList<>("taps of roll " + r.getId(), load));
+        unloadedRolls.computeIfAbsent(r.getId(), k -> new ArrayList<>()).add(r);
+    }
+
+    /**
+     * Helper method to load the rolls of a session, together with those of other unloaded sessions up to the prefetch size
+     */
+    private void loadRolls(long sessionId) {
+        checkOpen("rolls of session " + sessionId);
+        List<Long> batch = batch(sessionId, unloadedSessions);
+        try {
+            Map<Long, List<Roll>> rolls = provider.getRollsForSessions(batch);
+            for (Long id : batch) {
+                List<Roll> loaded = rolls.getOrDefault(id, List.of());
+                for (Roll r : loaded) register(r);
+                for (Session s : unloadedSessions.remove(id)) fill(s.getRolls(), loaded);
+            }
+        } catch (SQLException ex) {
+            throw new LazyLoadException("Could not load the rolls of session " + sessionId, ex);
+        }
+    }
+
+    /**
+     * Helper method to load the technique counts of a roll, together with those of other unloaded rolls up to the prefetch size
+     */
+    private void loadTechniqueCounts(long rollId) {
+        checkOpen("technique counts of roll " + rollId);
+        List<Long> batch = batch(rollId, unloadedRolls);
+        try {
+            Map<Long, RollCounts> counts = provider.getTechniqueCountsForRolls(batch);
+            for (Long id : batch) {
+                RollCounts loaded = counts.getOrDefault(id, RollCounts.NONE);
+                for (Roll r : unloadedRolls.remove(id)) {
+                    fill(r.getSubs(), loaded.subs());
+                    fill(r.getTaps(), loaded.taps());
+                }
+            }
+        } catch (SQLException ex) {
+            throw new LazyLoadException("Could not load the technique counts of roll " + rollId, ex);
+        }
+    }
+
+    /**
+     * Helper method to pick the ids loaded together: the one that was touched, then the oldest unloaded ones
+     */
+    private List<Long> batch(long touched, Map<Long, ?> unloaded) {
+        List<Long> batch = new ArrayList<>(Math.min(prefetch, unloaded.size()));
+        batch.add(touched);
+        for (Iterator<Long> it = unloaded.keySet().iterator(); it.hasNext() && batch.size() < prefetch; ) {
+            Long id = it.next();
+            if (id != touched) batch.add(id);
+        }
+        return batch;
+    }
+
+    private void checkOpen(String what) {
+        if (!open) {
+            throw new LazyLoadException("Cannot load " + what + ": the unit of work that read it is closed. "
+                    + "Access lazy parts inside try (UnitOfWork uow = provider.openUnitOfWork(...)), or read the full graph with getSession/getSessions.");
+        }
+    }
+
+    /**
+     * Helper method to fill a lazy list, unless the caller has already replaced it with a list of its own
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void fill(List<T> list, List<T> values) {
+        if (list instanceof LazyList<?> lazy) ((LazyList<T>) lazy).fill(values);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.data;
+
+/**
+ * Thrown when an update was based on a version of a session, roll or technique that is no longer the stored one, because
+ * another client updated it in the meantime. Nothing of the update is written; the client should re-read the entity
+ * (at {@link #getCurrentVersion()}), re-apply its edit and try again.
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final String entity;
+    private final long id;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    /**
+     * Constructor for VersionConflictException
+     * @param entity the kind of entity (session, roll or technique)
+     * @param id the ID of the entity
+     * @param expectedVersion the version the update was based on
+     * @param currentVersion the version currently stored
+     */
+    public VersionConflictException(String entity, long id, long expectedVersion, long currentVersion) {
+        super("The " + entity + " with id " + id + " was updated by someone else: the update was based on version "
+              + expectedVersion + " but the current version is " + currentVersion);
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getEntity() { return entity; }
+
+    public long getId() { return id; }
+
+    public long getExpectedVersion() { return expectedVersion; }
+
+    public long getCurrentVersion() { return currentVersion; }
+}
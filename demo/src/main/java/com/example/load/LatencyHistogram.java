@@ -0,0 +1,115 @@
+package com.example.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class is a lock-free, fixed-memory latency histogram in the style of HdrHistogram.
+ * Values (in microseconds) are recorded into log-linear buckets: each power of two is split into 128 linear sub-buckets,
+ * so any recorded value is reported with a relative error below 1% regardless of magnitude.
+ * Values above one hour are clamped into the top bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = 3_600_000_000L; // one hour in microseconds
+    private static final int BUCKET_COUNT = 64 - Long.numberOfLeadingZeros(MAX_VALUE) - SUB_BUCKET_BITS + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((BUCKET_COUNT + 1) * SUB_BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record a latency
+     * @param micros the latency in microseconds
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Get the number of recorded values
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Get the mean of the recorded values
+     * @return the mean latency in microseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = totalCount.get();
+        return n == 0 ? 0 : (double) totalMicros.get() / n;
+    }
+
+    /**
+     * Get the largest recorded value
+     * @return the largest latency in microseconds
+     */
+    public long getMax() {
+        return maxMicros.get();
+    }
+
+    /**
+     * Get the value at the given percentile
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in microseconds at or below which the given percentage of values fall (highest equivalent value of its bucket)
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = totalCount.get();
+        if (n == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestValueAt(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Add all values recorded in another histogram to this one
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalMicros.addAndGet(other.totalMicros.get());
+        maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+    }
+
+    /**
+     * Helper method to find the counts index for a value.
+     * Values below SUB_BUCKET_COUNT map linearly into bucket 0; larger values map into bucket (magnitude - SUB_BUCKET_BITS + 1),
+     * keeping the top SUB_BUCKET_BITS significant bits as the sub-bucket.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int bucket = magnitude - SUB_BUCKET_BITS + 1;
+        int sub = (int) (value >>> (bucket - 1)) & (SUB_BUCKET_COUNT - 1);
+        return bucket * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * Helper method to find the highest value that maps to the given counts index
+     */
+    private static long highestValueAt(int index) {
+        int bucket = index / SUB_BUCKET_COUNT;
+        int sub = index % SUB_BUCKET_COUNT;
+        if (bucket == 0) return sub;
+        long base = (long) (SUB_BUCKET_COUNT + sub) << (bucket - 1);
+        return base + (1L << (bucket - 1)) - 1;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The LoadConfig class holds the settings for a load run, parsed from command line arguments of the form --name=value.
+ *
+ * --base-url     API root (default http://localhost:8080/api)
+ * --model        closed (fixed number of workers, each waiting for its response) or open (requests issued at a target rate)
+ * --concurrency  closed model: number of workers; open model: maximum requests in flight (default 16)
+ * --rps          open model: target requests per second after ramp-up (default 100)
+ * --duration     measured run length in seconds, after ramp-up (default 60)
+ * --ramp-up      seconds over which workers start (closed) or the rate climbs to --rps (open) (default 10)
+ * --mix          workload weights, e.g. sessions.read=40,sessions.write=5,techniquecounts.write=10 (default: a read-heavy mix)
+ * --report       path of the JSON report (default load-report.json)
+ * --seed         seed for the workload random source (default 42)
+ */
+public class LoadConfig {
+
+    /**
+     * How load is applied
+     */
+    public enum Model { CLOSED, OPEN }
+
+    /**
+     * Default workload: read-heavy, roughly 20:1 reads to writes
+     */
+    public static final String DEFAULT_MIX = "sessions.list=10,sessions.read=30,rolls.list=5,rolls.read=20,techniques.list=15,techniques.read=15,"
+            + "sessions.write=2,rolls.write=1,techniques.write=1,techniquecounts.write=1";
+
+    private String baseUrl = "http://localhost:8080/api";
+    private Model model = Model.CLOSED;
+    private int concurrency = 16;
+    private int rps = 100;
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration rampUp = Duration.ofSeconds(10);
+    private Map<String, Integer> mix = parseMix(DEFAULT_MIX);
+    private String reportPath = "load-report.json";
+    private long seed = 42;
+
+    /**
+     * Parse a LoadConfig from command line arguments; unknown arguments are rejected
+     * @param args the command line arguments
+     * @return the parsed LoadConfig
+     */
+    public static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "base-url" -> config.baseUrl = value;
+                case "model" -> config.model = Model.valueOf(value.toUpperCase());
+                case "concurrency" -> config.concurrency = positive(name, Integer.parseInt(value));
+                case "rps" -> config.rps = positive(name, Integer.parseInt(value));
+                case "duration" -> config.duration = Duration.ofSeconds(positive(name, Integer.parseInt(value)));
+                case "ramp-up" -> config.rampUp = Duration.ofSeconds(Integer.parseInt(value));
+                case "mix" -> config.mix = parseMix(value);
+                case "report" -> config.reportPath = value;
+                case "seed" -> config.seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Parse a workload mix of the form endpoint.action=weight,...
+     * @param spec the mix specification
+     * @return the weights keyed by endpoint.action, in the order given
+     */
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad mix entry: " + part);
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight < 0) throw new IllegalArgumentException("Mix weights must not be negative: " + part);
+            out.put(kv[0].trim(), weight);
+        }
+        return out;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) throw new IllegalArgumentException("--" + name + " must be positive");
+        return value;
+    }
+
+    public String getBaseUrl() { return baseUrl; }
+
+    public Model getModel() { return model; }
+
+    public int getConcurrency() { return concurrency; }
+
+    public int getRps() { return rps; }
+
+    public Duration getDuration() { return duration; }
+
+    public Duration getRampUp() { return rampUp; }
+
+    public Map<String, Integer> getMix() { return mix; }
+
+    public String getReportPath() { return reportPath; }
+
+    public long getSeed() { return seed; }
+
+    /**
+     * Provide a string representation of the LoadConfig
+     * @return a string representation of the LoadConfig
+     */
+    @Override
+    public String toString() {
+        return "model=" + model + ", concurrency=" + concurrency + (model == Model.OPEN ? ", rps=" + rps : "")
+                + ", duration=" + duration.toSeconds() + "s, rampUp=" + rampUp.toSeconds() + "s, mix=" + mix;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LoadGenerator class drives a configurable workload against the REST API and collects per-endpoint latency histograms and error counts.
+ *
+ * Closed model: --concurrency workers each send a request and wait for the response before sending the next one; workers are started
+ * evenly over the ramp-up period. Open model: requests are issued on a fixed schedule at --rps (climbing linearly during ramp-up)
+ * regardless of how fast responses come back, with at most --concurrency in flight. Open-model latency is measured from the scheduled
+ * send time, so a server that falls behind shows its queueing delay instead of hiding it (coordinated omission).
+ *
+ * Only requests started after ramp-up are recorded.
+ */
+public class LoadGenerator {
+
+    private final LoadConfig config;
+    private final Workload workload;
+    private final ExecutorService httpExecutor;
+    private final HttpClient client;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructor for LoadGenerator
+     * @param config the load run settings
+     */
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.workload = new Workload(config.getBaseUrl(), config.getMix());
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(4, config.getConcurrency()));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(httpExecutor)
+                .build();
+    }
+
+    /**
+     * Run the workload and return the collected results
+     * @return the report for the run
+     * @throws Exception if the API cannot be reached to seed the workload or the run is interrupted
+     */
+    public LoadReport run() throws Exception {
+        try {
+            workload.seed(client);
+
+            long start = System.nanoTime();
+            long measureFrom = start + config.getRampUp().toNanos();
+            long end = measureFrom + config.getDuration().toNanos();
+
+            if (config.getModel() == LoadConfig.Model.CLOSED) runClosed(start, measureFrom, end);
+            else runOpen(start, measureFrom, end);
+
+            return new LoadReport(config, stats, rejected.get(), System.nanoTime() - measureFrom);
+        } finally {
+            httpExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Closed model: a fixed pool of workers, each issuing its next request when the previous one completes
+     */
+    private void runClosed(long start, long measureFrom, long end) throws InterruptedException {
+        int workers = config.getConcurrency();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++) {
+            long startAt = start + config.getRampUp().toNanos() * i / workers;
+            Random random = new Random(config.getSeed() + i);
+            pool.execute(() -> {
+                sleepUntil(startAt);
+                while (System.nanoTime() < end) {
+                    HttpRequest request = workload.request(workload.next(random), random);
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        complete(request, response, null, sent, measureFrom);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception ex) {
+                        complete(request, null, ex, sent, measureFrom);
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(end - System.nanoTime() + TimeUnit.SECONDS.toNanos(60), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Open model: a dispatcher issues requests on a schedule derived from the target rate, independent of response times
+     */
+    private void runOpen(long start, long measureFrom, long end) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(config.getConcurrency());
+        Random random = new Random(config.getSeed());
+        long rampNanos = config.getRampUp().toNanos();
+        long intended = start;
+
+        while (intended < end) {
+            // linear ramp from 1 rps to the target rate, then steady
+            double progress = rampNanos == 0 ? 1.0 : Math.min(1.0, (double) (intended - start) / rampNanos);
+            double rate = Math.max(1.0, config.getRps() * progress);
+            intended += (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            sleepUntil(intended);
+
+            long scheduled = intended;
+            if (!inFlight.tryAcquire()) {
+                // the client itself is saturated; count it rather than silently delaying the schedule
+                if (scheduled >= measureFrom) rejected.incrementAndGet();
+                continue;
+            }
+            HttpRequest request = workload.request(workload.next(random), random);
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, ex) -> {
+                inFlight.release();
+                complete(request, response, ex, scheduled, measureFrom);
+            });
+        }
+        // wait for outstanding requests to drain
+        inFlight.tryAcquire(config.getConcurrency(), 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Record the outcome of a request if it was started in the measured window
+     */
+    private void complete(HttpRequest request, HttpResponse<String> response, Throwable error, long startedAt, long measureFrom) {
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt);
+        if (response != null) workload.onResponse(request, response);
+        if (startedAt < measureFrom) return;
+
+        EndpointStats s = stats.computeIfAbsent(workload.endpointOf(request), k -> new EndpointStats());
+        s.requests.incrementAndGet();
+        s.latency.record(latencyMicros);
+        if (error != null || response.statusCode() >= 400) s.errors.incrementAndGet();
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Request count, error count and latency histogram for one endpoint
+     */
+    static final class EndpointStats {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
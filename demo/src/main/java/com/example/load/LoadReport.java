@@ -0,0 +1,124 @@
+package com.example.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The LoadReport class summarizes a load run: throughput, and per-endpoint request counts, error rates and latency percentiles.
+ * It can be written as a JSON document for capacity planning and printed as a console table.
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = { 50, 90, 95, 99, 99.9 };
+
+    private final LoadConfig config;
+    private final Map<String, LoadGenerator.EndpointStats> endpoints;
+    private final long rejected;
+    private final double elapsedSeconds;
+    private final Instant finishedAt = Instant.now();
+
+    /**
+     * Constructor for LoadReport
+     * @param config the settings the run used
+     * @param endpoints the collected statistics keyed by endpoint
+     * @param rejected the number of open-model requests skipped because --concurrency requests were already in flight
+     * @param elapsedNanos the length of the measured window in nanoseconds
+     */
+    LoadReport(LoadConfig config, Map<String, LoadGenerator.EndpointStats> endpoints, long rejected, long elapsedNanos) {
+        this.config = config;
+        this.endpoints = new TreeMap<>(endpoints);
+        this.rejected = rejected;
+        this.elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Build the JSON representation of the report
+     * @param mapper the ObjectMapper used to create nodes
+     * @return the report as a JSON object
+     */
+    public ObjectNode toJson(ObjectMapper mapper) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("finishedAt", finishedAt.toString());
+
+        ObjectNode cfg = root.putObject("config");
+        cfg.put("baseUrl", config.getBaseUrl());
+        cfg.put("model", config.getModel().name().toLowerCase());
+        cfg.put("concurrency", config.getConcurrency());
+        if (config.getModel() == LoadConfig.Model.OPEN) cfg.put("targetRps", config.getRps());
+        cfg.put("durationSeconds", config.getDuration().toSeconds());
+        cfg.put("rampUpSeconds", config.getRampUp().toSeconds());
+        cfg.put("seed", config.getSeed());
+        ObjectNode mix = cfg.putObject("mix");
+        config.getMix().forEach(mix::put);
+
+        LatencyHistogram overall = new LatencyHistogram();
+        long requests = 0, errors = 0;
+        ObjectNode perEndpoint = root.putObject("endpoints");
+        for (Map.Entry<String, LoadGenerator.EndpointStats> e : endpoints.entrySet()) {
+            LoadGenerator.EndpointStats s = e.getValue();
+            ObjectNode node = perEndpoint.putObject(e.getKey());
+            putCounts(node, s.requests.get(), s.errors.get());
+            putLatency(node.putObject("latencyMicros"), s.latency);
+            overall.add(s.latency);
+            requests += s.requests.get();
+            errors += s.errors.get();
+        }
+
+        ObjectNode total = root.putObject("overall");
+        putCounts(total, requests, errors);
+        total.put("throughputRps", elapsedSeconds > 0 ? requests / elapsedSeconds : 0);
+        total.put("rejected", rejected);
+        putLatency(total.putObject("latencyMicros"), overall);
+        return root;
+    }
+
+    /**
+     * Write the report as pretty-printed JSON
+     * @param path the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String path) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(new File(path), toJson(mapper));
+    }
+
+    /**
+     * Print a per-endpoint summary table to standard out
+     */
+    public void printSummary() {
+        System.out.printf("%-28s %9s %8s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, LoadGenerator.EndpointStats> e : endpoints.entrySet()) {
+            LoadGenerator.EndpointStats s = e.getValue();
+            System.out.printf("%-28s %9d %7.2f%% %10.2f %10.2f %10.2f %10.2f%n", e.getKey(), s.requests.get(),
+                    rate(s.errors.get(), s.requests.get()) * 100,
+                    s.latency.getValueAtPercentile(50) / 1000.0, s.latency.getValueAtPercentile(99) / 1000.0,
+                    s.latency.getValueAtPercentile(99.9) / 1000.0, s.latency.getMax() / 1000.0);
+        }
+        if (rejected > 0) System.out.println("Rejected (client saturated): " + rejected);
+    }
+
+    private static void putCounts(ObjectNode node, long requests, long errors) {
+        node.put("requests", requests);
+        node.put("errors", errors);
+        node.put("errorRate", rate(errors, requests));
+    }
+
+    private static void putLatency(ObjectNode node, LatencyHistogram h) {
+        node.put("mean", h.getMean());
+        for (double p : PERCENTILES) {
+            node.put("p" + (p == Math.floor(p) ? String.valueOf((int) p) : String.valueOf(p).replace(".", "_")), h.getValueAtPercentile(p));
+        }
+        node.put("max", h.getMax());
+    }
+
+    private static double rate(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The Workload class turns a weighted mix of operations into HTTP requests against the REST API.
+ * It keeps pools of known session, roll and technique ids (seeded from the list endpoints and grown by writes)
+ * so that reads by id and dependent writes (rolls need a session, technique counts need a roll and a technique) hit real rows.
+ */
+class Workload {
+
+    /**
+     * The operations a workload can issue, keyed in --mix by endpoint.action
+     */
+    enum Operation {
+        SESSIONS_LIST("sessions.list"),
+        SESSIONS_READ("sessions.read"),
+        SESSIONS_WRITE("sessions.write"),
+        ROLLS_LIST("rolls.list"),
+        ROLLS_READ("rolls.read"),
+        ROLLS_WRITE("rolls.write"),
+        TECHNIQUES_LIST("techniques.list"),
+        TECHNIQUES_READ("techniques.read"),
+        TECHNIQUES_WRITE("techniques.write"),
+        TECHNIQUECOUNTS_WRITE("techniquecounts.write");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation forKey(String key) {
+            for (Operation op : values()) if (op.key.equals(key)) return op;
+            throw new IllegalArgumentException("Unknown mix entry " + key + " (expected e.g. sessions.read, rolls.write, techniquecounts.write)");
+        }
+    }
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] BELTS = { "White", "Blue", "Purple", "Brown", "Black" };
+
+    private final String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final IdPool sessionIds = new IdPool();
+    private final IdPool rollIds = new IdPool();
+    private final List<ObjectNode> techniques = new ArrayList<>();
+
+    /**
+     * Constructor for Workload
+     * @param baseUrl the API root, e.g. http://localhost:8080/api
+     * @param mix the operation weights keyed by endpoint.action
+     */
+    Workload(String baseUrl, Map<String, Integer> mix) {
+        this.baseUrl = baseUrl;
+        List<Operation> ops = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            if (e.getValue() == 0) continue;
+            total += e.getValue();
+            ops.add(Operation.forKey(e.getKey()));
+            cumulative.add(total);
+        }
+        if (ops.isEmpty()) throw new IllegalArgumentException("Workload mix has no operations with a positive weight");
+        this.operations = ops.toArray(new Operation[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Seed the id pools from the list endpoints so reads by id have targets from the first request
+     * @param client the HttpClient to use
+     * @throws Exception if the API cannot be reached
+     */
+    void seed(HttpClient client) throws Exception {
+        for (JsonNode s : list(client, "/sessions")) {
+            sessionIds.add(s.path("id").asLong());
+            for (JsonNode r : s.path("rolls")) rollIds.add(r.path("id").asLong());
+        }
+        for (JsonNode t : list(client, "/techniques")) {
+            if (t instanceof ObjectNode o) addTechnique(o);
+        }
+    }
+
+    /**
+     * Pick the next operation according to the mix weights
+     * @param random the random source of the calling worker
+     * @return the chosen operation
+     */
+    Operation next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) return operations[i];
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Build the HTTP request for an operation. Operations that need ids fall back to the matching list or create operation
+     * while the pools are empty.
+     * @param op the operation to issue
+     * @param random the random source of the calling worker
+     * @return the request to send
+     */
+    HttpRequest request(Operation op, Random random) {
+        return switch (op) {
+            case SESSIONS_LIST -> get("/sessions");
+            case SESSIONS_READ -> sessionIds.isEmpty() ? get("/sessions") : get("/sessions/" + sessionIds.pick(random));
+            case SESSIONS_WRITE -> post("/sessions", newSession(random));
+            case ROLLS_LIST -> get("/rolls");
+            case ROLLS_READ -> rollIds.isEmpty() ? get("/rolls") : get("/rolls/" + rollIds.pick(random));
+            case ROLLS_WRITE -> sessionIds.isEmpty() ? post("/sessions", newSession(random))
+                    : post("/rolls?sessionId=" + sessionIds.pick(random), newRoll(random));
+            case TECHNIQUES_LIST -> get("/techniques");
+            case TECHNIQUES_READ -> {
+                ObjectNode technique = pickTechnique(random);
+                yield technique == null ? get("/techniques") : get("/techniques/" + technique.path("id").asLong());
+            }
+            case TECHNIQUES_WRITE -> post("/techniques", newTechnique(random));
+            case TECHNIQUECOUNTS_WRITE -> {
+                ObjectNode technique = pickTechnique(random);
+                if (technique == null || rollIds.isEmpty()) yield post("/techniques", newTechnique(random));
+                ObjectNode tc = mapper.createObjectNode();
+                tc.put("rollID", rollIds.pick(random));
+                tc.set("technique", technique);
+                tc.put("count", 1);
+                yield post("/techniquecounts", tc);
+            }
+        };
+    }
+
+    /**
+     * Record the ids created by a successful write so later operations can target them
+     * @param request the request that was sent
+     * @param response the response received
+     */
+    void onResponse(HttpRequest request, HttpResponse<String> response) {
+        if (!request.method().equals("POST") || response.statusCode() / 100 != 2) return;
+        try {
+            JsonNode body = mapper.readTree(response.body());
+            String path = request.uri().getPath();
+            if (path.endsWith("/sessions")) {
+                sessionIds.add(body.path("id").asLong());
+                for (JsonNode r : body.path("rolls")) rollIds.add(r.path("id").asLong());
+            } else if (path.endsWith("/rolls")) {
+                rollIds.add(body.path("id").asLong());
+            } else if (path.endsWith("/techniques") && body instanceof ObjectNode o) {
+                addTechnique(o);
+            }
+        } catch (Exception ex) {
+            // the body is only used to grow the id pools; a malformed body is already counted by the status code
+        }
+    }
+
+    /**
+     * Get the endpoint label a request is reported under: the method and path with numeric ids replaced by {id}
+     * @param request the request
+     * @return the endpoint label, e.g. GET /sessions/{id}
+     */
+    String endpointOf(HttpRequest request) {
+        String path = request.uri().getPath().substring(URI.create(baseUrl).getPath().length());
+        return request.method() + " " + path.replaceAll("/\\d+", "/{id}");
+    }
+
+    private JsonNode list(HttpClient client, String endpoint) throws Exception {
+        HttpResponse<String> resp = client.send(get(endpoint), HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() / 100 != 2) throw new IllegalStateException("GET " + endpoint + " failed: " + resp.statusCode());
+        return mapper.readTree(resp.body());
+    }
+
+    private HttpRequest get(String endpoint) {
+        return HttpRequest.newBuilder().uri(URI.create(baseUrl + endpoint)).timeout(TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String endpoint, JsonNode body) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + endpoint))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private ObjectNode newSession(Random random) {
+        ObjectNode s = mapper.createObjectNode();
+        s.put("date", "2026-" + String.format("%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        s.put("time", (17 + random.nextInt(4)) + ":00:00");
+        s.put("gi", random.nextBoolean());
+        s.put("instructor", "load-coach-" + random.nextInt(5));
+        s.put("currentBelt", BELTS[random.nextInt(BELTS.length)]);
+        ArrayNode rolls = s.putArray("rolls");
+        for (int i = 0; i < 2 + random.nextInt(4); i++) rolls.add(newRoll(random));
+        return s;
+    }
+
+    private ObjectNode newRoll(Random random) {
+        ObjectNode r = mapper.createObjectNode();
+        r.put("lengthMinutes", 5 + random.nextInt(6));
+        r.put("partner", "load-partner-" + random.nextInt(40));
+        r.put("numRounds", 1 + random.nextInt(3));
+        r.putArray("subs");
+        r.putArray("taps");
+        return r;
+    }
+
+    private ObjectNode newTechnique(Random random) {
+        ObjectNode t = mapper.createObjectNode();
+        t.put("name", "load-technique-" + random.nextInt(1_000_000));
+        t.put("position", "load-position");
+        t.put("numFinishes", 0);
+        t.put("numTaps", 0);
+        return t;
+    }
+
+    private synchronized void addTechnique(ObjectNode t) {
+        if (t.path("id").asLong() != 0) techniques.add(t);
+    }
+
+    private synchronized ObjectNode pickTechnique(Random random) {
+        return techniques.isEmpty() ? null : techniques.get(random.nextInt(techniques.size()));
+    }
+
+    /**
+     * Thread-safe pool of known ids, capped so long runs do not grow without bound
+     */
+    private static final class IdPool {
+        private static final int CAPACITY = 100_000;
+        private final long[] ids = new long[CAPACITY];
+        private int size;
+        private long added;
+
+        synchronized void add(long id) {
+            if (id == 0) return;
+            ids[(int) (added++ % CAPACITY)] = id;
+            size = Math.min(size + 1, CAPACITY);
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized long pick(Random random) {
+            return ids[random.nextInt(size)];
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.metrics;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The DbMetrics class records Micrometer timers and counters for the data access layer.
+ * Every public DataProvider method runs inside {@link #record(String, SqlOperation)}, which tags the work with an operation name and an outcome.
+ * Connections handed out through {@link #connect(SqlOperation)} are instrumented so that every statement, batch round trip and transaction
+ * is attributed to the operation that issued it, letting us see which DataProvider calls are spending the database budget.
+ * The same events are forwarded to the {@link QueryScope} open on the current thread for per-request accounting.
+ */
+public class DbMetrics {
+
+    private static final String NO_OPERATION = "none";
+
+    // The outermost DataProvider operation running on this thread; nested calls are attributed to it
+    private static final ThreadLocal<OperationFrame> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    /**
+     * Constructor for DbMetrics
+     * @param registry the MeterRegistry the metrics will be published to
+     */
+    public DbMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Time a unit of database work and tag it by operation and outcome (success or error).
+     * Calls nested inside another recorded operation are executed without being timed again, so their statements count towards the outer operation.
+     * @param operation the name of the operation (typically the DataProvider method name)
+     * @param work the work to be executed
+     * @return the value produced by the work
+     * @throws SQLException if the work throws an SQLException
+     */
+    public <T> T record(String operation, SqlOperation<T> work) throws SQLException {
+        if (CURRENT.get() != null) return work.execute();
+
+        OperationFrame frame = new OperationFrame(operation);
+        CURRENT.set(frame);
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return work.execute();
+        } catch (SQLException | RuntimeException ex) {
+            outcome = "error";
+            throw ex;
+        } finally {
+            CURRENT.remove();
+            Timer.builder("bjj.db.operation")
+                    .description("Duration of DataProvider operations")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("bjj.db.operation.statements")
+                    .description("Number of SQL statements issued per DataProvider operation")
+                    .tag("operation", operation)
+                    .register(registry)
+                    .record(frame.statements);
+        }
+    }
+
+    /**
+     * Open a connection, recording the time taken to acquire it, and instrument it so statements and transactions are counted.
+     * @param opener the work that opens the underlying connection
+     * @return an instrumented Connection
+     * @throws SQLException if the connection could not be opened
+     */
+    public Connection connect(SqlOperation<Connection> opener) throws SQLException {
+        long start = System.nanoTime();
+        Connection c = opener.execute();
+        Timer.builder("bjj.db.connection.acquire")
+                .description("Time taken to acquire a database connection")
+                .tag("operation", currentOperation())
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return InstrumentedJdbc.wrap(c, this);
+    }
+
+    /**
+     * Record the number of rows mapped from a ResultSet into model objects
+     * @param entity the entity that was mapped (session, roll, technique, techniqueCount)
+     * @param rows the number of rows mapped
+     */
+    public void rowsMapped(String entity, int rows) {
+        QueryScope scope = QueryScope.current();
+        if (scope != null) scope.recordRows(rows);
+        Counter.builder("bjj.db.rows.mapped")
+                .description("Rows mapped from result sets into model objects")
+                .tag("operation", currentOperation())
+                .tag("entity", entity)
+                .register(registry)
+                .increment(rows);
+    }
+
+    /**
+     * Record model instances that hydration reused instead of creating again (see the DataProvider identity map)
+     * @param instances the number of rows that were given an already mapped instance
+     */
+    public void instancesShared(int instances) {
+        if (instances == 0) return;
+        Counter.builder("bjj.db.instances.shared")
+                .description("Rows hydrated with an already mapped Technique or string instead of a new one")
+                .tag("operation", currentOperation())
+                .register(registry)
+                .increment(instances);
+    }
+
+    /**
+     * Record statements that were sent to the database in a single round trip (a batch sends many statements in one round trip)
+     * @param statements the number of statements sent
+     */
+    void statementsExecuted(int statements) {
+        OperationFrame frame = CURRENT.get();
+        if (frame != null) frame.statements += statements;
+        String operation = frame != null ? frame.name : NO_OPERATION;
+        Counter.builder("bjj.db.statements")
+                .description("SQL statements executed")
+                .tag("operation", operation)
+                .register(registry)
+                .increment(statements);
+        Counter.builder("bjj.db.roundtrips")
+                .description("Database round trips")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+
+        // request-scoped accounting last; a FAIL budget throws here, before the statement reaches the database
+        QueryScope scope = QueryScope.current();
+        if (scope != null) scope.recordStatements(statements);
+    }
+
+    /**
+     * Record the duration of an explicit (non auto-commit) transaction
+     * @param nanos the duration of the transaction in nanoseconds
+     * @param outcome commit or rollback
+     */
+    void transactionFinished(long nanos, String outcome) {
+        Timer.builder("bjj.db.transaction")
+                .description("Duration of explicit database transactions")
+                .tag("operation", currentOperation())
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the name of the DataProvider operation currently running on this thread
+     * @return the operation name, or "none" if no operation is running
+     */
+    private static String currentOperation() {
+        OperationFrame frame = CURRENT.get();
+        return frame != null ? frame.name : NO_OPERATION;
+    }
+
+    /**
+     * Per-thread bookkeeping for the outermost running operation
+     */
+    private static final class OperationFrame {
+        private final String name;
+        private int statements;
+
+        private OperationFrame(String name) {
+            this.name = name;
+        }
+    }
+}
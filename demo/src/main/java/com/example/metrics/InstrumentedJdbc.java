@@ -0,0 +1,110 @@
+package com.example.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Helper that wraps JDBC connections and statements in dynamic proxies so that statement executions,
+ * batch round trips and transaction boundaries are reported to {@link DbMetrics} without changing any SQL call sites.
+ */
+final class InstrumentedJdbc {
+
+    private InstrumentedJdbc() {}
+
+    /**
+     * Wrap a Connection so that the statements it creates and the transactions it runs are recorded
+     * @param c the connection to be wrapped
+     * @param metrics the DbMetrics instance to report to
+     * @return an instrumented proxy of the connection
+     */
+    static Connection wrap(Connection c, DbMetrics metrics) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ConnectionHandler(c, metrics));
+    }
+
+    /**
+     * Invoke a method on the real JDBC object, unwrapping reflection exceptions so callers see the original SQLException
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Proxy handler for Connection: wraps created statements and times explicit transactions
+     */
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final DbMetrics metrics;
+        private long transactionStart = -1;
+
+        private ConnectionHandler(Connection target, DbMetrics metrics) {
+            this.target = target;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("setAutoCommit") && Boolean.FALSE.equals(args[0])) {
+                transactionStart = System.nanoTime();
+            } else if ((name.equals("commit") || name.equals("rollback")) && transactionStart >= 0 && (args == null || args.length == 0)) {
+                Object result = InstrumentedJdbc.invoke(target, method, args);
+                metrics.transactionFinished(System.nanoTime() - transactionStart, name);
+                transactionStart = -1;
+                return result;
+            }
+
+            Object result = InstrumentedJdbc.invoke(target, method, args);
+            if (result instanceof Statement s && (name.equals("prepareStatement") || name.equals("createStatement") || name.equals("prepareCall"))) {
+                Class<?> type = s instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(
+                        Statement.class.getClassLoader(),
+                        new Class<?>[] { type },
+                        new StatementHandler(s, metrics));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Proxy handler for Statement and PreparedStatement: counts executions and batched statements
+     */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final DbMetrics metrics;
+        private int pendingBatch;
+
+        private StatementHandler(Statement target, DbMetrics metrics) {
+            this.target = target;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "addBatch" -> pendingBatch++;
+                case "clearBatch" -> pendingBatch = 0;
+                case "executeBatch", "executeLargeBatch" -> {
+                    int statements = pendingBatch;
+                    pendingBatch = 0;
+                    if (statements > 0) metrics.statementsExecuted(statements);
+                }
+                case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate" -> metrics.statementsExecuted(1);
+                default -> { }
+            }
+            return InstrumentedJdbc.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.metrics;
+
+/**
+ * The QueryBudget record describes how much JDBC work a single unit of work (normally one HTTP request) may perform.
+ * A limit of 0 or less means that dimension is not limited.
+ * @param maxStatements the maximum number of SQL statements
+ * @param maxRoundTrips the maximum number of database round trips
+ * @param maxRows the maximum number of rows mapped into model objects
+ * @param mode whether exceeding the budget is logged or fails the request
+ */
+public record QueryBudget(int maxStatements, int maxRoundTrips, long maxRows, Mode mode) {
+
+    /**
+     * A budget with no limits
+     */
+    public static final QueryBudget UNLIMITED = new QueryBudget(0, 0, 0, Mode.LOG);
+
+    /**
+     * What happens when a budget is exceeded
+     */
+    public enum Mode {
+        /** Log a warning once the unit of work completes */
+        LOG,
+        /** Throw QueryBudgetExceededException from the statement that crosses the budget */
+        FAIL
+    }
+
+    /**
+     * Check whether the given amounts of work exceed this budget
+     * @param statements the number of statements executed
+     * @param roundTrips the number of round trips made
+     * @param rows the number of rows mapped
+     * @return true if any limited dimension is exceeded
+     */
+    public boolean isExceededBy(int statements, int roundTrips, long rows) {
+        return (maxStatements > 0 && statements > maxStatements)
+                || (maxRoundTrips > 0 && roundTrips > maxRoundTrips)
+                || (maxRows > 0 && rows > maxRows);
+    }
+
+    /**
+     * Provide a string representation of the QueryBudget
+     * @return a string representation of the QueryBudget
+     */
+    @Override
+    public String toString() {
+        return "statements<=" + limit(maxStatements) + ", roundTrips<=" + limit(maxRoundTrips) + ", rows<=" + limit(maxRows) + ", mode=" + mode;
+    }
+
+    private static String limit(long value) {
+        return value > 0 ? String.valueOf(value) : "unlimited";
+    }
+}
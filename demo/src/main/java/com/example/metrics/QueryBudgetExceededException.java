@@ -0,0 +1,15 @@
+package com.example.metrics;
+
+/**
+ * Thrown when a unit of work running with a FAIL mode {@link QueryBudget} issues more JDBC work than its budget allows.
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+    /**
+     * Constructor for QueryBudgetExceededException
+     * @param message a description of the work that exceeded the budget
+     */
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
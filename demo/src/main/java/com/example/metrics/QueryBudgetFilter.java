@@ -0,0 +1,94 @@
+package com.example.metrics;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet filter that opens a {@link QueryScope} around every API request, so all JDBC work done while serving the request is counted.
+ * Statements, round trips and rows per request are published as distribution summaries tagged by endpoint, and the configured
+ * {@link QueryBudget} is either logged or enforced.
+ *
+ * Configuration (application.properties):
+ * bjj.query-budget.max-statements, bjj.query-budget.max-round-trips, bjj.query-budget.max-rows (0 = unlimited)
+ * and bjj.query-budget.mode (LOG or FAIL).
+ */
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    private final MeterRegistry registry;
+    private final QueryBudget budget;
+
+    /**
+     * Constructor for QueryBudgetFilter
+     * @param registry the MeterRegistry per-request query counts are published to
+     * @param maxStatements the maximum number of statements per request (0 = unlimited)
+     * @param maxRoundTrips the maximum number of round trips per request (0 = unlimited)
+     * @param maxRows the maximum number of rows mapped per request (0 = unlimited)
+     * @param mode LOG to log requests that exceed the budget, FAIL to abort them
+     */
+    public QueryBudgetFilter(MeterRegistry registry,
+                             @Value("${bjj.query-budget.max-statements:0}") int maxStatements,
+                             @Value("${bjj.query-budget.max-round-trips:0}") int maxRoundTrips,
+                             @Value("${bjj.query-budget.max-rows:0}") long maxRows,
+                             @Value("${bjj.query-budget.mode:LOG}") QueryBudget.Mode mode) {
+        this.registry = registry;
+        this.budget = new QueryBudget(maxStatements, maxRoundTrips, maxRows, mode);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        try (QueryScope scope = QueryScope.open(name, budget)) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                record(request, scope);
+                if (budget.mode() == QueryBudget.Mode.LOG && scope.isOverBudget()) {
+                    log.warn("Query budget exceeded: {}", scope.describe());
+                }
+            }
+        }
+    }
+
+    /**
+     * Publish the statements, round trips and rows counted for a request, tagged by method and endpoint pattern
+     * @param request the request that was served
+     * @param scope the scope that counted the request's JDBC work
+     */
+    private void record(HttpServletRequest request, QueryScope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        summary("bjj.http.request.statements", "SQL statements issued per HTTP request", request, uri).record(scope.getStatements());
+        summary("bjj.http.request.roundtrips", "Database round trips per HTTP request", request, uri).record(scope.getRoundTrips());
+        summary("bjj.http.request.rows", "Rows mapped per HTTP request", request, uri).record(scope.getRows());
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry);
+    }
+}
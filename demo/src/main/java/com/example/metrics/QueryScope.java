@@ -0,0 +1,195 @@
+package com.example.metrics;
+
+/**
+ * The QueryScope class accounts for the JDBC work done within one unit of work, normally a single HTTP request.
+ * It counts statements, round trips (a batch is one round trip carrying many statements) and mapped rows issued on the current thread
+ * while the scope is open, and can enforce a {@link QueryBudget}: in FAIL mode the statement that crosses the budget throws
+ * {@link QueryBudgetExceededException}, turning N+1 regressions into hard failures.
+ *
+ * Work that a pool runs on the caller's behalf is counted in the caller's scope when the pool {@link #attach(QueryScope) attaches}
+ * it to its task, as the ShardRouter's fan-out does, so a scope's counters may be updated from several threads. Work that is only
+ * handed off, such as the group commits of the SessionIngestQueue's writer thread, runs after the request has returned and is
+ * counted in no request's scope.
+ *
+ * Scopes are also the assertion API for tests:
+ * <pre>
+ * try (QueryScope scope = QueryScope.open("getSessions")) {
+ *     manager.getSessions();
+ *     scope.assertStatementsAtMost(3);
+ * }
+ * </pre>
+ */
+public final class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final QueryBudget budget;
+    private final QueryScope previous;
+    private int statements;
+    private int roundTrips;
+    private long rows;
+
+    private QueryScope(String name, QueryBudget budget, QueryScope previous) {
+        this.name = name;
+        this.budget = budget;
+        this.previous = previous;
+    }
+
+    /**
+     * Open an unbounded scope on the current thread, used to measure work without enforcing a budget
+     * @param name a description of the unit of work (e.g. the request URI)
+     * @return the opened scope, which must be closed
+     */
+    public static QueryScope open(String name) {
+        return open(name, QueryBudget.UNLIMITED);
+    }
+
+    /**
+     * Open a scope on the current thread that enforces the given budget
+     * @param name a description of the unit of work (e.g. the request URI)
+     * @param budget the budget the unit of work must stay within
+     * @return the opened scope, which must be closed
+     */
+    public static QueryScope open(String name, QueryBudget budget) {
+        QueryScope scope = new QueryScope(name, budget, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Get the scope open on the current thread
+     * @return the current scope, or null if no scope is open
+     */
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Count the work of the current thread in a scope that was opened on another thread, until the returned attachment is closed
+     * @param scope the scope to count in, or null to count in none
+     * @return the attachment, which restores the thread's own scope (if any) when closed
+     */
+    public static Attachment attach(QueryScope scope) {
+        QueryScope own = CURRENT.get();
+        if (scope != null) CURRENT.set(scope);
+        else CURRENT.remove();
+        return () -> {
+            if (own != null) CURRENT.set(own);
+            else CURRENT.remove();
+        };
+    }
+
+    /**
+     * Record statements sent to the database in one round trip, checking the budget in FAIL mode
+     * @param count the number of statements sent
+     */
+    synchronized void recordStatements(int count) {
+        statements += count;
+        roundTrips++;
+        if (budget.mode() == QueryBudget.Mode.FAIL && isOverBudget()) {
+            throw new QueryBudgetExceededException(describe());
+        }
+    }
+
+    /**
+     * Record rows mapped from result sets
+     * @param count the number of rows mapped
+     */
+    synchronized void recordRows(int count) {
+        rows += count;
+    }
+
+    /**
+     * Get the number of statements executed in this scope
+     * @return the number of statements executed in this scope
+     */
+    public synchronized int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Get the number of database round trips made in this scope
+     * @return the number of database round trips made in this scope
+     */
+    public synchronized int getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * Get the number of rows mapped in this scope
+     * @return the number of rows mapped in this scope
+     */
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the budget enforced by this scope
+     * @return the budget enforced by this scope
+     */
+    public QueryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Check whether any limit of the budget has been exceeded
+     * @return true if the statements, round trips or rows exceed the budget
+     */
+    public synchronized boolean isOverBudget() {
+        return budget.isExceededBy(statements, roundTrips, rows);
+    }
+
+    /**
+     * Assert that at most the given number of statements were executed in this scope
+     * @param max the maximum number of statements allowed
+     * @throws AssertionError if more statements were executed
+     */
+    public synchronized void assertStatementsAtMost(int max) {
+        if (statements > max) throw new AssertionError("Expected at most " + max + " statements but " + describe());
+    }
+
+    /**
+     * Assert that at most the given number of round trips were made in this scope
+     * @param max the maximum number of round trips allowed
+     * @throws AssertionError if more round trips were made
+     */
+    public synchronized void assertRoundTripsAtMost(int max) {
+        if (roundTrips > max) throw new AssertionError("Expected at most " + max + " round trips but " + describe());
+    }
+
+    /**
+     * Assert that at most the given number of rows were mapped in this scope
+     * @param max the maximum number of rows allowed
+     * @throws AssertionError if more rows were mapped
+     */
+    public synchronized void assertRowsAtMost(long max) {
+        if (rows > max) throw new AssertionError("Expected at most " + max + " rows but " + describe());
+    }
+
+    /**
+     * Provide a description of the work recorded in this scope
+     * @return a description of the work recorded in this scope
+     */
+    public synchronized String describe() {
+        return name + " issued " + statements + " statements in " + roundTrips + " round trips mapping " + rows + " rows (budget: " + budget + ")";
+    }
+
+    /**
+     * Close the scope and restore the scope that was open before it (if any)
+     */
+    @Override
+    public void close() {
+        if (previous != null) CURRENT.set(previous);
+        else CURRENT.remove();
+    }
+
+    /**
+     * Restores the scope of the thread a scope was attached to when closed
+     */
+    @FunctionalInterface
+    public interface Attachment extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.metrics;
+
+import java.sql.SQLException;
+
+/**
+ * A unit of database work that produces a value and may throw an SQLException.
+ * Used to wrap DataProvider and BusinessManager calls so they can be timed and counted.
+ * @param <T> the type of value produced by the operation
+ */
+@FunctionalInterface
+public interface SqlOperation<T> {
+
+    /**
+     * Execute the operation
+     * @return the value produced by the operation
+     * @throws SQLException if a database access error occurs
+     */
+    T execute() throws SQLException;
+}
@@ -0,0 +1,218 @@
+package com.example.model;
+
+/**
+ * Import statements for the CompactRoll class
+ */
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * The CompactRoll class is a read-only, memory-compact form of a Roll for read-heavy paths and caches.
+ * Instead of lists of TechniqueCount objects that each embed a Technique, the subs and taps are held as parallel arrays of
+ * technique ids and counts, and the techniques themselves live once in a shared TechniqueDictionary.
+ * A CompactRoll serializes to exactly the same JSON as the Roll it was built from; the TechniqueCount and Technique
+ * structure is only produced while writing the JSON.
+ */
+@JsonSerialize(using = CompactRoll.Serializer.class)
+public final class CompactRoll {
+    private static final long[] NO_IDS = new long[0];
+    private static final int[] NO_COUNTS = new int[0];
+
+    private final long id;
+    private final int lengthMinutes;
+    private final String partner;
+    private final int numRounds;
+    private final long[] subIds;
+    private final int[] subCounts;
+    private final long[] tapIds;
+    private final int[] tapCounts;
+    private final TechniqueDictionary dictionary;
+    private final long version;
+    private final LocalDateTime createdAt;
+
+    /**
+     * Constructor for CompactRoll object. The arrays are used as given and must not be modified afterwards.
+     * @param id the unique identifier for the roll
+     * @param lengthMinutes the length of the roll in minutes
+     * @param partner the training partner during the roll
+     * @param numRounds the number of rounds during the roll
+     * @param subIds the ids of the techniques the user submitted their partner with
+     * @param subCounts the number of submissions with each technique in subIds
+     * @param tapIds the ids of the techniques the user was tapped with
+     * @param tapCounts the number of taps to each technique in tapIds
+     * @param dictionary the dictionary the technique ids are resolved through
+     * @param version the version of the roll
+     * @param createdAt when the roll was inserted, or null
+     */
+    public CompactRoll(long id, int lengthMinutes, String partner, int numRounds, long[] subIds, int[] subCounts,
+                       long[] tapIds, int[] tapCounts, TechniqueDictionary dictionary, long version,
+                       LocalDateTime createdAt) {
+        if (subIds.length != subCounts.length || tapIds.length != tapCounts.length) {
+            throw new IllegalArgumentException("Technique id and count arrays must have the same length");
+        }
+        this.id = id;
+        this.lengthMinutes = lengthMinutes;
+        this.partner = partner;
+        this.numRounds = numRounds;
+        this.subIds = subIds;
+        this.subCounts = subCounts;
+        this.tapIds = tapIds;
+        this.tapCounts = tapCounts;
+        this.dictionary = dictionary;
+        this.version = version;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Build the compact form of a Roll, interning its techniques into the dictionary
+     * @param r the Roll to be converted
+     * @param dictionary the dictionary shared by all compact rolls of a cache
+     * @return the compact form of the Roll
+     */
+    public static CompactRoll of(Roll r, TechniqueDictionary dictionary) {
+        List<TechniqueCount> subs = r.getSubs() == null ? List.of() : r.getSubs();
+        List<TechniqueCount> taps = r.getTaps() == null ? List.of() : r.getTaps();
+        long[] subIds = subs.isEmpty() ? NO_IDS : new long[subs.size()];
+        int[] subCounts = subs.isEmpty() ? NO_COUNTS : new int[subs.size()];
+        for (int i = 0; i < subs.size(); i++) {
+            subIds[i] = dictionary.intern(subs.get(i).getTechnique());
+            subCounts[i] = subs.get(i).getCount();
+        }
+        long[] tapIds = taps.isEmpty() ? NO_IDS : new long[taps.size()];
+        int[] tapCounts = taps.isEmpty() ? NO_COUNTS : new int[taps.size()];
+        for (int i = 0; i < taps.size(); i++) {
+            tapIds[i] = dictionary.intern(taps.get(i).getTechnique());
+            tapCounts[i] = taps.get(i).getCount();
+        }
+        return new CompactRoll(r.getId(), r.getLengthMinutes(), r.getPartner(), r.getNumRounds(), subIds, subCounts, tapIds, tapCounts, dictionary,
+                               r.getVersion(), r.getCreatedAt());
+    }
+
+    /**
+     * Expand the compact form back into a Roll; the TechniqueCounts reference the dictionary's shared Technique instances
+     * @return a new Roll equal to the one this was built from
+     */
+    public Roll toRoll() {
+        Roll r = new Roll(id, lengthMinutes, partner, numRounds, expand(subIds, subCounts), expand(tapIds, tapCounts));
+        r.setVersion(version);
+        r.setCreatedAt(createdAt);
+        return r;
+    }
+
+    public long getId() { return id; }
+
+    public int getLengthMinutes() { return lengthMinutes; }
+
+    public String getPartner() { return partner; }
+
+    public int getNumRounds() { return numRounds; }
+
+    public long getVersion() { return version; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    /**
+     * Get the number of submissions with a technique
+     * @param techniqueId the id of the technique
+     * @return the number of submissions, 0 if the technique is not among the subs
+     */
+    public int getSubCount(long techniqueId) {
+        return countOf(subIds, subCounts, techniqueId);
+    }
+
+    /**
+     * Get the number of taps to a technique
+     * @param techniqueId the id of the technique
+     * @return the number of taps, 0 if the technique is not among the taps
+     */
+    public int getTapCount(long techniqueId) {
+        return countOf(tapIds, tapCounts, techniqueId);
+    }
+
+    /**
+     * Get the number of distinct techniques among the subs and taps
+     * @return the number of technique entries
+     */
+    public int getTechniqueEntries() {
+        return subIds.length + tapIds.length;
+    }
+
+    private List<TechniqueCount> expand(long[] ids, int[] counts) {
+        List<TechniqueCount> out = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) out.add(new TechniqueCount(id, technique(ids[i]), counts[i]));
+        return out;
+    }
+
+    private Technique technique(long techniqueId) {
+        Technique t = dictionary.get(techniqueId);
+        return t != null ? t : new Technique(techniqueId, null, null, 0, 0);
+    }
+
+    private static int countOf(long[] ids, int[] counts, long techniqueId) {
+        for (int i = 0; i < ids.length; i++) if (ids[i] == techniqueId) return counts[i];
+        return 0;
+    }
+
+    /**
+     * Provide a string representation of the CompactRoll object
+     * @return a string representation of the CompactRoll object
+     */
+    @Override
+    public String toString() {
+        return "CompactRoll ID: " + id + ", Partner: " + partner + ", Subs: " + subIds.length + ", Taps: " + tapIds.length;
+    }
+
+    /**
+     * Writes a CompactRoll in the JSON shape of Roll, resolving technique ids through the dictionary as it goes
+     */
+    static final class Serializer extends StdSerializer<CompactRoll> {
+
+        Serializer() {
+            super(CompactRoll.class);
+        }
+
+        @Override
+        public void serialize(CompactRoll r, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", r.id);
+            gen.writeNumberField("lengthMinutes", r.lengthMinutes);
+            gen.writeStringField("partner", r.partner);
+            gen.writeNumberField("numRounds", r.numRounds);
+            gen.writeFieldName("subs");
+            writeCounts(r, r.subIds, r.subCounts, gen);
+            gen.writeFieldName("taps");
+            writeCounts(r, r.tapIds, r.tapCounts, gen);
+            gen.writeNumberField("version", r.version);
+            provider.defaultSerializeField("createdAt", r.createdAt, gen);
+            gen.writeEndObject();
+        }
+
+        private static void writeCounts(CompactRoll r, long[] ids, int[] counts, JsonGenerator gen) throws IOException {
+            gen.writeStartArray();
+            for (int i = 0; i < ids.length; i++) {
+                Technique t = r.technique(ids[i]);
+                gen.writeStartObject();
+                gen.writeNumberField("rollID", r.id);
+                gen.writeFieldName("technique");
+                gen.writeStartObject();
+                gen.writeNumberField("id", t.getId());
+                gen.writeStringField("name", t.getName());
+                gen.writeStringField("position", t.getPosition());
+                gen.writeNumberField("numFinishes", t.getNumFinishes());
+                gen.writeNumberField("numTaps", t.getNumTaps());
+                gen.writeNumberField("version", t.getVersion());
+                gen.writeEndObject();
+                gen.writeNumberField("count", counts[i]);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+}
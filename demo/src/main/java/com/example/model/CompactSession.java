@@ -0,0 +1,138 @@
+package com.example.model;
+
+/**
+ * Import statements for the CompactSession class
+ */
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * The CompactSession class is a read-only, memory-compact form of a Session whose rolls are held as CompactRolls.
+ * It serializes to exactly the same JSON as the Session it was built from, so it can be returned from controllers in place of a Session.
+ */
+@JsonSerialize(using = CompactSession.Serializer.class)
+public final class CompactSession {
+    private final long id;
+    private final LocalDate date;
+    private final LocalTime time;
+    private final boolean isGi;
+    private final String instructor;
+    private final String currentBelt;
+    private final CompactRoll[] rolls;
+    private final long version;
+
+    /**
+     * Constructor for CompactSession object. The rolls array is used as given and must not be modified afterwards.
+     * @param id the id of the training session
+     * @param date the date of the training session
+     * @param time the time of the training session
+     * @param isGi whether the session was a gi or no-gi session
+     * @param instructor the instructor of the training session
+     * @param currentBelt the user's currentBelt at the time of the training session
+     * @param rolls the rolls that took place during the training session
+     * @param version the version of the training session
+     */
+    public CompactSession(long id, LocalDate date, LocalTime time, boolean isGi, String instructor, String currentBelt, CompactRoll[] rolls,
+                          long version) {
+        this.id = id;
+        this.date = date;
+        this.time = time;
+        this.isGi = isGi;
+        this.instructor = instructor;
+        this.currentBelt = currentBelt;
+        this.rolls = rolls;
+        this.version = version;
+    }
+
+    /**
+     * Build the compact form of a Session, interning the techniques of its rolls into the dictionary
+     * @param s the Session to be converted
+     * @param dictionary the dictionary shared by all compact sessions of a cache
+     * @return the compact form of the Session
+     */
+    public static CompactSession of(Session s, TechniqueDictionary dictionary) {
+        List<Roll> rolls = s.getRolls() == null ? List.of() : s.getRolls();
+        CompactRoll[] compact = new CompactRoll[rolls.size()];
+        for (int i = 0; i < compact.length; i++) compact[i] = CompactRoll.of(rolls.get(i), dictionary);
+        return new CompactSession(s.getId(), s.getDate(), s.getTime(), s.isGi(), s.getInstructor(), s.getcurrentBelt(), compact, s.getVersion());
+    }
+
+    /**
+     * Expand the compact form back into a Session
+     * @return a new Session equal to the one this was built from
+     */
+    public Session toSession() {
+        List<Roll> out = new ArrayList<>(rolls.length);
+        for (CompactRoll r : rolls) out.add(r.toRoll());
+        Session s = new Session(id, date, time, isGi, instructor, currentBelt, out);
+        s.setVersion(version);
+        return s;
+    }
+
+    public long getId() { return id; }
+
+    public LocalDate getDate() { return date; }
+
+    public LocalTime getTime() { return time; }
+
+    public boolean isGi() { return isGi; }
+
+    public String getInstructor() { return instructor; }
+
+    public String getcurrentBelt() { return currentBelt; }
+
+    public long getVersion() { return version; }
+
+    /**
+     * Get the rolls of the session
+     * @return an unmodifiable list of the compact rolls
+     */
+    public List<CompactRoll> getRolls() {
+        return List.of(rolls);
+    }
+
+    /**
+     * Provide a string representation of the CompactSession object
+     * @return a string representation of the CompactSession object
+     */
+    @Override
+    public String toString() {
+        return "CompactSession ID: " + id + ", Date: " + date + ", Rolls: " + rolls.length;
+    }
+
+    /**
+     * Writes a CompactSession in the JSON shape of Session. Dates and times go through the configured serializers,
+     * so they are formatted the same way as a Session's.
+     */
+    static final class Serializer extends StdSerializer<CompactSession> {
+
+        Serializer() {
+            super(CompactSession.class);
+        }
+
+        @Override
+        public void serialize(CompactSession s, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", s.id);
+            provider.defaultSerializeField("date", s.date, gen);
+            provider.defaultSerializeField("time", s.time, gen);
+            gen.writeStringField("instructor", s.instructor);
+            gen.writeStringField("currentBelt", s.currentBelt);
+            gen.writeFieldName("rolls");
+            gen.writeStartArray();
+            for (CompactRoll r : s.rolls) provider.defaultSerializeValue(r, gen);
+            gen.writeEndArray();
+            gen.writeNumberField("version", s.version);
+            gen.writeBooleanField("gi", s.isGi);
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.model;
+
+/**
+ * Import statements for the LazyList class
+ */
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The LazyList class is a List whose elements are loaded on first access. It lets a Session's rolls or a Roll's technique counts
+ * be left unloaded until something actually reads them.
+ * The loader is expected to fill the list (and possibly other lazy lists loaded in the same batch) through {@link #fill(List)}.
+ * Once loaded the list behaves like an ordinary ArrayList. toString does not trigger a load.
+ * @param <T> the type of the elements
+ */
+public final class LazyList<T> extends AbstractList<T> {
+
+    /**
+     * Loads the elements of one or more lazy lists
+     */
+    @FunctionalInterface
+    public interface Loader {
+        void load();
+    }
+
+    private final String description;
+    private final Loader loader;
+    private List<T> values;
+
+    /**
+     * Constructor for LazyList object
+     * @param description what the list holds (e.g. "rolls of session 12"), used in error messages
+     * @param loader fills this list on first access
+     */
+    public LazyList(String description, Loader loader) {
+        this.description = description;
+        this.loader = loader;
+    }
+
+    /**
+     * Set the elements of the list, marking it loaded
+     * @param loaded the elements of the list
+     */
+    public void fill(List<T> loaded) {
+        this.values = new ArrayList<>(loaded);
+    }
+
+    /**
+     * Check whether the elements have been loaded
+     * @return true if the list has been loaded
+     */
+    public boolean isLoaded() {
+        return values != null;
+    }
+
+    /**
+     * Get what the list holds
+     * @return the description given when the list was created
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    private List<T> values() {
+        if (values == null) {
+            loader.load();
+            if (values == null) throw new IllegalStateException("Loader did not fill the " + description);
+        }
+        return values;
+    }
+
+    @Override
+    public T get(int index) {
+        return values().get(index);
+    }
+
+    @Override
+    public int size() {
+        return values().size();
+    }
+
+    @Override
+    public T set(int index, T element) {
+        return values().set(index, element);
+    }
+
+    @Override
+    public void add(int index, T element) {
+        values().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        modCount++;
+        return values().remove(index);
+    }
+
+    /**
+     * Provide a string representation of the LazyList object without loading it
+     * @return the elements if loaded, otherwise a placeholder naming what is not loaded
+     */
+    @Override
+    public String toString() {
+        return values != null ? values.toString() : "[" + description + ": not loaded]";
+    }
+}
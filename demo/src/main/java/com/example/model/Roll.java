@@ -3,6 +3,7 @@ package com.example.model;
 /**
  * Import statements for the Roll class
  */
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +23,8 @@ public class Roll {
     private int numRounds;
     private List<TechniqueCount> subs = new ArrayList<>(); 
     private List<TechniqueCount> taps = new ArrayList<>(); 
+    private long version;
+    private LocalDateTime createdAt;
 
     /**
      * Default constructor for Roll object
@@ -191,6 +194,38 @@ public class Roll {
         }
     }
 
+    /**
+     * Get the version of the roll, incremented by every update; updates must carry the version they were based on
+     * @return the version of the roll
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the roll
+     * @param version the version the roll was read at
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Get when the roll was inserted; rolls are listed most recently created first
+     * @return when the roll was inserted, or null if it was not read from the database
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Set when the roll was inserted; the database sets it on insert, so a value sent with a save is ignored
+     * @param createdAt when the roll was inserted
+     */
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     /**
      * Override the toString method to provide a string representation of the Roll object, including its ID, length in minutes, training partner, number of rounds, and lists of submissions and taps.
      * @return a string representation of the Roll object
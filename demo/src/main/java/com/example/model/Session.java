@@ -27,6 +27,7 @@ public class Session {
     private String instructor;
     private String currentBelt;    
     private List<Roll> rolls = new ArrayList<>();
+    private long version;
 
     /**
      * Default constructor for Session object
@@ -173,6 +174,22 @@ public class Session {
         rolls.add(roll);
     }
 
+    /**
+     * Get the version of the training session, incremented by every update; updates must carry the version they were based on
+     * @return the version of the training session
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the training session
+     * @param version the version the training session was read at
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Override the toString method to provide a string representation of the Session object
      * @return a string representation of the Session object
@@ -12,6 +12,7 @@ public class Technique {
     private String position;
     private int numFinishes; 
     private int numTaps;     
+    private long version;
 
     /**
      * Default constructor for Technique object
@@ -114,6 +115,22 @@ public class Technique {
         this.numTaps = numTaps;
     }
     
+    /**
+     * Get the version of the technique, incremented by every update; updates must carry the version they were based on
+     * @return the version of the technique
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the version of the technique
+     * @param version the version the technique was read at
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Override the toString method to provide a string representation of the Technique object
      * @return a string representation of the Technique object
@@ -0,0 +1,61 @@
+package com.example.model;
+
+/**
+ * Import statements for the TechniqueDictionary class
+ */
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TechniqueDictionary class holds one shared Technique instance per technique id.
+ * Compact rolls and sessions store technique ids only and resolve them through a dictionary when they are serialized or expanded,
+ * so a technique used in thousands of rolls is kept on the heap once instead of once per roll.
+ * The dictionary is thread-safe; interning a newer version of a technique replaces the shared instance.
+ */
+public class TechniqueDictionary {
+    private final ConcurrentHashMap<Long, Technique> techniques = new ConcurrentHashMap<>();
+
+    /**
+     * Add a technique to the dictionary, or replace the stored version of it
+     * @param technique the technique to be stored
+     * @return the id of the technique
+     */
+    public long intern(Technique technique) {
+        techniques.put(technique.getId(), technique);
+        return technique.getId();
+    }
+
+    /**
+     * Get the shared instance of a technique
+     * @param id the id of the technique
+     * @return the Technique, or null if the dictionary does not hold it
+     */
+    public Technique get(long id) {
+        return techniques.get(id);
+    }
+
+    /**
+     * Remove a technique from the dictionary
+     * @param id the id of the technique to be removed
+     */
+    public void remove(long id) {
+        techniques.remove(id);
+    }
+
+    /**
+     * Get all techniques held by the dictionary
+     * @return an unmodifiable view of the techniques
+     */
+    public Collection<Technique> values() {
+        return Collections.unmodifiableCollection(techniques.values());
+    }
+
+    /**
+     * Get the number of techniques held by the dictionary
+     * @return the number of techniques
+     */
+    public int size() {
+        return techniques.size();
+    }
+}
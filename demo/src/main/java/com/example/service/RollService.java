@@ -1,5 +1,8 @@
 package com.example.service;
 
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Roll;
 
 import java.sql.SQLException;
@@ -8,6 +11,9 @@ import java.util.List;
 public interface RollService {
     Roll saveRoll(long sessionId, Roll roll) throws SQLException;
     Roll getRoll(long id) throws SQLException;
+    Roll getRoll(long id, Projection projection) throws SQLException;
     List<Roll> getRolls() throws SQLException;
-    void deleteRoll(long id) throws SQLException;
+    List<Roll> getRolls(Projection projection) throws SQLException;
+    MultiGetResult<Roll> getRolls(List<Long> ids) throws SQLException;
+    DeleteResult deleteRoll(long id) throws SQLException;
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.example.service;
 
 import com.example.business.BusinessManager;
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Roll;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -28,13 +31,28 @@ public class RollServiceImpl implements RollService {
         return businessManager.getRoll(id); 
     }
 
+    @Override
+    public Roll getRoll(long id, Projection projection) throws SQLException {
+        return businessManager.getRoll(id, projection);
+    }
+
     @Override
     public List<Roll> getRolls() throws SQLException {
         return businessManager.getRolls();
     }
 
     @Override
-    public void deleteRoll(long id) throws SQLException {
-        businessManager.deleteRoll(id);
+    public List<Roll> getRolls(Projection projection) throws SQLException {
+        return businessManager.getRolls(projection);
+    }
+
+    @Override
+    public MultiGetResult<Roll> getRolls(List<Long> ids) throws SQLException {
+        return businessManager.getRolls(ids);
+    }
+
+    @Override
+    public DeleteResult deleteRoll(long id) throws SQLException {
+        return businessManager.deleteRoll(id);
     }
 }
\ No newline at end of file
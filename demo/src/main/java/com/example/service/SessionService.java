@@ -1,13 +1,23 @@
 package com.example.service;
 
+import com.example.business.IngestTicket;
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Session;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 
 public interface SessionService {
     Session saveSession(Session session) throws SQLException;
     Session getSession(long id) throws SQLException;
+    Session getSession(long id, Projection projection) throws SQLException;
     List<Session> getSessions() throws SQLException;
-    void deleteSession(long id) throws SQLException;
+    List<Session> getSessions(Projection projection) throws SQLException;
+    MultiGetResult<Session> getSessions(List<Long> ids) throws SQLException;
+    DeleteResult deleteSession(long id) throws SQLException;
+    IngestTicket enqueueSession(Session session) throws IOException;
+    IngestTicket getIngestTicket(String ticket);
 }
\ No newline at end of file
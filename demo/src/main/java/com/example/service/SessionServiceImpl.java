@@ -1,10 +1,16 @@
 package com.example.service;
 
 import com.example.business.BusinessManager;
+import com.example.business.IngestTicket;
+import com.example.business.SessionIngestQueue;
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
+import com.example.data.Projection;
 import com.example.model.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -12,10 +18,12 @@ import java.util.List;
 public class SessionServiceImpl implements SessionService {
 
     private final BusinessManager businessManager;
+    private final SessionIngestQueue ingestQueue;
 
     @Autowired
-    public SessionServiceImpl(BusinessManager businessManager) {
+    public SessionServiceImpl(BusinessManager businessManager, SessionIngestQueue ingestQueue) {
         this.businessManager = businessManager;
+        this.ingestQueue = ingestQueue;
     }
 
     @Override
@@ -28,13 +36,38 @@ public class SessionServiceImpl implements SessionService {
         return businessManager.getSession(id);
     }
 
+    @Override
+    public Session getSession(long id, Projection projection) throws SQLException {
+        return businessManager.getSession(id, projection);
+    }
+
     @Override
     public List<Session> getSessions() throws SQLException {
         return businessManager.getSessions();
     }
 
     @Override
-    public void deleteSession(long id) throws SQLException {
-        businessManager.deleteSession(id);
-    }   
+    public List<Session> getSessions(Projection projection) throws SQLException {
+        return businessManager.getSessions(projection);
+    }
+
+    @Override
+    public MultiGetResult<Session> getSessions(List<Long> ids) throws SQLException {
+        return businessManager.getSessions(ids);
+    }
+
+    @Override
+    public DeleteResult deleteSession(long id) throws SQLException {
+        return businessManager.deleteSession(id);
+    }
+
+    @Override
+    public IngestTicket enqueueSession(Session session) throws IOException {
+        return ingestQueue.enqueue(session);
+    }
+
+    @Override
+    public IngestTicket getIngestTicket(String ticket) {
+        return ingestQueue.getTicket(ticket);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.service;
+
+import com.example.business.DashboardSummary;
+
+import java.sql.SQLException;
+
+public interface SummaryService {
+    DashboardSummary getDashboardSummary() throws SQLException;
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.service;
+
+import com.example.business.BusinessManager;
+import com.example.business.DashboardSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+
+@Service
+public class SummaryServiceImpl implements SummaryService {
+
+    private final BusinessManager businessManager;
+
+    @Autowired
+    public SummaryServiceImpl(BusinessManager businessManager) {
+        this.businessManager = businessManager;
+    }
+
+    @Override
+    public DashboardSummary getDashboardSummary() throws SQLException {
+        return businessManager.getDashboardSummary();
+    }
+}
\ No newline at end of file
@@ -6,4 +6,5 @@ import java.sql.SQLException;
 
 public interface TechniqueCountService {
     TechniqueCount saveTechniqueCount(TechniqueCount tc) throws SQLException;
+    boolean incrementTechniqueCountLive(TechniqueCount tc) throws SQLException;
 }
\ No newline at end of file
@@ -21,4 +21,9 @@ public class TechniqueCountServiceImpl implements TechniqueCountService {
     public TechniqueCount saveTechniqueCount(TechniqueCount techniqueCount) throws SQLException {
         return businessManager.saveTechniqueCount(techniqueCount);
     }
+
+    @Override
+    public boolean incrementTechniqueCountLive(TechniqueCount techniqueCount) throws SQLException {
+        return businessManager.incrementTechniqueCountLive(techniqueCount);
+    }
 }
\ No newline at end of file
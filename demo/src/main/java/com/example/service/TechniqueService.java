@@ -1,5 +1,7 @@
 package com.example.service;
 
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
 import com.example.model.Technique;
 
 import java.sql.SQLException;
@@ -9,5 +11,6 @@ public interface TechniqueService {
     Technique saveTechnique(Technique technique) throws SQLException;
     Technique getTechnique(long id) throws SQLException;
     List<Technique> getTechniques() throws SQLException;
-    void deleteTechnique(long id) throws SQLException;
+    MultiGetResult<Technique> getTechniques(List<Long> ids) throws SQLException;
+    DeleteResult deleteTechnique(long id) throws SQLException;
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.example.service;
 
 import com.example.business.BusinessManager;
+import com.example.data.DeleteResult;
+import com.example.data.MultiGetResult;
 import com.example.model.Technique;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -34,7 +36,12 @@ public class TechniqueServiceImpl implements TechniqueService {
     }
 
     @Override
-    public void deleteTechnique(long id) throws SQLException {
-        businessManager.deleteTechnique(id);
+    public MultiGetResult<Technique> getTechniques(List<Long> ids) throws SQLException {
+        return businessManager.getTechniques(ids);
+    }
+
+    @Override
+    public DeleteResult deleteTechnique(long id) throws SQLException {
+        return businessManager.deleteTechnique(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.example.service;
+
+import com.example.data.TenantSummary;
+
+import java.sql.SQLException;
+import java.util.List;
+
+public interface TenantService {
+    List<TenantSummary> getTenantSummaries() throws SQLException;
+}
\ No newline at end of file
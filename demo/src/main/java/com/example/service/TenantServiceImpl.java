@@ -0,0 +1,25 @@
+package com.example.service;
+
+import com.example.business.BusinessManager;
+import com.example.data.TenantSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.List;
+
+@Service
+public class TenantServiceImpl implements TenantService {
+
+    private final BusinessManager businessManager;
+
+    @Autowired
+    public TenantServiceImpl(BusinessManager businessManager) {
+        this.businessManager = businessManager;
+    }
+
+    @Override
+    public List<TenantSummary> getTenantSummaries() throws SQLException {
+        return businessManager.getTenantSummaries();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+-- Schema for embedded (H2, MySQL mode) databases used by benchmarks and local testing.
+-- Mirrors sql/db_creation.sql without the CREATE DATABASE / USE statements; keep the two in sync.
+
+CREATE TABLE IF NOT EXISTS techniques (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  name VARCHAR(255) NOT NULL,
+  position VARCHAR(255),
+  num_finishes INT DEFAULT 0,
+  num_taps INT DEFAULT 0,
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  version BIGINT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at TIMESTAMP NULL
+);
+
+CREATE TABLE IF NOT EXISTS sessions (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  session_date DATE NOT NULL,
+  session_time TIME,
+  is_gi BOOLEAN DEFAULT TRUE,
+  instructor VARCHAR(255),
+  currentBelt VARCHAR(50),
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  version BIGINT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at TIMESTAMP NULL
+);
+
+CREATE TABLE IF NOT EXISTS rolls (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  session_id BIGINT NOT NULL,
+  length_minutes INT,
+  partner VARCHAR(255),
+  num_rounds INT,
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  version BIGINT NOT NULL DEFAULT 0,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  deleted_at TIMESTAMP NULL,
+  FOREIGN KEY (session_id) REFERENCES sessions(id) ON DELETE CASCADE
+);
+
+-- soft-deleted rows are found by the purger through deleted_at
+CREATE INDEX IF NOT EXISTS ix_techniques_deleted_at ON techniques (deleted_at);
+CREATE INDEX IF NOT EXISTS ix_sessions_deleted_at ON sessions (deleted_at);
+CREATE INDEX IF NOT EXISTS ix_rolls_deleted_at ON rolls (deleted_at);
+
+-- every read is scoped to one tenant (athlete or gym); see ShardRouter
+CREATE INDEX IF NOT EXISTS ix_techniques_tenant ON techniques (tenant_id);
+CREATE INDEX IF NOT EXISTS ix_sessions_tenant_date ON sessions (tenant_id, session_date);
+CREATE INDEX IF NOT EXISTS ix_rolls_tenant_created ON rolls (tenant_id, created_at);
+
+-- one row per (roll, technique) holding both counts; the primary key keeps a roll's links together
+CREATE TABLE IF NOT EXISTS roll_technique_links (
+  roll_id BIGINT NOT NULL,
+  technique_id BIGINT NOT NULL,
+  sub_count INT NOT NULL DEFAULT 0,
+  tap_count INT NOT NULL DEFAULT 0,
+  tenant_id VARCHAR(64) NOT NULL DEFAULT 'default',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (roll_id, technique_id),
+  FOREIGN KEY (roll_id) REFERENCES rolls(id) ON DELETE CASCADE,
+  FOREIGN KEY (technique_id) REFERENCES techniques(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ix_links_technique ON roll_technique_links (technique_id);
+CREATE INDEX IF NOT EXISTS ix_links_tenant ON roll_technique_links (tenant_id);
+
+-- tenant placements that override the consistent-hash ring (moved or pinned tenants); only read on the first shard
+CREATE TABLE IF NOT EXISTS tenant_placements (
+  tenant_id VARCHAR(64) PRIMARY KEY,
+  shard VARCHAR(64) NOT NULL,
+  moving BOOLEAN NOT NULL DEFAULT FALSE,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- the dashboard summary of each tenant as named running totals; kept current by deltas and rebuilt by reconciliation
+CREATE TABLE IF NOT EXISTS summary_counters (
+  tenant_id VARCHAR(64) NOT NULL,
+  counter VARCHAR(64) NOT NULL,
+  amount BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (tenant_id, counter)
+);
+
+-- invalidations published by each node after its commits, polled by the others
+CREATE TABLE IF NOT EXISTS change_log (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  tenant_id VARCHAR(64) NOT NULL,
+  entity VARCHAR(16) NOT NULL,
+  entity_id BIGINT NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
+  node VARCHAR(128) NOT NULL,
+  committed_at TIMESTAMP(3) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS ix_change_log_committed ON change_log (committed_at);
@@ -0,0 +1,108 @@
+package com.example.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.data.ShardRouter;
+import com.example.data.SyntheticDataGenerator;
+import com.example.metrics.QueryScope;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.TechniqueCount;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pins the number of statements the main reads and writes run, so an N+1 query pattern fails the build instead of showing up
+ * as a slow endpoint. The counts must not depend on how many sessions, rolls or technique counts there are.
+ */
+class BusinessManagerStatementCountTest {
+
+    private static final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private static DataProvider provider;
+    private static BusinessManager manager;
+
+    @BeforeAll
+    static void load() throws Exception {
+        provider = new DataProvider(EmbeddedDatabase.create("statement-counts"), registry);
+        SyntheticDataGenerator.parse(new String[] { "--rolls=200", "--seed=1" }).generate(provider);
+        manager = BusinessManager.builder(provider).registry(registry).build();
+    }
+
+    @AfterAll
+    static void shutdown() throws Exception {
+        manager.shutdown();
+    }
+
+    @Test
+    void getSessionReadsTheSessionRollsAndCounts() throws Exception {
+        Session busiest = manager.getSessions().stream().max((a, b) -> a.getRolls().size() - b.getRolls().size()).orElseThrow();
+        assertTrue(busiest.getRolls().size() > 1, "the session should have several rolls");
+        try (QueryScope scope = QueryScope.open("getSession")) {
+            manager.getSession(busiest.getId());
+            scope.assertStatementsAtMost(3);
+        }
+    }
+
+    @Test
+    void getSessionsDoesNotQueryPerSessionOrRoll() throws Exception {
+        try (QueryScope scope = QueryScope.open("getSessions")) {
+            List<Session> sessions = manager.getSessions();
+            assertTrue(sessions.size() > 3, "there should be more sessions than statements");
+            scope.assertStatementsAtMost(3);
+        }
+    }
+
+    @Test
+    void getRollsDoesNotQueryPerRoll() throws Exception {
+        try (QueryScope scope = QueryScope.open("getRolls")) {
+            manager.getRolls();
+            scope.assertStatementsAtMost(2);
+        }
+    }
+
+    @Test
+    void saveRollUpdateWritesOnlyTheDiff() throws Exception {
+        Session s = manager.getSessions().get(0);
+        Roll r = manager.getRoll(s.getRolls().get(0).getId());
+        r.setPartner(r.getPartner() + " (edited)");
+        try (QueryScope scope = QueryScope.open("saveRoll")) {
+            manager.saveRoll(s.getId(), r);
+            scope.assertStatementsAtMost(3);
+        }
+    }
+
+    @Test
+    void saveRollInsertReadsOnlyTheSessionDate() throws Exception {
+        Session s = manager.getSessions().get(0);
+        Roll r = new Roll();
+        r.setPartner("Statement counts");
+        r.setLengthMinutes(6);
+        r.setNumRounds(1);
+        r.getSubs().add(new TechniqueCount(0, manager.getTechniques().get(0), 2));
+        try (QueryScope scope = QueryScope.open("saveRoll")) {
+            manager.saveRoll(s.getId(), r);
+            scope.assertStatementsAtMost(3);
+        }
+    }
+
+    @Test
+    void fanOutIsCountedInTheCallersScope() throws Exception {
+        DataProvider sharded = new DataProvider(new ShardRouter(List.of(
+                new ShardRouter.Shard("shard-1", EmbeddedDatabase.createShard("statement-counts-fan-out", 1)),
+                new ShardRouter.Shard("shard-2", EmbeddedDatabase.createShard("statement-counts-fan-out", 2)))), registry);
+        try (QueryScope scope = QueryScope.open("getTenantSummaries")) {
+            sharded.getTenantSummaries();
+            // three counts per shard, run on the fan-out pool
+            assertEquals(6, scope.getStatements(), scope.describe());
+        }
+    }
+}
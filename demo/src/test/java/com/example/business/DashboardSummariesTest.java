@@ -0,0 +1,126 @@
+package com.example.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.data.Tenant;
+import com.example.model.Roll;
+import com.example.model.Session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that the deltas an edit passes to the DashboardSummaries move the counters the edit changed, and that the incrementally
+ * maintained summary matches a recomputation from the tables afterwards. Each test runs as its own tenant.
+ */
+class DashboardSummariesTest {
+
+    private static DataProvider provider;
+    private SimpleMeterRegistry registry;
+    private DashboardSummaries summaries;
+    private BusinessManager manager;
+
+    @BeforeAll
+    static void load() throws Exception {
+        provider = new DataProvider(EmbeddedDatabase.create("dashboard-summaries"), new SimpleMeterRegistry());
+    }
+
+    @BeforeEach
+    void build() {
+        registry = new SimpleMeterRegistry();
+        LiveTechniqueCounters live = new LiveTechniqueCounters(provider, registry, 500);
+        summaries = new DashboardSummaries(provider, registry, live);
+        manager = BusinessManager.builder(provider).registry(registry).live(live).summaries(summaries).build();
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        manager.shutdown();
+    }
+
+    @Test
+    void giFlipMovesTheSessionBetweenGiAndNoGi() throws Exception {
+        try (Tenant.Scope scope = Tenant.bind("summary-gi-flip")) {
+            Session s = manager.saveSession(session(LocalDate.now(), true, 2));
+            DashboardSummary before = manager.getDashboardSummary();
+            assertEquals(1, before.giSessions());
+            assertEquals(0, before.noGiSessions());
+
+            Session edited = manager.getSession(s.getId());
+            edited.setGi(false);
+            manager.saveSession(edited);
+            DashboardSummary after = manager.getDashboardSummary();
+            assertEquals(1, after.totalSessions());
+            assertEquals(0, after.giSessions());
+            assertEquals(1, after.noGiSessions());
+            assertEquals(before.totalMatHours(), after.totalMatHours());
+            assertEquals(2, after.rollsThisMonth());
+
+            assertMatchesRecomputation(after);
+        }
+    }
+
+    @Test
+    void monthChangeMovesTheRollsOutOfAndBackIntoThisMonth() throws Exception {
+        try (Tenant.Scope scope = Tenant.bind("summary-month-change")) {
+            Session s = manager.saveSession(session(LocalDate.now(), false, 3));
+            assertEquals(3, manager.getDashboardSummary().rollsThisMonth());
+
+            Session edited = manager.getSession(s.getId());
+            edited.setDate(YearMonth.now().minusMonths(1).atDay(15));
+            manager.saveSession(edited);
+            DashboardSummary lastMonth = manager.getDashboardSummary();
+            assertEquals(0, lastMonth.rollsThisMonth());
+            assertEquals(1, lastMonth.totalSessions());
+            assertMatchesRecomputation(lastMonth);
+
+            edited = manager.getSession(s.getId());
+            edited.setDate(LocalDate.now());
+            manager.saveSession(edited);
+            DashboardSummary thisMonth = manager.getDashboardSummary();
+            assertEquals(3, thisMonth.rollsThisMonth());
+            assertMatchesRecomputation(thisMonth);
+        }
+    }
+
+    private void assertMatchesRecomputation(DashboardSummary maintained) throws Exception {
+        long reconciledBefore = registry.get("bjj.summary.drift").summary().count();
+        double driftBefore = registry.get("bjj.summary.drift").summary().totalAmount();
+        summaries.reconcile();
+        assertEquals(reconciledBefore + 1, registry.get("bjj.summary.drift").summary().count());
+        assertEquals(driftBefore, registry.get("bjj.summary.drift").summary().totalAmount(), "the deltas drifted from the tables");
+        DashboardSummary recomputed = manager.getDashboardSummary();
+        assertEquals(maintained.totalSessions(), recomputed.totalSessions());
+        assertEquals(maintained.giSessions(), recomputed.giSessions());
+        assertEquals(maintained.noGiSessions(), recomputed.noGiSessions());
+        assertEquals(maintained.totalMatHours(), recomputed.totalMatHours());
+        assertEquals(maintained.rollsThisMonth(), recomputed.rollsThisMonth());
+    }
+
+    private static Session session(LocalDate date, boolean gi, int rolls) {
+        Session s = new Session();
+        s.setDate(date);
+        s.setTime(LocalTime.of(19, 0));
+        s.setGi(gi);
+        s.setInstructor("Summary coach");
+        s.setcurrentBelt("Purple");
+        for (int i = 0; i < rolls; i++) {
+            Roll r = new Roll();
+            r.setPartner("Summary partner " + i);
+            r.setLengthMinutes(6);
+            r.setNumRounds(1);
+            s.getRolls().add(r);
+        }
+        return s;
+    }
+}
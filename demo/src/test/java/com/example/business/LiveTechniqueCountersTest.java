@@ -0,0 +1,115 @@
+package com.example.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.data.ConnectionFactory;
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that a live flush that fails for a reason other than a missing roll or technique puts its increments back: they stay
+ * pending and visible to reads, are not counted in the summary, and are written by the next flush that succeeds.
+ */
+class LiveTechniqueCountersTest {
+
+    private static final AtomicBoolean databaseDown = new AtomicBoolean();
+    private static DataProvider provider;
+    private SimpleMeterRegistry registry;
+    private LiveTechniqueCounters live;
+    private BusinessManager manager;
+
+    @BeforeAll
+    static void load() throws Exception {
+        ConnectionFactory db = EmbeddedDatabase.create("live-counters");
+        ConnectionFactory flaky = () -> {
+            if (databaseDown.get()) throw new SQLTransientConnectionException("database unavailable");
+            return db.getConnection();
+        };
+        provider = new DataProvider(flaky, new SimpleMeterRegistry());
+    }
+
+    @BeforeEach
+    void build() {
+        registry = new SimpleMeterRegistry();
+        live = new LiveTechniqueCounters(provider, registry, 1_000); // flushed by the test only
+        manager = BusinessManager.builder(provider).registry(registry).live(live).build();
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        databaseDown.set(false);
+        manager.shutdown();
+        live.shutdown();
+    }
+
+    @Test
+    void failedFlushRestoresThePendingIncrements() throws Exception {
+        Technique kimura = manager.saveTechnique(new Technique(0, "Live restore kimura", "Side control", 0, 0));
+        long rollId = manager.saveSession(session()).getRolls().get(0).getId();
+        for (int i = 0; i < 3; i++) assertTrue(manager.incrementTechniqueCountLive(new TechniqueCount(rollId, kimura, 1)));
+        assertEquals(3, pending());
+
+        databaseDown.set(true);
+        live.flush("timer");
+        databaseDown.set(false);
+
+        assertEquals(3, pending(), "the increments of the failed flush are pending again");
+        assertEquals(0, subCount(provider.getRoll(rollId), kimura), "nothing was written");
+        assertEquals(3, subCount(manager.getRoll(rollId), kimura), "reads still include the pending increments");
+        assertEquals(0, summaryCount(kimura), "the summary counts increments once they are written");
+
+        live.flush("timer");
+
+        assertEquals(0, pending());
+        assertEquals(3, subCount(provider.getRoll(rollId), kimura));
+        assertEquals(3, provider.getTechnique(kimura.getId()).getNumFinishes());
+        assertEquals(3, subCount(manager.getRoll(rollId), kimura), "the written increments are not merged a second time");
+        assertEquals(3, summaryCount(kimura));
+    }
+
+    private double pending() {
+        return registry.get("bjj.live.pending").gauge().value();
+    }
+
+    private static int subCount(Roll r, Technique t) {
+        return r.getSubs().stream().filter(tc -> tc.getTechnique().getId() == t.getId()).mapToInt(TechniqueCount::getCount).sum();
+    }
+
+    private long summaryCount(Technique t) throws Exception {
+        List<DashboardSummary.TechniqueTotal> top = manager.getDashboardSummary().topSubs();
+        return top.stream().filter(total -> total.techniqueId() == t.getId()).mapToLong(DashboardSummary.TechniqueTotal::count).sum();
+    }
+
+    private static Session session() {
+        Roll r = new Roll();
+        r.setPartner("Live partner");
+        r.setLengthMinutes(6);
+        r.setNumRounds(1);
+        Session s = new Session();
+        s.setDate(LocalDate.now());
+        s.setTime(LocalTime.of(12, 0));
+        s.setGi(true);
+        s.setInstructor("Live coach");
+        s.setcurrentBelt("Brown");
+        s.getRolls().add(r);
+        return s;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.data.ConnectionFactory;
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.data.SyntheticDataGenerator;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that the read model serves what the database would, in the same order, after its own writes, and after it was warmed
+ * from a snapshot file written before other writes. Results are compared as the JSON the API would return.
+ */
+class ReadModelTest {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+    private static final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry registry;
+    private DataProvider provider;
+    private LiveTechniqueCounters live;
+    private ReadModel readModel;
+    private BusinessManager manager;
+
+    @BeforeEach
+    void load() throws Exception {
+        registry = new SimpleMeterRegistry();
+        ConnectionFactory db = EmbeddedDatabase.create("read-model-" + databases.incrementAndGet());
+        provider = new DataProvider(db, registry);
+        SyntheticDataGenerator.parse(new String[] { "--rolls=60", "--seed=7" }).generate(provider);
+        // creation order that differs from id order, and rolls created at the same time
+        try (Connection c = db.getConnection(); Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE rolls SET created_at = TIMESTAMP '2001-01-01 00:00:00' WHERE id = (SELECT MAX(id) FROM rolls)");
+            st.executeUpdate("UPDATE rolls SET created_at = TIMESTAMP '2030-01-01 00:00:00' WHERE id IN (SELECT id FROM rolls ORDER BY id LIMIT 3)");
+        }
+    }
+
+    @AfterEach
+    void shutdown() throws Exception {
+        if (manager == null) return;
+        manager.shutdown();
+        readModel.shutdown();
+        live.shutdown();
+        manager = null;
+    }
+
+    @Test
+    void modelServesWhatTheDatabaseWould() throws Exception {
+        start("");
+        assertSameAsDatabase();
+        assertTrue(registry.get("bjj.readmodel.reads").tag("source", "model").counter().count() > 0, "reads were served from memory");
+    }
+
+    @Test
+    void modelServesItsOwnWritesOnTheNextRead() throws Exception {
+        start("");
+        Session s = manager.getSessions().get(0);
+        Roll r = manager.getRoll(s.getRolls().get(0).getId());
+        r.setPartner("Read model partner");
+        manager.saveRoll(s.getId(), r);
+        assertEquals("Read model partner", manager.getRoll(r.getId()).getPartner());
+        manager.deleteRoll(s.getRolls().get(s.getRolls().size() - 1).getId());
+        assertSameAsDatabase();
+    }
+
+    @Test
+    void modelWarmedFromTheSnapshotFileCatchesUpWithLaterWrites() throws Exception {
+        String file = dir.resolve("read-model.snap").toString();
+        start(file);
+        shutdown(); // writes the file
+
+        // writes the file does not have
+        BusinessManager other = BusinessManager.builder(provider).registry(new SimpleMeterRegistry()).build();
+        try {
+            Session s = other.getSessions().get(0);
+            s.setInstructor("Changed after the snapshot");
+            other.saveSession(s);
+            other.deleteRoll(other.getSessions().get(1).getRolls().get(0).getId());
+        } finally {
+            other.shutdown();
+        }
+
+        start(file);
+        assertEquals(1, registry.get("bjj.readmodel.warm").tag("source", "file").timer().count());
+        assertSameAsDatabase();
+    }
+
+    /**
+     * Helper method to build a manager over an enabled read model, warmed before the test reads through it
+     */
+    private void start(String snapshotFile) throws Exception {
+        live = new LiveTechniqueCounters(provider, registry, 500);
+        readModel = new ReadModel(provider, registry, live, InvalidationBus.disabled(registry), true, snapshotFile);
+        manager = BusinessManager.builder(provider).registry(registry).live(live).readModel(readModel).build();
+        readModel.warm();
+        assertTrue(readModel.isReady());
+    }
+
+    private void assertSameAsDatabase() throws Exception {
+        assertEquals(mapper.writeValueAsString(provider.getSessions()), mapper.writeValueAsString(manager.getSessions()));
+        assertEquals(mapper.writeValueAsString(provider.getRolls()), mapper.writeValueAsString(manager.getRolls()));
+        assertEquals(mapper.writeValueAsString(provider.getTechniques()), mapper.writeValueAsString(manager.getTechniques()));
+    }
+}
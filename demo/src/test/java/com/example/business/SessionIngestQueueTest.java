@@ -0,0 +1,145 @@
+package com.example.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.data.Tenant;
+import com.example.model.Roll;
+import com.example.model.Session;
+import com.example.model.Technique;
+import com.example.model.TechniqueCount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks the asynchronous ingestion paths that only run when something goes wrong: a group commit that fails and is retried one
+ * session at a time, and the journal replay after the process stopped without completing its queue.
+ */
+class SessionIngestQueueTest {
+
+    private static final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private static final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private static DataProvider provider;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void load() throws Exception {
+        provider = new DataProvider(EmbeddedDatabase.create("session-ingest"), registry);
+    }
+
+    @Test
+    void failedGroupCommitRetriesEachSessionAlone() throws Exception {
+        // the new technique is inserted by the failed group commit, then again by the first retried session that uses it
+        Technique fresh = new Technique(0, "Ingest retry choke", "Back", 0, 0);
+        Technique missing = new Technique(999_999_999L, "Missing", "Mount", 0, 0);
+        SessionIngestQueue queue = queue("memory", 3);
+        try {
+            IngestTicket first = queue.enqueue(session("Retry first", fresh));
+            IngestTicket bad = queue.enqueue(session("Retry bad", missing));
+            IngestTicket second = queue.enqueue(session("Retry second", fresh));
+
+            IngestTicket firstDone = await(queue, first.ticket());
+            IngestTicket badDone = await(queue, bad.ticket());
+            IngestTicket secondDone = await(queue, second.ticket());
+            assertEquals(IngestTicket.Status.COMMITTED, firstDone.status());
+            assertEquals(IngestTicket.Status.FAILED, badDone.status());
+            assertEquals(IngestTicket.Status.COMMITTED, secondDone.status());
+
+            List<Technique> stored = provider.getTechniques().stream().filter(t -> t.getName().equals("Ingest retry choke")).toList();
+            assertEquals(1, stored.size(), "the technique is stored once, although the group commit inserted it before rolling back");
+            long techniqueId = stored.get(0).getId();
+            assertEquals(techniqueId, fresh.getId());
+            for (IngestTicket t : List.of(firstDone, secondDone)) {
+                Session s = provider.getSession(t.sessionId());
+                assertEquals(techniqueId, s.getRolls().get(0).getSubs().get(0).getTechnique().getId());
+            }
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void journalReplaysSessionsThatWereNeverCompleted() throws Exception {
+        Path path = dir.resolve("ingest.journal");
+        Technique armbar = new Technique(0, "Journal armbar", "Guard", 0, 0);
+        provider.saveTechnique(armbar);
+        // what a process that stopped abruptly leaves behind: one session completed, one not, and half of a third append
+        try (IngestJournal journal = new IngestJournal(path, mapper)) {
+            journal.append("ticket-done", Tenant.DEFAULT, session("Journal done", armbar));
+            journal.append("ticket-pending", Tenant.DEFAULT, session("Journal pending", armbar));
+            journal.complete(List.of("ticket-done"));
+        }
+        Files.writeString(path, "{\"op\":\"enqueue\",\"ticket\":\"ticket-torn\",\"ten", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        SessionIngestQueue queue = queue("journal", 10, path);
+        try {
+            IngestTicket replayed = await(queue, "ticket-pending");
+            assertEquals(IngestTicket.Status.COMMITTED, replayed.status());
+            Session s = provider.getSession(replayed.sessionId());
+            assertEquals("Journal pending", s.getInstructor());
+            assertEquals(armbar.getId(), s.getRolls().get(0).getSubs().get(0).getTechnique().getId());
+            assertNull(queue.getTicket("ticket-done"), "a completed session is not replayed");
+            assertNull(queue.getTicket("ticket-torn"), "a torn append is skipped");
+        } finally {
+            queue.shutdown();
+        }
+        assertEquals(1, provider.getSessions().stream().filter(s -> s.getInstructor().startsWith("Journal")).count());
+        assertEquals(0, Files.size(path), "the journal is emptied once nothing is pending");
+    }
+
+    private SessionIngestQueue queue(String durability, int maxBatch) throws Exception {
+        return queue(durability, maxBatch, dir.resolve("unused.journal"));
+    }
+
+    // a long linger, so the sessions enqueued together are committed together
+    private static SessionIngestQueue queue(String durability, int maxBatch, Path journal) throws Exception {
+        LiveTechniqueCounters live = new LiveTechniqueCounters(provider, registry, 500);
+        ReadModel readModel = new ReadModel(provider, registry, live, InvalidationBus.disabled(registry), false, "");
+        return new SessionIngestQueue(provider, registry, new DashboardSummaries(provider, registry, live), readModel, mapper,
+                                      100, maxBatch, 2000, 600_000, durability, journal.toString());
+    }
+
+    private static IngestTicket await(SessionIngestQueue queue, String ticket) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            IngestTicket t = queue.getTicket(ticket);
+            if (t != null && t.status() != IngestTicket.Status.PENDING) return t;
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Ticket " + ticket + " did not complete");
+    }
+
+    private static Session session(String instructor, Technique t) {
+        Roll r = new Roll();
+        r.setPartner("Ingest partner");
+        r.setLengthMinutes(5);
+        r.setNumRounds(1);
+        r.getSubs().add(new TechniqueCount(0, t, 1));
+        Session s = new Session();
+        s.setDate(LocalDate.of(2026, 3, 2));
+        s.setTime(LocalTime.of(18, 30));
+        s.setGi(true);
+        s.setInstructor(instructor);
+        s.setcurrentBelt("Blue");
+        s.getRolls().add(r);
+        return s;
+    }
+}
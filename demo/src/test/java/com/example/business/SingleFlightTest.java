@@ -0,0 +1,156 @@
+package com.example.business;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.data.DataProvider;
+import com.example.data.EmbeddedDatabase;
+import com.example.metrics.SqlOperation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that identical concurrent reads share one load, and that a leader whose load throws still completes it for the callers
+ * waiting on it, so they fail at once instead of timing out, and the next identical read starts a new load.
+ */
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 4;
+    private static DataProvider provider;
+    private SimpleMeterRegistry registry;
+    private SingleFlight flights;
+    private ExecutorService callers;
+
+    @BeforeAll
+    static void load() throws Exception {
+        provider = new DataProvider(EmbeddedDatabase.create("single-flight"), new SimpleMeterRegistry());
+    }
+
+    @BeforeEach
+    void build() {
+        registry = new SimpleMeterRegistry();
+        ReadModel readModel = new ReadModel(provider, registry, new LiveTechniqueCounters(provider, registry, 500),
+                                            InvalidationBus.disabled(registry), false, "");
+        // a long wait, so a follower that is never woken fails the test instead of timing out quietly
+        flights = new SingleFlight(provider, readModel, registry, true, 30_000, "");
+        callers = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    }
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void identicalReadsShareOneLoadAndGetTheirOwnCopies() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<String>>> results = startLoads(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return new ArrayList<>(List.of("shared"));
+        });
+        release.countDown();
+
+        List<List<String>> values = new ArrayList<>();
+        for (Future<List<String>> f : results) values.add(f.get(10, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        for (List<String> v : values) assertEquals(List.of("shared"), v);
+        for (int i = 1; i < values.size(); i++) assertNotSame(values.get(0), values.get(i), "every caller gets its own copy");
+    }
+
+    @Test
+    void leaderThatThrowsFailsItsFollowersAndTheNextReadStartsOver() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<String>>> results = startLoads(() -> {
+            await(release);
+            throw new SQLException("shard unavailable", "08S01");
+        });
+        release.countDown();
+
+        for (Future<List<String>> f : results) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+            SQLException cause = assertInstanceOf(SQLException.class, ex.getCause());
+            assertEquals("shard unavailable", cause.getMessage());
+            assertEquals("08S01", cause.getSQLState());
+        }
+        assertStartsOver();
+    }
+
+    @Test
+    void leaderThatThrowsAnUncheckedExceptionStillCompletesTheLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<List<String>>> results = startLoads(() -> {
+            await(release);
+            throw new IllegalStateException("mapping failed");
+        });
+        release.countDown();
+
+        for (Future<List<String>> f : results) {
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, ex.getCause());
+        }
+        assertStartsOver();
+    }
+
+    /**
+     * Start a leader running the loader, then followers of the same read, and wait until every follower has joined it
+     */
+    private List<Future<List<String>>> startLoads(SqlOperation<List<String>> loader) throws Exception {
+        List<Future<List<String>>> results = new ArrayList<>();
+        results.add(callers.submit(() -> flights.load("getSessions", List.of(), loader, ArrayList::new)));
+        awaitUntil(() -> registry.get("bjj.singleflight.inflight").gauge().value() == 1, "the leader to start");
+        for (int i = 0; i < FOLLOWERS; i++) {
+            results.add(callers.submit(() -> flights.load("getSessions", List.of(), loader, ArrayList::new)));
+        }
+        awaitUntil(() -> followers() == FOLLOWERS, "the followers to join");
+        return results;
+    }
+
+    private void assertStartsOver() throws Exception {
+        assertEquals(0, registry.get("bjj.singleflight.inflight").gauge().value(), "the failed flight was removed");
+        assertEquals(List.of("fresh"), flights.load("getSessions", List.of(), () -> new ArrayList<>(List.of("fresh")), ArrayList::new));
+    }
+
+    private double followers() {
+        Counter c = registry.find("bjj.singleflight.loads").tag("role", "follower").counter();
+        return c == null ? 0 : c.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("Timed out waiting for " + what);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that a change log row whose transaction commits after a row with a higher id was polled is still delivered, once, and
+ * that a row which commits further behind than the poll window is left to the resynchronization.
+ */
+class ChangeLogTransportTest {
+
+    private static final AtomicInteger databases = new AtomicInteger();
+    private ConnectionFactory db;
+    private DataProvider provider;
+
+    @BeforeEach
+    void build() throws Exception {
+        db = EmbeddedDatabase.create("change-log-" + databases.incrementAndGet());
+        provider = new DataProvider(db, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void rowThatCommitsLateIsDeliveredOnce() throws Exception {
+        ChangeLogTransport transport = new ChangeLogTransport(provider, 1_000, 10, 3_600_000);
+        assertEquals(List.of(), transport.poll(), "the first poll starts at the end of the log");
+
+        try (Connection slow = db.getConnection()) {
+            slow.setAutoCommit(false);
+            insert(slow, 1, "slow");
+            transport.publish(List.of(invalidation(2)));
+            assertEquals(List.of(2L), ids(transport.poll()), "the open transaction's row is not visible yet");
+            slow.commit();
+        }
+
+        assertEquals(List.of(1L), ids(transport.poll()), "the late row is read again from behind the position");
+        assertEquals(List.of(), transport.poll(), "rows already delivered are not delivered again");
+        transport.publish(List.of(invalidation(3)));
+        assertEquals(List.of(3L), ids(transport.poll()));
+    }
+
+    @Test
+    void rowThatCommitsBehindTheWindowIsMissed() throws Exception {
+        ChangeLogTransport transport = new ChangeLogTransport(provider, 1_000, 2, 3_600_000);
+        transport.poll();
+
+        try (Connection slow = db.getConnection()) {
+            slow.setAutoCommit(false);
+            insert(slow, 1, "slow");
+            for (long id = 2; id <= 5; id++) transport.publish(List.of(invalidation(id)));
+            assertEquals(List.of(2L, 3L, 4L, 5L), ids(transport.poll()));
+            slow.commit();
+        }
+
+        assertEquals(List.of(), transport.poll(), "the row committed more than the window behind the position");
+    }
+
+    private static Invalidation invalidation(long rollId) {
+        return new Invalidation(Tenant.DEFAULT, Invalidation.Entity.ROLL, rollId, 0, "fast", Instant.now());
+    }
+
+    private static void insert(Connection c, long rollId, String node) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO change_log (tenant_id, entity, entity_id, version, node, committed_at) "
+                                                       + "VALUES (?, 'ROLL', ?, 0, ?, ?)")) {
+            ps.setString(1, Tenant.DEFAULT);
+            ps.setLong(2, rollId);
+            ps.setString(3, node);
+            ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            ps.executeUpdate();
+        }
+    }
+
+    private static List<Long> ids(List<Invalidation> invalidations) {
+        return invalidations.stream().map(Invalidation::id).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks where the ReplicaRouter sends a connection: writes to the primary, reads over the replicas that take reads, and reads
+ * back to the primary for a client inside its read-your-writes window, for pinned work, and when no replica is healthy.
+ */
+class ReplicaRouterTest {
+
+    private static final int READS = 200;
+
+    private final AtomicBoolean replicaDown = new AtomicBoolean();
+    private SimpleMeterRegistry registry;
+    private ReplicaRouter router;
+
+    @BeforeEach
+    void build() {
+        registry = new SimpleMeterRegistry();
+        ConnectionFactory flaky = () -> {
+            if (replicaDown.get()) throw new SQLTransientConnectionException("replica-1 unavailable");
+            return database("replica-1");
+        };
+        router = new ReplicaRouter(() -> database("primary"), List.of(
+                new ReplicaRouter.Replica("replica-1", flaky, 1),
+                new ReplicaRouter.Replica("replica-2", () -> database("replica-2"), 1),
+                new ReplicaRouter.Replica("standby", () -> database("standby"), 0)), 60_000, registry);
+    }
+
+    @Test
+    void writesGoToThePrimaryAndReadsToReplicasThatTakeReads() throws Exception {
+        assertEquals("primary", nameOf(router.getConnection()));
+        Set<String> readFrom = new HashSet<>();
+        for (int i = 0; i < READS; i++) readFrom.add(nameOf(router.getReadConnection()));
+        assertEquals(Set.of("replica-1", "replica-2"), readFrom, "a replica of weight 0 takes no reads");
+        assertFalse(router.readsRequirePrimary());
+    }
+
+    @Test
+    void clientReadsItsOwnWritesFromThePrimary() throws Exception {
+        try (ReplicaRouter.Binding client = ReplicaRouter.bindClient("writer")) {
+            router.getConnection().close();
+            assertTrue(router.readsRequirePrimary());
+            for (int i = 0; i < 20; i++) assertEquals("primary", nameOf(router.getReadConnection()));
+        }
+        try (ReplicaRouter.Binding client = ReplicaRouter.bindClient("reader")) {
+            assertFalse(router.readsRequirePrimary(), "another client's write does not pin this one");
+            assertTrue(nameOf(router.getReadConnection()).startsWith("replica-"));
+        }
+    }
+
+    @Test
+    void pinnedReadsGoToThePrimary() throws Exception {
+        try (ReplicaRouter.Binding pin = ReplicaRouter.pinPrimary()) {
+            try (ReplicaRouter.Binding nested = ReplicaRouter.pinPrimary()) {
+                assertEquals("primary", nameOf(router.getReadConnection()));
+            }
+            assertEquals("primary", nameOf(router.getReadConnection()), "closing a nested pin keeps the outer one");
+        }
+        assertFalse(router.readsRequirePrimary());
+    }
+
+    @Test
+    void failedReplicaTakesNoReadsUntilItsHealthCheckPasses() throws Exception {
+        replicaDown.set(true);
+        for (int i = 0; i < READS; i++) assertEquals("replica-2", nameOf(router.getReadConnection()));
+        assertEquals(0, registry.get("bjj.db.replica.healthy").tag("replica", "replica-1").gauge().value());
+
+        replicaDown.set(false);
+        for (int i = 0; i < 20; i++) assertEquals("replica-2", nameOf(router.getReadConnection()), "still marked unhealthy");
+        router.checkHealth();
+        assertEquals(1, registry.get("bjj.db.replica.healthy").tag("replica", "replica-1").gauge().value());
+        Set<String> readFrom = new HashSet<>();
+        for (int i = 0; i < READS; i++) readFrom.add(nameOf(router.getReadConnection()));
+        assertEquals(Set.of("replica-1", "replica-2"), readFrom);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenNoReplicaIsHealthy() throws Exception {
+        ReplicaRouter single = new ReplicaRouter(() -> database("primary"), List.of(new ReplicaRouter.Replica("replica-1", () -> {
+            throw new SQLTransientConnectionException("replica-1 unavailable");
+        }, 1)), 60_000, registry);
+        assertEquals("primary", nameOf(single.getReadConnection()));
+        assertEquals("primary", nameOf(single.getReadConnection()));
+    }
+
+    private static Connection database(String name) throws SQLException {
+        return DriverManager.getConnection("jdbc:h2:mem:replica-router-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static String nameOf(Connection c) throws SQLException {
+        try (c) {
+            String url = c.getMetaData().getURL();
+            return url.substring(url.indexOf("replica-router-") + "replica-router-".length());
+        }
+    }
+}
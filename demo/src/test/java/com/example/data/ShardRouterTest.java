@@ -0,0 +1,112 @@
+package com.example.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks where the ShardRouter sends a tenant: the consistent-hash ring spreads tenants and moves only those the new shard takes
+ * when one is added, a placement overrides the ring, and a tenant marked moving keeps its reads but has its writes refused.
+ */
+class ShardRouterTest {
+
+    private static final int TENANTS = 2000;
+    private static final List<ShardRouter.Shard> shards = new ArrayList<>();
+
+    @BeforeAll
+    static void createShards() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            shards.add(new ShardRouter.Shard("shard-" + (i + 1), EmbeddedDatabase.createShard("shard-router-" + (i + 1), i)));
+        }
+    }
+
+    @Test
+    void ringSpreadsTenantsOverEveryShard() {
+        ShardRouter router = new ShardRouter(shards.subList(0, 3));
+        Map<String, Integer> perShard = new HashMap<>();
+        for (int i = 0; i < TENANTS; i++) {
+            String tenant = "tenant-" + i;
+            assertEquals(router.ringShard(tenant), router.ringShard(tenant), "placement must be stable");
+            perShard.merge(router.ringShard(tenant), 1, Integer::sum);
+        }
+        assertEquals(3, perShard.size(), perShard.toString());
+        // 128 virtual nodes per shard keep each share well within a factor of two of the even 1/3
+        for (int count : perShard.values()) assertTrue(count > TENANTS / 6 && count < TENANTS * 2 / 3, perShard.toString());
+    }
+
+    @Test
+    void addingAShardOnlyMovesTenantsToIt() {
+        ShardRouter three = new ShardRouter(shards.subList(0, 3));
+        ShardRouter four = new ShardRouter(shards);
+        int moved = 0;
+        for (int i = 0; i < TENANTS; i++) {
+            String tenant = "tenant-" + i;
+            String before = three.ringShard(tenant);
+            String after = four.ringShard(tenant);
+            if (!before.equals(after)) {
+                assertEquals("shard-4", after, tenant + " moved between existing shards");
+                moved++;
+            }
+        }
+        // about a quarter of the tenants move
+        assertTrue(moved > TENANTS / 8 && moved < TENANTS / 2, "moved " + moved);
+    }
+
+    @Test
+    void placementOverridesTheRing() throws Exception {
+        ShardRouter router = new ShardRouter(shards.subList(0, 3));
+        String tenant = "placed-tenant";
+        String other = router.ringShard(tenant).equals("shard-1") ? "shard-2" : "shard-1";
+        router.place(tenant, other, false);
+        assertEquals(other, router.shardFor(tenant));
+        try (Tenant.Scope scope = Tenant.bind(tenant); Connection c = router.getConnection()) {
+            assertEquals(other, shardOf(c));
+        }
+
+        ShardRouter restarted = new ShardRouter(shards.subList(0, 3));
+        restarted.refreshPlacements();
+        assertEquals(other, restarted.shardFor(tenant), "placements are read back from the catalog");
+    }
+
+    @Test
+    void writesAreRefusedWhileATenantIsMoving() throws Exception {
+        ShardRouter router = new ShardRouter(shards.subList(0, 3));
+        String tenant = "moving-tenant";
+        String source = router.ringShard(tenant);
+        router.place(tenant, source, true);
+        try (Tenant.Scope scope = Tenant.bind(tenant)) {
+            assertThrows(SQLTransientException.class, router::getConnection);
+            try (Connection c = router.getReadConnection()) {
+                assertEquals(source, shardOf(c), "reads stay on the source shard");
+            }
+            // shard-wide work bound to a shard is not frozen
+            try (ShardRouter.Binding binding = ShardRouter.onShard(source); Connection c = router.getConnection()) {
+                assertEquals(source, shardOf(c));
+            }
+
+            router.place(tenant, source, false);
+            try (Connection c = router.getConnection()) {
+                assertEquals(source, shardOf(c));
+            }
+        }
+    }
+
+    private static String shardOf(Connection c) throws SQLException {
+        String url = c.getMetaData().getURL();
+        for (ShardRouter.Shard shard : shards) {
+            if (url.endsWith("mem:shard-router-" + shard.name().substring("shard-".length()))) return shard.name();
+        }
+        throw new AssertionError("Unknown shard " + url);
+    }
+}